@@ -0,0 +1,123 @@
+package scheduler.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import scheduler.model.Appointment;
+import scheduler.util.time.SlotGrid;
+import scheduler.util.time.Time;
+import scheduler.util.time.TimeUtils;
+import scheduler.util.time.Week;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the checks run against every appointment of a schedule: overlap checks when saving an appointment,
+ * business hours checks, and the week filter of the appointments screen. Each benchmark checks every appointment of
+ * the dataset once.
+ * @author Steven Kazmierkiewicz
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AppointmentBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private List<Appointment> appointments;
+    private LocalDateTime slotStart;
+    private LocalDateTime slotEnd;
+    private Week week;
+    private final ZoneId zone = ZoneId.of("America/Los_Angeles");
+
+    @Setup
+    public void setUp() {
+        appointments = Dataset.ofAppointments(size).appointments;
+
+        // a one hour slot in the middle of the dataset
+        slotStart = Dataset.firstDay.plusDays(Dataset.days / 2).plusHours(10);
+        slotEnd = slotStart.plusHours(1);
+        week = Week.of(slotStart);
+    }
+
+    @Benchmark
+    public int overlaps() {
+        int count = 0;
+
+        for (var appointment : appointments) {
+            if (appointment.overlaps(slotStart, slotEnd))
+                count++;
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    public int isInOpenHours() {
+        int count = 0;
+
+        for (var appointment : appointments) {
+            if (TimeUtils.isInOpenHours(appointment.getStart(), appointment.getEnd(), zone))
+                count++;
+        }
+
+        return count;
+    }
+
+    @Benchmark
+    public int weekContains() {
+        int count = 0;
+
+        for (var appointment : appointments) {
+            if (week.contains(appointment.getStart()))
+                count++;
+        }
+
+        return count;
+    }
+
+    /**
+     * The time slots do not depend on the dataset, so they only run once per benchmark run.
+     * */
+    @State(Scope.Benchmark)
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    @Fork(1)
+    public static class Intervals {
+        @Benchmark
+        public List<Time> allDayIntervals() {
+            return Time.allDayIntervals();
+        }
+
+        @Benchmark
+        public String slotLabels() {
+            String last = null;
+            for (var slot : SlotGrid.of(5).slots())
+                last = slot.toString();
+
+            return last;
+        }
+
+        @Benchmark
+        public Time closestTime() {
+            return Time.closestTime(LocalTime.of(13, 7));
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package scheduler.bench;
+
+import scheduler.model.Appointment;
+import scheduler.model.Contact;
+import scheduler.model.Country;
+import scheduler.model.Customer;
+import scheduler.model.Division;
+import scheduler.model.User;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the same records for every run of the benchmarks on a day, shaped like the data in the scheduler database:
+ * a few countries, their divisions, a handful of contacts and users, and appointments spread over two years during and
+ * around business hours. The two years start a year before today, as the data of the application does.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class Dataset {
+    // within the business hours tables of TimeUtils, which run from a year before today to two years after
+    static final LocalDateTime firstDay = LocalDate.now().minusYears(1).atStartOfDay();
+    static final int days = 730;
+
+    private static final String[] countryNames = {"U.S", "UK", "Canada"};
+    private static final String[] streets = {"Main St", "Oak Ave", "Maple Rd", "High St", "Park Ln", "Elm Ct"};
+    private static final String[] firstNames = {"Daddy", "Lady", "Dudley", "Anna", "Louis", "Clara", "Omar", "Jin"};
+    private static final String[] lastNames = {"Warbucks", "McAnderson", "Do-Right", "Fischer", "Okafor", "Tanaka"};
+
+    final List<Country> countries = new ArrayList<>();
+    final List<Division> divisions = new ArrayList<>();
+    final List<Contact> contacts = new ArrayList<>();
+    final List<User> users = new ArrayList<>();
+    final List<Customer> customers = new ArrayList<>();
+    final List<Appointment> appointments = new ArrayList<>();
+
+    /**
+     * Generates a dataset.
+     * @param numCustomers the number of customers
+     * @param numAppointments the number of appointments
+     * */
+    Dataset(int numCustomers, int numAppointments) {
+        Random random = new Random(42);
+
+        for (int i = 0; i < countryNames.length; i++)
+            countries.add(new Country(i + 1, countryNames[i]));
+
+        for (int i = 0; i < 60; i++)
+            divisions.add(new Division(i + 1, "Division " + (i + 1), countries.get(i % countries.size())));
+
+        for (int i = 0; i < 10; i++)
+            contacts.add(new Contact(i + 1, "Contact " + (i + 1)));
+
+        for (int i = 0; i < 50; i++)
+            users.add(new User(i + 1, "user" + (i + 1)));
+
+        for (int i = 0; i < numCustomers; i++) {
+            String name = firstNames[random.nextInt(firstNames.length)] + " " +
+                    lastNames[random.nextInt(lastNames.length)] + " " + (i + 1);
+            String address = (random.nextInt(9000) + 100) + " " + streets[random.nextInt(streets.length)];
+            String postalCode = String.format("%05d", random.nextInt(100_000));
+            String phone = String.format("%03d-%03d-%04d", random.nextInt(1000), random.nextInt(1000),
+                    random.nextInt(10_000));
+
+            customers.add(new Customer(i + 1, name, address, postalCode, phone,
+                    divisions.get(random.nextInt(divisions.size()))));
+        }
+
+        Appointment.Type[] types = Appointment.Type.values();
+
+        for (int i = 0; i < numAppointments; i++) {
+            // quarter hour starts between 6:00 and 19:45, lasting 15 minutes to 2 hours
+            LocalDateTime start = firstDay.plusDays(random.nextInt(days)).plusHours(6 + random.nextInt(14))
+                    .plusMinutes(15L * random.nextInt(4));
+            LocalDateTime end = start.plusMinutes(15L * (1 + random.nextInt(8)));
+
+            appointments.add(new Appointment(i + 1, "Title " + (i + 1), "Description of appointment " + (i + 1),
+                    "Room " + random.nextInt(50), types[random.nextInt(types.length)], start, end,
+                    customers.get(random.nextInt(customers.size())), users.get(random.nextInt(users.size())),
+                    contacts.get(random.nextInt(contacts.size()))));
+        }
+    }
+
+    /**
+     * Generates a dataset with one customer for every ten appointments.
+     * @param numAppointments the number of appointments
+     * @return the dataset
+     * */
+    static Dataset ofAppointments(int numAppointments) {
+        return new Dataset(Math.max(100, numAppointments / 10), numAppointments);
+    }
+}
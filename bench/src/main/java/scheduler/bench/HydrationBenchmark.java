@@ -0,0 +1,212 @@
+package scheduler.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import scheduler.model.Appointment;
+import scheduler.model.Customer;
+import scheduler.mysql.DBAppointment;
+import scheduler.mysql.DBConnection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks building appointments from the rows of the database. By default the rows are generated into an
+ * in-memory H2 database in MySQL mode. To run against a real database instead, set the scheduler.jdbc.url,
+ * scheduler.jdbc.user and scheduler.jdbc.password system properties with -jvmArgsAppend, put the MySQL driver on the
+ * class path, and set the size parameter to the number of appointments in that database. A database given this way
+ * is used as it is.
+ * @author Steven Kazmierkiewicz
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class HydrationBenchmark {
+    private static final String h2Url = "jdbc:h2:mem:scheduler;MODE=MySQL;DATABASE_TO_LOWER=TRUE;NON_KEYWORDS=END;" +
+            "DB_CLOSE_DELAY=-1";
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private final DBAppointment dbAppt = new DBAppointment();
+    private LocalDateTime weekStart;
+    private LocalDateTime weekEnd;
+
+    @Setup
+    public void setUp() throws SQLException {
+        if (System.getProperty("scheduler.jdbc.url") == null) {
+            System.setProperty("scheduler.jdbc.url", h2Url);
+            System.setProperty("scheduler.jdbc.user", "sa");
+            System.setProperty("scheduler.jdbc.password", "");
+
+            try (var conn = DriverManager.getConnection(h2Url, "sa", "")) {
+                createTables(conn);
+                insert(conn, Dataset.ofAppointments(size));
+            }
+        }
+
+        weekStart = Dataset.firstDay.plusDays(Dataset.days / 2);
+        weekEnd = weekStart.plusDays(7);
+
+        DBConnection.startConnection();
+    }
+
+    @TearDown
+    public void tearDown() {
+        DBConnection.closeConnection();
+    }
+
+    @Benchmark
+    public List<Appointment> getAllAppointments() {
+        return dbAppt.getAllAppointments();
+    }
+
+    @Benchmark
+    public List<Appointment> getAppointmentsBetween() {
+        return dbAppt.getAppointmentsBetween(weekStart, weekEnd);
+    }
+
+    /**
+     * Creates the tables read by the DAOs, with the columns of the scheduler database.
+     * @param conn the connection
+     * @throws SQLException if a table cannot be created
+     * */
+    private static void createTables(Connection conn) throws SQLException {
+        String[] ddl = {
+                "CREATE TABLE countries(Country_ID INT PRIMARY KEY, Country VARCHAR(50))",
+                "CREATE TABLE first_level_divisions(Division_ID INT PRIMARY KEY, Division VARCHAR(50), " +
+                        "COUNTRY_ID INT REFERENCES countries(Country_ID))",
+                "CREATE TABLE contacts(Contact_ID INT PRIMARY KEY, Contact_Name VARCHAR(50), Email VARCHAR(50))",
+                "CREATE TABLE users(User_ID INT PRIMARY KEY, User_Name VARCHAR(50), Password TEXT)",
+                "CREATE TABLE customers(Customer_ID INT AUTO_INCREMENT PRIMARY KEY, Customer_Name VARCHAR(50), " +
+                        "Address VARCHAR(100), Postal_Code VARCHAR(50), Phone VARCHAR(50), " +
+                        "Create_Date DATETIME, Created_By VARCHAR(50), Last_Update TIMESTAMP, " +
+                        "Last_Updated_By VARCHAR(50), Division_ID INT REFERENCES first_level_divisions(Division_ID))",
+                "CREATE TABLE appointments(Appointment_ID INT AUTO_INCREMENT PRIMARY KEY, Title VARCHAR(50), " +
+                        "Description VARCHAR(50), Location VARCHAR(50), Type VARCHAR(50), Start DATETIME, End DATETIME, " +
+                        "Create_Date DATETIME, Created_By VARCHAR(50), Last_Update TIMESTAMP, " +
+                        "Last_Updated_By VARCHAR(50), Customer_ID INT REFERENCES customers(Customer_ID), " +
+                        "User_ID INT REFERENCES users(User_ID), Contact_ID INT REFERENCES contacts(Contact_ID))",
+                "CREATE INDEX Start_Index ON appointments (Start)"
+        };
+
+        try (var st = conn.createStatement()) {
+            for (var sql : ddl)
+                st.execute(sql);
+        }
+    }
+
+    /**
+     * Inserts every record of a dataset.
+     * @param conn the connection
+     * @param dataset the dataset
+     * @throws SQLException if a record cannot be inserted
+     * */
+    private static void insert(Connection conn, Dataset dataset) throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        try (var ps = conn.prepareStatement("INSERT INTO countries VALUES(?, ?)")) {
+            for (var country : dataset.countries) {
+                ps.setInt(1, country.getId());
+                ps.setString(2, country.get());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        try (var ps = conn.prepareStatement("INSERT INTO first_level_divisions VALUES(?, ?, ?)")) {
+            for (var division : dataset.divisions) {
+                ps.setInt(1, division.getId());
+                ps.setString(2, division.get());
+                ps.setInt(3, division.getCountry().getId());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        try (var ps = conn.prepareStatement("INSERT INTO contacts VALUES(?, ?, ?)")) {
+            for (var contact : dataset.contacts) {
+                ps.setInt(1, contact.getId());
+                ps.setString(2, contact.getName());
+                ps.setString(3, contact.getName().replace(' ', '.') + "@example.com");
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        try (var ps = conn.prepareStatement("INSERT INTO users VALUES(?, ?, ?)")) {
+            for (var user : dataset.users) {
+                ps.setInt(1, user.getId());
+                ps.setString(2, user.getName());
+                ps.setString(3, user.getName());
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+
+        try (var ps = conn.prepareStatement("INSERT INTO customers VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            int batched = 0;
+            for (Customer customer : dataset.customers) {
+                ps.setInt(1, customer.getId());
+                ps.setString(2, customer.getName());
+                ps.setString(3, customer.getAddress());
+                ps.setString(4, customer.getPostalCode());
+                ps.setString(5, customer.getPhone());
+                ps.setTimestamp(6, now);
+                ps.setString(7, "bench");
+                ps.setTimestamp(8, now);
+                ps.setString(9, "bench");
+                ps.setInt(10, customer.getDivision().getId());
+                ps.addBatch();
+
+                if (++batched % 10_000 == 0)
+                    ps.executeBatch();
+            }
+            ps.executeBatch();
+        }
+
+        try (var ps = conn.prepareStatement("INSERT INTO appointments " +
+                "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            int batched = 0;
+            for (Appointment appointment : dataset.appointments) {
+                ps.setInt(1, appointment.getId());
+                ps.setString(2, appointment.getTitle());
+                ps.setString(3, appointment.getDescription());
+                ps.setString(4, appointment.getLocation());
+                ps.setString(5, appointment.getType().toString());
+                ps.setTimestamp(6, Timestamp.valueOf(appointment.getStart()));
+                ps.setTimestamp(7, Timestamp.valueOf(appointment.getEnd()));
+                ps.setTimestamp(8, now);
+                ps.setString(9, "bench");
+                ps.setTimestamp(10, now);
+                ps.setString(11, "bench");
+                ps.setInt(12, appointment.getCustomerId());
+                ps.setInt(13, appointment.getUser().getId());
+                ps.setInt(14, appointment.getContact().getId());
+                ps.addBatch();
+
+                if (++batched % 10_000 == 0)
+                    ps.executeBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+}
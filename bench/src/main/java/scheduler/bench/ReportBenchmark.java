@@ -0,0 +1,48 @@
+package scheduler.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import scheduler.model.Appointment;
+import scheduler.util.Reports;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks converting appointments into report rows, with the columns of the appointments screen.
+ * @author Steven Kazmierkiewicz
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ReportBenchmark {
+    private static final List<String> fieldNames = List.of("id", "title", "description", "location", "contact", "type",
+            "startFormatted", "endFormatted", "customerId", "customerName");
+
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    private List<Appointment> appointments;
+
+    @Setup
+    public void setUp() {
+        appointments = Dataset.ofAppointments(size).appointments;
+    }
+
+    @Benchmark
+    public List<List<String>> fromObject() {
+        return Reports.fromObject(appointments, fieldNames);
+    }
+}
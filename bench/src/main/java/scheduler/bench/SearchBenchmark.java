@@ -0,0 +1,75 @@
+package scheduler.bench;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import scheduler.dao.cache.CustomerIndex;
+import scheduler.model.Customer;
+import scheduler.util.SearchUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks searching the customers, both by scanning the list with SearchUtils and through the customer search
+ * index. The queries are a common street name, which matches about one customer in six, and a single customer's
+ * name.
+ * @author Steven Kazmierkiewicz
+ * */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"Main St", "Warbucks 777"})
+    public String query;
+
+    private ObservableList<Customer> customers;
+    private CustomerIndex index;
+
+    @Setup
+    public void setUp() {
+        List<Customer> generated = new Dataset(size, 0).customers;
+
+        customers = FXCollections.observableList(generated);
+        index = new CustomerIndex(() -> generated, null);
+
+        // builds the index outside of the measurement
+        index.search(query);
+    }
+
+    @Benchmark
+    public int searchAllFields() {
+        return SearchUtils.search(customers, query).size();
+    }
+
+    @Benchmark
+    public int searchOneField() {
+        return SearchUtils.search(customers, query, "address").size();
+    }
+
+    @Benchmark
+    public int indexAllFields() {
+        return index.search(query).size();
+    }
+
+    @Benchmark
+    public int indexOneField() {
+        return index.search(query, "address").size();
+    }
+}
@@ -0,0 +1,37 @@
+-- Tables for the recurring appointment series in DBAppointmentSeries. A series is stored once with its rule, and
+-- only the dates it skips get rows of their own.
+-- Run once against the scheduler database.
+
+CREATE TABLE appointment_series (
+    Series_ID INT NOT NULL AUTO_INCREMENT,
+    Title VARCHAR(50),
+    Description VARCHAR(50),
+    Location VARCHAR(50),
+    Type VARCHAR(50),
+    Start DATETIME,
+    End DATETIME,
+    Frequency VARCHAR(10) NOT NULL,
+    Recur_Interval INT NOT NULL DEFAULT 1,
+    Until DATE,
+    Create_Date DATETIME,
+    Created_By VARCHAR(50),
+    Last_Update TIMESTAMP,
+    Last_Updated_By VARCHAR(50),
+    Customer_ID INT NOT NULL,
+    User_ID INT NOT NULL,
+    Contact_ID INT NOT NULL,
+    PRIMARY KEY (Series_ID),
+    FOREIGN KEY (Customer_ID) REFERENCES customers (Customer_ID),
+    FOREIGN KEY (User_ID) REFERENCES users (User_ID),
+    FOREIGN KEY (Contact_ID) REFERENCES contacts (Contact_ID)
+);
+
+CREATE INDEX Series_Customer_Index ON appointment_series (Customer_ID, Start);
+CREATE INDEX Series_Contact_Index ON appointment_series (Contact_ID, Start);
+
+CREATE TABLE appointment_series_exceptions (
+    Series_ID INT NOT NULL,
+    Skip_Date DATE NOT NULL,
+    PRIMARY KEY (Series_ID, Skip_Date),
+    FOREIGN KEY (Series_ID) REFERENCES appointment_series (Series_ID) ON DELETE CASCADE
+);
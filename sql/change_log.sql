@@ -0,0 +1,57 @@
+-- Tables and triggers followed by the change feeds in scheduler.dao.cache.ChangeFeed, which keep the appointments and
+-- customers screens up to date without reading the tables again. A changed row is found by its Last_Update, a
+-- deleted row by its entry in deleted_rows, and the number of rows is read from row_counts instead of counting them.
+-- Run once against the scheduler database.
+
+CREATE TABLE deleted_rows (
+    Delete_ID BIGINT NOT NULL AUTO_INCREMENT,
+    Table_Name VARCHAR(64) NOT NULL,
+    Row_ID INT NOT NULL,
+    Deleted_At TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (Delete_ID)
+);
+
+CREATE INDEX Deleted_Table_Index ON deleted_rows (Table_Name, Deleted_At);
+
+CREATE TABLE row_counts (
+    Table_Name VARCHAR(64) NOT NULL,
+    Row_Count BIGINT NOT NULL,
+    PRIMARY KEY (Table_Name)
+);
+
+CREATE INDEX Appointment_Update_Index ON appointments (Last_Update);
+CREATE INDEX Customer_Update_Index ON customers (Last_Update);
+
+DELIMITER //
+
+CREATE TRIGGER appointments_counted AFTER INSERT ON appointments FOR EACH ROW
+BEGIN
+    UPDATE row_counts SET Row_Count = Row_Count + 1 WHERE Table_Name = 'appointments';
+END//
+
+CREATE TRIGGER appointments_deleted AFTER DELETE ON appointments FOR EACH ROW
+BEGIN
+    INSERT INTO deleted_rows (Table_Name, Row_ID) VALUES ('appointments', OLD.Appointment_ID);
+    UPDATE row_counts SET Row_Count = Row_Count - 1 WHERE Table_Name = 'appointments';
+END//
+
+CREATE TRIGGER customers_counted AFTER INSERT ON customers FOR EACH ROW
+BEGIN
+    UPDATE row_counts SET Row_Count = Row_Count + 1 WHERE Table_Name = 'customers';
+END//
+
+CREATE TRIGGER customers_deleted AFTER DELETE ON customers FOR EACH ROW
+BEGIN
+    INSERT INTO deleted_rows (Table_Name, Row_ID) VALUES ('customers', OLD.Customer_ID);
+    UPDATE row_counts SET Row_Count = Row_Count - 1 WHERE Table_Name = 'customers';
+END//
+
+DELIMITER ;
+
+-- counted after the triggers exist, so no row inserted in between is missed
+INSERT INTO row_counts (Table_Name, Row_Count) SELECT 'appointments', COUNT(*) FROM appointments;
+INSERT INTO row_counts (Table_Name, Row_Count) SELECT 'customers', COUNT(*) FROM customers;
+
+-- a feed that has not synced in a day loads again, so a week of deleted rows is plenty; needs the event scheduler on
+CREATE EVENT purge_deleted_rows ON SCHEDULE EVERY 1 DAY
+    DO DELETE FROM deleted_rows WHERE Deleted_At < NOW() - INTERVAL 7 DAY;
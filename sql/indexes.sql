@@ -0,0 +1,7 @@
+-- Indexes supporting the date-range appointment queries in DBAppointment.
+-- Run once against the scheduler database.
+
+CREATE INDEX Start_Index ON appointments (Start);
+CREATE INDEX Customer_Start_Index ON appointments (Customer_ID, Start);
+CREATE INDEX Contact_Start_Index ON appointments (Contact_ID, Start);
+CREATE INDEX User_Start_Index ON appointments (User_ID, Start);
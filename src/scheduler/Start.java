@@ -5,16 +5,24 @@ import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.stage.Stage;
+import scheduler.api.ApiServer;
 import scheduler.mysql.DBConnection;
+import scheduler.report.ReportBatch;
 import scheduler.util.WordUtils;
+import scheduler.util.metrics.Metrics;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.*;
 
 /**
  * The starting class of the application.
  * */
 public class Start extends Application {
+    // how often the metrics are written to metrics.txt
+    private static final Duration metricsDumpInterval = Duration.ofMinutes(1);
+    private static final String apiOption = "--api";
+    private static final int defaultApiPort = 8080;
 
     /**
      * Loads the initial screen of the application.
@@ -28,21 +36,99 @@ public class Start extends Application {
         Parent root = FXMLLoader.load(getClass().getResource("viewcontroller/login/login.fxml"));
         primaryStage.setTitle(WordUtils.capitalizeAll(rb.getString("appointmentScheduler")));
         primaryStage.setScene(new Scene(root));
+        Metrics.trackActions(primaryStage);
         primaryStage.show();
     }
 
 
     /**
-     * Entry method of the application.
-     * @param args command line arguments, not used
+     * Entry method of the application. With --api or --api=port the HTTP API is served instead of showing the screens,
+     * and with --report=name the reports are written to files and the application exits, both without starting the
+     * JavaFX toolkit.
+     * @param args command line arguments
      * */
     public static void main(String[] args) {
         // ************* UNCOMMENT THE FOLLOWING LINES TO TEST DIFFERENT LOCALE OR TIMEZONE
         //Locale.setDefault(Locale.FRANCE);
         //TimeZone.setDefault(TimeZone.getTimeZone(ZoneId.of("Europe/Paris")));
 
+        Integer apiPort;
+
+        try {
+            apiPort = apiPort(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: " + apiOption + "[=<port>]");
+            System.exit(2);
+            return;
+        }
+
         DBConnection.startConnection();
+        Metrics.startDump(metricsDumpInterval);
+
+        if (ReportBatch.isRequested(args)) {
+            int status = ReportBatch.run(args);
+            DBConnection.closeConnection();
+            System.exit(status);
+        }
+
+        if (apiPort != null) {
+            serveApi(apiPort);
+            return;
+        }
+
         launch(args);
         DBConnection.closeConnection();
     }
+
+    /**
+     * Gets the port of the HTTP API from the command line arguments.
+     * @param args command line arguments
+     * @return the port, or null if the API was not asked for
+     * @throws IllegalArgumentException if the port is not a valid port number
+     * */
+    private static Integer apiPort(String[] args) {
+        for (String arg : args) {
+            if (arg.equals(apiOption))
+                return defaultApiPort;
+            if (arg.startsWith(apiOption + "=")) {
+                String value = arg.substring(apiOption.length() + 1);
+                int port;
+
+                try {
+                    port = Integer.parseInt(value);
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException(apiOption + " must be given a port number, not " + value + ".");
+                }
+
+                if (port < 0 || port > 65535)
+                    throw new IllegalArgumentException(apiOption + " must be given a port from 0 to 65535.");
+
+                return port;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Serves the HTTP API until the process is stopped, then closes the database connections.
+     * @param port the port to listen on
+     * */
+    private static void serveApi(int port) {
+        try {
+            ApiServer server = new ApiServer(port);
+
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                server.stop();
+                DBConnection.closeConnection();
+            }));
+
+            server.start();
+            System.out.println("Serving the API on port " + server.getPort());
+        } catch (IOException e) {
+            e.printStackTrace();
+            DBConnection.closeConnection();
+        }
+    }
 }
@@ -0,0 +1,438 @@
+package scheduler.api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import scheduler.dao.cache.ReferenceData;
+import scheduler.model.Appointment;
+import scheduler.model.AppointmentSeries;
+import scheduler.model.Customer;
+import scheduler.model.User;
+import scheduler.util.Exceptions;
+import scheduler.util.LoginLog;
+import scheduler.util.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The base of the handlers of the HTTP API. Every request must sign in as a user with HTTP basic authentication, and
+ * is then handled as that user, so the records it creates or changes are attributed to it rather than to whoever is
+ * signed in to the screens. Each request is also counted as its own action in the metrics. Errors are sent as a JSON
+ * object holding the message.
+ * @author Steven Kazmierkiewicz
+ * */
+abstract class ApiHandler implements HttpHandler {
+    // how long a sign in is reused before the credentials are checked again, so a changed password or removed user
+    // stops working soon after
+    private static final long signInTtlNanos = Duration.ofMinutes(1).toNanos();
+    private static final int maxSignIns = 1000;
+
+    // the recent sign ins by a hash of their authorization header, so a client does not query the database per request
+    private static final Map<String, SignIn> signedIn = new ConcurrentHashMap<>();
+
+    private final String name;
+
+    /**
+     * Creates a handler.
+     * @param name the name of the resource handled, used to name its actions in the metrics
+     * */
+    ApiHandler(String name) {
+        this.name = name;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            User user = authenticate(exchange);
+            Metrics.runAs(Metrics.startAction("API > " + exchange.getRequestMethod() + " " + name),
+                    () -> User.runAs(user, () -> {
+                        handle(new Request(exchange));
+                        return null;
+                    }));
+        } catch (Failure e) {
+            sendError(exchange, e.status, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            sendError(exchange, 500, "The request could not be completed.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Handles a request as its user.
+     * @param request the request
+     * */
+    protected abstract void handle(Request request);
+
+    /**
+     * Gets the user of the authorization header of a request, signing in with its username and password unless it
+     * signed in within the last minute. The attempt is recorded with the login attempts of the screens.
+     * @param exchange the exchange
+     * @return the user
+     * @throws Failure if the header is missing or the user cannot sign in
+     * */
+    private static User authenticate(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+
+        if (header == null || !header.startsWith("Basic ")) {
+            exchange.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"scheduler\"");
+            throw new Failure(401, "Sign in with HTTP basic authentication.");
+        }
+
+        String key = hash(header);
+        long now = System.nanoTime();
+        SignIn recent = signedIn.get(key);
+
+        if (recent != null && now - recent.at < signInTtlNanos)
+            return recent.user;
+
+        User user;
+
+        String credentials;
+        try {
+            credentials = new String(Base64.getDecoder().decode(header.substring(6).strip()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new Failure(401, "The authorization header is not valid.");
+        }
+
+        int colon = credentials.indexOf(':');
+        if (colon < 0)
+            throw new Failure(401, "The authorization header is not valid.");
+
+        String username = credentials.substring(0, colon);
+
+        try {
+            user = ReferenceData.users().login(username, credentials.substring(colon + 1));
+        } catch (Exceptions.UserException e) {
+            LoginLog.record(username, false);
+            throw new Failure(401, e.getMessage());
+        }
+
+        if (user == null)
+            throw new Failure(500, "The user could not be signed in.");
+
+        LoginLog.record(username, true);
+
+        if (signedIn.size() >= maxSignIns)
+            signedIn.values().removeIf(s -> now - s.at >= signInTtlNanos);
+        if (signedIn.size() >= maxSignIns)
+            signedIn.clear();
+
+        signedIn.put(key, new SignIn(user, now));
+        return user;
+    }
+
+    /**
+     * Hashes an authorization header, so the credentials are not kept in memory as they were sent.
+     * @param header the header
+     * @return the SHA-256 hash, in base 64
+     * */
+    private static String hash(String header) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(header.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A user that signed in, and when.
+     * */
+    private static final class SignIn {
+        private final User user;
+        private final long at;
+
+        private SignIn(User user, long at) {
+            this.user = user;
+            this.at = at;
+        }
+    }
+
+    /**
+     * Sends a JSON object holding an error message.
+     * @param exchange the exchange
+     * @param status the status code
+     * @param message the message
+     * */
+    private static void sendError(HttpExchange exchange, int status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+
+        try {
+            send(exchange, status, body);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = body == null ? new byte[0] : Json.write(body).getBytes(StandardCharsets.UTF_8);
+
+        if (body != null)
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Converts an appointment to a JSON object. An occurrence of a series also holds the series id and its date.
+     * @param appointment the appointment
+     * @return the object
+     * */
+    static Map<String, Object> toJson(Appointment appointment) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", appointment.getId());
+        json.put("title", appointment.getTitle());
+        json.put("description", appointment.getDescription());
+        json.put("location", appointment.getLocation());
+        json.put("type", appointment.getType().getValue());
+        json.put("start", appointment.getStart());
+        json.put("end", appointment.getEnd());
+        json.put("customerId", appointment.getCustomerId());
+        json.put("customerName", appointment.getCustomerName());
+        json.put("contactId", appointment.getContact().getId());
+        json.put("contactName", appointment.getContact().getName());
+        json.put("userId", appointment.getUser().getId());
+        json.put("userName", appointment.getUser().getName());
+
+        if (appointment instanceof AppointmentSeries.Occurrence) {
+            var occurrence = (AppointmentSeries.Occurrence) appointment;
+            json.put("seriesId", occurrence.getSeries().getId());
+            json.put("date", occurrence.getDate());
+        }
+
+        return json;
+    }
+
+    /**
+     * Converts a customer to a JSON object.
+     * @param customer the customer
+     * @return the object
+     * */
+    static Map<String, Object> toJson(Customer customer) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", customer.getId());
+        json.put("name", customer.getName());
+        json.put("address", customer.getAddress());
+        json.put("postalCode", customer.getPostalCode());
+        json.put("phone", customer.getPhone());
+        json.put("divisionId", customer.getDivision().getId());
+        json.put("division", customer.getDivisionName());
+        json.put("country", customer.getCountryName());
+        return json;
+    }
+
+    /**
+     * An error to send in response to a request, with its status code.
+     * */
+    static class Failure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int status;
+
+        Failure(int status, String m) {
+            super(m);
+            this.status = status;
+        }
+    }
+
+    /**
+     * A request to a handler, with helpers for reading its path, query and body and for sending its response.
+     * */
+    static class Request {
+        private final HttpExchange exchange;
+        private final List<String> path;
+        private final Map<String, String> query = new HashMap<>();
+
+        private Request(HttpExchange exchange) {
+            this.exchange = exchange;
+
+            // the segments of the path after the context of the handler
+            String context = exchange.getHttpContext().getPath();
+            String rest = exchange.getRequestURI().getPath().substring(context.length());
+            this.path = rest.isEmpty() || rest.equals("/") ? List.of() : List.of(rest.replaceAll("^/|/$", "").split("/"));
+
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            if (rawQuery != null) {
+                for (String pair : rawQuery.split("&")) {
+                    int eq = pair.indexOf('=');
+                    String key = eq < 0 ? pair : pair.substring(0, eq);
+                    String value = eq < 0 ? "" : pair.substring(eq + 1);
+                    query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        /**
+         * Getter for the method.
+         * @return the HTTP method
+         * */
+        String getMethod() {
+            return exchange.getRequestMethod();
+        }
+
+        /**
+         * Getter for the path.
+         * @return the segments of the path after the context of the handler
+         * */
+        List<String> getPath() {
+            return path;
+        }
+
+        /**
+         * Gets a segment of the path as an id.
+         * @param index the index of the segment
+         * @return the id
+         * @throws Failure if the segment is not a number
+         * */
+        int pathId(int index) {
+            try {
+                return Integer.parseInt(path.get(index));
+            } catch (NumberFormatException e) {
+                throw new Failure(404, "No such resource.");
+            }
+        }
+
+        /**
+         * Gets a parameter of the query.
+         * @param name the name of the parameter
+         * @return the value, or null if it is not given
+         * */
+        String param(String name) {
+            String value = query.get(name);
+            return value == null || value.isEmpty() ? null : value;
+        }
+
+        /**
+         * Gets a parameter of the query as an integer.
+         * @param name the name of the parameter
+         * @return the value, or null if it is not given
+         * @throws IllegalArgumentException if the value is not an integer
+         * */
+        Integer intParam(String name) {
+            String value = param(name);
+
+            try {
+                return value == null ? null : Integer.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(name + " must be an integer.");
+            }
+        }
+
+        /**
+         * Gets a parameter of the query as a date and time. A date alone is the start of the day.
+         * @param name the name of the parameter
+         * @return the value, or null if it is not given
+         * @throws IllegalArgumentException if the value is not an ISO date or date and time
+         * */
+        LocalDateTime dateTimeParam(String name) {
+            String value = param(name);
+            return value == null ? null : parseDateTime(name, value);
+        }
+
+        /**
+         * Reads the body of the request as a JSON object.
+         * @return the object
+         * @throws IllegalArgumentException if the body is not a JSON object
+         * */
+        @SuppressWarnings("unchecked")
+        Map<String, Object> body() {
+            try {
+                Object body = Json.read(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+
+                if (!(body instanceof Map))
+                    throw new IllegalArgumentException("The body must be a JSON object.");
+
+                return (Map<String, Object>) body;
+            } catch (IOException e) {
+                throw new IllegalArgumentException("The body could not be read.");
+            }
+        }
+
+        /**
+         * Sends a JSON response.
+         * @param status the status code
+         * @param body the value to send, or null for no body
+         * */
+        void send(int status, Object body) {
+            try {
+                ApiHandler.send(exchange, status, body);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Parses an ISO date and time, or a date for the start of the day.
+     * @param name the name of the value, for the error
+     * @param value the text
+     * @return the date and time
+     * @throws IllegalArgumentException if the text is not a date or date and time
+     * */
+    static LocalDateTime parseDateTime(String name, String value) {
+        try {
+            return value.length() <= 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be an ISO date or date and time.");
+        }
+    }
+
+    /**
+     * Gets an object's string value.
+     * @param body the object
+     * @param name the name of the value
+     * @return the string, or null if it is missing
+     * */
+    static String string(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        return value == null ? null : value.toString().strip();
+    }
+
+    /**
+     * Gets an object's integer value.
+     * @param body the object
+     * @param name the name of the value
+     * @return the integer, or null if it is missing
+     * @throws IllegalArgumentException if the value is not an integer
+     * */
+    static Integer integer(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+
+        if (value == null)
+            return null;
+        if (value instanceof Long)
+            return ((Long) value).intValue();
+
+        try {
+            return Integer.valueOf(value.toString());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer.");
+        }
+    }
+}
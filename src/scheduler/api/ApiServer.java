@@ -0,0 +1,86 @@
+package scheduler.api;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An embedded HTTP server exposing the appointments, customers and reports as JSON, for integrations that cannot use
+ * the screens. It runs without the JavaFX toolkit. Each request is handled on a virtual thread when the runtime has
+ * them, since a request spends most of its time waiting on the database, and on a pool of platform threads when it
+ * does not.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class ApiServer {
+    // the threads handling requests on a runtime without virtual threads
+    private static final int platformThreads = 32;
+    private static final int stopDelaySeconds = 2;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Creates the server and binds it to a port.
+     * @param port the port
+     * @throws IOException if the port cannot be bound
+     * */
+    public ApiServer(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        executor = requestExecutor();
+
+        server.createContext("/api/appointments", new AppointmentsHandler());
+        server.createContext("/api/customers", new CustomersHandler());
+        server.createContext("/api/reports", new ReportsHandler());
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts handling requests.
+     * */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, giving the requests being handled a moment to finish.
+     * */
+    public void stop() {
+        server.stop(stopDelaySeconds);
+        executor.shutdown();
+
+        try {
+            executor.awaitTermination(stopDelaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the port the server is bound to.
+     * @return the port
+     * */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Gets an executor that starts a virtual thread per request. The application is built for Java 11, so the
+     * executor is looked up by reflection, and a pool of daemon platform threads is used when it is missing.
+     * @return the executor
+     * */
+    private static ExecutorService requestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(platformThreads, r -> {
+                Thread thread = new Thread(r, "api-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+}
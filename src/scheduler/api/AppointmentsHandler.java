@@ -0,0 +1,278 @@
+package scheduler.api;
+
+import scheduler.dao.AppointmentDAO;
+import scheduler.dao.AppointmentSeriesDAO;
+import scheduler.dao.CustomerDAO;
+import scheduler.dao.DAOs;
+import scheduler.dao.cache.ReferenceData;
+import scheduler.model.Appointment;
+import scheduler.model.Contact;
+import scheduler.model.Customer;
+import scheduler.model.User;
+import scheduler.util.AppointmentValidator;
+import scheduler.util.Exceptions;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Handles /api/appointments. Appointments are validated by the same rules as the appointment form before they are
+ * created or changed, and an invalid appointment is answered with the errors the form would show.
+ * <ul>
+ *     <li>GET /api/appointments?from=&amp;to=&amp;customerId=&amp;contactId=&amp;userId= lists appointments, along
+ *     with the occurrences of series when a range is given</li>
+ *     <li>GET /api/appointments/{id} gets an appointment</li>
+ *     <li>POST /api/appointments creates an appointment</li>
+ *     <li>POST /api/appointments/validate validates an appointment without creating it</li>
+ *     <li>PUT /api/appointments/{id} changes an appointment</li>
+ *     <li>DELETE /api/appointments/{id} deletes an appointment</li>
+ * </ul>
+ * @author Steven Kazmierkiewicz
+ * */
+class AppointmentsHandler extends ApiHandler {
+    private final AppointmentDAO dbAppt = DAOs.appointments();
+    private final AppointmentSeriesDAO dbSeries = DAOs.series();
+    private final CustomerDAO dbCustomer = DAOs.customers();
+    private final AppointmentValidator validator = new AppointmentValidator(dbAppt, dbSeries);
+
+    AppointmentsHandler() {
+        super("appointments");
+    }
+
+    @Override
+    protected void handle(Request request) {
+        List<String> path = request.getPath();
+        String method = request.getMethod();
+
+        if (path.isEmpty() && method.equals("GET")) {
+            list(request);
+        } else if (path.isEmpty() && method.equals("POST")) {
+            create(request);
+        } else if (path.size() == 1 && path.get(0).equals("validate") && method.equals("POST")) {
+            request.send(200, toJson(fromJson(request.body(), -1).validate()));
+        } else if (path.size() == 1 && method.equals("GET")) {
+            request.send(200, toJson(find(request.pathId(0))));
+        } else if (path.size() == 1 && method.equals("PUT")) {
+            update(request, request.pathId(0));
+        } else if (path.size() == 1 && method.equals("DELETE")) {
+            int id = find(request.pathId(0)).getId();
+
+            if (!dbAppt.deleteAppointment(id))
+                throw new Failure(500, "The appointment could not be deleted.");
+
+            request.send(204, null);
+        } else {
+            throw new Failure(path.size() > 1 ? 404 : 405, "No such resource.");
+        }
+    }
+
+    /**
+     * Lists the appointments matching the query. Without a range every stored appointment is listed, and with one the
+     * occurrences of series in the range are listed too, since a series that does not end cannot be listed whole.
+     * @param request the request
+     * */
+    private void list(Request request) {
+        LocalDateTime from = request.dateTimeParam("from");
+        LocalDateTime to = request.dateTimeParam("to");
+        Integer customerId = request.intParam("customerId");
+        Integer contactId = request.intParam("contactId");
+        Integer userId = request.intParam("userId");
+
+        if ((from == null) != (to == null))
+            throw new IllegalArgumentException("from and to must be given together.");
+
+        Predicate<Appointment> matches = a -> (customerId == null || a.getCustomerId() == customerId)
+                && (contactId == null || a.getContact().getId() == contactId)
+                && (userId == null || a.getUser().getId() == userId);
+
+        List<Appointment> appointments;
+
+        if (from == null) {
+            appointments = dbAppt.getAllAppointments();
+        } else {
+            appointments = new ArrayList<>(dbAppt.getAppointmentsBetween(from, to));
+
+            for (var series : dbSeries.getSeriesBetween(from, to))
+                appointments.addAll(series.occurrencesBetween(from, to));
+        }
+
+        request.send(200, appointments.stream()
+                .filter(matches)
+                .sorted(Comparator.comparing(Appointment::getStart))
+                .map(ApiHandler::toJson)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Validates and creates an appointment. The overlap check is made again in the transaction that inserts it, so an
+     * appointment booked by another client in the meantime is answered like any other overlap.
+     * @param request the request
+     * */
+    private void create(Request request) {
+        Values values = fromJson(request.body(), -1);
+        AppointmentValidator.Result result = values.validate();
+
+        if (!result.isValid()) {
+            request.send(422, toJson(result));
+            return;
+        }
+
+        int id;
+
+        try {
+            id = dbAppt.createAppointment(values.toAppointment());
+        } catch (Exceptions.OverlapException e) {
+            request.send(422, toJson(AppointmentValidator.overlapping(e.getOverlap())));
+            return;
+        }
+
+        if (id <= 0)
+            throw new Failure(500, "The appointment could not be created.");
+
+        request.send(201, toJson(dbAppt.getAppointment(id)));
+    }
+
+    /**
+     * Validates and changes an appointment. Values missing from the body keep their stored values. The overlap check
+     * is made again in the transaction that updates it.
+     * @param request the request
+     * @param id the id of the appointment
+     * */
+    private void update(Request request, int id) {
+        Appointment stored = find(id);
+        Map<String, Object> body = new LinkedHashMap<>(toJson(stored));
+        body.putAll(request.body());
+
+        Values values = fromJson(body, id);
+        AppointmentValidator.Result result = values.validate();
+
+        if (!result.isValid()) {
+            request.send(422, toJson(result));
+            return;
+        }
+
+        boolean updated;
+
+        try {
+            updated = dbAppt.updateAppointment(values.toAppointment());
+        } catch (Exceptions.OverlapException e) {
+            request.send(422, toJson(AppointmentValidator.overlapping(e.getOverlap())));
+            return;
+        }
+
+        if (!updated)
+            throw new Failure(500, "The appointment could not be changed.");
+
+        request.send(200, toJson(dbAppt.getAppointment(id)));
+    }
+
+    /**
+     * Gets a stored appointment.
+     * @param id the id of the appointment
+     * @return the appointment
+     * @throws Failure if there is no such appointment
+     * */
+    private Appointment find(int id) {
+        Appointment appointment = dbAppt.getAppointment(id);
+
+        if (appointment == null)
+            throw new Failure(404, "No appointment with id " + id + ".");
+
+        return appointment;
+    }
+
+    /**
+     * Reads the values of an appointment from a JSON object. The customer, contact and user are given by id, and the
+     * user defaults to the user making the request.
+     * @param body the object
+     * @param id the id of the appointment
+     * @return the values
+     * @throws IllegalArgumentException if a value has the wrong form
+     * @throws Failure if the customer, contact or user does not exist
+     * */
+    private Values fromJson(Map<String, Object> body, int id) {
+        Values values = new Values();
+        values.id = id;
+        values.title = string(body, "title");
+        values.description = string(body, "description");
+        values.location = string(body, "location");
+
+        String type = string(body, "type");
+        String start = string(body, "start");
+        String end = string(body, "end");
+        Integer customerId = integer(body, "customerId");
+        Integer contactId = integer(body, "contactId");
+        Integer userId = integer(body, "userId");
+
+        try {
+            values.type = type == null ? null : Appointment.Type.of(type);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("type must be one of " + List.of(Appointment.Type.values()) + ".");
+        }
+
+        values.start = start == null ? null : parseDateTime("start", start);
+        values.end = end == null ? null : parseDateTime("end", end);
+
+        try {
+            values.customer = customerId == null ? null : dbCustomer.getCustomer(customerId);
+            values.contact = contactId == null ? null : ReferenceData.contacts().getContact(contactId);
+            values.user = userId == null ? User.getCurrentUser() : ReferenceData.users().getUser(userId);
+        } catch (Exceptions.CustomerException | Exceptions.ContactException | Exceptions.UserException e) {
+            throw new Failure(422, e.getMessage() + ".");
+        }
+
+        return values;
+    }
+
+    /**
+     * The values of an appointment read from a request, which may be missing until they are validated.
+     * */
+    private class Values {
+        private int id;
+        private String title, description, location;
+        private Appointment.Type type;
+        private LocalDateTime start, end;
+        private Customer customer;
+        private Contact contact;
+        private User user;
+
+        /**
+         * Validates the values in the timezone of the server.
+         * @return the result
+         * */
+        private AppointmentValidator.Result validate() {
+            return validator.validate(title, description, location, type, customer, contact, user, start, end, id,
+                    null, ZoneId.systemDefault());
+        }
+
+        /**
+         * Builds the appointment, once the values are valid.
+         * @return the appointment
+         * */
+        private Appointment toAppointment() {
+            return new Appointment(id, title, description, location, type, start, end, customer, user, contact);
+        }
+    }
+
+    /**
+     * Converts the result of a validation to a JSON object.
+     * @param result the result
+     * @return the object
+     * */
+    private static Map<String, Object> toJson(AppointmentValidator.Result result) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("valid", result.isValid());
+        json.put("errors", result.getErrors());
+        json.put("fields", result.getFields().stream()
+                .map(f -> f.name().toLowerCase())
+                .collect(Collectors.toList()));
+        return json;
+    }
+}
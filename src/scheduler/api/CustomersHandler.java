@@ -0,0 +1,180 @@
+package scheduler.api;
+
+import scheduler.dao.CustomerDAO;
+import scheduler.dao.DAOs;
+import scheduler.dao.cache.ReferenceData;
+import scheduler.model.Customer;
+import scheduler.model.Division;
+import scheduler.util.Exceptions;
+import scheduler.util.Validators;
+import scheduler.util.WordUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Handles /api/customers. Customers are checked by the same rules as the customer form, every value being required.
+ * <ul>
+ *     <li>GET /api/customers?search= lists the customers, or those matching a search</li>
+ *     <li>GET /api/customers/{id} gets a customer</li>
+ *     <li>POST /api/customers creates a customer</li>
+ *     <li>PUT /api/customers/{id} changes a customer</li>
+ *     <li>DELETE /api/customers/{id}?cascade=true deletes a customer, and with cascade its appointments</li>
+ * </ul>
+ * @author Steven Kazmierkiewicz
+ * */
+class CustomersHandler extends ApiHandler {
+    private final CustomerDAO dbCustomer = DAOs.customers();
+
+    CustomersHandler() {
+        super("customers");
+    }
+
+    @Override
+    protected void handle(Request request) {
+        List<String> path = request.getPath();
+        String method = request.getMethod();
+
+        if (path.isEmpty() && method.equals("GET")) {
+            String search = request.param("search");
+            List<Customer> customers = search == null ? dbCustomer.getAllCustomers() : dbCustomer.searchCustomers(search);
+            request.send(200, customers.stream().map(ApiHandler::toJson).collect(Collectors.toList()));
+        } else if (path.isEmpty() && method.equals("POST")) {
+            create(request);
+        } else if (path.size() == 1 && method.equals("GET")) {
+            request.send(200, toJson(find(request.pathId(0))));
+        } else if (path.size() == 1 && method.equals("PUT")) {
+            update(request, request.pathId(0));
+        } else if (path.size() == 1 && method.equals("DELETE")) {
+            delete(request, find(request.pathId(0)));
+        } else {
+            throw new Failure(path.size() > 1 ? 404 : 405, "No such resource.");
+        }
+    }
+
+    /**
+     * Checks and creates a customer.
+     * @param request the request
+     * */
+    private void create(Request request) {
+        Customer customer = fromJson(request.body(), 0);
+        List<Integer> ids = dbCustomer.createCustomers(List.of(customer));
+
+        if (ids.isEmpty())
+            throw new Failure(500, "The customer could not be created.");
+
+        request.send(201, toJson(find(ids.get(0))));
+    }
+
+    /**
+     * Checks and changes a customer. Values missing from the body keep their stored values.
+     * @param request the request
+     * @param id the id of the customer
+     * */
+    private void update(Request request, int id) {
+        Map<String, Object> body = new LinkedHashMap<>(toJson(find(id)));
+        body.putAll(request.body());
+
+        if (!dbCustomer.updateCustomer(fromJson(body, id)))
+            throw new Failure(500, "The customer could not be changed.");
+
+        request.send(200, toJson(find(id)));
+    }
+
+    /**
+     * Deletes a customer. A customer with appointments is only deleted along with them when the request asks for it,
+     * as the customer screen confirms it first. Without cascade, the check and the delete run in one transaction.
+     * @param request the request
+     * @param customer the customer
+     * */
+    private void delete(Request request, Customer customer) {
+        boolean cascade = "true".equalsIgnoreCase(request.param("cascade"));
+        boolean deleted;
+
+        try {
+            deleted = cascade ? dbCustomer.deleteCustomerCascade(customer) : dbCustomer.deleteCustomer(customer);
+        } catch (Exceptions.HasAppointmentsException e) {
+            throw new Failure(409, customer.getName() + " still has appointments scheduled. " +
+                    "Delete with cascade=true to also delete all their appointments.");
+        }
+
+        if (!deleted)
+            throw new Failure(500, "The customer could not be deleted.");
+
+        request.send(204, null);
+    }
+
+    /**
+     * Gets a stored customer.
+     * @param id the id of the customer
+     * @return the customer
+     * @throws Failure if there is no such customer
+     * */
+    private Customer find(int id) {
+        try {
+            Customer customer = dbCustomer.getCustomer(id);
+
+            if (customer != null)
+                return customer;
+        } catch (Exceptions.CustomerException e) {
+            // answered as not found below
+        }
+
+        throw new Failure(404, "No customer with id " + id + ".");
+    }
+
+    /**
+     * Builds a customer from a JSON object, checking that every value is given and that the division exists.
+     * @param body the object
+     * @param id the id of the customer
+     * @return the customer
+     * @throws Failure if a value is missing or the division does not exist
+     * */
+    private static Customer fromJson(Map<String, Object> body, int id) {
+        List<String> errors = new ArrayList<>();
+        String name = required(body, "name", "name", errors);
+        String address = required(body, "address", "address", errors);
+        String postalCode = required(body, "postalCode", "postal code", errors);
+        String phone = required(body, "phone", "phone number", errors);
+        Integer divisionId = integer(body, "divisionId");
+        Division division = null;
+
+        if (divisionId == null) {
+            errors.add("Division must have a value.");
+        } else {
+            try {
+                division = ReferenceData.divisions().getDivision(divisionId);
+            } catch (Exceptions.DivisionException e) {
+                // reported below
+            }
+
+            if (division == null)
+                errors.add("No division with id " + divisionId + ".");
+        }
+
+        if (!errors.isEmpty())
+            throw new Failure(422, String.join("\n", errors));
+
+        return new Customer(id, name, address, postalCode, phone, division);
+    }
+
+    /**
+     * Gets a required string value of an object, adding an error if it is missing.
+     * @param body the object
+     * @param name the name of the value
+     * @param label the name of the value in the error, as on the customer form
+     * @param errors the errors to add to
+     * @return the value
+     * */
+    private static String required(Map<String, Object> body, String name, String label, List<String> errors) {
+        String value = string(body, name);
+
+        if (!Validators.notEmpty(value))
+            errors.add(WordUtils.capitalize(label) + " must have a value.");
+
+        return value;
+    }
+}
@@ -0,0 +1,200 @@
+package scheduler.api;
+
+import scheduler.dao.AppointmentDAO;
+import scheduler.dao.DAOs;
+import scheduler.dao.cache.ReferenceData;
+import scheduler.model.Appointment;
+import scheduler.report.ReportCatalog;
+import scheduler.util.Exceptions;
+import scheduler.util.LoginStore;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Handles /api/reports, the reports of the report menu as JSON.
+ * <ul>
+ *     <li>GET /api/reports/appointments-by-month counts the appointments of each month</li>
+ *     <li>GET /api/reports/appointments-by-type counts the appointments of each type</li>
+ *     <li>GET /api/reports/schedule?customerId=|contactId=|userId= lists the schedule of an account</li>
+ *     <li>GET /api/reports/login-attempts?user=&amp;from=&amp;to= lists the login attempts of a username</li>
+ *     <li>GET /api/reports/login-failure-rate?from=&amp;to= counts the login attempts and failures of each hour</li>
+ * </ul>
+ * @author Steven Kazmierkiewicz
+ * */
+class ReportsHandler extends ApiHandler {
+    private final AppointmentDAO dbAppt = DAOs.appointments();
+
+    ReportsHandler() {
+        super("reports");
+    }
+
+    @Override
+    protected void handle(Request request) {
+        List<String> path = request.getPath();
+
+        if (!request.getMethod().equals("GET"))
+            throw new Failure(405, "Reports are only read.");
+        if (path.size() != 1)
+            throw new Failure(404, "No such report.");
+
+        switch (path.get(0)) {
+            case "appointments-by-month":
+                request.send(200, byMonth());
+                break;
+            case "appointments-by-type":
+                request.send(200, byType());
+                break;
+            case "schedule":
+                request.send(200, schedule(request));
+                break;
+            case "login-attempts":
+                request.send(200, loginAttempts(request));
+                break;
+            case "login-failure-rate":
+                request.send(200, loginFailureRate(request));
+                break;
+            default:
+                throw new Failure(404, "No report named " + path.get(0) + ".");
+        }
+    }
+
+    /**
+     * Counts the appointments of each month, including the months without any.
+     * @return a row per month
+     * */
+    private List<Map<String, Object>> byMonth() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        ReportCatalog.appointmentsByMonth()
+                .forEach((month, count) -> rows.add(row("month", month.toString(), "count", count)));
+        return rows;
+    }
+
+    /**
+     * Counts the appointments of each type, including the types without any.
+     * @return a row per type
+     * */
+    private List<Map<String, Object>> byType() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        ReportCatalog.appointmentsByType()
+                .forEach((type, count) -> rows.add(row("type", type.getValue(), "count", count)));
+        return rows;
+    }
+
+    /**
+     * Gets the schedule of a customer, contact or user: its stored appointments and the occurrences of its series over
+     * the coming days, ordered by start.
+     * @param request the request, naming the account
+     * @return the appointments
+     * */
+    private List<Map<String, Object>> schedule(Request request) {
+        Integer customerId = request.intParam("customerId");
+        Integer contactId = request.intParam("contactId");
+        Integer userId = request.intParam("userId");
+        List<Appointment> appts;
+        Predicate<Appointment> ofAccount;
+
+        try {
+            if (customerId != null) {
+                appts = dbAppt.getAppointmentsFor(DAOs.customers().getCustomer(customerId));
+                ofAccount = a -> a.getCustomerId() == customerId;
+            } else if (contactId != null) {
+                appts = dbAppt.getAppointmentsFor(ReferenceData.contacts().getContact(contactId));
+                ofAccount = a -> a.getContact().getId() == contactId;
+            } else if (userId != null) {
+                appts = dbAppt.getAppointmentsFor(ReferenceData.users().getUser(userId));
+                ofAccount = a -> a.getUser().getId() == userId;
+            } else {
+                throw new IllegalArgumentException("customerId, contactId or userId must be given.");
+            }
+        } catch (Exceptions.CustomerException | Exceptions.ContactException | Exceptions.UserException e) {
+            throw new Failure(404, e.getMessage() + ".");
+        }
+
+        return ReportCatalog.schedule(appts, ofAccount).stream()
+                .map(ApiHandler::toJson)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Lists the login attempts of a username between two dates, by default the last 30 days.
+     * @param request the request
+     * @return a row per attempt
+     * */
+    private List<Map<String, Object>> loginAttempts(Request request) {
+        String user = request.param("user");
+
+        if (user == null)
+            throw new IllegalArgumentException("user must be given.");
+
+        return logins().attempts(user, loginFrom(request), loginTo(request)).stream()
+                .map(a -> row("time", a.getTime().atZone(ZoneId.systemDefault()).toLocalDateTime(),
+                        "user", a.getUser(), "result", a.isSuccess() ? "SUCCESS" : "FAILURE"))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Counts the login attempts and failures of each hour of the day between two dates, by default the last 30 days.
+     * @param request the request
+     * @return a row per hour
+     * */
+    private List<Map<String, Object>> loginFailureRate(Request request) {
+        return logins().failureRateByHour(loginFrom(request), loginTo(request), ZoneId.systemDefault()).stream()
+                .map(h -> row("hour", h.getHour(), "attempts", h.getAttempts(), "failures", h.getFailures(),
+                        "failureRate", h.getFailureRate()))
+                .collect(Collectors.toList());
+    }
+
+    private static LoginStore logins() {
+        LoginStore store = LoginStore.logins();
+
+        if (store == null)
+            throw new Failure(500, "The login attempts could not be read.");
+
+        return store;
+    }
+
+    /**
+     * Gets the start of the range of a login report.
+     * @param request the request
+     * @return the start of the from date
+     * */
+    private static Instant loginFrom(Request request) {
+        LocalDateTime from = request.dateTimeParam("from");
+        LocalDate date = from == null ? LocalDate.now().minusDays(ReportCatalog.defaultLoginReportDays) : from.toLocalDate();
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Gets the end of the range of a login report.
+     * @param request the request
+     * @return the start of the day after the to date
+     * */
+    private static Instant loginTo(Request request) {
+        LocalDateTime to = request.dateTimeParam("to");
+        LocalDate date = to == null ? LocalDate.now() : to.toLocalDate();
+        return date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Builds a row of a report from its names and values.
+     * @param namesAndValues the names, each followed by its value
+     * @return the row
+     * */
+    private static Map<String, Object> row(Object... namesAndValues) {
+        Map<String, Object> row = new LinkedHashMap<>();
+
+        for (int i = 0; i < namesAndValues.length; i += 2)
+            row.put(namesAndValues[i].toString(), namesAndValues[i + 1]);
+
+        return row;
+    }
+}
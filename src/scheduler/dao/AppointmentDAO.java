@@ -6,8 +6,11 @@ import scheduler.model.Customer;
 import scheduler.model.User;
 
 import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Interface for retrieving Appointment data from the database.
@@ -19,6 +22,13 @@ public interface AppointmentDAO {
      * */
     List<Appointment> getAllAppointments();
 
+    /**
+     * Streams every appointment from the database to an action as it is read, ordered by id, without holding them
+     * all in memory.
+     * @param action the action to perform on each appointment
+     * */
+    void forEachAppointment(Consumer<? super Appointment> action);
+
     /**
      * Retrieves all appointments for a specific customer.
      * @param customer the customer to search for
@@ -33,6 +43,95 @@ public interface AppointmentDAO {
      * */
     List<Appointment> getAppointmentsFor(Contact contact);
 
+    /**
+     * Retrieves all appointments for a specific user.
+     * @param user the user to search for
+     * @return the list of appointments for the user
+     * */
+    List<Appointment> getAppointmentsFor(User user);
+
+    /**
+     * Finds the earliest appointment for a specific customer that overlaps a time range. The appointments are read
+     * from the database, so the ones booked by other clients are seen.
+     * @param customer the customer to search for
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @param ignoreId the id of an appointment to ignore, such as the one being edited
+     * @return the overlapping appointment, or null if there is none
+     * */
+    Appointment findOverlap(Customer customer, LocalDateTime start, LocalDateTime end, int ignoreId);
+
+    /**
+     * Finds the earliest appointment for a specific contact that overlaps a time range.
+     * @param contact the contact to search for
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @param ignoreId the id of an appointment to ignore, such as the one being edited
+     * @return the overlapping appointment, or null if there is none
+     * */
+    Appointment findOverlap(Contact contact, LocalDateTime start, LocalDateTime end, int ignoreId);
+
+    /**
+     * Finds the earliest appointment for a specific user that overlaps a time range.
+     * @param user the user to search for
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @param ignoreId the id of an appointment to ignore, such as the one being edited
+     * @return the overlapping appointment, or null if there is none
+     * */
+    Appointment findOverlap(User user, LocalDateTime start, LocalDateTime end, int ignoreId);
+
+    /**
+     * Retrieves all appointments that start within a date range, ordered by start.
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the list of appointments in the range
+     * */
+    List<Appointment> getAppointmentsBetween(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Retrieves all appointments for a specific customer that start within a date range, ordered by start.
+     * @param customer the customer to search for
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the list of appointments for the customer in the range
+     * */
+    List<Appointment> getAppointmentsBetween(Customer customer, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Retrieves all appointments for a specific contact that start within a date range, ordered by start.
+     * @param contact the contact to search for
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the list of appointments for the contact in the range
+     * */
+    List<Appointment> getAppointmentsBetween(Contact contact, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Retrieves all appointments for a specific user that start within a date range, ordered by start.
+     * @param user the user to search for
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the list of appointments for the user in the range
+     * */
+    List<Appointment> getAppointmentsBetween(User user, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Retrieves a page of appointments ordered by id, starting after a specific id. Used for keyset pagination.
+     * @param afterId the id of the last appointment on the previous page
+     * @param limit the maximum number of appointments to retrieve
+     * @return the page of appointments
+     * */
+    List<Appointment> getAppointmentsAfter(int afterId, int limit);
+
+    /**
+     * Retrieves the id of the appointment at a position in id order. Used to find where a page starts without
+     * reading the pages before it.
+     * @param offset the position of the appointment, starting at 0
+     * @return the id of the appointment, or -1 if there is no appointment at that position
+     * */
+    int getAppointmentIdAt(int offset);
+
     /**
      * Retrieves an appointment from the database with a specific id.
      * @param id the id of the appointment
@@ -41,7 +140,9 @@ public interface AppointmentDAO {
     Appointment getAppointment(int id);
 
     /**
-     * Creates an appointment in the database.
+     * Creates an appointment in the database unless its customer already has an appointment or an occurrence of a
+     * series at the time. The check and the insert run in one transaction that locks the customer's row, so no other
+     * client or process can book the customer in between.
      * @param title the title
      * @param description the description
      * @param location the location
@@ -52,17 +153,46 @@ public interface AppointmentDAO {
      * @param start the start date and time
      * @param end the end date and time
      * @return true if the creation of the appointment is successful
+     * @throws scheduler.util.Exceptions.OverlapException if the customer already has an appointment at the time
      */
     boolean createAppointment(String title, String description, String location, Appointment.Type type,
                               Customer customer, Contact contact, User user, LocalDateTime start, LocalDateTime end);
 
     /**
-     * Updates an appointment in the database.
+     * Creates an appointment in the database unless its customer already has an appointment or an occurrence of a
+     * series at the time, checked in the same transaction as the insert.
+     * @param appointment the appointment to create, whose id is ignored
+     * @return the generated id, or -1 if the creation failed
+     * @throws scheduler.util.Exceptions.OverlapException if the customer already has an appointment at the time
+     * */
+    int createAppointment(Appointment appointment);
+
+    /**
+     * Creates many appointments in the database in a single transaction. Either every appointment is created or none
+     * are. The ids of the provided appointments are ignored. The appointments are not checked for overlaps, so they
+     * must already be known not to overlap, as when loading a dataset.
+     * @param appointments the appointments to create
+     * @return the generated ids, in the order of the appointments, or an empty list if the creation failed
+     * */
+    List<Integer> createAppointments(List<Appointment> appointments);
+
+    /**
+     * Updates an appointment in the database unless its customer already has another appointment or an occurrence of
+     * a series at the time, checked in the same transaction as the update.
      * @param appointment the updated appointment
      * @return true if the update is successful
+     * @throws scheduler.util.Exceptions.OverlapException if the customer already has an appointment at the time
      * */
     boolean updateAppointment(Appointment appointment);
 
+    /**
+     * Updates many appointments in the database in a single transaction. Either every appointment is updated or none
+     * are. The appointments are not checked for overlaps.
+     * @param appointments the updated appointments
+     * @return true if the update is successful
+     * */
+    boolean updateAppointments(List<Appointment> appointments);
+
     /**
      * Delete an appointment from the database with a specific id.
      * @param id the id of the appointment to delete
@@ -79,6 +209,12 @@ public interface AppointmentDAO {
         return deleteAppointment(appointment.getId());
     }
 
+    /**
+     * Retrieves the total number of appointments.
+     * @return the number of appointments
+     * */
+    int numOfAppointments();
+
     /**
      * Retrieves the number of appointments associated with a customer.
      * @param customer the customer
@@ -91,4 +227,22 @@ public interface AppointmentDAO {
      * @return the map associating appointment type with its count of appointments
      * */
     Map<Appointment.Type, Long> appointmentsByType();
+
+    /**
+     * Retrieves the number of appointments starting in each month of the year, across all years.
+     * @return the map associating month with its count of appointments, without the months that have none
+     * */
+    Map<Month, Long> appointmentsByMonth();
+
+    /**
+     * Retrieves the number of appointments starting in each month of each year.
+     * @return the map associating year and month with its count of appointments, in chronological order
+     * */
+    Map<YearMonth, Long> appointmentsByYearMonth();
+
+    /**
+     * Retrieves the number of appointments of each type starting in each month of the year, across all years.
+     * @return the map associating appointment type with its map of month to count of appointments
+     * */
+    Map<Appointment.Type, Map<Month, Long>> appointmentsByTypeAndMonth();
 }
@@ -0,0 +1,93 @@
+package scheduler.dao;
+
+import scheduler.model.Appointment;
+import scheduler.model.AppointmentSeries;
+import scheduler.model.Contact;
+import scheduler.model.Customer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Interface for retrieving AppointmentSeries data from the database. Each series is stored once with its rule, and
+ * its occurrences are built from the rule for the range they are needed in.
+ * */
+public interface AppointmentSeriesDAO {
+    /**
+     * Retrieves all series from the database.
+     * @return the list of all series
+     * */
+    List<AppointmentSeries> getAllSeries();
+
+    /**
+     * Retrieves a series by its id.
+     * @param id the id of the series
+     * @return the series, or null if there is none
+     * */
+    AppointmentSeries getSeries(int id);
+
+    /**
+     * Retrieves the series that may have an occurrence starting within a date range.
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the list of series
+     * */
+    List<AppointmentSeries> getSeriesBetween(LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Retrieves all series for a specific customer.
+     * @param customer the customer to search for
+     * @return the list of series for the customer
+     * */
+    List<AppointmentSeries> getSeriesFor(Customer customer);
+
+    /**
+     * Retrieves all series for a specific contact.
+     * @param contact the contact to search for
+     * @return the list of series for the contact
+     * */
+    List<AppointmentSeries> getSeriesFor(Contact contact);
+
+    /**
+     * Finds an occurrence of a series for a specific customer that overlaps a time range.
+     * @param customer the customer to search for
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the overlapping occurrence, or null if there is none
+     * */
+    Appointment findOverlap(Customer customer, LocalDateTime start, LocalDateTime end);
+
+    /**
+     * Finds an appointment or an occurrence of another series of the same customer that overlaps any occurrence of a
+     * series. A series that does not end is checked up to a horizon.
+     * @param series the series to check, which does not need to be stored yet
+     * @return the overlapping appointment or occurrence, or null if there is none
+     * */
+    Appointment findOverlap(AppointmentSeries series);
+
+    /**
+     * Creates a new series in the database along with its exceptions, unless an occurrence overlaps an appointment or
+     * an occurrence of another series of the same customer. The check and the insert run in one transaction that locks
+     * the customer's row, so no other client or process can book the customer in between.
+     * @param series the series to create, whose id is ignored
+     * @return the id of the new series, or -1 if it could not be created
+     * @throws scheduler.util.Exceptions.OverlapException if an occurrence overlaps an appointment of the customer
+     * */
+    int createSeries(AppointmentSeries series);
+
+    /**
+     * Skips one date of a series by adding it to the exceptions of its rule.
+     * @param series the series
+     * @param date the date to skip
+     * @return true if the exception was added
+     * */
+    boolean skipOccurrence(AppointmentSeries series, LocalDate date);
+
+    /**
+     * Deletes a series and all of its exceptions.
+     * @param id the id of the series
+     * @return true if the series was deleted
+     * */
+    boolean deleteSeries(int id);
+}
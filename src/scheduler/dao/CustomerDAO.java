@@ -15,6 +15,28 @@ public interface CustomerDAO {
      * */
     List<Customer> getAllCustomers();
 
+    /**
+     * Retrieves a page of customers ordered by id, starting after a specific id. Used for keyset pagination.
+     * @param afterId the id of the last customer on the previous page
+     * @param limit the maximum number of customers to retrieve
+     * @return the page of customers
+     * */
+    List<Customer> getCustomersAfter(int afterId, int limit);
+
+    /**
+     * Retrieves the id of the customer at a position in id order. Used to find where a page starts without reading
+     * the pages before it.
+     * @param offset the position of the customer, starting at 0
+     * @return the id of the customer, or -1 if there is no customer at that position
+     * */
+    int getCustomerIdAt(int offset);
+
+    /**
+     * Retrieves the total number of customers.
+     * @return the number of customers
+     * */
+    int numOfCustomers();
+
     /**
      * Retrieves a customer from the database with a specific id.
      * @param id the id of the customer
@@ -22,6 +44,22 @@ public interface CustomerDAO {
      * */
     Customer getCustomer(int id);
 
+    /**
+     * Finds the customers with any searchable field containing a search string, ignoring case. The searchable fields
+     * are id, name, address, postalCode, divisionName, countryName and phone.
+     * @param searchStr the string to search for
+     * @return the matching customers, ordered by id
+     * */
+    List<Customer> searchCustomers(String searchStr);
+
+    /**
+     * Finds the customers with a specific field containing a search string, ignoring case.
+     * @param searchStr the string to search for
+     * @param fieldName the field to search, one of id, name, address, postalCode, divisionName, countryName or phone
+     * @return the matching customers, ordered by id
+     * */
+    List<Customer> searchCustomers(String searchStr, String fieldName);
+
     /**
      * Creates a customer in the database.
      * @param name the name
@@ -33,6 +71,14 @@ public interface CustomerDAO {
      */
     boolean createCustomer(String name, String address, String postalCode, String phone, Division division);
 
+    /**
+     * Creates many customers in the database in a single transaction. Either every customer is created or none are.
+     * The ids of the provided customers are ignored.
+     * @param customers the customers to create
+     * @return the generated ids, in the order of the customers, or an empty list if the creation failed
+     * */
+    List<Integer> createCustomers(List<Customer> customers);
+
     /**
      * Updates the customer in the database.
      * @param customer the updated customer
@@ -41,18 +87,46 @@ public interface CustomerDAO {
     boolean updateCustomer(Customer customer);
 
     /**
-     * Deletes the customer from the database with the specified id.
+     * Deletes the customer from the database with the specified id, unless they have appointments or series. The check
+     * and the delete run in one transaction that locks the customer's row, so nothing can be booked for the customer
+     * in between.
      * @param id the id of the customer to delete
      * @return true if the delete is successful
+     * @throws scheduler.util.Exceptions.HasAppointmentsException if the customer has appointments or series
      * */
     boolean deleteCustomer(int id);
 
     /**
-     * Deletes the customer from the database.
+     * Deletes the customer from the database, unless they have appointments or series.
      * @param customer the customer to be deleted
      * @return true if the delete is successful
+     * @throws scheduler.util.Exceptions.HasAppointmentsException if the customer has appointments or series
      * */
     default boolean deleteCustomer(Customer customer) {
         return deleteCustomer(customer.getId());
     }
+
+    /**
+     * Deletes a customer from the database along with all of their appointments, in a single transaction.
+     * @param id the id of the customer to delete
+     * @return true if the delete is successful
+     * */
+    boolean deleteCustomerCascade(int id);
+
+    /**
+     * Deletes a customer from the database along with all of their appointments, in a single transaction.
+     * @param customer the customer to delete
+     * @return true if the delete is successful
+     * */
+    default boolean deleteCustomerCascade(Customer customer) {
+        return deleteCustomerCascade(customer.getId());
+    }
+
+    /**
+     * Deletes many customers from the database along with all of their appointments, in a single transaction. Either
+     * every customer is deleted or none are. Ids of customers that do not exist are ignored.
+     * @param ids the ids of the customers to delete
+     * @return the number of customers deleted, or -1 if the delete failed
+     * */
+    int deleteCustomersCascade(List<Integer> ids);
 }
@@ -0,0 +1,44 @@
+package scheduler.dao;
+
+import scheduler.mysql.DBAppointment;
+import scheduler.mysql.DBAppointmentSeries;
+import scheduler.mysql.DBCustomer;
+import scheduler.util.metrics.Instrumented;
+
+/**
+ * Provides the shared DAOs for appointments, appointment series, and customers. The DAOs are instrumented, so the
+ * calls of each method are timed.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class DAOs {
+    private static final AppointmentDAO appointments = Instrumented.dao(AppointmentDAO.class, new DBAppointment());
+    private static final AppointmentSeriesDAO series =
+            Instrumented.dao(AppointmentSeriesDAO.class, new DBAppointmentSeries(appointments));
+    private static final CustomerDAO customers = Instrumented.dao(CustomerDAO.class, new DBCustomer());
+
+    private DAOs() {}
+
+    /**
+     * Getter for the AppointmentDAO.
+     * @return the appointment DAO
+     * */
+    public static AppointmentDAO appointments() {
+        return appointments;
+    }
+
+    /**
+     * Getter for the AppointmentSeriesDAO.
+     * @return the appointment series DAO
+     * */
+    public static AppointmentSeriesDAO series() {
+        return series;
+    }
+
+    /**
+     * Getter for the CustomerDAO.
+     * @return the customer DAO
+     * */
+    public static CustomerDAO customers() {
+        return customers;
+    }
+}
@@ -0,0 +1,49 @@
+package scheduler.dao.cache;
+
+import scheduler.dao.ContactDAO;
+import scheduler.model.Contact;
+import scheduler.util.Exceptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides Contact records from a reference cache, loading the table through another ContactDAO.
+ * @author Steven Kazmierkiewicz
+ * */
+public class CachedContactDAO implements ContactDAO {
+    private final ReferenceCache<Contact> cache;
+
+    /**
+     * Creates a cached ContactDAO.
+     * @param source the DAO that loads the table
+     * @param refreshInterval how long the records are kept before the table is reloaded
+     * */
+    public CachedContactDAO(ContactDAO source, Duration refreshInterval) {
+        cache = new ReferenceCache<>(source::getAllContacts, Contact::getId, refreshInterval);
+    }
+
+    @Override
+    public List<Contact> getAllContacts() {
+        return new ArrayList<>(cache.getAll());
+    }
+
+    @Override
+    public Contact getContact(int id) {
+        Contact contact = cache.get(id);
+
+        if (contact == null)
+            throw new Exceptions.ContactException("No contact with id " + id);
+
+        return contact;
+    }
+
+    /**
+     * Getter for the underlying cache.
+     * @return the cache
+     * */
+    public ReferenceCache<Contact> getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,49 @@
+package scheduler.dao.cache;
+
+import scheduler.dao.CountryDAO;
+import scheduler.model.Country;
+import scheduler.util.Exceptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides Country records from a reference cache, loading the table through another CountryDAO.
+ * @author Steven Kazmierkiewicz
+ * */
+public class CachedCountryDAO implements CountryDAO {
+    private final ReferenceCache<Country> cache;
+
+    /**
+     * Creates a cached CountryDAO.
+     * @param source the DAO that loads the table
+     * @param refreshInterval how long the records are kept before the table is reloaded
+     * */
+    public CachedCountryDAO(CountryDAO source, Duration refreshInterval) {
+        cache = new ReferenceCache<>(source::getAllCountries, Country::getId, refreshInterval);
+    }
+
+    @Override
+    public List<Country> getAllCountries() {
+        return new ArrayList<>(cache.getAll());
+    }
+
+    @Override
+    public Country getCountry(int id) {
+        Country country = cache.get(id);
+
+        if (country == null)
+            throw new Exceptions.CountryException("No country with id " + id);
+
+        return country;
+    }
+
+    /**
+     * Getter for the underlying cache.
+     * @return the cache
+     * */
+    public ReferenceCache<Country> getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,73 @@
+package scheduler.dao.cache;
+
+import scheduler.dao.CountryDAO;
+import scheduler.dao.DivisionDAO;
+import scheduler.model.Country;
+import scheduler.model.Division;
+import scheduler.util.Exceptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Provides First-Level Division records from a reference cache, loading the table through another DivisionDAO.
+ * Each division refers to the shared instance of its country.
+ * @author Steven Kazmierkiewicz
+ * */
+public class CachedDivisionDAO implements DivisionDAO {
+    private final ReferenceCache<Division> cache;
+
+    /**
+     * Creates a cached DivisionDAO. The lambda expression replaces the country of each loaded division with the
+     * shared instance from the country DAO.
+     * @param source the DAO that loads the table
+     * @param countries the DAO providing the shared countries
+     * @param refreshInterval how long the records are kept before the table is reloaded
+     * */
+    public CachedDivisionDAO(DivisionDAO source, CountryDAO countries, Duration refreshInterval) {
+        cache = new ReferenceCache<>(() -> source.getAllDivisions()
+                .stream()
+                .map(d -> new Division(d.getId(), d.get(), countries.getCountry(d.getCountry().getId())))
+                .collect(Collectors.toList()),
+                Division::getId, refreshInterval);
+    }
+
+    @Override
+    public List<Division> getAllDivisions() {
+        return new ArrayList<>(cache.getAll());
+    }
+
+    @Override
+    public Division getDivision(int id) {
+        Division division = cache.get(id);
+
+        if (division == null)
+            throw new Exceptions.DivisionException("No division with id " + id);
+
+        return division;
+    }
+
+    /**
+     * Retrieves all First-Level Divisions for a specific country. The lambda expression filters the cached divisions
+     * by country.
+     * @param country the country to search for
+     * @return the list of divisions associated with the country
+     * */
+    @Override
+    public List<Division> getDivisionsByCountry(Country country) {
+        return cache.getAll()
+                .stream()
+                .filter(d -> d.getCountry().getId() == country.getId())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Getter for the underlying cache.
+     * @return the cache
+     * */
+    public ReferenceCache<Division> getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,69 @@
+package scheduler.dao.cache;
+
+import scheduler.dao.UserDAO;
+import scheduler.model.User;
+import scheduler.util.Exceptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Provides User records from a reference cache, loading the table through another UserDAO. Logins always go to the
+ * other UserDAO.
+ * @author Steven Kazmierkiewicz
+ * */
+public class CachedUserDAO implements UserDAO {
+    private final UserDAO source;
+    private final ReferenceCache<User> cache;
+
+    /**
+     * Creates a cached UserDAO.
+     * @param source the DAO that loads the table
+     * @param refreshInterval how long the records are kept before the table is reloaded
+     * */
+    public CachedUserDAO(UserDAO source, Duration refreshInterval) {
+        this.source = source;
+        cache = new ReferenceCache<>(source::getAllUsers, User::getId, refreshInterval);
+    }
+
+    @Override
+    public List<User> getAllUsers() {
+        return new ArrayList<>(cache.getAll());
+    }
+
+    @Override
+    public User getUser(int id) {
+        User user = cache.get(id);
+
+        if (user == null)
+            throw new Exceptions.UserException("No user with id " + id);
+
+        return user;
+    }
+
+    /**
+     * Attempts to login with given username and password, then provides the shared instance of the user.
+     * @param name the username
+     * @param pass the password
+     * @return the User object for the user
+     * */
+    @Override
+    public User login(String name, String pass) {
+        User user = source.login(name, pass);
+
+        if (user == null)
+            return null;
+
+        User shared = cache.get(user.getId());
+        return shared != null ? shared : user;
+    }
+
+    /**
+     * Getter for the underlying cache.
+     * @return the cache
+     * */
+    public ReferenceCache<User> getCache() {
+        return cache;
+    }
+}
@@ -0,0 +1,386 @@
+package scheduler.dao.cache;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Follows the changes made to a table and passes them to its listeners, so a view holding a page or a window of the
+ * table can update the rows it holds instead of reading the table again. The feed holds no copy of the table. Each
+ * sync fetches the rows with a Last_Update after the watermark, the latest Last_Update seen by the previous sync, and
+ * the ids of the rows deleted since the last sync, which triggers record in the deleted_rows table
+ * (sql/change_log.sql). The cost of a sync follows the number of rows changed, not the size of the table.
+ * <p>
+ * The feed syncs on a background thread every sync interval while it has listeners, and right away after it is
+ * marked stale. Last_Update is stamped by the client that made the change, so a client with a slow clock can stamp a
+ * row earlier than the watermark. Each sync looks back over an overlap window before the watermark to pick up those
+ * rows, along with the deletes committed out of order, and skips the rows it already passed on unchanged.
+ * @param <T> the type of record in the table
+ * @author Steven Kazmierkiewicz
+ * */
+public class ChangeFeed<T> {
+    private static final Duration overlap = Duration.ofMinutes(5);
+    // deleted rows are purged after a week, so a feed that has not synced in a day lets its listeners load again
+    private static final Duration maxGap = Duration.ofDays(1);
+
+    private static final ScheduledExecutorService syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "change-feed");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Source<T> source;
+    private final ToIntFunction<T> idOf;
+    private final Duration syncInterval;
+    private final List<Consumer<Changes<T>>> listeners = new CopyOnWriteArrayList<>();
+
+    // guarded by this
+    private LocalDateTime watermark = null;
+    private LocalDateTime deletedWatermark = null;
+    private final Map<Integer, Passed<T>> passedRows = new HashMap<>();
+    private final Map<Long, Long> passedDeletes = new HashMap<>();
+    private long syncedAt = -1;
+    private ScheduledFuture<?> task = null;
+
+    /**
+     * Creates a feed of the changes to a table.
+     * @param source the queries on the table
+     * @param idOf gets the id of a record
+     * @param syncInterval how long the feed waits between syncs
+     * */
+    public ChangeFeed(Source<T> source, ToIntFunction<T> idOf, Duration syncInterval) {
+        this.source = source;
+        this.idOf = idOf;
+        this.syncInterval = syncInterval;
+    }
+
+    /**
+     * Passes the changes made to the table from now on to a listener. The listener is called on the feed's thread, so
+     * it must not block. The first listener starts the feed syncing, and it stops when the last one cancels.
+     * @param listener receives the changes of each sync that found any
+     * @return the subscription, which is cancelled to stop receiving changes
+     * */
+    public Subscription subscribe(Consumer<Changes<T>> listener) {
+        listeners.add(listener);
+
+        synchronized (this) {
+            if (task == null) {
+                // the watermarks are found again, since nothing followed the changes while the feed was stopped
+                watermark = null;
+                task = syncer.scheduleWithFixedDelay(this::syncQuietly, 0, syncInterval.toMillis(),
+                        TimeUnit.MILLISECONDS);
+            }
+        }
+
+        return () -> unsubscribe(listener);
+    }
+
+    /**
+     * Makes the feed sync right away. Called after a change is made to the table, so the change is seen right away.
+     * */
+    public void markStale() {
+        if (!listeners.isEmpty())
+            syncer.execute(this::syncQuietly);
+    }
+
+    /**
+     * Fetches the changes made to the table since the last sync and passes them to the listeners. The first sync
+     * finds the watermarks, and passes on the changes of the overlap window before them. If the database cannot be
+     * reached, the feed keeps its watermarks and tries again on the next sync.
+     * @throws SQLException if the table cannot be read
+     * */
+    public synchronized void sync() throws SQLException {
+        long now = System.currentTimeMillis();
+        boolean reset = watermark != null && now - syncedAt > maxGap.toMillis();
+
+        // read before the rows, so a row changed while they are read is picked up by the next sync
+        LocalDateTime latest = source.lastUpdate();
+
+        if (watermark == null || reset) {
+            LocalDateTime lastDeleted = source.lastDeleted();
+            watermark = latest != null ? latest : LocalDateTime.now();
+            deletedWatermark = lastDeleted != null ? lastDeleted : LocalDateTime.now();
+            passedRows.clear();
+            passedDeletes.clear();
+        }
+
+        Map<Integer, T> changed = new LinkedHashMap<>();
+        Set<Integer> deleted = new HashSet<>();
+
+        for (var record : source.loadChangedSince(watermark.minus(overlap))) {
+            int id = idOf.applyAsInt(record);
+            Passed<T> passed = passedRows.get(id);
+
+            if (passed == null || !passed.record.equals(record)) {
+                changed.put(id, record);
+                passedRows.put(id, new Passed<>(record, now));
+            }
+        }
+
+        for (var deletion : source.loadDeletedSince(deletedWatermark.minus(overlap))) {
+            if (passedDeletes.putIfAbsent(deletion.getDeleteId(), now) == null) {
+                deleted.add(deletion.getRowId());
+                changed.remove(deletion.getRowId());
+            }
+
+            if (deletion.getDeletedAt().isAfter(deletedWatermark))
+                deletedWatermark = deletion.getDeletedAt();
+        }
+
+        if (latest != null && latest.isAfter(watermark))
+            watermark = latest;
+
+        // anything passed on before the overlap window is not fetched again
+        long forgetBefore = now - overlap.toMillis() * 2;
+        passedRows.values().removeIf(passed -> passed.at < forgetBefore);
+        passedDeletes.values().removeIf(at -> at < forgetBefore);
+        syncedAt = now;
+
+        if (reset || !changed.isEmpty() || !deleted.isEmpty()) {
+            var changes = new Changes<>(new ArrayList<>(changed.values()), deleted, reset, idOf);
+
+            for (var listener : listeners)
+                listener.accept(changes);
+        }
+    }
+
+    /**
+     * Syncs on the feed's thread, where a failure is only printed since the next sync tries again.
+     * */
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (SQLException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Stops passing changes to a listener, and stops syncing when no listener is left.
+     * @param listener the listener
+     * */
+    private synchronized void unsubscribe(Consumer<Changes<T>> listener) {
+        listeners.remove(listener);
+
+        if (listeners.isEmpty() && task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    /**
+     * A record passed on to the listeners, and when.
+     * @param <T> the type of record
+     * */
+    private static final class Passed<T> {
+        private final T record;
+        private final long at;
+
+        private Passed(T record, long at) {
+            this.record = record;
+            this.at = at;
+        }
+    }
+
+    /**
+     * A listener's subscription to a feed.
+     * */
+    @FunctionalInterface
+    public interface Subscription {
+        /**
+         * Stops passing changes to the listener.
+         * */
+        void cancel();
+    }
+
+    /**
+     * The changes found by a sync.
+     * @param <T> the type of record in the table
+     * */
+    public static final class Changes<T> {
+        private final List<T> changed;
+        private final Set<Integer> deleted;
+        private final boolean reset;
+        private final ToIntFunction<T> idOf;
+
+        private Changes(List<T> changed, Set<Integer> deleted, boolean reset, ToIntFunction<T> idOf) {
+            this.changed = Collections.unmodifiableList(changed);
+            this.deleted = Collections.unmodifiableSet(deleted);
+            this.reset = reset;
+            this.idOf = idOf;
+        }
+
+        /**
+         * Getter for the changed records.
+         * @return the records inserted or updated, each once
+         * */
+        public List<T> getChanged() {
+            return changed;
+        }
+
+        /**
+         * Getter for the deleted ids.
+         * @return the ids of the deleted rows
+         * */
+        public Set<Integer> getDeleted() {
+            return deleted;
+        }
+
+        /**
+         * Checks if the feed lost its place, so the changes may be incomplete and the rows should be loaded again.
+         * @return true if the rows should be loaded again
+         * */
+        public boolean isReset() {
+            return reset;
+        }
+
+        /**
+         * Applies the changes to a list holding a window of the table, such as the appointments of a week. A changed
+         * record replaces the one with its id, or is removed if it has left the window. A changed record the list
+         * does not hold is added if it is in the window. Items the table does not hold, such as the occurrences of a
+         * series, have ids that never match a row and are left alone.
+         * @param items the list
+         * @param window the condition of the window, or null to only update or remove the records the list holds
+         * @param order the order of the list, or null to add records at the end
+         * */
+        public void applyTo(List<T> items, Predicate<? super T> window, Comparator<? super T> order) {
+            Map<Integer, T> pending = new LinkedHashMap<>();
+
+            for (var record : changed)
+                pending.put(idOf.applyAsInt(record), record);
+
+            for (var it = items.listIterator(); it.hasNext(); ) {
+                T item = it.next();
+                int id = idOf.applyAsInt(item);
+                T record = pending.get(id);
+
+                if (deleted.contains(id)) {
+                    it.remove();
+                } else if (record != null) {
+                    boolean moved = order != null && order.compare(item, record) != 0;
+
+                    if ((window != null && !window.test(record)) || moved) {
+                        it.remove();
+                    } else {
+                        pending.remove(id);
+
+                        if (!record.equals(item))
+                            it.set(record);
+                    }
+                }
+            }
+
+            for (var record : pending.values()) {
+                if (window == null || !window.test(record))
+                    continue;
+
+                int index = items.size();
+
+                if (order != null) {
+                    index = Collections.binarySearch(items, record, order);
+                    index = index < 0 ? -index - 1 : index;
+                }
+
+                items.add(index, record);
+            }
+        }
+    }
+
+    /**
+     * A row deleted from a table, as recorded in the deleted_rows table.
+     * */
+    public static final class Deletion {
+        private final long deleteId;
+        private final int rowId;
+        private final LocalDateTime deletedAt;
+
+        /**
+         * Creates a deletion.
+         * @param deleteId the id of the deletion, unique across tables
+         * @param rowId the id of the deleted row
+         * @param deletedAt when the row was deleted, by the database's clock
+         * */
+        public Deletion(long deleteId, int rowId, LocalDateTime deletedAt) {
+            this.deleteId = deleteId;
+            this.rowId = rowId;
+            this.deletedAt = deletedAt;
+        }
+
+        /**
+         * Getter for the id of the deletion.
+         * @return the id of the deletion
+         * */
+        public long getDeleteId() {
+            return deleteId;
+        }
+
+        /**
+         * Getter for the id of the deleted row.
+         * @return the id of the row
+         * */
+        public int getRowId() {
+            return rowId;
+        }
+
+        /**
+         * Getter for when the row was deleted.
+         * @return the time by the database's clock
+         * */
+        public LocalDateTime getDeletedAt() {
+            return deletedAt;
+        }
+    }
+
+    /**
+     * The queries a feed runs against its table.
+     * @param <T> the type of record in the table
+     * */
+    public interface Source<T> {
+        /**
+         * Loads the rows with a Last_Update after a time.
+         * @param since the time
+         * @return the records
+         * @throws SQLException if the table cannot be read
+         * */
+        List<T> loadChangedSince(LocalDateTime since) throws SQLException;
+
+        /**
+         * Gets the latest Last_Update of the table.
+         * @return the latest Last_Update, or null if the table is empty
+         * @throws SQLException if the table cannot be read
+         * */
+        LocalDateTime lastUpdate() throws SQLException;
+
+        /**
+         * Loads the rows of the table deleted after a time.
+         * @param since the time, by the database's clock
+         * @return the deletions
+         * @throws SQLException if the deleted rows cannot be read
+         * */
+        List<Deletion> loadDeletedSince(LocalDateTime since) throws SQLException;
+
+        /**
+         * Gets when the latest row of the table was deleted.
+         * @return the time by the database's clock, or null if no deleted row is recorded
+         * @throws SQLException if the deleted rows cannot be read
+         * */
+        LocalDateTime lastDeleted() throws SQLException;
+    }
+}
@@ -0,0 +1,41 @@
+package scheduler.dao.cache;
+
+import scheduler.model.Appointment;
+import scheduler.model.Customer;
+import scheduler.mysql.DBAppointment;
+import scheduler.mysql.DBCustomer;
+
+import java.time.Duration;
+
+/**
+ * Provides the shared feeds of the changes to the appointments and customers tables, which the screens follow to
+ * update the rows they show instead of reading them again. Every record from a feed is shared, so it must not be
+ * modified.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class ChangeFeeds {
+    private static final Duration defaultSyncInterval = Duration.ofSeconds(30);
+
+    private static final ChangeFeed<Appointment> appointments = new ChangeFeed<>(DBAppointment.feedSource(),
+            Appointment::getId, defaultSyncInterval);
+    private static final ChangeFeed<Customer> customers = new ChangeFeed<>(DBCustomer.feedSource(),
+            Customer::getId, defaultSyncInterval);
+
+    private ChangeFeeds() {}
+
+    /**
+     * Getter for the feed of the appointments table.
+     * @return the appointments feed
+     * */
+    public static ChangeFeed<Appointment> appointments() {
+        return appointments;
+    }
+
+    /**
+     * Getter for the feed of the customers table.
+     * @return the customers feed
+     * */
+    public static ChangeFeed<Customer> customers() {
+        return customers;
+    }
+}
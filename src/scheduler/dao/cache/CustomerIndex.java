@@ -0,0 +1,320 @@
+package scheduler.dao.cache;
+
+import scheduler.model.Customer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * A trigram index over the searchable fields of every customer, used to find the customers whose field contains a
+ * search string without checking every customer. Each field value is split into its three character substrings, and
+ * each substring maps to the ids of the customers whose field contains it. A search only checks the customers listed
+ * under the rarest substring of the search string.
+ * <p>
+ * The index is built the first time it is searched, and then kept up to date by the changes of the customers feed,
+ * including those made by other clients. The feed's thread only queues the changes, and they are applied to the index
+ * before the next search. The index is built again only if the feed loses its place.
+ * @author Steven Kazmierkiewicz
+ * */
+public class CustomerIndex {
+    private static final int gramLength = 3;
+
+    // the searchable fields, by the field names used by SearchUtils
+    private static final Map<String, Function<Customer, String>> fields = new LinkedHashMap<>();
+
+    static {
+        fields.put("id", c -> String.valueOf(c.getId()));
+        fields.put("name", Customer::getName);
+        fields.put("address", Customer::getAddress);
+        fields.put("postalCode", Customer::getPostalCode);
+        fields.put("divisionName", Customer::getDivisionName);
+        fields.put("countryName", Customer::getCountryName);
+        fields.put("phone", Customer::getPhone);
+    }
+
+    private static final List<String> fieldNames = new ArrayList<>(fields.keySet());
+
+    private final Supplier<List<Customer>> loader;
+    private final ChangeFeed<Customer> feed;
+    private final Queue<ChangeFeed.Changes<Customer>> pending = new ConcurrentLinkedQueue<>();
+    private ChangeFeed.Subscription subscription = null;
+    private volatile boolean stale = false;
+    private boolean built = false;
+
+    private final Map<Integer, Customer> customers = new HashMap<>();
+    // the upper case value of each field of each customer, in the order of fieldNames
+    private final Map<Integer, String[]> values = new HashMap<>();
+    // for each field, the ids of the customers containing each trigram
+    private final List<Map<Long, IdList>> grams = new ArrayList<>();
+    private final IdList allIds = new IdList();
+
+    /**
+     * Creates an index that loads the customers with the provided loader and follows the changes of a feed.
+     * @param loader loads every customer
+     * @param feed the feed of the changes to the customers, or null if they do not change
+     * */
+    public CustomerIndex(Supplier<List<Customer>> loader, ChangeFeed<Customer> feed) {
+        this.loader = loader;
+        this.feed = feed;
+
+        for (int i = 0; i < fieldNames.size(); i++)
+            grams.add(new HashMap<>());
+    }
+
+    /**
+     * Finds the customers with any searchable field containing a search string, ignoring case.
+     * @param searchStr the string to search for
+     * @return the matching customers, ordered by id
+     * */
+    public synchronized List<Customer> search(String searchStr) {
+        int[] all = new int[fieldNames.size()];
+        for (int i = 0; i < all.length; i++)
+            all[i] = i;
+
+        return search(searchStr, all);
+    }
+
+    /**
+     * Finds the customers with a specific field containing a search string, ignoring case.
+     * @param searchStr the string to search for
+     * @param fieldName the field to search, as named by SearchUtils
+     * @return the matching customers, ordered by id
+     * @throws IllegalArgumentException if the field is not searchable
+     * */
+    public synchronized List<Customer> search(String searchStr, String fieldName) {
+        int field = fieldNames.indexOf(fieldName);
+
+        if (field == -1)
+            throw new IllegalArgumentException("Cannot search customers by " + fieldName + ".");
+
+        return search(searchStr, new int[]{field});
+    }
+
+    /**
+     * Removes a customer from the index.
+     * @param id the id of the customer
+     * */
+    private void remove(int id) {
+        customers.remove(id);
+        String[] old = values.remove(id);
+
+        if (old == null)
+            return;
+
+        allIds.remove(id);
+
+        for (int f = 0; f < old.length; f++) {
+            Map<Long, IdList> fieldGrams = grams.get(f);
+
+            for (int i = 0; i + gramLength <= old[f].length(); i++) {
+                long gram = gramAt(old[f], i);
+                IdList ids = fieldGrams.get(gram);
+
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.size == 0)
+                        fieldGrams.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops the index so it is rebuilt on the next search.
+     * */
+    public synchronized void invalidate() {
+        customers.clear();
+        values.clear();
+        grams.forEach(Map::clear);
+        allIds.clear();
+        built = false;
+    }
+
+    /**
+     * Finds the customers with any of the fields containing a search string.
+     * @param searchStr the string to search for
+     * @param searchFields the positions of the fields to search
+     * @return the matching customers, ordered by id
+     * */
+    private List<Customer> search(String searchStr, int[] searchFields) {
+        if (!built || stale)
+            build();
+
+        applyPending();
+
+        String upperSearchStr = searchStr.toUpperCase();
+        BitSet matches = new BitSet();
+
+        for (int f : searchFields) {
+            IdList candidates = candidates(upperSearchStr, f);
+
+            for (int i = 0; i < candidates.size; i++) {
+                int id = candidates.ids[i];
+                if (!matches.get(id) && values.get(id)[f].contains(upperSearchStr))
+                    matches.set(id);
+            }
+        }
+
+        List<Customer> result = new ArrayList<>(matches.cardinality());
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1))
+            result.add(customers.get(id));
+
+        return result;
+    }
+
+    /**
+     * Gets the customers that may have a field containing a search string, which are those listed under the rarest
+     * trigram of the string. Every customer is a candidate if the string is shorter than a trigram.
+     * @param upperSearchStr the upper case string to search for
+     * @param field the position of the field
+     * @return the ids of the candidate customers
+     * */
+    private IdList candidates(String upperSearchStr, int field) {
+        if (upperSearchStr.length() < gramLength)
+            return allIds;
+
+        Map<Long, IdList> fieldGrams = grams.get(field);
+        IdList rarest = null;
+
+        for (int i = 0; i + gramLength <= upperSearchStr.length(); i++) {
+            IdList ids = fieldGrams.get(gramAt(upperSearchStr, i));
+
+            if (ids == null)
+                return new IdList();
+            if (rarest == null || ids.size < rarest.size)
+                rarest = ids;
+        }
+
+        return rarest;
+    }
+
+    /**
+     * Loads every customer and builds the index. The index starts following the feed before the customers are loaded,
+     * so a change made while they load is queued and applied after them.
+     * */
+    private void build() {
+        if (feed != null && subscription == null)
+            subscription = feed.subscribe(this::queue);
+
+        invalidate();
+        stale = false;
+        pending.clear();
+
+        for (var customer : loader.get())
+            add(customer);
+
+        built = true;
+    }
+
+    /**
+     * Queues the changes of a sync of the feed. Called on the feed's thread, so it only queues them, unless the feed
+     * lost its place, in which case the index is built again on the next search.
+     * @param changes the changes
+     * */
+    private void queue(ChangeFeed.Changes<Customer> changes) {
+        if (changes.isReset()) {
+            stale = true;
+            pending.clear();
+        } else {
+            pending.add(changes);
+        }
+    }
+
+    /**
+     * Applies the queued changes to the index, in the order the feed found them.
+     * */
+    private void applyPending() {
+        for (ChangeFeed.Changes<Customer> changes; (changes = pending.poll()) != null; ) {
+            changes.getDeleted().forEach(this::remove);
+
+            for (var customer : changes.getChanged()) {
+                remove(customer.getId());
+                add(customer);
+            }
+        }
+    }
+
+    /**
+     * Adds a customer that is not in the index.
+     * @param customer the customer
+     * */
+    private void add(Customer customer) {
+        String[] upper = new String[fieldNames.size()];
+
+        for (int f = 0; f < upper.length; f++) {
+            String value = fields.get(fieldNames.get(f)).apply(customer);
+            upper[f] = value == null ? "" : value.toUpperCase();
+
+            for (int i = 0; i + gramLength <= upper[f].length(); i++)
+                grams.get(f).computeIfAbsent(gramAt(upper[f], i), g -> new IdList()).add(customer.getId());
+        }
+
+        customers.put(customer.getId(), customer);
+        values.put(customer.getId(), upper);
+        allIds.add(customer.getId());
+    }
+
+    /**
+     * Packs the trigram starting at a position of a string into a long.
+     * @param str the string
+     * @param i the position of the first character
+     * @return the trigram
+     * */
+    private static long gramAt(String str, int i) {
+        return ((long) str.charAt(i) << 32) | ((long) str.charAt(i + 1) << 16) | str.charAt(i + 2);
+    }
+
+    /**
+     * A list of customer ids without boxing. An id added twice in a row is only kept once, which is enough to keep out
+     * the repeats of a trigram within a single value.
+     * */
+    private static final class IdList {
+        private int[] ids = new int[4];
+        private int size = 0;
+
+        /**
+         * Adds an id unless it was the last one added.
+         * @param id the id
+         * */
+        private void add(int id) {
+            if (size > 0 && ids[size - 1] == id)
+                return;
+
+            if (size == ids.length)
+                ids = Arrays.copyOf(ids, size * 2);
+
+            ids[size++] = id;
+        }
+
+        /**
+         * Removes an id.
+         * @param id the id
+         * */
+        private void remove(int id) {
+            for (int i = 0; i < size; i++) {
+                if (ids[i] == id) {
+                    System.arraycopy(ids, i + 1, ids, i, size - i - 1);
+                    size--;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Removes every id.
+         * */
+        private void clear() {
+            ids = new int[4];
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package scheduler.dao.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * An identity map for a small, rarely changing table. The whole table is loaded at once and each record is kept as a
+ * single shared instance, looked up by id. The table is reloaded after the refresh interval has passed, when it is
+ * invalidated, or when an id is requested that was not in the last load. A miss only reloads the table if the last
+ * load is older than a few seconds, so requests for ids that do not exist cannot reload the table on every call.
+ * @param <T> the type of record in the table
+ * @author Steven Kazmierkiewicz
+ * */
+public class ReferenceCache<T> {
+    // how long after a load an unknown id is taken as missing without loading the table again
+    private static final long missIntervalMillis = 5_000;
+
+    private final Supplier<List<T>> loader;
+    private final ToIntFunction<T> idOf;
+    private volatile Duration refreshInterval;
+    private volatile Snapshot<T> snapshot = null;
+
+    /**
+     * Creates a cache that loads its records with the provided loader.
+     * @param loader loads every record of the table
+     * @param idOf gets the id of a record
+     * @param refreshInterval how long the records are kept before the table is reloaded
+     * */
+    public ReferenceCache(Supplier<List<T>> loader, ToIntFunction<T> idOf, Duration refreshInterval) {
+        this.loader = loader;
+        this.idOf = idOf;
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Gets the shared instance of the record with the id. Reloads the table once if the id is unknown and the table
+     * was not loaded in the last few seconds.
+     * @param id the id of the record
+     * @return the record, or null if there is no record with the id
+     * */
+    public T get(int id) {
+        Snapshot<T> current = current();
+        T record = current.byId.get(id);
+
+        if (record == null && current.ageMillis() >= missIntervalMillis)
+            record = reloadAfterMiss(current).byId.get(id);
+
+        return record;
+    }
+
+    /**
+     * Gets the shared instances of all records in the order they were loaded.
+     * @return the unmodifiable list of records
+     * */
+    public List<T> getAll() {
+        return current().all;
+    }
+
+    /**
+     * Drops the loaded records so the table is reloaded on the next request.
+     * */
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    /**
+     * Setter for the refresh interval.
+     * @param refreshInterval how long the records are kept before the table is reloaded
+     * */
+    public void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Gets the loaded records, loading or reloading the table if needed.
+     * @return the loaded records
+     * */
+    private Snapshot<T> current() {
+        Snapshot<T> current = snapshot;
+
+        if (current == null || current.isExpired(refreshInterval)) {
+            synchronized (this) {
+                current = snapshot;
+                if (current == null || current.isExpired(refreshInterval))
+                    current = reload();
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * Reloads the table after an id was missing, unless another thread already reloaded it.
+     * @param missed the records the id was missing from
+     * @return the loaded records
+     * */
+    private synchronized Snapshot<T> reloadAfterMiss(Snapshot<T> missed) {
+        Snapshot<T> current = snapshot;
+        return current != null && current != missed ? current : reload();
+    }
+
+    /**
+     * Loads every record of the table.
+     * @return the loaded records
+     * */
+    private synchronized Snapshot<T> reload() {
+        Map<Integer, T> map = new LinkedHashMap<>();
+
+        for (var record : loader.get())
+            map.put(idOf.applyAsInt(record), record);
+
+        snapshot = new Snapshot<>(map);
+        return snapshot;
+    }
+
+    /**
+     * The records from a single load of the table.
+     * @param <T> the type of record in the table
+     * */
+    private static final class Snapshot<T> {
+        private final Map<Integer, T> byId;
+        private final List<T> all;
+        private final long loadedAt = System.currentTimeMillis();
+
+        private Snapshot(Map<Integer, T> byId) {
+            this.byId = byId;
+            this.all = Collections.unmodifiableList(new ArrayList<>(byId.values()));
+        }
+
+        /**
+         * Gets how long ago the records were loaded.
+         * @return the age in milliseconds
+         * */
+        private long ageMillis() {
+            return System.currentTimeMillis() - loadedAt;
+        }
+
+        /**
+         * Checks if the records are older than the refresh interval.
+         * @param refreshInterval the refresh interval
+         * @return true if the table should be reloaded
+         * */
+        private boolean isExpired(Duration refreshInterval) {
+            return System.currentTimeMillis() - loadedAt > refreshInterval.toMillis();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package scheduler.dao.cache;
+
+import scheduler.dao.ContactDAO;
+import scheduler.dao.CountryDAO;
+import scheduler.dao.DivisionDAO;
+import scheduler.dao.UserDAO;
+import scheduler.mysql.DBContact;
+import scheduler.mysql.DBCountry;
+import scheduler.mysql.DBDivision;
+import scheduler.mysql.DBUser;
+import scheduler.util.metrics.Instrumented;
+
+import java.time.Duration;
+
+/**
+ * Provides the shared, cached DAOs for the reference tables: countries, first-level divisions, contacts, and users.
+ * Every record from these DAOs is a single shared instance, so it must not be modified.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class ReferenceData {
+    private static final Duration defaultRefreshInterval = Duration.ofMinutes(15);
+
+    private static final CachedCountryDAO countries = new CachedCountryDAO(
+            Instrumented.dao(CountryDAO.class, new DBCountry()), defaultRefreshInterval);
+    private static final CachedDivisionDAO divisions = new CachedDivisionDAO(
+            Instrumented.dao(DivisionDAO.class, new DBDivision()), countries, defaultRefreshInterval);
+    private static final CachedContactDAO contacts = new CachedContactDAO(
+            Instrumented.dao(ContactDAO.class, new DBContact()), defaultRefreshInterval);
+    private static final CachedUserDAO users = new CachedUserDAO(
+            Instrumented.dao(UserDAO.class, new DBUser()), defaultRefreshInterval);
+
+    private ReferenceData() {}
+
+    /**
+     * Getter for the cached CountryDAO.
+     * @return the country DAO
+     * */
+    public static CountryDAO countries() {
+        return countries;
+    }
+
+    /**
+     * Getter for the cached DivisionDAO.
+     * @return the division DAO
+     * */
+    public static DivisionDAO divisions() {
+        return divisions;
+    }
+
+    /**
+     * Getter for the cached ContactDAO.
+     * @return the contact DAO
+     * */
+    public static ContactDAO contacts() {
+        return contacts;
+    }
+
+    /**
+     * Getter for the cached UserDAO.
+     * @return the user DAO
+     * */
+    public static UserDAO users() {
+        return users;
+    }
+
+    /**
+     * Sets how long the reference tables are kept before they are reloaded.
+     * @param refreshInterval the refresh interval
+     * */
+    public static void setRefreshInterval(Duration refreshInterval) {
+        countries.getCache().setRefreshInterval(refreshInterval);
+        divisions.getCache().setRefreshInterval(refreshInterval);
+        contacts.getCache().setRefreshInterval(refreshInterval);
+        users.getCache().setRefreshInterval(refreshInterval);
+    }
+
+    /**
+     * Drops all cached reference data so each table is reloaded on its next request.
+     * */
+    public static void invalidateAll() {
+        countries.getCache().invalidate();
+        divisions.getCache().invalidate();
+        contacts.getCache().invalidate();
+        users.getCache().invalidate();
+    }
+}
@@ -0,0 +1,234 @@
+package scheduler.dao.cache;
+
+import scheduler.model.Appointment;
+import scheduler.model.Contact;
+import scheduler.model.Customer;
+import scheduler.model.User;
+import scheduler.util.time.IntervalIndex;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Indexes the schedules of customers, contacts and users so overlapping appointments can be found without scanning
+ * every appointment of the account. The schedule of an account is loaded the first time it is checked and is then
+ * kept up to date as appointments are created, updated and deleted. A schedule is reloaded after the refresh interval
+ * has passed, to pick up changes made by other clients.
+ * @author Steven Kazmierkiewicz
+ * */
+public class ScheduleIndex {
+    private final Schedules customers;
+    private final Schedules contacts;
+    private final Schedules users;
+
+    // the indexed appointments by id, so a changed appointment can be removed from the schedules it was in
+    private final Map<Integer, Appointment> indexed = new HashMap<>();
+    private Duration refreshInterval;
+
+    /**
+     * Creates a schedule index that loads the schedule of an account with the provided loaders.
+     * @param customerLoader loads the appointments of a customer by id
+     * @param contactLoader loads the appointments of a contact by id
+     * @param userLoader loads the appointments of a user by id
+     * @param refreshInterval how long a schedule is kept before it is reloaded
+     * */
+    public ScheduleIndex(IntFunction<List<Appointment>> customerLoader, IntFunction<List<Appointment>> contactLoader,
+                         IntFunction<List<Appointment>> userLoader, Duration refreshInterval) {
+        this.customers = new Schedules(customerLoader, a -> a.getCustomer().getId());
+        this.contacts = new Schedules(contactLoader, a -> a.getContact().getId());
+        this.users = new Schedules(userLoader, a -> a.getUser().getId());
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * Finds the earliest appointment of a customer that overlaps a time range.
+     * @param customer the customer
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @param ignoreId the id of an appointment to ignore, such as the one being edited
+     * @return the overlapping appointment, or null if there is none
+     * */
+    public synchronized Appointment findOverlap(Customer customer, LocalDateTime start, LocalDateTime end, int ignoreId) {
+        return customers.get(customer.getId()).findOverlap(start, end, ignoreId);
+    }
+
+    /**
+     * Finds the earliest appointment of a contact that overlaps a time range.
+     * @param contact the contact
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @param ignoreId the id of an appointment to ignore, such as the one being edited
+     * @return the overlapping appointment, or null if there is none
+     * */
+    public synchronized Appointment findOverlap(Contact contact, LocalDateTime start, LocalDateTime end, int ignoreId) {
+        return contacts.get(contact.getId()).findOverlap(start, end, ignoreId);
+    }
+
+    /**
+     * Finds the earliest appointment of a user that overlaps a time range.
+     * @param user the user
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @param ignoreId the id of an appointment to ignore, such as the one being edited
+     * @return the overlapping appointment, or null if there is none
+     * */
+    public synchronized Appointment findOverlap(User user, LocalDateTime start, LocalDateTime end, int ignoreId) {
+        return users.get(user.getId()).findOverlap(start, end, ignoreId);
+    }
+
+    /**
+     * Adds a created or updated appointment to the loaded schedules of its accounts, removing the previous version of
+     * the appointment first.
+     * @param appointment the appointment
+     * */
+    public synchronized void put(Appointment appointment) {
+        remove(appointment.getId());
+
+        boolean added = customers.putIfLoaded(appointment);
+        added |= contacts.putIfLoaded(appointment);
+        added |= users.putIfLoaded(appointment);
+
+        if (added)
+            indexed.put(appointment.getId(), appointment);
+    }
+
+    /**
+     * Removes a deleted appointment from the schedules it is in.
+     * @param id the id of the appointment
+     * */
+    public synchronized void remove(int id) {
+        Appointment old = indexed.remove(id);
+
+        if (old != null) {
+            customers.remove(old);
+            contacts.remove(old);
+            users.remove(old);
+        }
+    }
+
+    /**
+     * Removes every appointment of a deleted customer from the schedules it is in, along with the schedule of the
+     * customer.
+     * @param customerId the id of the customer
+     * */
+    public synchronized void removeCustomer(int customerId) {
+        List<Integer> ids = new ArrayList<>();
+
+        for (var appointment : indexed.values()) {
+            if (appointment.getCustomer().getId() == customerId)
+                ids.add(appointment.getId());
+        }
+
+        ids.forEach(this::remove);
+        customers.byOwner.remove(customerId);
+    }
+
+    /**
+     * Drops every loaded schedule so they are reloaded on the next check.
+     * */
+    public synchronized void invalidate() {
+        customers.clear();
+        contacts.clear();
+        users.clear();
+        indexed.clear();
+    }
+
+    /**
+     * Setter for the refresh interval.
+     * @param refreshInterval how long a schedule is kept before it is reloaded
+     * */
+    public synchronized void setRefreshInterval(Duration refreshInterval) {
+        this.refreshInterval = refreshInterval;
+    }
+
+    /**
+     * The loaded schedules of one kind of account, by account id.
+     * */
+    private final class Schedules {
+        private final IntFunction<List<Appointment>> loader;
+        private final ToIntFunction<Appointment> ownerOf;
+        private final Map<Integer, Schedule> byOwner = new HashMap<>();
+
+        private Schedules(IntFunction<List<Appointment>> loader, ToIntFunction<Appointment> ownerOf) {
+            this.loader = loader;
+            this.ownerOf = ownerOf;
+        }
+
+        /**
+         * Gets the schedule of an account, loading it if it is not loaded or has expired.
+         * @param ownerId the id of the account
+         * @return the schedule
+         * */
+        private IntervalIndex<Appointment> get(int ownerId) {
+            Schedule schedule = byOwner.get(ownerId);
+
+            if (schedule == null || schedule.isExpired()) {
+                schedule = new Schedule();
+
+                for (var appointment : loader.apply(ownerId)) {
+                    schedule.intervals.put(appointment.getId(), appointment.getStart(), appointment.getEnd(), appointment);
+                    indexed.put(appointment.getId(), appointment);
+                }
+
+                byOwner.put(ownerId, schedule);
+            }
+
+            return schedule.intervals;
+        }
+
+        /**
+         * Adds an appointment to the schedule of its account if that schedule is loaded.
+         * @param appointment the appointment
+         * @return true if the appointment was added
+         * */
+        private boolean putIfLoaded(Appointment appointment) {
+            Schedule schedule = byOwner.get(ownerOf.applyAsInt(appointment));
+
+            if (schedule == null)
+                return false;
+
+            schedule.intervals.put(appointment.getId(), appointment.getStart(), appointment.getEnd(), appointment);
+            return true;
+        }
+
+        /**
+         * Removes an appointment from the schedule of its account if that schedule is loaded.
+         * @param appointment the appointment
+         * */
+        private void remove(Appointment appointment) {
+            Schedule schedule = byOwner.get(ownerOf.applyAsInt(appointment));
+
+            if (schedule != null)
+                schedule.intervals.remove(appointment.getId());
+        }
+
+        /**
+         * Drops every loaded schedule.
+         * */
+        private void clear() {
+            byOwner.clear();
+        }
+    }
+
+    /**
+     * The loaded schedule of a single account.
+     * */
+    private final class Schedule {
+        private final IntervalIndex<Appointment> intervals = new IntervalIndex<>();
+        private final long loadedAt = System.currentTimeMillis();
+
+        /**
+         * Checks if the schedule is older than the refresh interval.
+         * @return true if the schedule should be reloaded
+         * */
+        private boolean isExpired() {
+            return System.currentTimeMillis() - loadedAt > refreshInterval.toMillis();
+        }
+    }
+}
@@ -7,7 +7,8 @@ import java.time.temporal.ChronoUnit;
 import java.util.Objects;
 
 /**
- * Represents an appointment on the schedule.
+ * Represents an appointment on the schedule. The customer is copied, while the user and contact are shared reference
+ * data and are not.
  * @author Steven Kazmierkiewicz
  * */
 public class Appointment {
@@ -42,8 +43,8 @@ public class Appointment {
         this.start = start;
         this.end = end;
         this.customer = new Customer(customer);
-        this.user = new User(user);
-        this.contact = new Contact(contact);
+        this.user = user;
+        this.contact = contact;
     }
 
     /**
@@ -59,8 +60,8 @@ public class Appointment {
         this.start = appointment.start;
         this.end = appointment.end;
         this.customer = new Customer(appointment.customer);
-        this.user = new User(appointment.user);
-        this.contact = new Contact(appointment.contact);
+        this.user = appointment.user;
+        this.contact = appointment.contact;
     }
 
     /**
@@ -200,7 +201,7 @@ public class Appointment {
      * @return the user
      * */
     public User getUser() {
-        return new User(user);
+        return user;
     }
 
     /**
@@ -208,7 +209,7 @@ public class Appointment {
      * @param user the user to set
      * */
     public void setUser(User user) {
-        this.user = new User(user);
+        this.user = user;
     }
 
     /**
@@ -216,7 +217,7 @@ public class Appointment {
      * @return the contact
      * */
     public Contact getContact() {
-        return new Contact(contact);
+        return contact;
     }
 
     /**
@@ -224,7 +225,7 @@ public class Appointment {
      * @param contact the contact to set
      * */
     public void setContact(Contact contact) {
-        this.contact = new Contact(contact);
+        this.contact = contact;
     }
 
     /**
@@ -344,6 +345,8 @@ public class Appointment {
                     return Type.CLOSING;
                 case "Special Event":
                     return Type.SPECIAL_EVENT;
+                case "Progress Report":
+                    return Type.PROGRESS_REPORT;
                 case "Planning Session":
                     return Type.PLANNING;
                 case "De-Briefing":
@@ -0,0 +1,347 @@
+package scheduler.model;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * An appointment that repeats by a rule, stored once instead of as a row per occurrence. The occurrences are built
+ * only for the range asked for, and each one has the same time of day and length as the first. Checking a series for
+ * overlaps only visits the occurrences that could overlap, so a series that runs for years is never expanded whole.
+ * @author Steven Kazmierkiewicz
+ * */
+public class AppointmentSeries {
+    // how far ahead a series that does not end is checked, for overlaps and for business hours
+    public static final Period openEndedHorizon = Period.ofYears(5);
+
+    private final int id;
+    private final String title, description, location;
+    private final Appointment.Type type;
+    private final LocalDateTime start, end;
+    private final Customer customer;
+    private final User user;
+    private final Contact contact;
+    private final Recurrence recurrence;
+
+    /**
+     * Creates an AppointmentSeries instance by providing individual values for all fields.
+     * @param id the id to set
+     * @param title the title to set
+     * @param description the description to set
+     * @param location the location to set
+     * @param type the type to set
+     * @param start the start date and time of the first occurrence
+     * @param end the end date and time of the first occurrence
+     * @param customer the customer to set
+     * @param user the user to set
+     * @param contact the contact to set
+     * @param recurrence the rule the series repeats by
+     * */
+    public AppointmentSeries(int id, String title, String description, String location, Appointment.Type type,
+                             LocalDateTime start, LocalDateTime end, Customer customer, User user, Contact contact,
+                             Recurrence recurrence) {
+        this.id = id;
+        this.title = title;
+        this.description = description;
+        this.location = location;
+        this.type = type;
+        this.start = start;
+        this.end = end;
+        this.customer = new Customer(customer);
+        this.user = user;
+        this.contact = contact;
+        this.recurrence = recurrence;
+    }
+
+    /**
+     * Creates a copy of a series with another id and rule.
+     * @param series the series to copy
+     * @param id the id to set
+     * @param recurrence the rule to set
+     * */
+    public AppointmentSeries(AppointmentSeries series, int id, Recurrence recurrence) {
+        this(id, series.title, series.description, series.location, series.type, series.start, series.end,
+                series.customer, series.user, series.contact, recurrence);
+    }
+
+    /**
+     * Getter for the id.
+     * @return the id
+     * */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Getter for the title.
+     * @return the title
+     * */
+    public String getTitle() {
+        return title;
+    }
+
+    /**
+     * Getter for the description.
+     * @return the description
+     * */
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Getter for the location.
+     * @return the location
+     * */
+    public String getLocation() {
+        return location;
+    }
+
+    /**
+     * Getter for the type.
+     * @return the type
+     * */
+    public Appointment.Type getType() {
+        return type;
+    }
+
+    /**
+     * Getter for the start of the first occurrence.
+     * @return the start date and time
+     * */
+    public LocalDateTime getStart() {
+        return start;
+    }
+
+    /**
+     * Getter for the end of the first occurrence.
+     * @return the end date and time
+     * */
+    public LocalDateTime getEnd() {
+        return end;
+    }
+
+    /**
+     * Getter for the customer.
+     * @return the customer
+     * */
+    public Customer getCustomer() {
+        return new Customer(customer);
+    }
+
+    /**
+     * Provides direct access to the customers ID.
+     * @return the customer's id
+     * */
+    public int getCustomerId() { return customer.getId(); }
+
+    /**
+     * Getter for the user.
+     * @return the user
+     * */
+    public User getUser() {
+        return user;
+    }
+
+    /**
+     * Getter for the contact.
+     * @return the contact
+     * */
+    public Contact getContact() {
+        return contact;
+    }
+
+    /**
+     * Getter for the rule.
+     * @return the rule the series repeats by
+     * */
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    /**
+     * Gets the length of each occurrence.
+     * @return the length
+     * */
+    public Duration getLength() {
+        return Duration.between(start, end);
+    }
+
+    /**
+     * Gets the day after the last occurrence can start.
+     * @return the date, or null if the series does not end
+     * */
+    public LocalDate getEndDate() {
+        return recurrence.getUntil() == null ? null : recurrence.getUntil().plusDays(1);
+    }
+
+    /**
+     * Gets the occurrences starting within a range.
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the occurrences, in order
+     * */
+    public List<Appointment> occurrencesBetween(LocalDateTime from, LocalDateTime to) {
+        List<Appointment> occurrences = new ArrayList<>();
+
+        for (LocalDate date : recurrence.datesBetween(start.toLocalDate(), from.toLocalDate(), to.toLocalDate().plusDays(1))) {
+            Occurrence occurrence = occurrenceOn(date);
+
+            if (!occurrence.getStart().isBefore(from) && occurrence.getStart().isBefore(to))
+                occurrences.add(occurrence);
+        }
+
+        return occurrences;
+    }
+
+    /**
+     * Finds an occurrence that overlaps a time range. Only the occurrences starting between the length of an
+     * occurrence before the range and its end are looked at.
+     * @param from the start of the range
+     * @param to the end of the range
+     * @return the first overlapping occurrence, or null if there is none
+     * */
+    public Occurrence findOverlap(LocalDateTime from, LocalDateTime to) {
+        LocalDate first = from.minus(getLength()).toLocalDate();
+
+        for (LocalDate date : recurrence.datesBetween(start.toLocalDate(), first, to.toLocalDate().plusDays(1))) {
+            Occurrence occurrence = occurrenceOn(date);
+
+            if (occurrence.getStart().isBefore(to) && occurrence.getEnd().isAfter(from))
+                return occurrence;
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds an occurrence of this series that overlaps an occurrence of another. Both series are only walked while
+     * both are running and until the horizon. When neither rule is monthly or has exceptions, the two together repeat
+     * every common multiple of their periods, so only the first period of the shared run is walked.
+     * @param other the other series
+     * @param horizon the day to stop looking on, for series that do not end
+     * @return the first occurrence of this series that overlaps, or null if there is none
+     * */
+    public Occurrence findOverlap(AppointmentSeries other, LocalDate horizon) {
+        LocalDate from = max(start.toLocalDate(), other.start.toLocalDate());
+        LocalDate to = horizon;
+
+        if (getEndDate() != null && getEndDate().isBefore(to))
+            to = getEndDate();
+        if (other.getEndDate() != null && other.getEndDate().isBefore(to))
+            to = other.getEndDate();
+
+        int period = recurrence.periodDays();
+        int otherPeriod = other.recurrence.periodDays();
+
+        if (period > 0 && otherPeriod > 0 && recurrence.getExceptions().isEmpty()
+                && other.recurrence.getExceptions().isEmpty()) {
+            LocalDate cycleEnd = from.plusDays(lcm(period, otherPeriod));
+
+            if (cycleEnd.isBefore(to))
+                to = cycleEnd;
+        }
+
+        // occurrences starting the day before the shared run may still overlap it
+        for (LocalDate date : recurrence.datesBetween(start.toLocalDate(), from.minusDays(1), to)) {
+            Occurrence occurrence = occurrenceOn(date);
+
+            if (other.findOverlap(occurrence.getStart(), occurrence.getEnd()) != null)
+                return occurrence;
+        }
+
+        return null;
+    }
+
+    /**
+     * Builds the occurrence on a date, without checking that the rule falls on it.
+     * @param date the date
+     * @return the occurrence
+     * */
+    public Occurrence occurrenceOn(LocalDate date) {
+        LocalDateTime occurrenceStart = LocalDateTime.of(date, start.toLocalTime());
+        return new Occurrence(this, date, occurrenceStart, occurrenceStart.plus(getLength()));
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static long lcm(long a, long b) {
+        long x = a, y = b;
+
+        while (y != 0) {
+            long t = x % y;
+            x = y;
+            y = t;
+        }
+
+        return a / x * b;
+    }
+
+    /**
+     * Checks if the object has equal values.
+     * @return true if the objects are equal
+     * */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AppointmentSeries that = (AppointmentSeries) o;
+        return id == that.id &&
+                Objects.equals(title, that.title) &&
+                Objects.equals(description, that.description) &&
+                Objects.equals(location, that.location) &&
+                type == that.type &&
+                Objects.equals(start, that.start) &&
+                Objects.equals(end, that.end) &&
+                Objects.equals(customer, that.customer) &&
+                Objects.equals(user, that.user) &&
+                Objects.equals(contact, that.contact) &&
+                Objects.equals(recurrence, that.recurrence);
+    }
+
+    /**
+     * Provides a hash of the object's fields.
+     * @return the hash value
+     * */
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, title, description, location, type, start, end, customer, user, contact, recurrence);
+    }
+
+    /**
+     * One occurrence of a series, shown alongside the stored appointments. It is not a row of its own, so its id is
+     * the negative id of its series and never matches a stored appointment.
+     * */
+    public static class Occurrence extends Appointment {
+        private final AppointmentSeries series;
+        private final LocalDate date;
+
+        private Occurrence(AppointmentSeries series, LocalDate date, LocalDateTime start, LocalDateTime end) {
+            super(-series.id, series.title, series.description, series.location, series.type, start, end,
+                    series.customer, series.user, series.contact);
+            this.series = series;
+            this.date = date;
+        }
+
+        /**
+         * Getter for the series.
+         * @return the series this is an occurrence of
+         * */
+        public AppointmentSeries getSeries() {
+            return series;
+        }
+
+        /**
+         * Getter for the date of the occurrence in the series' rule.
+         * @return the date
+         * */
+        public LocalDate getDate() {
+            return date;
+        }
+    }
+}
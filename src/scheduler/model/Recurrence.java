@@ -0,0 +1,277 @@
+package scheduler.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.Objects;
+import java.util.TreeSet;
+
+/**
+ * The rule an appointment series repeats by: every n days, weeks, or months from the date of the first occurrence,
+ * until an optional last date, skipping the dates in the exceptions. The nth date of the rule is found by arithmetic,
+ * so dates are only ever worked out for the range asked for, no matter how far the rule runs. A monthly rule keeps the
+ * day of the month of the first date, falling back to the last day of shorter months.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class Recurrence {
+    private final Frequency frequency;
+    private final int interval;
+    private final LocalDate until;
+    private final NavigableSet<LocalDate> exceptions;
+
+    /**
+     * Creates a rule with no exceptions.
+     * @param frequency how often the rule repeats
+     * @param interval the number of days, weeks, or months between dates
+     * @param until the last date of the rule, inclusive, or null if it does not end
+     * */
+    public Recurrence(Frequency frequency, int interval, LocalDate until) {
+        this(frequency, interval, until, List.of());
+    }
+
+    /**
+     * Creates a rule.
+     * @param frequency how often the rule repeats
+     * @param interval the number of days, weeks, or months between dates
+     * @param until the last date of the rule, inclusive, or null if it does not end
+     * @param exceptions the dates skipped
+     * @throws IllegalArgumentException if the interval is not positive
+     * */
+    public Recurrence(Frequency frequency, int interval, LocalDate until, Iterable<LocalDate> exceptions) {
+        if (interval < 1)
+            throw new IllegalArgumentException("Interval must be positive.");
+
+        this.frequency = Objects.requireNonNull(frequency);
+        this.interval = interval;
+        this.until = until;
+
+        TreeSet<LocalDate> skipped = new TreeSet<>();
+        exceptions.forEach(skipped::add);
+        this.exceptions = Collections.unmodifiableNavigableSet(skipped);
+    }
+
+    /**
+     * Getter for the frequency.
+     * @return the frequency
+     * */
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    /**
+     * Getter for the interval.
+     * @return the number of days, weeks, or months between dates
+     * */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Getter for the last date.
+     * @return the last date, inclusive, or null if the rule does not end
+     * */
+    public LocalDate getUntil() {
+        return until;
+    }
+
+    /**
+     * Getter for the exceptions.
+     * @return the skipped dates, in order, which cannot be modified
+     * */
+    public NavigableSet<LocalDate> getExceptions() {
+        return exceptions;
+    }
+
+    /**
+     * Creates a copy of this rule that also skips a date.
+     * @param date the date to skip
+     * @return the new rule
+     * */
+    public Recurrence except(LocalDate date) {
+        List<LocalDate> skipped = new ArrayList<>(exceptions);
+        skipped.add(date);
+        return new Recurrence(frequency, interval, until, skipped);
+    }
+
+    /**
+     * Gets the nth date of the rule, ignoring the last date and the exceptions.
+     * @param first the first date
+     * @param n the number of repeats after the first date
+     * @return the date
+     * */
+    public LocalDate nth(LocalDate first, long n) {
+        switch (frequency) {
+            case DAILY:
+                return first.plusDays(n * interval);
+            case WEEKLY:
+                return first.plusWeeks(n * interval);
+            default:
+                // always counted from the first date, so a short month does not move the day of later months
+                return first.plusMonths(n * interval);
+        }
+    }
+
+    /**
+     * Gets the number of the first repeat on or after a date, ignoring the last date and the exceptions.
+     * @param first the first date
+     * @param date the date
+     * @return the number of repeats after the first date
+     * */
+    public long indexOnOrAfter(LocalDate first, LocalDate date) {
+        if (!date.isAfter(first))
+            return 0;
+
+        long n;
+        switch (frequency) {
+            case DAILY:
+                n = ceilDiv(ChronoUnit.DAYS.between(first, date), interval);
+                break;
+            case WEEKLY:
+                n = ceilDiv(ChronoUnit.DAYS.between(first, date), 7L * interval);
+                break;
+            default:
+                long months = (date.getYear() - first.getYear()) * 12L + date.getMonthValue() - first.getMonthValue();
+                n = ceilDiv(months, interval);
+
+                // the repeat in the month of the date may fall before it
+                if (nth(first, n).isBefore(date))
+                    n++;
+                break;
+        }
+
+        return n;
+    }
+
+    /**
+     * Checks if the rule falls on a date.
+     * @param first the first date
+     * @param date the date
+     * @return true if the date is one of the rule's dates and is not skipped
+     * */
+    public boolean occursOn(LocalDate first, LocalDate date) {
+        return !date.isBefore(first) && isActive(date) && !exceptions.contains(date)
+                && nth(first, indexOnOrAfter(first, date)).equals(date);
+    }
+
+    /**
+     * Gets the dates of the rule within a range, skipping the exceptions.
+     * @param first the first date
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the dates, in order
+     * */
+    public List<LocalDate> datesBetween(LocalDate first, LocalDate from, LocalDate to) {
+        List<LocalDate> dates = new ArrayList<>();
+
+        for (long n = indexOnOrAfter(first, from); ; n++) {
+            LocalDate date = nth(first, n);
+
+            if (!date.isBefore(to) || !isActive(date))
+                break;
+            if (!exceptions.contains(date))
+                dates.add(date);
+        }
+
+        return dates;
+    }
+
+    /**
+     * Checks if a date is on or before the last date of the rule.
+     * @param date the date
+     * @return true if the rule has not ended by the date
+     * */
+    public boolean isActive(LocalDate date) {
+        return until == null || !date.isAfter(until);
+    }
+
+    /**
+     * Gets the number of days after which the rule's dates repeat the same way.
+     * @return the number of days, or 0 for a monthly rule, whose months are not all the same length
+     * */
+    public int periodDays() {
+        switch (frequency) {
+            case DAILY:
+                return interval;
+            case WEEKLY:
+                return 7 * interval;
+            default:
+                return 0;
+        }
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    /**
+     * Checks if the object has equal values.
+     * @param o the object to check
+     * @return true if the objects are equal
+     * */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Recurrence that = (Recurrence) o;
+        return interval == that.interval &&
+                frequency == that.frequency &&
+                Objects.equals(until, that.until) &&
+                exceptions.equals(that.exceptions);
+    }
+
+    /**
+     * Provides a hash of the object's fields.
+     * @return the hash value
+     * */
+    @Override
+    public int hashCode() {
+        return Objects.hash(frequency, interval, until, exceptions);
+    }
+
+    /**
+     * Converts the object into a string representation.
+     * @return the object as a string
+     * */
+    @Override
+    public String toString() {
+        String every = interval == 1 ? frequency.toString() : "Every " + interval + " " + frequency.getUnit();
+        return until == null ? every : every + " until " + until;
+    }
+
+    /**
+     * Contains the ways a rule can repeat.
+     * */
+    public enum Frequency {
+        DAILY("Daily", "days"),
+        WEEKLY("Weekly", "weeks"),
+        MONTHLY("Monthly", "months");
+
+        private final String value;
+        private final String unit;
+
+        Frequency(String value, String unit) {
+            this.value = value;
+            this.unit = unit;
+        }
+
+        /**
+         * Getter for the plural name of the unit repeated.
+         * @return the unit
+         * */
+        public String getUnit() {
+            return unit;
+        }
+
+        /**
+         * Converts the enum into a string representation.
+         * @return the enum as a string
+         * */
+        @Override
+        public String toString() {
+            return value;
+        }
+    }
+}
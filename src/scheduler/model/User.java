@@ -1,11 +1,15 @@
 package scheduler.model;
 
+import java.util.function.Supplier;
+
 /**
- * The user who is associated with an appointment. Also keeps a static copy of the current user.
+ * The user who is associated with an appointment. Also keeps a static copy of the current user, which a thread can
+ * replace with its own user while it handles a request for that user.
  * @author Steven Kazmierkiewicz
  * */
 public class User extends Account {
     private static User currentUser = null;
+    private static final ThreadLocal<User> threadUser = new ThreadLocal<>();
 
     /**
      * Creates a User instance by providing individual values for all fields.
@@ -33,11 +37,33 @@ public class User extends Account {
     }
 
     /**
-     * Gets the current user of the application.
+     * Gets the current user of the application, or the user the current thread is working for.
      * @return the current user
      * */
     public static User getCurrentUser() {
-        return currentUser;
+        User user = threadUser.get();
+        return user != null ? user : currentUser;
+    }
+
+    /**
+     * Runs work as a user on the current thread, without changing the current user of the application.
+     * @param user the user
+     * @param work the work
+     * @param <T> the type of the result
+     * @return the result of the work
+     * */
+    public static <T> T runAs(User user, Supplier<T> work) {
+        User previous = threadUser.get();
+        threadUser.set(user);
+
+        try {
+            return work.get();
+        } finally {
+            if (previous == null)
+                threadUser.remove();
+            else
+                threadUser.set(previous);
+        }
     }
 
 }
@@ -0,0 +1,127 @@
+package scheduler.mysql;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes many rows with a single prepared statement, sending them to the database in batches instead of one round
+ * trip per row. With rewriteBatchedStatements set on the connection, the driver sends each batch of inserts as a
+ * single multi-row insert. When there is more than one row, every batch runs in one transaction, so either every row
+ * is written or none are.
+ * @author Steven Kazmierkiewicz
+ * */
+final class BatchWriter {
+    // rows sent per executeBatch, which bounds the size of each request and of the driver's buffered parameters
+    private static final int batchSize = 500;
+
+    /**
+     * Sets the parameters of a statement from a row.
+     * @param <T> the type of the row
+     * */
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    /**
+     * Inserts every row and returns the keys generated for them.
+     * @param sql the insert statement
+     * @param rows the rows to insert
+     * @param binder sets the parameters of the statement from a row
+     * @param <T> the type of the rows
+     * @return the generated keys, in the order of the rows
+     * @throws SQLException if any row cannot be inserted, in which case none are
+     * */
+    static <T> List<Integer> insert(String sql, List<T> rows, Binder<T> binder) throws SQLException {
+        List<Integer> keys = new ArrayList<>(rows.size());
+
+        if (rows.isEmpty())
+            return keys;
+
+        try (var conn = DBConnection.getConnection()) {
+            // a single statement is already atomic, so only more than one row needs a transaction
+            boolean transaction = rows.size() > 1;
+            if (transaction)
+                conn.setAutoCommit(false);
+
+            try (var ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                for (int from = 0; from < rows.size(); from += batchSize) {
+                    for (var row : rows.subList(from, Math.min(from + batchSize, rows.size()))) {
+                        binder.bind(ps, row);
+                        ps.addBatch();
+                    }
+
+                    ps.executeBatch();
+
+                    try (var rs = ps.getGeneratedKeys()) {
+                        while (rs.next()) {
+                            keys.add(rs.getInt(1));
+                        }
+                    }
+                }
+
+                if (keys.size() != rows.size())
+                    throw new SQLException("Expected " + rows.size() + " generated keys but received " + keys.size());
+
+                if (transaction)
+                    conn.commit();
+            } catch (SQLException throwables) {
+                // the pool also rolls back and restores autocommit when the connection is returned
+                if (transaction)
+                    conn.rollback();
+                throw throwables;
+            }
+        }
+
+        return keys;
+    }
+
+    /**
+     * Updates every row. The update fails if any row does not exist.
+     * @param sql the update statement
+     * @param rows the rows to update
+     * @param binder sets the parameters of the statement from a row
+     * @param <T> the type of the rows
+     * @return true if every row was updated, false if any row was not found, in which case none are updated
+     * @throws SQLException if any row cannot be updated, in which case none are
+     * */
+    static <T> boolean update(String sql, List<T> rows, Binder<T> binder) throws SQLException {
+        if (rows.isEmpty())
+            return true;
+
+        try (var conn = DBConnection.getConnection()) {
+            boolean transaction = rows.size() > 1;
+            if (transaction)
+                conn.setAutoCommit(false);
+
+            try (var ps = conn.prepareStatement(sql)) {
+                for (int from = 0; from < rows.size(); from += batchSize) {
+                    for (var row : rows.subList(from, Math.min(from + batchSize, rows.size()))) {
+                        binder.bind(ps, row);
+                        ps.addBatch();
+                    }
+
+                    for (int count : ps.executeBatch()) {
+                        if (count == 0) {
+                            if (transaction)
+                                conn.rollback();
+                            return false;
+                        }
+                    }
+                }
+
+                if (transaction)
+                    conn.commit();
+            } catch (SQLException throwables) {
+                if (transaction)
+                    conn.rollback();
+                throw throwables;
+            }
+        }
+
+        return true;
+    }
+}
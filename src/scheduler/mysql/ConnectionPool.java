@@ -0,0 +1,301 @@
+package scheduler.mysql;
+
+import scheduler.util.metrics.Instrumented;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of database connections. Connections are borrowed for a single operation and returned to the pool
+ * when the borrowed connection is closed. Idle connections are validated before they are handed out and evicted
+ * once they have been idle too long, and connections that are held too long are reported as possible leaks. Each
+ * connection keeps a cache of its prepared statements, so the same SQL is only prepared once per connection. Every
+ * statement handed out is instrumented, so its executions are timed and counted toward the current UI action.
+ * @author Steven Kazmierkiewicz
+ * */
+final class ConnectionPool {
+    private final ConnectionFactory factory;
+    private final long maxWaitMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int validationTimeoutSeconds;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final Deque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a connection pool.
+     * @param factory opens new physical connections
+     * @param maxSize the maximum number of connections open at once
+     * @param maxWaitMillis how long a borrower waits for a free connection before failing
+     * @param idleTimeoutMillis how long a connection may sit idle before it is closed
+     * @param leakThresholdMillis how long a connection may be borrowed before it is reported as a possible leak, or 0
+     *                            to not look for leaks
+     * @param validationTimeoutSeconds the timeout used when validating an idle connection before handing it out
+     * @param statementCacheSize the number of prepared statements cached per connection, or 0 to not cache them
+     * */
+    ConnectionPool(ConnectionFactory factory, int maxSize, long maxWaitMillis, long idleTimeoutMillis,
+                   long leakThresholdMillis, int validationTimeoutSeconds, int statementCacheSize) {
+        this.factory = factory;
+        this.maxWaitMillis = maxWaitMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "connection-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+
+        long shortest = leakThresholdMillis > 0 ? Math.min(idleTimeoutMillis, leakThresholdMillis) : idleTimeoutMillis;
+        long period = Math.max(1000, shortest / 2);
+        housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection from the pool, opening a new one if no valid idle connection is available. The
+     * connection is returned to the pool when it is closed.
+     * @return the borrowed connection
+     * @throws SQLException if the pool is closed, no connection becomes free in time, or a connection cannot be opened
+     * */
+    Connection borrow() throws SQLException {
+        if (closed)
+            throw new SQLException("The connection pool is closed.");
+
+        try {
+            if (!permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS))
+                throw new SQLTimeoutException("Timed out after " + maxWaitMillis + "ms waiting for a database connection.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+
+        try {
+            PooledConnection pc;
+
+            // most recently returned first, as it is the most likely to still be valid
+            while ((pc = idle.pollFirst()) != null) {
+                if (pc.isValid())
+                    break;
+
+                pc.closePhysical();
+            }
+
+            if (pc == null)
+                pc = new PooledConnection(factory.open());
+
+            pc.borrowedAt = System.currentTimeMillis();
+            // the stack is only recorded when leaks are looked for, as filling it in is costly
+            pc.borrowedBy = leakThresholdMillis > 0
+                    ? new Throwable("Connection borrowed by " + Thread.currentThread().getName()) : null;
+            pc.leakReported = false;
+            borrowed.add(pc);
+
+            return pc.lease();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a borrowed connection to the pool, or closes it if it can no longer be used.
+     * @param pc the connection being returned
+     * */
+    private void release(PooledConnection pc) {
+        if (!borrowed.remove(pc))
+            return;
+
+        try {
+            if (closed || pc.physical.isClosed()) {
+                pc.closePhysical();
+            } else {
+                pc.reset();
+                pc.lastUsed = System.currentTimeMillis();
+                idle.offerFirst(pc);
+            }
+        } catch (SQLException throwables) {
+            pc.closePhysical();
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes connections that have been idle too long and reports connections that have been borrowed too long.
+     * */
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        for (var pc : idle) {
+            if (now - pc.lastUsed > idleTimeoutMillis && idle.remove(pc))
+                pc.closePhysical();
+        }
+
+        if (leakThresholdMillis <= 0)
+            return;
+
+        for (var pc : borrowed) {
+            if (!pc.leakReported && now - pc.borrowedAt > leakThresholdMillis) {
+                pc.leakReported = true;
+                System.err.println("Possible connection leak: connection held for " + (now - pc.borrowedAt) + "ms.");
+                pc.borrowedBy.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Closes the pool and all idle connections. Borrowed connections are closed as they are returned.
+     * */
+    void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null)
+            pc.closePhysical();
+    }
+
+    /**
+     * Opens a new physical connection to the database.
+     * */
+    @FunctionalInterface
+    interface ConnectionFactory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * A physical connection managed by the pool.
+     * */
+    private final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private volatile long borrowedAt;
+        private volatile Throwable borrowedBy;
+        private volatile boolean leakReported;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.statements = statementCacheSize > 0 ? new StatementCache(physical, statementCacheSize) : null;
+        }
+
+        /**
+         * Checks if the physical connection is still usable.
+         * @return true if the connection is valid
+         * */
+        private boolean isValid() {
+            try {
+                return physical.isValid(validationTimeoutSeconds);
+            } catch (SQLException throwables) {
+                return false;
+            }
+        }
+
+        /**
+         * Restores the connection to its default state before it goes back in the pool. Any statements left open are
+         * returned to the cache, and any uncommitted work is rolled back.
+         * @throws SQLException if the connection cannot be reset
+         * */
+        private void reset() throws SQLException {
+            if (statements != null)
+                statements.releaseAll();
+
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+        }
+
+        /**
+         * Closes the physical connection, ignoring any errors.
+         * */
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (Exception e) {
+                // Do Nothing
+            }
+        }
+
+        /**
+         * Wraps the physical connection for a single borrower. Closing the wrapper returns the connection to the
+         * pool, and the wrapper cannot be used after it is closed.
+         * @return the wrapped connection
+         * */
+        private Connection lease() {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean leaseClosed = false;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!leaseClosed) {
+                                leaseClosed = true;
+                                release(PooledConnection.this);
+                            }
+                            return null;
+                        case "isClosed":
+                            return leaseClosed || physical.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Pooled " + physical;
+                        default:
+                            if (leaseClosed)
+                                throw new SQLException("The connection has already been returned to the pool.");
+                            if (method.getName().equals("prepareStatement"))
+                                return Instrumented.statement(statements != null ? statements.prepare(method, args)
+                                        : (PreparedStatement) invokePhysical(method, args), (String) args[0]);
+                            if (method.getName().equals("createStatement"))
+                                return Instrumented.statement((Statement) invokePhysical(method, args));
+                            return invokePhysical(method, args);
+                    }
+                }
+            };
+
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, handler);
+        }
+
+        /**
+         * Calls a method on the physical connection, unwrapping any exception it throws.
+         * @param method the method
+         * @param args the arguments
+         * @return the result of the method
+         * @throws Throwable the exception thrown by the method
+         * */
+        private Object invokePhysical(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -1,145 +1,253 @@
 package scheduler.mysql;
 
 import scheduler.dao.AppointmentDAO;
+import scheduler.dao.AppointmentSeriesDAO;
+import scheduler.dao.cache.ReferenceData;
+import scheduler.dao.cache.ChangeFeed;
+import scheduler.dao.cache.ChangeFeeds;
+import scheduler.dao.cache.ScheduleIndex;
 import scheduler.model.*;
+import scheduler.util.Exceptions;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.YearMonth;
+import java.time.ZonedDateTime;
+import java.util.EnumMap;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * Provides access to Appointment records in the database.
  * @author Steven Kazmierkiewicz
  * */
 public class DBAppointment implements AppointmentDAO {
-    private Connection conn = DBConnection.getConnection();
-    private DBCustomer dbCustomer = new DBCustomer();
-    private DBContact dbContact = new DBContact();
-    private DBUser dbUser = new DBUser();
+    // joins the customer so an appointment is built from a single row, the contact and user come from reference data
+    static final String SELECT_APPOINTMENTS = "SELECT a.Appointment_ID, a.Title, a.Description, a.Location, a.Type, " +
+            "a.Start, a.End, a.Contact_ID, a.User_ID, " +
+            "c.Customer_ID, c.Customer_Name, c.Address, c.Postal_Code, c.Phone, c.Division_ID " +
+            "FROM appointments a " +
+            "JOIN customers c ON a.Customer_ID = c.Customer_ID";
+
+    // schedules of the contacts and users, kept up to date by the changes made through this class; the schedules of
+    // the customers are checked against the database, since they must see the appointments booked by other clients
+    private static final ScheduleIndex schedules = new ScheduleIndex(
+            id -> getAppointmentsFor(SELECT_APPOINTMENTS + " WHERE a.Customer_ID = ?", id),
+            id -> getAppointmentsFor(SELECT_APPOINTMENTS + " WHERE a.Contact_ID = ?", id),
+            id -> getAppointmentsFor(SELECT_APPOINTMENTS + " WHERE a.User_ID = ?", id),
+            Duration.ofMinutes(15));
+
+    // the earliest appointment of a customer overlapping a range, found through Customer_Start_Index; an appointment
+    // lies within open hours, so only those starting up to a day before the range can reach into it
+    private static final String CUSTOMER_OVERLAP = SELECT_APPOINTMENTS + " WHERE a.Customer_ID = ? AND " +
+            "a.Start < ? AND a.Start > ? AND a.End > ? AND a.Appointment_ID <> ? ORDER BY a.Start LIMIT 1";
+
+    // the start shifted from the database time zone to the local one, with a parameter for the local offset in seconds
+    private static final String LOCAL_START =
+            "DATE_ADD(Start, INTERVAL ? - TIMESTAMPDIFF(SECOND, UTC_TIMESTAMP(), NOW()) SECOND)";
+
+    private static final String INSERT_APPOINTMENT = "INSERT INTO " +
+            "appointments(Title, Description, Location, Type, Start, End, Customer_ID, " +
+            "User_ID, Contact_ID, Create_Date, Created_By, Last_Update, Last_Updated_By) " +
+            "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_APPOINTMENT = "UPDATE appointments SET " +
+            "Title = ?," +
+            "Description = ?," +
+            "Location = ?," +
+            "Type = ?," +
+            "Start = ?," +
+            "End = ?," +
+            "Customer_ID = ?," +
+            "User_ID = ?," +
+            "Contact_ID = ?," +
+            "Last_Update = ?," +
+            "Last_Updated_By = ?" +
+            "WHERE Appointment_ID = ?";
+
+    // the series of the customer are checked along with the stored appointments before a write
+    private final AppointmentSeriesDAO dbSeries = new DBAppointmentSeries(this);
+
+    /**
+     * Creates the queries used to follow the changes to the appointments table. An appointment is fetched again when
+     * either it or its customer is changed, since the customer is part of the appointment.
+     * @return the queries
+     * */
+    public static ChangeFeed.Source<Appointment> feedSource() {
+        return new TableSource<>(
+                SELECT_APPOINTMENTS + " WHERE a.Last_Update > ? UNION ALL " +
+                        SELECT_APPOINTMENTS + " WHERE c.Last_Update > ?",
+                "SELECT MAX(t) FROM (SELECT MAX(Last_Update) AS t FROM appointments " +
+                        "UNION ALL SELECT MAX(Last_Update) FROM customers) m",
+                "appointments", DBAppointment::fromResultSet);
+    }
 
     @Override
     public List<Appointment> getAllAppointments() {
-        String sql = "SELECT * FROM appointments";
-        List<Appointment> appointmentList = new ArrayList<>();
-
-        try (var ps = conn.prepareStatement(sql);
-             var rs = ps.executeQuery()) {
+        String sql = SELECT_APPOINTMENTS;
 
-            while (rs.next()) {
-                int id = rs.getInt("Appointment_ID");
-                String title = rs.getString("Title");
-                String description = rs.getString("Description");
-                String location = rs.getString("Location");
-                String type = rs.getString("Type");
-                Appointment.Type apptType = Appointment.Type.of(type);
-                LocalDateTime start = rs.getTimestamp("Start").toLocalDateTime();
-                LocalDateTime end = rs.getTimestamp("End").toLocalDateTime();
-                Customer customer = dbCustomer.getCustomer(rs.getInt("Customer_ID"));
-                Contact contact = dbContact.getContact(rs.getInt("Contact_ID"));
-                User user = dbUser.getUser(rs.getInt("User_ID"));
-
-                appointmentList.add(new Appointment(id, title, description, location, apptType, start, end, customer, user, contact));
-            }
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            return listAppointments(ps);
         } catch (SQLException throwables) {
             throwables.printStackTrace();
         }
 
-        return appointmentList;
+        return new ArrayList<>();
     }
 
     @Override
-    public List<Appointment> getAppointmentsFor(Customer customer) {
-        String sql = "SELECT * FROM appointments WHERE Customer_ID = ?";
-        List<Appointment> appointmentList = new ArrayList<>();
+    public void forEachAppointment(Consumer<? super Appointment> action) {
+        String sql = SELECT_APPOINTMENTS + " ORDER BY a.Appointment_ID";
 
-        try (var ps = conn.prepareStatement(sql)) {
-
-            ps.setInt(1, customer.getId());
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // tells the MySQL driver to stream the rows instead of reading the whole result into memory
+            ps.setFetchSize(Integer.MIN_VALUE);
 
             try (var rs = ps.executeQuery()) {
                 while (rs.next()) {
-                    int id = rs.getInt("Appointment_ID");
-                    String title = rs.getString("Title");
-                    String description = rs.getString("Description");
-                    String location = rs.getString("Location");
-                    String type = rs.getString("Type");
-                    Appointment.Type apptType = Appointment.Type.of(type);
-                    LocalDateTime start = rs.getTimestamp("Start").toLocalDateTime();
-                    LocalDateTime end = rs.getTimestamp("End").toLocalDateTime();
-                    Customer apptCustomer = dbCustomer.getCustomer(rs.getInt("Customer_ID"));
-                    Contact contact = dbContact.getContact(rs.getInt("Contact_ID"));
-                    User user = dbUser.getUser(rs.getInt("User_ID"));
-
-                    appointmentList.add(new Appointment(id, title, description, location, apptType, start, end, apptCustomer, user, contact));
+                    action.accept(fromResultSet(rs));
                 }
             }
         } catch (SQLException throwables) {
             throwables.printStackTrace();
         }
+    }
 
-        return appointmentList;
+    @Override
+    public List<Appointment> getAppointmentsFor(Customer customer) {
+        return getAppointmentsFor(SELECT_APPOINTMENTS + " WHERE a.Customer_ID = ?", customer.getId());
     }
 
     @Override
     public List<Appointment> getAppointmentsFor(Contact contact) {
-        String sql = "SELECT * FROM appointments WHERE Contact_ID = ?";
-        List<Appointment> appointmentList = new ArrayList<>();
+        return getAppointmentsFor(SELECT_APPOINTMENTS + " WHERE a.Contact_ID = ?", contact.getId());
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsFor(User user) {
+        return getAppointmentsFor(SELECT_APPOINTMENTS + " WHERE a.User_ID = ?", user.getId());
+    }
+
+    @Override
+    public Appointment findOverlap(Customer customer, LocalDateTime start, LocalDateTime end, int ignoreId) {
+        try (var conn = DBConnection.getConnection()) {
+            return findOverlap(conn, customer.getId(), start, end, ignoreId);
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return null;
+    }
+
+    @Override
+    public Appointment findOverlap(Contact contact, LocalDateTime start, LocalDateTime end, int ignoreId) {
+        return schedules.findOverlap(contact, start, end, ignoreId);
+    }
+
+    @Override
+    public Appointment findOverlap(User user, LocalDateTime start, LocalDateTime end, int ignoreId) {
+        return schedules.findOverlap(user, start, end, ignoreId);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsBetween(LocalDateTime start, LocalDateTime end) {
+        String sql = SELECT_APPOINTMENTS + " WHERE a.Start >= ? AND a.Start < ? ORDER BY a.Start";
 
-        try (var ps = conn.prepareStatement(sql)) {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setTimestamp(1, Timestamp.valueOf(start));
+            ps.setTimestamp(2, Timestamp.valueOf(end));
 
-            ps.setInt(1, contact.getId());
+            return listAppointments(ps);
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsBetween(Customer customer, LocalDateTime start, LocalDateTime end) {
+        String sql = SELECT_APPOINTMENTS + " WHERE a.Customer_ID = ? AND a.Start >= ? AND a.Start < ? ORDER BY a.Start";
+
+        return getAppointmentsBetween(sql, customer.getId(), start, end);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsBetween(Contact contact, LocalDateTime start, LocalDateTime end) {
+        String sql = SELECT_APPOINTMENTS + " WHERE a.Contact_ID = ? AND a.Start >= ? AND a.Start < ? ORDER BY a.Start";
+
+        return getAppointmentsBetween(sql, contact.getId(), start, end);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsBetween(User user, LocalDateTime start, LocalDateTime end) {
+        String sql = SELECT_APPOINTMENTS + " WHERE a.User_ID = ? AND a.Start >= ? AND a.Start < ? ORDER BY a.Start";
+
+        return getAppointmentsBetween(sql, user.getId(), start, end);
+    }
+
+    @Override
+    public List<Appointment> getAppointmentsAfter(int afterId, int limit) {
+        String sql = SELECT_APPOINTMENTS + " WHERE a.Appointment_ID > ? ORDER BY a.Appointment_ID LIMIT ?";
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit);
+
+            return listAppointments(ps);
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    @Override
+    public int getAppointmentIdAt(int offset) {
+        String sql = "SELECT Appointment_ID FROM appointments ORDER BY Appointment_ID LIMIT 1 OFFSET ?";
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, offset);
 
             try (var rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    int id = rs.getInt("Appointment_ID");
-                    String title = rs.getString("Title");
-                    String description = rs.getString("Description");
-                    String location = rs.getString("Location");
-                    String type = rs.getString("Type");
-                    Appointment.Type apptType = Appointment.Type.of(type);
-                    LocalDateTime start = rs.getTimestamp("Start").toLocalDateTime();
-                    LocalDateTime end = rs.getTimestamp("End").toLocalDateTime();
-                    Customer customer = dbCustomer.getCustomer(rs.getInt("Customer_ID"));
-                    Contact apptContact = dbContact.getContact(rs.getInt("Contact_ID"));
-                    User user = dbUser.getUser(rs.getInt("User_ID"));
-
-                    appointmentList.add(new Appointment(id, title, description, location, apptType, start, end, customer, user, apptContact));
+                if (rs.next()) {
+                    return rs.getInt(1);
                 }
             }
         } catch (SQLException throwables) {
             throwables.printStackTrace();
         }
 
-        return appointmentList;    }
+        return -1;
+    }
 
     @Override
     public Appointment getAppointment(int id) {
-        String sql = "SELECT * FROM appointments WHERE Appointment_ID = ?";
-
-        try (var ps = conn.prepareStatement(sql)) {
+        String sql = SELECT_APPOINTMENTS + " WHERE a.Appointment_ID = ?";
 
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
 
             try (var rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    int apptId = rs.getInt("Appointment_ID");
-                    String title = rs.getString("Title");
-                    String description = rs.getString("Description");
-                    String location = rs.getString("Location");
-                    String type = rs.getString("Type");
-                    Appointment.Type apptType = Appointment.Type.of(type);
-                    LocalDateTime start = rs.getTimestamp("Start").toLocalDateTime();
-                    LocalDateTime end = rs.getTimestamp("End").toLocalDateTime();
-                    Customer customer = dbCustomer.getCustomer(rs.getInt("Customer_ID"));
-                    Contact apptContact = dbContact.getContact(rs.getInt("Contact_ID"));
-                    User user = dbUser.getUser(rs.getInt("User_ID"));
-
-                    return new Appointment(apptId, title, description, location, apptType, start, end, customer, user, apptContact);
+                    return fromResultSet(rs);
                 }
             }
         } catch (SQLException throwables) {
@@ -151,71 +259,130 @@ public class DBAppointment implements AppointmentDAO {
 
     @Override
     public boolean createAppointment(String title, String description, String location, Appointment.Type type, Customer customer, Contact contact, User user, LocalDateTime start, LocalDateTime end) {
-        String sql = "INSERT INTO " +
-                "appointments(Title, Description, Location, Type, Start, End, Customer_ID, " +
-                "User_ID, Contact_ID, Create_Date, Created_By, Last_Update, Last_Updated_By) " +
-                "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-
-        try (var ps = conn.prepareStatement(sql)) {
-            ps.setString(1, title);
-            ps.setString(2, description);
-            ps.setString(3, location);
-            ps.setString(4, type.toString());
-            ps.setTimestamp(5, Timestamp.valueOf(start));
-            ps.setTimestamp(6, Timestamp.valueOf(end));
-            ps.setInt(7, customer.getId());
-            ps.setInt(8, user.getId());
-            ps.setInt(9, contact.getId());
-
-            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
-            ps.setTimestamp(10, now);
-            ps.setString(11, User.getCurrentUser().getName());
-            ps.setTimestamp(12, now);
-            ps.setString(13, User.getCurrentUser().getName());
-
-            return ps.executeUpdate() > 0;
+        var appointment = new Appointment(0, title, description, location, type, start, end, customer, user, contact);
+
+        return createAppointment(appointment) > 0;
+    }
 
+    @Override
+    public int createAppointment(Appointment appointment) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String userName = User.getCurrentUser().getName();
+
+        try {
+            int id = writeChecked(appointment, conn -> {
+                try (var ps = conn.prepareStatement(INSERT_APPOINTMENT, Statement.RETURN_GENERATED_KEYS)) {
+                    bindAppointment(ps, appointment);
+                    ps.setTimestamp(10, now);
+                    ps.setString(11, userName);
+                    ps.setTimestamp(12, now);
+                    ps.setString(13, userName);
+                    ps.executeUpdate();
+
+                    try (var rs = ps.getGeneratedKeys()) {
+                        if (!rs.next())
+                            throw new SQLException("No key was generated for the appointment");
+                        return rs.getInt(1);
+                    }
+                }
+            });
+
+            ChangeFeeds.appointments().markStale();
+            schedules.put(new Appointment(id, appointment.getTitle(), appointment.getDescription(),
+                    appointment.getLocation(), appointment.getType(), appointment.getStart(), appointment.getEnd(),
+                    appointment.getCustomer(), appointment.getUser(), appointment.getContact()));
+
+            return id;
         } catch (SQLException throwables) {
             throwables.printStackTrace();
         }
-        return false;
+
+        return -1;
+    }
+
+    @Override
+    public List<Integer> createAppointments(List<Appointment> appointments) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String userName = User.getCurrentUser().getName();
+
+        try {
+            List<Integer> ids = BatchWriter.insert(INSERT_APPOINTMENT, appointments, (ps, appointment) -> {
+                bindAppointment(ps, appointment);
+                ps.setTimestamp(10, now);
+                ps.setString(11, userName);
+                ps.setTimestamp(12, now);
+                ps.setString(13, userName);
+            });
+
+            ChangeFeeds.appointments().markStale();
+
+            for (int i = 0; i < ids.size(); i++) {
+                Appointment a = appointments.get(i);
+                schedules.put(new Appointment(ids.get(i), a.getTitle(), a.getDescription(), a.getLocation(),
+                        a.getType(), a.getStart(), a.getEnd(), a.getCustomer(), a.getUser(), a.getContact()));
+            }
+
+            return ids;
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return new ArrayList<>();
     }
 
     @Override
     public boolean updateAppointment(Appointment appointment) {
-        String sql = "UPDATE appointments SET " +
-                "Title = ?," +
-                "Description = ?," +
-                "Location = ?," +
-                "Type = ?," +
-                "Start = ?," +
-                "End = ?," +
-                "Customer_ID = ?," +
-                "User_ID = ?," +
-                "Contact_ID = ?," +
-                "Last_Update = ?," +
-                "Last_Updated_By = ?" +
-                "WHERE Appointment_ID = ?";
-
-        try (var ps = conn.prepareStatement(sql)) {
-            ps.setString(1, appointment.getTitle());
-            ps.setString(2, appointment.getDescription());
-            ps.setString(3, appointment.getLocation());
-            ps.setString(4, appointment.getType().toString());
-            ps.setTimestamp(5, Timestamp.valueOf(appointment.getStart()));
-            ps.setTimestamp(6, Timestamp.valueOf(appointment.getEnd()));
-            ps.setInt(7, appointment.getCustomer().getId());
-            ps.setInt(8, appointment.getUser().getId());
-            ps.setInt(9, appointment.getContact().getId());
-            ps.setTimestamp(10, Timestamp.valueOf(LocalDateTime.now()));
-            ps.setString(11, User.getCurrentUser().getName());
-            ps.setInt(12, appointment.getId());
-
-            return ps.executeUpdate() > 0;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String userName = User.getCurrentUser().getName();
+
+        try {
+            boolean updated = writeChecked(appointment, conn -> {
+                try (var ps = conn.prepareStatement(UPDATE_APPOINTMENT)) {
+                    bindAppointment(ps, appointment);
+                    ps.setTimestamp(10, now);
+                    ps.setString(11, userName);
+                    ps.setInt(12, appointment.getId());
+
+                    return ps.executeUpdate() > 0;
+                }
+            });
+
+            if (updated) {
+                schedules.put(appointment);
+                ChangeFeeds.appointments().markStale();
+            }
+
+            return updated;
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean updateAppointments(List<Appointment> appointments) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String userName = User.getCurrentUser().getName();
+
+        try {
+            boolean updated = BatchWriter.update(UPDATE_APPOINTMENT, appointments, (ps, appointment) -> {
+                bindAppointment(ps, appointment);
+                ps.setTimestamp(10, now);
+                ps.setString(11, userName);
+                ps.setInt(12, appointment.getId());
+            });
+
+            if (updated) {
+                appointments.forEach(schedules::put);
+                ChangeFeeds.appointments().markStale();
+            }
 
+            return updated;
         } catch (SQLException throwables) {
             throwables.printStackTrace();
         }
+
         return false;
     }
 
@@ -223,10 +390,15 @@ public class DBAppointment implements AppointmentDAO {
     public boolean deleteAppointment(int id) {
         String sql = "DELETE FROM appointments WHERE Appointment_ID = ?";
 
-        try (var ps = conn.prepareStatement(sql)) {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
 
-            return ps.executeUpdate() > 0;
+            if (ps.executeUpdate() > 0) {
+                schedules.remove(id);
+                ChangeFeeds.appointments().markStale();
+                return true;
+            }
         } catch (SQLException throwables) {
             throwables.printStackTrace();
         }
@@ -234,11 +406,30 @@ public class DBAppointment implements AppointmentDAO {
         return false;
     }
 
+    @Override
+    public int numOfAppointments() {
+        // kept by the triggers in sql/change_log.sql, since counting a large table reads all of it
+        String sql = "SELECT Row_Count FROM row_counts WHERE Table_Name = 'appointments'";
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql);
+             var rs = ps.executeQuery()) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return 0;
+    }
+
     @Override
     public int numOfAppointments(Customer customer) {
         String sql = "SELECT COUNT(*) FROM appointments WHERE Customer_ID = ?";
 
-        try (var ps = conn.prepareStatement(sql)) {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
             ps.setInt(1, customer.getId());
 
             try (var rs = ps.executeQuery()){
@@ -258,7 +449,8 @@ public class DBAppointment implements AppointmentDAO {
         String sql = "SELECT Type, COUNT(*) FROM appointments GROUP BY Type";
         Map<Appointment.Type, Long> typeCounts = new HashMap<>();
 
-        try (var ps = conn.prepareStatement(sql);
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql);
              var rs = ps.executeQuery()) {
             while (rs.next()) {
                 typeCounts.put(Appointment.Type.of(rs.getString(1)), rs.getLong(2));
@@ -269,4 +461,262 @@ public class DBAppointment implements AppointmentDAO {
 
         return typeCounts;
     }
+
+    @Override
+    public Map<Month, Long> appointmentsByMonth() {
+        String sql = "SELECT MONTH(" + LOCAL_START + ") AS Month, COUNT(*) FROM appointments GROUP BY Month";
+        Map<Month, Long> monthCounts = new EnumMap<>(Month.class);
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, localOffsetSeconds());
+
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    monthCounts.put(Month.of(rs.getInt(1)), rs.getLong(2));
+                }
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return monthCounts;
+    }
+
+    @Override
+    public Map<YearMonth, Long> appointmentsByYearMonth() {
+        String sql = "SELECT YEAR(LocalStart) AS Year, MONTH(LocalStart) AS Month, COUNT(*) " +
+                "FROM (SELECT " + LOCAL_START + " AS LocalStart FROM appointments) a " +
+                "GROUP BY Year, Month ORDER BY Year, Month";
+        Map<YearMonth, Long> yearMonthCounts = new LinkedHashMap<>();
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, localOffsetSeconds());
+
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    yearMonthCounts.put(YearMonth.of(rs.getInt(1), rs.getInt(2)), rs.getLong(3));
+                }
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return yearMonthCounts;
+    }
+
+    @Override
+    public Map<Appointment.Type, Map<Month, Long>> appointmentsByTypeAndMonth() {
+        String sql = "SELECT Type, MONTH(" + LOCAL_START + ") AS Month, COUNT(*) FROM appointments GROUP BY Type, Month";
+        Map<Appointment.Type, Map<Month, Long>> typeMonthCounts = new HashMap<>();
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, localOffsetSeconds());
+
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    typeMonthCounts.computeIfAbsent(Appointment.Type.of(rs.getString(1)), t -> new EnumMap<>(Month.class))
+                            .put(Month.of(rs.getInt(2)), rs.getLong(3));
+                }
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return typeMonthCounts;
+    }
+
+    /**
+     * Drops the appointments of deleted customers from the schedules, after the appointments were deleted along with
+     * the customers.
+     * @param customerIds the ids of the deleted customers
+     * */
+    static void customersDeleted(List<Integer> customerIds) {
+        customerIds.forEach(schedules::removeCustomer);
+    }
+
+    /**
+     * Sets the first nine parameters of an insert or update, which are the appointment columns in the same order for
+     * both.
+     * @param ps the insert or update statement
+     * @param appointment the appointment
+     * @throws SQLException if a parameter cannot be set
+     * */
+    private static void bindAppointment(PreparedStatement ps, Appointment appointment) throws SQLException {
+        ps.setString(1, appointment.getTitle());
+        ps.setString(2, appointment.getDescription());
+        ps.setString(3, appointment.getLocation());
+        ps.setString(4, appointment.getType().toString());
+        ps.setTimestamp(5, Timestamp.valueOf(appointment.getStart()));
+        ps.setTimestamp(6, Timestamp.valueOf(appointment.getEnd()));
+        ps.setInt(7, appointment.getCustomer().getId());
+        ps.setInt(8, appointment.getUser().getId());
+        ps.setInt(9, appointment.getContact().getId());
+    }
+
+    /**
+     * Writes an appointment in a transaction that first locks its customer's row, then checks that the customer has no
+     * other appointment or occurrence of a series at the time. New series lock the row the same way, so two clients
+     * or processes cannot both find the time free and book it.
+     * @param appointment the appointment being written
+     * @param write the write, run on the transaction's connection
+     * @param <R> the result of the write
+     * @return the result of the write
+     * @throws Exceptions.OverlapException if the customer already has an appointment at the time
+     * @throws SQLException if the appointment cannot be checked or written, in which case it is not written
+     * */
+    private <R> R writeChecked(Appointment appointment, Write<R> write) throws SQLException {
+        try (var conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                DBCustomer.lockCustomer(conn, appointment.getCustomerId());
+
+                Appointment overlap = findOverlap(conn, appointment.getCustomerId(), appointment.getStart(),
+                        appointment.getEnd(), appointment.getId());
+
+                // the series are read on another connection, which is safe since new series wait for the lock
+                if (overlap == null)
+                    overlap = dbSeries.findOverlap(appointment.getCustomer(), appointment.getStart(),
+                            appointment.getEnd());
+
+                if (overlap != null)
+                    throw new Exceptions.OverlapException(overlap);
+
+                R result = write.apply(conn);
+                conn.commit();
+
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                // the pool also rolls back and restores autocommit when the connection is returned
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Finds the earliest appointment of a customer that overlaps a time range.
+     * @param conn the connection to read on
+     * @param customerId the id of the customer
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @param ignoreId the id of an appointment to ignore, such as the one being changed
+     * @return the overlapping appointment, or null if there is none
+     * @throws SQLException if the appointments cannot be read
+     * */
+    private static Appointment findOverlap(Connection conn, int customerId, LocalDateTime start, LocalDateTime end,
+                                           int ignoreId) throws SQLException {
+        try (var ps = conn.prepareStatement(CUSTOMER_OVERLAP)) {
+            ps.setInt(1, customerId);
+            ps.setTimestamp(2, Timestamp.valueOf(end));
+            ps.setTimestamp(3, Timestamp.valueOf(start.minusDays(1)));
+            ps.setTimestamp(4, Timestamp.valueOf(start));
+            ps.setInt(5, ignoreId);
+
+            List<Appointment> found = listAppointments(ps);
+            return found.isEmpty() ? null : found.get(0);
+        }
+    }
+
+    /**
+     * A write run on the connection of a transaction.
+     * @param <R> the result of the write
+     * */
+    @FunctionalInterface
+    private interface Write<R> {
+        R apply(Connection conn) throws SQLException;
+    }
+
+    /**
+     * Gets the current offset of the local time zone, used to group appointments by their local start.
+     * @return the offset in seconds
+     * */
+    private static int localOffsetSeconds() {
+        return ZonedDateTime.now().getOffset().getTotalSeconds();
+    }
+
+    /**
+     * Retrieves all appointments for an account.
+     * @param sql the query, with a parameter for the account id
+     * @param accountId the id of the customer, contact, or user
+     * @return the list of appointments
+     * */
+    private static List<Appointment> getAppointmentsFor(String sql, int accountId) {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, accountId);
+
+            return listAppointments(ps);
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Retrieves the appointments for an account that start within a date range.
+     * @param sql the query, with parameters for the account id, range start, and range end
+     * @param accountId the id of the customer, contact, or user
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the list of appointments
+     * */
+    private List<Appointment> getAppointmentsBetween(String sql, int accountId, LocalDateTime start, LocalDateTime end) {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, accountId);
+            ps.setTimestamp(2, Timestamp.valueOf(start));
+            ps.setTimestamp(3, Timestamp.valueOf(end));
+
+            return listAppointments(ps);
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * Executes a prepared appointment query and builds an Appointment from every row of the result.
+     * @param ps the prepared statement selecting from SELECT_APPOINTMENTS
+     * @return the list of appointments
+     * @throws SQLException if there is a problem executing the query
+     * */
+    private static List<Appointment> listAppointments(PreparedStatement ps) throws SQLException {
+        List<Appointment> appointmentList = new ArrayList<>();
+
+        try (var rs = ps.executeQuery()) {
+            while (rs.next()) {
+                appointmentList.add(fromResultSet(rs));
+            }
+        }
+
+        return appointmentList;
+    }
+
+    /**
+     * Builds an Appointment, along with its customer, from the current row of a result set selected with
+     * SELECT_APPOINTMENTS. The contact and user are the shared instances from the reference data.
+     * @param rs the result set positioned on a row
+     * @return the appointment
+     * @throws SQLException if a column cannot be read
+     * */
+    static Appointment fromResultSet(ResultSet rs) throws SQLException {
+        int id = rs.getInt("Appointment_ID");
+        String title = rs.getString("Title");
+        String description = rs.getString("Description");
+        String location = rs.getString("Location");
+        Appointment.Type type = Appointment.Type.of(rs.getString("Type"));
+        LocalDateTime start = rs.getTimestamp("Start").toLocalDateTime();
+        LocalDateTime end = rs.getTimestamp("End").toLocalDateTime();
+        Customer customer = DBCustomer.fromResultSet(rs);
+        Contact contact = ReferenceData.contacts().getContact(rs.getInt("Contact_ID"));
+        User user = ReferenceData.users().getUser(rs.getInt("User_ID"));
+
+        return new Appointment(id, title, description, location, type, start, end, customer, user, contact);
+    }
 }
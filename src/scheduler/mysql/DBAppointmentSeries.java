@@ -0,0 +1,321 @@
+package scheduler.mysql;
+
+import scheduler.dao.AppointmentDAO;
+import scheduler.dao.AppointmentSeriesDAO;
+import scheduler.dao.cache.ReferenceData;
+import scheduler.model.*;
+import scheduler.util.Exceptions;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides access to AppointmentSeries records in the database. A series is one row holding its rule, with a row per
+ * skipped date in the exceptions table, so no occurrence is ever stored.
+ * @author Steven Kazmierkiewicz
+ * */
+public class DBAppointmentSeries implements AppointmentSeriesDAO {
+    // joins the customer so a series is built from a single row, the contact and user come from reference data
+    private static final String SELECT_SERIES = "SELECT s.Series_ID, s.Title, s.Description, s.Location, s.Type, " +
+            "s.Start, s.End, s.Frequency, s.Recur_Interval, s.Until, s.Contact_ID, s.User_ID, " +
+            "c.Customer_ID, c.Customer_Name, c.Address, c.Postal_Code, c.Phone, c.Division_ID " +
+            "FROM appointment_series s " +
+            "JOIN customers c ON s.Customer_ID = c.Customer_ID";
+
+    private static final String SELECT_EXCEPTIONS = "SELECT e.Series_ID, e.Skip_Date " +
+            "FROM appointment_series_exceptions e " +
+            "JOIN appointment_series s ON e.Series_ID = s.Series_ID";
+
+    // the series that have not ended by a date and have started by a time
+    private static final String ACTIVE = "s.Start < ? AND (s.Until IS NULL OR s.Until >= ?)";
+
+    private static final String INSERT_SERIES = "INSERT INTO " +
+            "appointment_series(Title, Description, Location, Type, Start, End, Frequency, Recur_Interval, Until, " +
+            "Customer_ID, User_ID, Contact_ID, Create_Date, Created_By, Last_Update, Last_Updated_By) " +
+            "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_EXCEPTION =
+            "INSERT INTO appointment_series_exceptions(Series_ID, Skip_Date) VALUES(?, ?)";
+
+    private final AppointmentDAO dbAppt;
+
+    /**
+     * Creates the DAO.
+     * @param dbAppt the DAO the stored appointments are checked against for overlaps
+     * */
+    public DBAppointmentSeries(AppointmentDAO dbAppt) {
+        this.dbAppt = dbAppt;
+    }
+
+    @Override
+    public List<AppointmentSeries> getAllSeries() {
+        return listSeries("", ps -> {});
+    }
+
+    @Override
+    public AppointmentSeries getSeries(int id) {
+        List<AppointmentSeries> series = listSeries("s.Series_ID = ?", ps -> ps.setInt(1, id));
+        return series.isEmpty() ? null : series.get(0);
+    }
+
+    @Override
+    public List<AppointmentSeries> getSeriesBetween(LocalDateTime start, LocalDateTime end) {
+        return listSeries(ACTIVE, ps -> {
+            ps.setTimestamp(1, Timestamp.valueOf(end));
+            ps.setDate(2, Date.valueOf(start.toLocalDate()));
+        });
+    }
+
+    @Override
+    public List<AppointmentSeries> getSeriesFor(Customer customer) {
+        return listSeries("s.Customer_ID = ?", ps -> ps.setInt(1, customer.getId()));
+    }
+
+    @Override
+    public List<AppointmentSeries> getSeriesFor(Contact contact) {
+        return listSeries("s.Contact_ID = ?", ps -> ps.setInt(1, contact.getId()));
+    }
+
+    @Override
+    public Appointment findOverlap(Customer customer, LocalDateTime start, LocalDateTime end) {
+        // an occurrence starting the day before may still run into the range
+        List<AppointmentSeries> active = listSeries("s.Customer_ID = ? AND " + ACTIVE, ps -> {
+            ps.setInt(1, customer.getId());
+            ps.setTimestamp(2, Timestamp.valueOf(end));
+            ps.setDate(3, Date.valueOf(start.toLocalDate().minusDays(1)));
+        });
+
+        for (var series : active) {
+            Appointment occurrence = series.findOverlap(start, end);
+
+            if (occurrence != null)
+                return occurrence;
+        }
+
+        return null;
+    }
+
+    @Override
+    public Appointment findOverlap(AppointmentSeries series) {
+        LocalDate horizon = series.getStart().toLocalDate().plus(AppointmentSeries.openEndedHorizon);
+        LocalDate last = series.getEndDate() == null ? horizon : series.getEndDate();
+
+        // each stored appointment only needs the few occurrences around it
+        for (var appointment : dbAppt.getAppointmentsBetween(series.getCustomer(),
+                series.getStart().minusDays(1), last.atStartOfDay())) {
+            if (series.findOverlap(appointment.getStart(), appointment.getEnd()) != null)
+                return appointment;
+        }
+
+        for (var other : getSeriesFor(series.getCustomer())) {
+            if (other.getId() == series.getId())
+                continue;
+
+            Appointment occurrence = series.findOverlap(other, horizon);
+
+            if (occurrence != null)
+                return other.findOverlap(occurrence.getStart(), occurrence.getEnd());
+        }
+
+        return null;
+    }
+
+    @Override
+    public int createSeries(AppointmentSeries series) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String userName = User.getCurrentUser().getName();
+        Recurrence recurrence = series.getRecurrence();
+
+        // the series and its skipped dates are written in one transaction, so a series is never left without them
+        try (var conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            // the customer's row stays locked until the series is written, so nothing is booked between the check and
+            // the insert; the check reads on other connections, which is safe since every checked write takes the lock
+            DBCustomer.lockCustomer(conn, series.getCustomerId());
+            Appointment overlap = findOverlap(series);
+
+            if (overlap != null) {
+                conn.rollback();
+                throw new Exceptions.OverlapException(overlap);
+            }
+
+            try (var seriesPs = conn.prepareStatement(INSERT_SERIES, Statement.RETURN_GENERATED_KEYS);
+                 var exceptionPs = conn.prepareStatement(INSERT_EXCEPTION)) {
+                seriesPs.setString(1, series.getTitle());
+                seriesPs.setString(2, series.getDescription());
+                seriesPs.setString(3, series.getLocation());
+                seriesPs.setString(4, series.getType().getValue());
+                seriesPs.setTimestamp(5, Timestamp.valueOf(series.getStart()));
+                seriesPs.setTimestamp(6, Timestamp.valueOf(series.getEnd()));
+                seriesPs.setString(7, recurrence.getFrequency().name());
+                seriesPs.setInt(8, recurrence.getInterval());
+                seriesPs.setDate(9, recurrence.getUntil() == null ? null : Date.valueOf(recurrence.getUntil()));
+                seriesPs.setInt(10, series.getCustomerId());
+                seriesPs.setInt(11, series.getUser().getId());
+                seriesPs.setInt(12, series.getContact().getId());
+                seriesPs.setTimestamp(13, now);
+                seriesPs.setString(14, userName);
+                seriesPs.setTimestamp(15, now);
+                seriesPs.setString(16, userName);
+                seriesPs.executeUpdate();
+
+                int id;
+                try (var rs = seriesPs.getGeneratedKeys()) {
+                    if (!rs.next())
+                        throw new SQLException("No key was generated for the series");
+                    id = rs.getInt(1);
+                }
+
+                for (LocalDate date : recurrence.getExceptions()) {
+                    exceptionPs.setInt(1, id);
+                    exceptionPs.setDate(2, Date.valueOf(date));
+                    exceptionPs.addBatch();
+                }
+
+                if (!recurrence.getExceptions().isEmpty())
+                    exceptionPs.executeBatch();
+
+                conn.commit();
+                return id;
+            } catch (SQLException throwables) {
+                // the pool also rolls back and restores autocommit when the connection is returned
+                conn.rollback();
+                throw throwables;
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return -1;
+    }
+
+    @Override
+    public boolean skipOccurrence(AppointmentSeries series, LocalDate date) {
+        try {
+            insertException(series.getId(), date);
+            return true;
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return false;
+    }
+
+    @Override
+    public boolean deleteSeries(int id) {
+        // the exceptions are deleted along with the series by their foreign key
+        String sql = "DELETE FROM appointment_series WHERE Series_ID = ?";
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, id);
+
+            return ps.executeUpdate() > 0;
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return false;
+    }
+
+    /**
+     * Adds a skipped date to a series.
+     * @param id the id of the series
+     * @param date the date to skip
+     * @throws SQLException if the date cannot be added
+     * */
+    private static void insertException(int id, LocalDate date) throws SQLException {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(INSERT_EXCEPTION)) {
+            ps.setInt(1, id);
+            ps.setDate(2, Date.valueOf(date));
+            ps.executeUpdate();
+        }
+    }
+
+    /**
+     * Sets the parameters of a query.
+     * */
+    @FunctionalInterface
+    private interface Parameters {
+        void set(PreparedStatement ps) throws SQLException;
+    }
+
+    /**
+     * Selects the series matching a condition, along with their exceptions. The exceptions are read with a second
+     * query on the same condition rather than a row per exception in the first.
+     * @param where the condition on the series, or an empty string for all of them
+     * @param parameters sets the parameters of the condition
+     * @return the list of series, ordered by start
+     * */
+    private static List<AppointmentSeries> listSeries(String where, Parameters parameters) {
+        String condition = where.isEmpty() ? "" : " WHERE " + where;
+        Map<Integer, List<LocalDate>> exceptions = new HashMap<>();
+        Map<Integer, AppointmentSeries> rules = new LinkedHashMap<>();
+
+        try (var conn = DBConnection.getConnection();
+             var seriesPs = conn.prepareStatement(SELECT_SERIES + condition + " ORDER BY s.Start");
+             var exceptionsPs = conn.prepareStatement(SELECT_EXCEPTIONS + condition)) {
+            parameters.set(exceptionsPs);
+
+            try (var rs = exceptionsPs.executeQuery()) {
+                while (rs.next()) {
+                    exceptions.computeIfAbsent(rs.getInt("Series_ID"), id -> new ArrayList<>())
+                            .add(rs.getDate("Skip_Date").toLocalDate());
+                }
+            }
+
+            parameters.set(seriesPs);
+
+            try (var rs = seriesPs.executeQuery()) {
+                while (rs.next()) {
+                    int id = rs.getInt("Series_ID");
+                    rules.put(id, fromResultSet(rs, exceptions.getOrDefault(id, List.of())));
+                }
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return new ArrayList<>(rules.values());
+    }
+
+    /**
+     * Builds an AppointmentSeries, along with its customer, from the current row of a result set selected with
+     * SELECT_SERIES. The contact and user are the shared instances from the reference data.
+     * @param rs the result set positioned on a row
+     * @param exceptions the skipped dates of the series
+     * @return the series
+     * @throws SQLException if a column cannot be read
+     * */
+    private static AppointmentSeries fromResultSet(ResultSet rs, List<LocalDate> exceptions) throws SQLException {
+        int id = rs.getInt("Series_ID");
+        String title = rs.getString("Title");
+        String description = rs.getString("Description");
+        String location = rs.getString("Location");
+        Appointment.Type type = Appointment.Type.of(rs.getString("Type"));
+        LocalDateTime start = rs.getTimestamp("Start").toLocalDateTime();
+        LocalDateTime end = rs.getTimestamp("End").toLocalDateTime();
+        Date until = rs.getDate("Until");
+        Recurrence recurrence = new Recurrence(Recurrence.Frequency.valueOf(rs.getString("Frequency")),
+                rs.getInt("Recur_Interval"), until == null ? null : until.toLocalDate(), exceptions);
+        Customer customer = DBCustomer.fromResultSet(rs);
+        Contact contact = ReferenceData.contacts().getContact(rs.getInt("Contact_ID"));
+        User user = ReferenceData.users().getUser(rs.getInt("User_ID"));
+
+        return new AppointmentSeries(id, title, description, location, type, start, end, customer, user, contact,
+                recurrence);
+    }
+}
@@ -5,7 +5,7 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
- * Provides the connection to the database.
+ * Provides pooled connections to the database.
  * @author Steven Kazmierkiewicz
  * */
 public final class DBConnection {
@@ -15,47 +15,88 @@ public final class DBConnection {
     private static final String ipAddress = "//wgudb.ucertify.com:3306/";
     private static final String dbName = "WJ08aAS";
     private static final String timezoneFix = "?connectionTimeZone=SERVER";
+    // sends each batch of inserts as a single multi-row insert
+    private static final String batchOptions = "&rewriteBatchedStatements=true";
 
-    // full jdbc url
-    private static final String jdbcUrl = protocol + vendorName + ipAddress + dbName + timezoneFix;
+    // set to prepare statements on the server, so a cached statement is only parsed and planned once per connection
+    private static final boolean serverPrepare = false;
+    private static final String prepareOptions = serverPrepare ? "&useServerPrepStmts=true" : "";
+
+    // full jdbc url, which the scheduler.jdbc.url system property replaces, e.g. to use a test database
+    private static final String jdbcUrl = System.getProperty("scheduler.jdbc.url",
+            protocol + vendorName + ipAddress + dbName + timezoneFix + batchOptions + prepareOptions);
 
     private static final String MYSQLJDBCDriver = "com.mysql.cj.jdbc.Driver";
-    private static Connection conn = null;
 
-    private static final String username = "U08aAS";
-    private static final String password = "53689234094";
+    private static final String username = System.getProperty("scheduler.jdbc.user", "U08aAS");
+    private static final String password = System.getProperty("scheduler.jdbc.password", "53689234094");
+
+    // connection pool settings
+    private static final int maxPoolSize = 10;
+    private static final long maxWaitMillis = 30_000;
+    private static final long idleTimeoutMillis = 10 * 60_000;
+    // connections held longer than this are reported with the stack that borrowed them, when started with
+    // -Dscheduler.jdbc.leakDetection=true, since recording that stack on every borrow is costly
+    private static final long leakThresholdMillis = Boolean.getBoolean("scheduler.jdbc.leakDetection") ? 60_000 : 0;
+    private static final int validationTimeoutSeconds = 5;
+    private static final int statementCacheSize = 64;
+
+    private static ConnectionPool pool = null;
 
     /**
-     * Opens the connection to the database.
-     * @return the connection
+     * Opens the connection pool to the database and checks that a connection can be made.
      * */
-    public static Connection startConnection() {
+    public static synchronized void startConnection() {
+        if (pool != null)
+            return;
+
+        // other drivers are found by DriverManager
+        if (jdbcUrl.startsWith(protocol + vendorName)) {
+            try {
+                Class.forName(MYSQLJDBCDriver);
+            } catch (ClassNotFoundException e) {
+                e.printStackTrace();
+            }
+        }
+
+        pool = new ConnectionPool(() -> DriverManager.getConnection(jdbcUrl, username, password),
+                maxPoolSize, maxWaitMillis, idleTimeoutMillis, leakThresholdMillis, validationTimeoutSeconds,
+                statementCacheSize);
+
+        // open the first connection up front so a bad connection is reported on startup
         try {
-            Class.forName(MYSQLJDBCDriver);
-            conn = DriverManager.getConnection(jdbcUrl, username, password);
-        } catch (ClassNotFoundException e) {
-            e.printStackTrace();
+            pool.borrow().close();
         } catch (SQLException throwables) {
             throwables.printStackTrace();
         }
-
-        return conn;
     }
 
     /**
-     * Getter for the database connection.
-     * @return the connections
+     * Borrows a connection from the pool. The connection must be closed when the operation is done, which returns it
+     * to the pool, so it should be opened in a try-with-resources statement.
+     * @return the connection
+     * @throws SQLException if no connection is available
      * */
-    public static Connection getConnection() {
-        return conn;
+    public static Connection getConnection() throws SQLException {
+        ConnectionPool current;
+
+        synchronized (DBConnection.class) {
+            if (pool == null)
+                startConnection();
+            current = pool;
+        }
+
+        return current.borrow();
     }
 
     /**
-     * Closes the database connection. In order to avoid race conditions, the method does nothing if there is an exception.
+     * Closes the connection pool and all of its connections. In order to avoid race conditions, the method does
+     * nothing if there is an exception.
      * */
-    public static void closeConnection() {
+    public static synchronized void closeConnection() {
         try {
-            conn.close();
+            pool.close();
+            pool = null;
         } catch (Exception e) {
             // Do Nothing
         }
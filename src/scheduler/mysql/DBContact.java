@@ -4,7 +4,7 @@ import scheduler.dao.ContactDAO;
 import scheduler.model.Contact;
 import scheduler.util.Exceptions;
 
-import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,14 +14,13 @@ import java.util.List;
  * @author Steven Kazmierkiewicz
  * */
 public class DBContact implements ContactDAO {
-    private Connection conn = DBConnection.getConnection();
-
     @Override
     public List<Contact> getAllContacts() {
         String sql = "SELECT * FROM contacts";
         List<Contact> contactList = new ArrayList<>();
 
-        try (var ps = conn.prepareStatement(sql);
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql);
              var rs = ps.executeQuery()) {
 
             while (rs.next()) {
@@ -41,7 +40,8 @@ public class DBContact implements ContactDAO {
     public Contact getContact(int id) {
         String sql = "SELECT * FROM contacts WHERE Contact_ID = ?";
 
-        try (var ps = conn.prepareStatement(sql)) {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
 
             try (var rs = ps.executeQuery();) {
@@ -59,4 +59,14 @@ public class DBContact implements ContactDAO {
 
         return null;
     }
+
+    /**
+     * Builds a Contact from the current row of a result set that includes the contact columns.
+     * @param rs the result set positioned on a row
+     * @return the contact
+     * @throws SQLException if a column cannot be read
+     * */
+    static Contact fromResultSet(ResultSet rs) throws SQLException {
+        return new Contact(rs.getInt("Contact_ID"), rs.getString("Contact_Name"));
+    }
 }
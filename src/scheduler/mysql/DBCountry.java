@@ -4,7 +4,7 @@ import scheduler.dao.CountryDAO;
 import scheduler.model.Country;
 import scheduler.util.Exceptions;
 
-import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,14 +14,13 @@ import java.util.List;
  * @author Steven Kazmierkiewicz
  * */
 public class DBCountry implements CountryDAO {
-    private Connection conn = DBConnection.getConnection();
-
     @Override
     public List<Country> getAllCountries() {
         String sql = "SELECT * FROM countries";
         List<Country> countryList = new ArrayList<>();
 
-        try (var ps = conn.prepareStatement(sql);
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql);
              var rs = ps.executeQuery()) {
 
             while (rs.next()) {
@@ -41,7 +40,8 @@ public class DBCountry implements CountryDAO {
     public Country getCountry(int id) {
         String sql = "SELECT * FROM countries WHERE Country_ID = ?";
 
-        try (var ps = conn.prepareStatement(sql)) {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
 
             try (var rs = ps.executeQuery();) {
@@ -59,4 +59,14 @@ public class DBCountry implements CountryDAO {
 
         return null;
     }
+
+    /**
+     * Builds a Country from the current row of a result set that includes the country columns.
+     * @param rs the result set positioned on a row
+     * @return the country
+     * @throws SQLException if a column cannot be read
+     * */
+    static Country fromResultSet(ResultSet rs) throws SQLException {
+        return new Country(rs.getInt("Country_ID"), rs.getString("Country"));
+    }
 }
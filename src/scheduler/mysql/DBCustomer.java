@@ -1,16 +1,23 @@
 package scheduler.mysql;
 
 import scheduler.dao.CustomerDAO;
+import scheduler.dao.cache.CustomerIndex;
+import scheduler.dao.cache.ReferenceData;
+import scheduler.dao.cache.ChangeFeed;
+import scheduler.dao.cache.ChangeFeeds;
 import scheduler.model.Customer;
 import scheduler.model.Division;
 import scheduler.model.User;
 import scheduler.util.Exceptions;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -18,27 +25,56 @@ import java.util.List;
  * @author Steven Kazmierkiewicz
  * */
 public class DBCustomer implements CustomerDAO {
-    private Connection conn = DBConnection.getConnection();
-    private DBDivision dbDivision = new DBDivision();
+    // the division comes from reference data, so only the customers table is read
+    static final String SELECT_CUSTOMERS = "SELECT c.Customer_ID, c.Customer_Name, c.Address, c.Postal_Code, c.Phone, " +
+            "c.Division_ID " +
+            "FROM customers c";
+
+    // the most ids in a single IN clause of a bulk delete
+    private static final int maxIdsPerDelete = 1024;
+
+    /**
+     * Creates the queries used to follow the changes to the customers table.
+     * @return the queries
+     * */
+    public static ChangeFeed.Source<Customer> feedSource() {
+        return new TableSource<>(SELECT_CUSTOMERS + " WHERE c.Last_Update > ?",
+                "SELECT MAX(Last_Update) FROM customers", "customers", DBCustomer::fromResultSet);
+    }
 
     @Override
     public List<Customer> getAllCustomers() {
-        String sql = "SELECT * FROM customers";
+        String sql = SELECT_CUSTOMERS;
         List<Customer> customerList = new ArrayList<>();
 
-        try (var ps = conn.prepareStatement(sql);
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql);
              var rs = ps.executeQuery()) {
 
             while (rs.next()) {
-                int id = rs.getInt("Customer_ID");
-                String name = rs.getString("Customer_Name");
-                String address = rs.getString("Address");
-                String postalCode = rs.getString("Postal_Code");
-                String phone = rs.getString("Phone");
-                int divisionId = rs.getInt("Division_ID");
-                Division division = dbDivision.getDivision(divisionId);
-
-                customerList.add(new Customer(id, name, address, postalCode, phone, division));
+                customerList.add(fromResultSet(rs));
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return customerList;
+    }
+
+    @Override
+    public List<Customer> getCustomersAfter(int afterId, int limit) {
+        String sql = SELECT_CUSTOMERS + " WHERE c.Customer_ID > ? ORDER BY c.Customer_ID LIMIT ?";
+        List<Customer> customerList = new ArrayList<>();
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, afterId);
+            ps.setInt(2, limit);
+
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    customerList.add(fromResultSet(rs));
+                }
             }
         } catch (SQLException throwables) {
             throwables.printStackTrace();
@@ -47,24 +83,65 @@ public class DBCustomer implements CustomerDAO {
         return customerList;
     }
 
+    @Override
+    public int getCustomerIdAt(int offset) {
+        String sql = "SELECT Customer_ID FROM customers ORDER BY Customer_ID LIMIT 1 OFFSET ?";
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, offset);
+
+            try (var rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1);
+                }
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return -1;
+    }
+
+    @Override
+    public int numOfCustomers() {
+        // kept by the triggers in sql/change_log.sql, since counting a large table reads all of it
+        String sql = "SELECT Row_Count FROM row_counts WHERE Table_Name = 'customers'";
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql);
+             var rs = ps.executeQuery()) {
+            if (rs.next()) {
+                return rs.getInt(1);
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+        }
+
+        return 0;
+    }
+
+    @Override
+    public List<Customer> searchCustomers(String searchStr) {
+        return SearchIndex.index.search(searchStr);
+    }
+
+    @Override
+    public List<Customer> searchCustomers(String searchStr, String fieldName) {
+        return SearchIndex.index.search(searchStr, fieldName);
+    }
+
     @Override
     public Customer getCustomer(int id) {
-        String sql = "SELECT * FROM customers WHERE Customer_ID = ?";
+        String sql = SELECT_CUSTOMERS + " WHERE c.Customer_ID = ?";
 
-        try (var ps = conn.prepareStatement(sql)) {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
 
             try (var rs = ps.executeQuery();) {
                 if(rs.next()) {
-                    int customerId = rs.getInt("Customer_ID");
-                    String name = rs.getString("Customer_Name");
-                    String address = rs.getString("Address");
-                    String postalCode = rs.getString("Postal_Code");
-                    String phone = rs.getString("Phone");
-                    int divisionId = rs.getInt("Division_ID");
-                    Division division = dbDivision.getDivision(divisionId);
-
-                    return new Customer(customerId, name, address, postalCode, phone, division);
+                    return fromResultSet(rs);
                 } else {
                     throw new Exceptions.CustomerException("No customer with id " + id);
                 }
@@ -78,30 +155,38 @@ public class DBCustomer implements CustomerDAO {
 
     @Override
     public boolean createCustomer(String name, String address, String postalCode, String phone, Division division) {
+        return !createCustomers(List.of(new Customer(0, name, address, postalCode, phone, division))).isEmpty();
+    }
+
+    @Override
+    public List<Integer> createCustomers(List<Customer> customers) {
         String sql = "INSERT INTO customers(Customer_Name, Address, Postal_Code, Phone, Division_ID, " +
                 "Create_Date, Created_By, Last_Update, Last_Updated_By) " +
                 "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?)";
 
-        try (var ps = conn.prepareStatement(sql)) {
-            ps.setString(1, name);
-            ps.setString(2, address);
-            ps.setString(3, postalCode);
-            ps.setString(4, phone);
-            ps.setInt(5, division.getId());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String userName = User.getCurrentUser().getName();
 
-            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
-            ps.setTimestamp(6, now);
-            ps.setString(7, User.getCurrentUser().getName());
-            ps.setTimestamp(8, now);
-            ps.setString(9, User.getCurrentUser().getName());
-
-            return ps.executeUpdate() > 0;
+        try {
+            List<Integer> ids = BatchWriter.insert(sql, customers, (ps, customer) -> {
+                ps.setString(1, customer.getName());
+                ps.setString(2, customer.getAddress());
+                ps.setString(3, customer.getPostalCode());
+                ps.setString(4, customer.getPhone());
+                ps.setInt(5, customer.getDivision().getId());
+                ps.setTimestamp(6, now);
+                ps.setString(7, userName);
+                ps.setTimestamp(8, now);
+                ps.setString(9, userName);
+            });
 
+            ChangeFeeds.customers().markStale();
+            return ids;
         } catch (SQLException throwables) {
             throwables.printStackTrace();
         }
 
-        return false;
+        return new ArrayList<>();
     }
 
     @Override
@@ -116,18 +201,28 @@ public class DBCustomer implements CustomerDAO {
                 "Last_Updated_By = ?" +
                 "WHERE Customer_ID = ?";
 
-        try (var ps = conn.prepareStatement(sql)) {
-            ps.setString(1, customer.getName());
-            ps.setString(2, customer.getAddress());
-            ps.setString(3, customer.getPostalCode());
-            ps.setString(4, customer.getPhone());
-            ps.setInt(5, customer.getDivision().getId());
-            ps.setTimestamp(6, Timestamp.valueOf(LocalDateTime.now()));
-            ps.setString(7, User.getCurrentUser().getName());
-            ps.setInt(8, customer.getId());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String userName = User.getCurrentUser().getName();
+
+        try {
+            boolean updated = BatchWriter.update(sql, List.of(customer), (ps, c) -> {
+                ps.setString(1, c.getName());
+                ps.setString(2, c.getAddress());
+                ps.setString(3, c.getPostalCode());
+                ps.setString(4, c.getPhone());
+                ps.setInt(5, c.getDivision().getId());
+                ps.setTimestamp(6, now);
+                ps.setString(7, userName);
+                ps.setInt(8, c.getId());
+            });
 
-            return ps.executeUpdate() > 0;
+            if (updated) {
+                ChangeFeeds.customers().markStale();
+                // the customer's appointments are fetched again along with it
+                ChangeFeeds.appointments().markStale();
+            }
 
+            return updated;
         } catch (SQLException throwables) {
             throwables.printStackTrace();
         }
@@ -139,14 +234,191 @@ public class DBCustomer implements CustomerDAO {
     public boolean deleteCustomer(int id) {
         String sql = "DELETE FROM customers WHERE Customer_ID = ?";
 
-        try (var ps = conn.prepareStatement(sql)){
-            ps.setInt(1, id);
+        try (var conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
 
-            return ps.executeUpdate() > 0;
+            try {
+                // the lock is held until the delete commits, so no appointment can be booked after the check
+                if (!lockCustomer(conn, id)) {
+                    conn.rollback();
+                    return false;
+                }
+
+                if (hasAppointments(conn, id)) {
+                    conn.rollback();
+                    throw new Exceptions.HasAppointmentsException("Customer " + id + " still has appointments.");
+                }
+
+                try (var ps = conn.prepareStatement(sql)) {
+                    ps.setInt(1, id);
+                    ps.executeUpdate();
+                }
+
+                conn.commit();
+            } catch (SQLException throwables) {
+                // the pool also rolls back and restores autocommit when the connection is returned
+                conn.rollback();
+                throw throwables;
+            }
+        } catch (SQLException throwables) {
+            throwables.printStackTrace();
+            return false;
+        }
+
+        ChangeFeeds.customers().markStale();
+        return true;
+    }
+
+    @Override
+    public boolean deleteCustomerCascade(int id) {
+        return deleteCustomersCascade(List.of(id)) > 0;
+    }
+
+    @Override
+    public int deleteCustomersCascade(List<Integer> ids) {
+        int deleted = 0;
+
+        if (ids.isEmpty())
+            return deleted;
+
+        try (var conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            try {
+                for (int from = 0; from < ids.size(); from += maxIdsPerDelete) {
+                    var chunk = ids.subList(from, Math.min(from + maxIdsPerDelete, ids.size()));
+                    String in = inList(chunk.size());
+
+                    // the appointments and series go first, since they reference the customers
+                    try (var appointments = conn.prepareStatement("DELETE FROM appointments WHERE Customer_ID IN " + in);
+                         var series = conn.prepareStatement("DELETE FROM appointment_series WHERE Customer_ID IN " + in);
+                         var customers = conn.prepareStatement("DELETE FROM customers WHERE Customer_ID IN " + in)) {
+                        bindIds(appointments, chunk);
+                        appointments.executeUpdate();
+
+                        bindIds(series, chunk);
+                        series.executeUpdate();
+
+                        bindIds(customers, chunk);
+                        deleted += customers.executeUpdate();
+                    }
+                }
+
+                conn.commit();
+            } catch (SQLException throwables) {
+                // the pool also rolls back and restores autocommit when the connection is returned
+                conn.rollback();
+                throw throwables;
+            }
         } catch (SQLException throwables) {
             throwables.printStackTrace();
+            return -1;
+        }
+
+        DBAppointment.customersDeleted(ids);
+        ChangeFeeds.customers().markStale();
+        ChangeFeeds.appointments().markStale();
+
+        return deleted;
+    }
+
+    /**
+     * Locks a customer's row until the transaction on a connection ends. Every write that checks a customer's
+     * appointments first takes the lock, so those writes run one at a time for each customer across every client and
+     * process.
+     * @param conn the connection, with autocommit off
+     * @param id the id of the customer
+     * @return true if the customer exists
+     * @throws SQLException if the row cannot be locked
+     * */
+    static boolean lockCustomer(Connection conn, int id) throws SQLException {
+        try (var ps = conn.prepareStatement("SELECT Customer_ID FROM customers WHERE Customer_ID = ? FOR UPDATE")) {
+            ps.setInt(1, id);
+
+            try (var rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Checks if a customer has any appointments or series, within a transaction.
+     * @param conn the connection of the transaction
+     * @param id the id of the customer
+     * @return true if the customer has an appointment or a series
+     * @throws SQLException if the tables cannot be read
+     * */
+    private static boolean hasAppointments(Connection conn, int id) throws SQLException {
+        for (String table : List.of("appointments", "appointment_series")) {
+            try (var ps = conn.prepareStatement("SELECT 1 FROM " + table + " WHERE Customer_ID = ? LIMIT 1")) {
+                ps.setInt(1, id);
+
+                try (var rs = ps.executeQuery()) {
+                    if (rs.next())
+                        return true;
+                }
+            }
         }
 
         return false;
     }
+
+    /**
+     * Builds the parameter list of an IN clause. The number of parameters is rounded up to a power of two, so only a
+     * few distinct statements are prepared and cached no matter how many ids are deleted.
+     * @param count the number of ids
+     * @return the parameter list, in the form (?, ?, ...)
+     * */
+    private static String inList(int count) {
+        return "(" + String.join(", ", Collections.nCopies(paddedSize(count), "?")) + ")";
+    }
+
+    /**
+     * Binds ids to the parameters of a statement built with inList, repeating the last id in the padding.
+     * @param ps the statement
+     * @param ids the ids
+     * @throws SQLException if a parameter cannot be set
+     * */
+    private static void bindIds(PreparedStatement ps, List<Integer> ids) throws SQLException {
+        int size = paddedSize(ids.size());
+
+        for (int i = 0; i < size; i++)
+            ps.setInt(i + 1, ids.get(Math.min(i, ids.size() - 1)));
+    }
+
+    /**
+     * Rounds a number of ids up to the next power of two, up to the maximum per delete.
+     * @param count the number of ids
+     * @return the number of parameters
+     * */
+    private static int paddedSize(int count) {
+        return count <= 1 ? 1 : Math.min(maxIdsPerDelete, Integer.highestOneBit(count - 1) << 1);
+    }
+
+    /**
+     * Builds a Customer from the current row of a result set that includes the customer columns. The division is the
+     * shared instance from the reference data.
+     * @param rs the result set positioned on a row
+     * @return the customer
+     * @throws SQLException if a column cannot be read
+     * */
+    static Customer fromResultSet(ResultSet rs) throws SQLException {
+        int id = rs.getInt("Customer_ID");
+        String name = rs.getString("Customer_Name");
+        String address = rs.getString("Address");
+        String postalCode = rs.getString("Postal_Code");
+        String phone = rs.getString("Phone");
+        Division division = ReferenceData.divisions().getDivision(rs.getInt("Division_ID"));
+
+        return new Customer(id, name, address, postalCode, phone, division);
+    }
+
+    /**
+     * Holds the search index over every customer, built on the first search and kept up to date by the customers
+     * feed. It is held apart so it is only created on first use, since the feed is created from this class.
+     * */
+    private static final class SearchIndex {
+        private static final CustomerIndex index = new CustomerIndex(() -> new DBCustomer().getAllCustomers(),
+                ChangeFeeds.customers());
+    }
 }
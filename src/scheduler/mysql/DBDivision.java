@@ -1,13 +1,11 @@
 package scheduler.mysql;
 
-import scheduler.dao.CountryDAO;
 import scheduler.dao.DivisionDAO;
-import scheduler.model.Contact;
 import scheduler.model.Country;
 import scheduler.model.Division;
 import scheduler.util.Exceptions;
 
-import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -17,23 +15,22 @@ import java.util.List;
  * @author Steven Kazmierkiewicz
  * */
 public class DBDivision implements DivisionDAO {
-    private Connection conn = DBConnection.getConnection();
-    private DBCountry dbCountry= new DBCountry();
+    // joins the country so a division is built from a single row
+    static final String SELECT_DIVISIONS = "SELECT d.Division_ID, d.Division, co.Country_ID, co.Country " +
+            "FROM first_level_divisions d " +
+            "JOIN countries co ON d.COUNTRY_ID = co.Country_ID";
 
     @Override
     public List<Division> getAllDivisions() {
-        String sql = "SELECT * FROM first_level_divisions";
+        String sql = SELECT_DIVISIONS;
         List<Division> divisionList = new ArrayList<>();
 
-        try (var ps = conn.prepareStatement(sql);
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql);
              var rs = ps.executeQuery()) {
 
             while (rs.next()) {
-                int id = rs.getInt("Division_ID");
-                String name = rs.getString("Division");
-                Country country = dbCountry.getCountry(rs.getInt("COUNTRY_ID"));
-
-                divisionList.add(new Division(id, name, country));
+                divisionList.add(fromResultSet(rs));
             }
         } catch (SQLException throwables) {
             throwables.printStackTrace();
@@ -44,17 +41,15 @@ public class DBDivision implements DivisionDAO {
 
     @Override
     public Division getDivision(int id) {
-        String sql = "SELECT * FROM first_level_divisions WHERE Division_ID = ?";
+        String sql = SELECT_DIVISIONS + " WHERE d.Division_ID = ?";
 
-        try (var ps = conn.prepareStatement(sql)) {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
 
             try (var rs = ps.executeQuery();) {
                 if(rs.next()) {
-                    int divisionId = rs.getInt("Division_ID");
-                    String name = rs.getString("Division");
-                    Country country = dbCountry.getCountry(rs.getInt("COUNTRY_ID"));
-                    return new Division(divisionId, name, country);
+                    return fromResultSet(rs);
                 } else {
                     throw new Exceptions.DivisionException("No division with id " + id);
                 }
@@ -71,7 +66,8 @@ public class DBDivision implements DivisionDAO {
         String sql = "SELECT * FROM first_level_divisions WHERE COUNTRY_ID = ?";
         List<Division> divisionList = new ArrayList<>();
 
-        try (var ps = conn.prepareStatement(sql)) {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
             ps.setInt(1, country.getId());
 
             try (var rs = ps.executeQuery()) {
@@ -88,4 +84,19 @@ public class DBDivision implements DivisionDAO {
 
         return divisionList;
     }
+
+    /**
+     * Builds a Division, along with its country, from the current row of a result set that includes the division
+     * and country columns.
+     * @param rs the result set positioned on a row
+     * @return the division
+     * @throws SQLException if a column cannot be read
+     * */
+    static Division fromResultSet(ResultSet rs) throws SQLException {
+        int id = rs.getInt("Division_ID");
+        String name = rs.getString("Division");
+        Country country = DBCountry.fromResultSet(rs);
+
+        return new Division(id, name, country);
+    }
 }
@@ -5,7 +5,7 @@ import scheduler.model.User;
 import scheduler.util.Exceptions;
 import scheduler.util.WordUtils;
 
-import java.sql.Connection;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
@@ -17,18 +17,13 @@ import java.util.ResourceBundle;
  * @author Steven Kazmierkiewicz
  * */
 public class DBUser implements UserDAO {
-    private Connection conn;
-
-    {
-        conn = DBConnection.getConnection();
-    }
-
     @Override
     public List<User> getAllUsers() {
         String sql = "SELECT * FROM users";
         List<User> userList = new ArrayList<>();
 
-        try (var ps = conn.prepareStatement(sql);
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql);
              var rs = ps.executeQuery()) {
 
             while (rs.next()) {
@@ -48,7 +43,8 @@ public class DBUser implements UserDAO {
     public User getUser(int id) {
         String sql = "SELECT * FROM users WHERE User_ID = ?";
 
-        try (var ps = conn.prepareStatement(sql)) {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
 
             try(var rs = ps.executeQuery();) {
@@ -71,7 +67,8 @@ public class DBUser implements UserDAO {
     public User login(String name, String pass) {
         String sql = "SELECT * FROM users WHERE User_Name = ? AND Password = ?";
 
-        try (var ps = conn.prepareStatement(sql)){
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)){
             ps.setString(1, name);
             ps.setString(2, pass);
 
@@ -91,4 +88,14 @@ public class DBUser implements UserDAO {
 
         return null;
     }
+
+    /**
+     * Builds a User from the current row of a result set that includes the user columns.
+     * @param rs the result set positioned on a row
+     * @return the user
+     * @throws SQLException if a column cannot be read
+     * */
+    static User fromResultSet(ResultSet rs) throws SQLException {
+        return new User(rs.getInt("User_ID"), rs.getString("User_Name"));
+    }
 }
@@ -0,0 +1,219 @@
+package scheduler.mysql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A least recently used cache of the prepared statements of a single physical connection, keyed by their SQL. Closing
+ * a statement handed out by the cache returns it to the cache instead of closing it, so the next time the same SQL is
+ * prepared on the connection the compiled statement is reused. Only used by one borrower of the connection at a time.
+ * @author Steven Kazmierkiewicz
+ * */
+final class StatementCache {
+    private final Connection physical;
+    private final int maxSize;
+    private final Map<List<Object>, CachedStatement> cache;
+
+    // statements handed out during the current lease, closed or returned when the lease ends
+    private final List<PreparedStatement> open = new ArrayList<>();
+
+    /**
+     * Creates a statement cache for a connection.
+     * @param physical the physical connection the statements are prepared on
+     * @param maxSize the maximum number of statements kept
+     * */
+    StatementCache(Connection physical, int maxSize) {
+        this.physical = physical;
+        this.maxSize = maxSize;
+        this.cache = new LinkedHashMap<>(maxSize + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<List<Object>, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.maxSize)
+                    return false;
+
+                // a statement in use is closed when it is returned instead
+                eldest.getValue().evicted = true;
+                if (!eldest.getValue().inUse)
+                    eldest.getValue().closePhysical();
+
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Prepares a statement, reusing a cached one for the same SQL and options if it is not already in use.
+     * @param method the prepareStatement method that was called on the connection
+     * @param args the arguments it was called with
+     * @return the prepared statement
+     * @throws SQLException if the statement cannot be prepared
+     * */
+    PreparedStatement prepare(Method method, Object[] args) throws SQLException {
+        // statements with column index or name arrays are rare, so they are not cached
+        for (var arg : args) {
+            if (arg != null && arg.getClass().isArray())
+                return track(invoke(method, args));
+        }
+
+        List<Object> key = Arrays.asList(args);
+        CachedStatement cached = cache.get(key);
+
+        if (cached == null || cached.inUse) {
+            cached = new CachedStatement(invoke(method, args));
+
+            // the same SQL is open twice at once, so the second statement is not cached
+            if (cache.containsKey(key))
+                return track(cached.physical);
+
+            cache.put(key, cached);
+        }
+
+        cached.inUse = true;
+        return track(cached.lease());
+    }
+
+    /**
+     * Returns every statement handed out during the lease. Called when the connection goes back to the pool.
+     * */
+    void releaseAll() {
+        for (var statement : new ArrayList<>(open)) {
+            try {
+                if (!statement.isClosed())
+                    statement.close();
+            } catch (SQLException throwables) {
+                // Do Nothing
+            }
+        }
+
+        open.clear();
+    }
+
+    /**
+     * Tracks a statement handed out during the current lease.
+     * @param statement the statement
+     * @return the statement
+     * */
+    private PreparedStatement track(PreparedStatement statement) {
+        open.add(statement);
+        return statement;
+    }
+
+    /**
+     * Calls a prepareStatement method on the physical connection.
+     * @param method the method
+     * @param args the arguments
+     * @return the new statement
+     * @throws SQLException if the statement cannot be prepared
+     * */
+    private PreparedStatement invoke(Method method, Object[] args) throws SQLException {
+        try {
+            return (PreparedStatement) method.invoke(physical, args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException)
+                throw (SQLException) e.getCause();
+            throw new SQLException(e.getCause());
+        } catch (IllegalAccessException e) {
+            throw new SQLException(e);
+        }
+    }
+
+    /**
+     * A cached statement on the physical connection.
+     * */
+    private final class CachedStatement {
+        private final PreparedStatement physical;
+        private boolean inUse = false;
+        private boolean evicted = false;
+
+        private CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+        }
+
+        /**
+         * Wraps the statement for a single use. Closing the wrapper resets the statement and its batch and returns it to the cache,
+         * and the wrapper cannot be used after it is closed.
+         * @return the wrapped statement
+         * */
+        private PreparedStatement lease() {
+            InvocationHandler handler = new InvocationHandler() {
+                private boolean leaseClosed = false;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "close":
+                            if (!leaseClosed) {
+                                leaseClosed = true;
+                                open.remove(proxy);
+                                giveBack();
+                            }
+                            return null;
+                        case "isClosed":
+                            return leaseClosed || physical.isClosed();
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "Cached " + physical;
+                        default:
+                            if (leaseClosed)
+                                throw new SQLException("The statement has already been closed.");
+                            try {
+                                return method.invoke(physical, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                    }
+                }
+            };
+
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, handler);
+        }
+
+        /**
+         * Resets the statement and makes it available again, or closes it if it was evicted while in use.
+         * */
+        private void giveBack() {
+            inUse = false;
+
+            if (evicted) {
+                closePhysical();
+                return;
+            }
+
+            try {
+                physical.clearParameters();
+                physical.clearBatch();
+                physical.setFetchSize(0);
+            } catch (SQLException throwables) {
+                // a statement that cannot be reset is dropped rather than reused
+                evicted = true;
+                cache.values().remove(this);
+                closePhysical();
+            }
+        }
+
+        /**
+         * Closes the physical statement, ignoring any errors.
+         * */
+        private void closePhysical() {
+            try {
+                physical.close();
+            } catch (Exception e) {
+                // Do Nothing
+            }
+        }
+    }
+}
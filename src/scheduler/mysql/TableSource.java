@@ -0,0 +1,115 @@
+package scheduler.mysql;
+
+import scheduler.dao.cache.ChangeFeed;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The queries a change feed runs against a table with a Last_Update column, whose deleted rows are recorded in the
+ * deleted_rows table.
+ * @param <T> the type of record in the table
+ * @author Steven Kazmierkiewicz
+ * */
+final class TableSource<T> implements ChangeFeed.Source<T> {
+    private final String changedSince;
+    private final int changedSinceParams;
+    private final String lastUpdate;
+    private final String table;
+    private final RowMapper<T> mapper;
+
+    /**
+     * Builds a record from the current row of a result set.
+     * @param <T> the type of record
+     * */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Creates the queries for a table.
+     * @param changedSince the query selecting the rows changed after a time, with every parameter set to the time
+     * @param lastUpdate the query selecting the latest Last_Update the changed query looks at
+     * @param table the name of the table, as recorded in deleted_rows
+     * @param mapper builds a record from a row of the changed query
+     * */
+    TableSource(String changedSince, String lastUpdate, String table, RowMapper<T> mapper) {
+        this.changedSince = changedSince;
+        this.changedSinceParams = (int) changedSince.chars().filter(c -> c == '?').count();
+        this.lastUpdate = lastUpdate;
+        this.table = table;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public List<T> loadChangedSince(LocalDateTime since) throws SQLException {
+        List<T> records = new ArrayList<>();
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(changedSince)) {
+            for (int i = 1; i <= changedSinceParams; i++)
+                ps.setTimestamp(i, Timestamp.valueOf(since));
+
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    records.add(mapper.map(rs));
+                }
+            }
+        }
+
+        return records;
+    }
+
+    @Override
+    public LocalDateTime lastUpdate() throws SQLException {
+        return latest(lastUpdate);
+    }
+
+    @Override
+    public List<ChangeFeed.Deletion> loadDeletedSince(LocalDateTime since) throws SQLException {
+        String sql = "SELECT Delete_ID, Row_ID, Deleted_At FROM deleted_rows WHERE Table_Name = ? AND Deleted_At > ?";
+        List<ChangeFeed.Deletion> deletions = new ArrayList<>();
+
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql)) {
+            ps.setString(1, table);
+            ps.setTimestamp(2, Timestamp.valueOf(since));
+
+            try (var rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    deletions.add(new ChangeFeed.Deletion(rs.getLong(1), rs.getInt(2),
+                            rs.getTimestamp(3).toLocalDateTime()));
+                }
+            }
+        }
+
+        return deletions;
+    }
+
+    @Override
+    public LocalDateTime lastDeleted() throws SQLException {
+        return latest("SELECT MAX(Deleted_At) FROM deleted_rows WHERE Table_Name = '" + table + "'");
+    }
+
+    /**
+     * Runs a query selecting a single time.
+     * @param sql the query
+     * @return the time, or null if there is none
+     * @throws SQLException if the query fails
+     * */
+    private static LocalDateTime latest(String sql) throws SQLException {
+        try (var conn = DBConnection.getConnection();
+             var ps = conn.prepareStatement(sql);
+             var rs = ps.executeQuery()) {
+            if (rs.next() && rs.getTimestamp(1) != null)
+                return rs.getTimestamp(1).toLocalDateTime();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,119 @@
+package scheduler.report;
+
+import scheduler.util.RowSource;
+
+import java.util.List;
+
+/**
+ * A report that can be run by name, such as from the command line. Running a report with its parameters plans one or
+ * more outputs, each becoming its own file. Planning only reads the parameters, and the rows of each output are not
+ * read until the output is written, so the outputs of a report can be written at the same time.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class Report {
+    private final String name;
+    private final String usage;
+    private final List<String> headers;
+    private final List<String> fields;
+    private final Planner planner;
+
+    /**
+     * Creates a report.
+     * @param name the name the report is run by
+     * @param usage the parameters the report takes, for the usage message
+     * @param headers the column headers
+     * @param fields the field names, or list indexes, for each column
+     * @param planner plans the outputs of a run
+     * */
+    Report(String name, String usage, List<String> headers, List<String> fields, Planner planner) {
+        this.name = name;
+        this.usage = usage;
+        this.headers = List.copyOf(headers);
+        this.fields = List.copyOf(fields);
+        this.planner = planner;
+    }
+
+    /**
+     * Getter for the name.
+     * @return the name the report is run by
+     * */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter for the usage.
+     * @return the parameters the report takes
+     * */
+    public String getUsage() {
+        return usage;
+    }
+
+    /**
+     * Getter for the headers.
+     * @return the column headers
+     * */
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Getter for the fields.
+     * @return the field names, or list indexes, for each column
+     * */
+    public List<String> getFields() {
+        return fields;
+    }
+
+    /**
+     * Plans the outputs of a run of the report.
+     * @param parameters the parameters
+     * @return the outputs
+     * @throws IllegalArgumentException if a parameter is missing or invalid
+     * */
+    public List<Output> plan(ReportParameters parameters) {
+        return planner.plan(parameters);
+    }
+
+    /**
+     * Plans the outputs of a run of a report.
+     * */
+    @FunctionalInterface
+    interface Planner {
+        List<Output> plan(ReportParameters parameters);
+    }
+
+    /**
+     * One output of a run of a report, with the title it is saved under and the source of its rows.
+     * */
+    public static final class Output {
+        private final String title;
+        private final RowSource<?> rows;
+
+        /**
+         * Creates an output.
+         * @param title the title, such as "Contact Schedule 1, Anika Costa"
+         * @param rows the source of the objects of the rows, read when the output is written
+         * */
+        Output(String title, RowSource<?> rows) {
+            this.title = title;
+            this.rows = rows;
+        }
+
+        /**
+         * Getter for the title.
+         * @return the title
+         * */
+        public String getTitle() {
+            return title;
+        }
+
+        /**
+         * Getter for the rows.
+         * @return the source of the objects of the rows
+         * */
+        public RowSource<?> getRows() {
+            return rows;
+        }
+    }
+}
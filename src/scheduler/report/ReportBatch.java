@@ -0,0 +1,216 @@
+package scheduler.report;
+
+import scheduler.util.LoginStore;
+import scheduler.util.Reports;
+import scheduler.util.metrics.Metrics;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs reports from the command line without the screens, such as from a nightly job. Every report asked for is
+ * planned first, so a bad name or parameter stops the run before anything is written. The outputs are then written at
+ * the same time on a few threads, each streaming its rows straight to its own csv file.
+ * <p>
+ * Arguments:
+ * <ul>
+ *     <li>--report=&lt;name&gt;[,&lt;parameter&gt;=&lt;value&gt;...] runs a report, and may be given more than once</li>
+ *     <li>--out=&lt;directory&gt; the directory to write the files to, by default ./reports</li>
+ *     <li>--threads=&lt;n&gt; how many files are written at a time, by default 4</li>
+ * </ul>
+ * For example, --report=contact-schedule,contactId=all --report=appointments-by-type --report=appointments-by-month
+ * writes every contact's schedule and both analyses.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class ReportBatch {
+    private static final String reportOption = "--report";
+    private static final String outOption = "--out";
+    private static final String threadsOption = "--threads";
+    private static final String defaultOut = "reports";
+    // kept under the size of the connection pool, so the screens or the API are not starved when run beside them
+    private static final int defaultThreads = 4;
+
+    private ReportBatch() {}
+
+    /**
+     * Checks if the command line asks for reports.
+     * @param args command line arguments
+     * @return true if a report is asked for
+     * */
+    public static boolean isRequested(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith(reportOption + "="))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Runs the reports asked for on the command line.
+     * @param args command line arguments
+     * @return the exit status: 0 if every file was written, 1 if any failed, and 2 if the arguments are invalid
+     * */
+    public static int run(String[] args) {
+        // the screens or the API may be writing the login attempts beside the batch
+        LoginStore.useReadOnly();
+
+        File dir = new File(defaultOut);
+        int threads = defaultThreads;
+        List<Job> jobs = new ArrayList<>();
+
+        try {
+            for (String arg : args) {
+                if (arg.startsWith(outOption + "=")) {
+                    dir = new File(value(arg));
+                } else if (arg.startsWith(threadsOption + "=")) {
+                    threads = Integer.parseInt(value(arg));
+                    if (threads < 1)
+                        throw new IllegalArgumentException(threadsOption + " must be at least 1.");
+                } else if (arg.startsWith(reportOption + "=")) {
+                    jobs.addAll(plan(value(arg)));
+                }
+            }
+        } catch (NumberFormatException e) {
+            System.err.println(threadsOption + " must be an integer.");
+            return 2;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.err.println(e.getMessage());
+            printUsage();
+            return 2;
+        }
+
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            System.err.println("Could not create the directory " + dir + ".");
+            return 1;
+        }
+
+        return write(dir, jobs, threads);
+    }
+
+    /**
+     * Writes the outputs on a pool of threads, each as its own action in the metrics.
+     * @param dir the directory to write the files to
+     * @param jobs the outputs to write
+     * @param threads how many outputs are written at a time
+     * @return 0 if every file was written, or 1 if any failed
+     * */
+    private static int write(File dir, List<Job> jobs, int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, jobs.size())), r ->
+                new Thread(r, "report-" + threadCount.incrementAndGet()));
+        Map<Job, Future<File>> files = new LinkedHashMap<>();
+
+        for (Job job : jobs) {
+            files.put(job, executor.submit(() -> {
+                File[] file = new File[1];
+                Metrics.runAs(Metrics.startAction("Report > " + job.report.getName()), () ->
+                        file[0] = Reports.export(dir, Reports.toFileName(job.output.getTitle()),
+                                job.report.getHeaders(), job.report.getFields(), job.output.getRows()));
+                return file[0];
+            }));
+        }
+
+        executor.shutdown();
+        int status = 0;
+
+        for (var entry : files.entrySet()) {
+            String title = entry.getKey().output.getTitle();
+
+            try {
+                File file = entry.getValue().get();
+
+                if (file != null) {
+                    System.out.println("Wrote " + title + " to " + file);
+                    continue;
+                }
+
+                System.err.println("Could not write " + title + ".");
+            } catch (ExecutionException e) {
+                System.err.println("Could not write " + title + ".");
+                e.getCause().printStackTrace();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                return 1;
+            }
+
+            status = 1;
+        }
+
+        return status;
+    }
+
+    /**
+     * Plans the outputs of a report asked for on the command line.
+     * @param spec the name of the report, followed by its comma separated parameters
+     * @return the outputs
+     * @throws IllegalArgumentException if there is no such report, or a parameter is invalid
+     * */
+    private static List<Job> plan(String spec) {
+        String[] parts = spec.split(",");
+        Report report = ReportCatalog.get(parts[0].strip());
+
+        if (report == null)
+            throw new IllegalArgumentException("No report named " + parts[0] + ".");
+
+        Map<String, String> values = new LinkedHashMap<>();
+
+        for (int i = 1; i < parts.length; i++) {
+            int eq = parts[i].indexOf('=');
+
+            if (eq < 0)
+                throw new IllegalArgumentException("Report parameters must be given as name=value, not " + parts[i] + ".");
+
+            values.put(parts[i].substring(0, eq).strip(), parts[i].substring(eq + 1));
+        }
+
+        List<Job> jobs = new ArrayList<>();
+
+        try {
+            for (var output : report.plan(new ReportParameters(values)))
+                jobs.add(new Job(report, output));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(report.getName() + ": " + e.getMessage(), e);
+        }
+
+        return jobs;
+    }
+
+    private static String value(String arg) {
+        return arg.substring(arg.indexOf('=') + 1);
+    }
+
+    /**
+     * Prints the arguments and the reports that can be run.
+     * */
+    private static void printUsage() {
+        System.err.println("Usage: " + reportOption + "=<name>[,<parameter>=<value>...] [" + outOption +
+                "=<directory>] [" + threadsOption + "=<n>]");
+        System.err.println("Reports:");
+
+        for (Report report : ReportCatalog.all())
+            System.err.println("  " + report.getName() + (report.getUsage().isEmpty() ? "" : "," + report.getUsage()));
+    }
+
+    /**
+     * An output of a report waiting to be written.
+     * */
+    private static final class Job {
+        private final Report report;
+        private final Report.Output output;
+
+        private Job(Report report, Report.Output output) {
+            this.report = report;
+            this.output = output;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package scheduler.report;
+
+import scheduler.dao.AppointmentDAO;
+import scheduler.dao.DAOs;
+import scheduler.dao.cache.ReferenceData;
+import scheduler.model.Account;
+import scheduler.model.Appointment;
+import scheduler.model.Contact;
+import scheduler.model.Customer;
+import scheduler.model.User;
+import scheduler.util.Exceptions;
+import scheduler.util.LoginStore;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * The reports of the report menu, by the name they are run by without the screens, along with the data the screens
+ * and the HTTP API build the same reports from. A schedule report given "all" as its account id plans an output for
+ * every account, so every contact's schedule is written in one run.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class ReportCatalog {
+    // how many days of occurrences of series a schedule holds, since a series may not end
+    public static final int seriesReportDays = 90;
+    public static final int defaultLoginReportDays = 30;
+    private static final String allAccounts = "all";
+
+    private static final Map<String, Report> reports = new LinkedHashMap<>();
+
+    static {
+        Map<String, String> columns = appointmentColumns();
+        List<String> apptHeaders = new ArrayList<>(columns.keySet());
+        List<String> apptFields = new ArrayList<>(columns.values());
+
+        add(new Report("appointments", "", apptHeaders, apptFields,
+                p -> List.of(new Report.Output("Appointments", DAOs.appointments()::forEachAppointment))));
+
+        add(new Report("appointments-by-month", "", List.of("Month", "Count"), List.of("0", "1"),
+                p -> List.of(new Report.Output("Month Analysis", action -> appointmentsByMonth()
+                        .forEach((month, count) -> action.accept(List.of(month.toString(), count.toString())))))));
+
+        add(new Report("appointments-by-type", "", List.of("Type", "Count"), List.of("0", "1"),
+                p -> List.of(new Report.Output("Type Analysis", action -> appointmentsByType()
+                        .forEach((type, count) -> action.accept(List.of(type.toString(), count.toString())))))));
+
+        add(scheduleReport("customer-schedule", "customerId", "Customer Schedule",
+                () -> DAOs.customers().getAllCustomers(), id -> DAOs.customers().getCustomer(id),
+                (dbAppt, c) -> dbAppt.getAppointmentsFor((Customer) c), c -> a -> a.getCustomerId() == c.getId()));
+
+        add(scheduleReport("contact-schedule", "contactId", "Contact Schedule",
+                () -> ReferenceData.contacts().getAllContacts(), id -> ReferenceData.contacts().getContact(id),
+                (dbAppt, c) -> dbAppt.getAppointmentsFor((Contact) c), c -> a -> a.getContact().getId() == c.getId()));
+
+        add(scheduleReport("user-schedule", "userId", "User Schedule",
+                () -> ReferenceData.users().getAllUsers(), id -> ReferenceData.users().getUser(id),
+                (dbAppt, u) -> dbAppt.getAppointmentsFor((User) u), u -> a -> a.getUser().getId() == u.getId()));
+
+        add(new Report("login-attempts", "user=<username>,from=<date>,to=<date>",
+                List.of("Time", "Username", "Result"), List.of("0", "1", "2"), p -> {
+            String user = p.require("user");
+            Instant from = loginFrom(p);
+            Instant to = loginTo(p);
+            LoginStore store = logins();
+
+            return List.of(new Report.Output("Login Attempts, " + user, action ->
+                    store.attempts(user, from, to).forEach(a -> action.accept(loginAttemptRow(a)))));
+        }));
+
+        add(new Report("login-failure-rate", "from=<date>,to=<date>",
+                List.of("Hour", "Attempts", "Failures", "Failure Rate"), List.of("0", "1", "2", "3"), p -> {
+            Instant from = loginFrom(p);
+            Instant to = loginTo(p);
+            LoginStore store = logins();
+
+            return List.of(new Report.Output("Login Failure Rate", action ->
+                    store.failureRateByHour(from, to, ZoneId.systemDefault())
+                            .forEach(h -> action.accept(failureRateRow(h)))));
+        }));
+    }
+
+    private ReportCatalog() {}
+
+    /**
+     * Gets a report by name.
+     * @param name the name
+     * @return the report, or null if there is none
+     * */
+    public static Report get(String name) {
+        return reports.get(name);
+    }
+
+    /**
+     * Gets all the reports.
+     * @return the reports, in the order of the report menu
+     * */
+    public static Collection<Report> all() {
+        return reports.values();
+    }
+
+    /**
+     * Provides the column-field map for a report of appointments.
+     * @return the column-field map
+     * */
+    public static Map<String, String> appointmentColumns() {
+        List<String> fieldNames = List.of("id", "title", "description", "location", "contact", "type", "startFormatted", "endFormatted", "customerId", "customerName");
+        List<String> columnNames = List.of("Appt ID", "Title", "Description", "Location", "Contact", "Type", "Start", "End", "Cust ID", "Customer Name");
+        Map<String, String> columnFieldMap = new LinkedHashMap<>();
+
+        for(int i = 0; i < fieldNames.size(); i++)
+            columnFieldMap.put(columnNames.get(i), fieldNames.get(i));
+
+        return columnFieldMap;
+    }
+
+    /**
+     * Counts the appointments of every month. The stored appointments are counted by the database, and the
+     * occurrences of series are added to them.
+     * @return the count of each month, including the months without any, in order
+     * */
+    public static Map<Month, Long> appointmentsByMonth() {
+        Map<Month, Long> data = new EnumMap<>(DAOs.appointments().appointmentsByMonth());
+        Map<Month, Long> dataAllMonths = new LinkedHashMap<>();
+
+        for (var occurrence : seriesOccurrences())
+            data.merge(occurrence.getStart().getMonth(), 1L, Long::sum);
+
+        for(Month month: Month.values())
+            dataAllMonths.put(month, data.getOrDefault(month, 0L));
+
+        return dataAllMonths;
+    }
+
+    /**
+     * Counts the appointments of every type. The stored appointments are counted by the database, and the
+     * occurrences of series are added to them.
+     * @return the count of each type, including the types without any, in order
+     * */
+    public static Map<Appointment.Type, Long> appointmentsByType() {
+        Map<Appointment.Type, Long> data = new HashMap<>(DAOs.appointments().appointmentsByType());
+        Map<Appointment.Type, Long> dataAllTypes = new LinkedHashMap<>();
+
+        for (var occurrence : seriesOccurrences())
+            data.merge(occurrence.getType(), 1L, Long::sum);
+
+        for(var type: Appointment.Type.values())
+            dataAllTypes.put(type, data.getOrDefault(type, 0L));
+
+        return dataAllTypes;
+    }
+
+    /**
+     * Gets the occurrences of every series for the analyses. A series that ends is counted up to its end, and one
+     * that does not up to the report's horizon, as in the schedules.
+     * @return the occurrences
+     * */
+    private static List<Appointment> seriesOccurrences() {
+        LocalDateTime horizon = LocalDate.now().atStartOfDay().plusDays(seriesReportDays);
+        List<Appointment> occurrences = new ArrayList<>();
+
+        for (var series : DAOs.series().getAllSeries()) {
+            LocalDateTime to = series.getEndDate() == null ? horizon : series.getEndDate().atStartOfDay();
+            occurrences.addAll(series.occurrencesBetween(series.getStart(), to));
+        }
+
+        return occurrences;
+    }
+
+    /**
+     * Gets the schedule of an account: its stored appointments and the occurrences of its series over the coming
+     * days, ordered by start. A series may not end, so only the occurrences up to the report's horizon are built.
+     * @param stored the stored appointments of the account
+     * @param ofAccount the condition selecting the appointments of the account
+     * @return the appointments
+     * */
+    public static List<Appointment> schedule(List<Appointment> stored, Predicate<Appointment> ofAccount) {
+        List<Appointment> appts = new ArrayList<>(stored);
+        LocalDateTime from = LocalDate.now().atStartOfDay();
+        LocalDateTime to = from.plusDays(seriesReportDays);
+
+        for (var series : DAOs.series().getSeriesBetween(from, to)) {
+            for (var occurrence : series.occurrencesBetween(from, to)) {
+                if (ofAccount.test(occurrence))
+                    appts.add(occurrence);
+            }
+        }
+
+        appts.sort(Comparator.comparing(Appointment::getStart));
+        return appts;
+    }
+
+    /**
+     * Converts a login attempt to a row of the login attempts report.
+     * @param attempt the attempt
+     * @return the time, username, and result
+     * */
+    public static List<String> loginAttemptRow(LoginStore.Attempt attempt) {
+        var formatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.MEDIUM);
+        return List.of(attempt.getTime().atZone(ZoneId.systemDefault()).format(formatter), attempt.getUser(),
+                attempt.isSuccess() ? "SUCCESS" : "FAILURE");
+    }
+
+    /**
+     * Converts the attempts of an hour to a row of the login failure rate report.
+     * @param hour the attempts of the hour
+     * @return the hour, attempts, failures, and failure rate
+     * */
+    public static List<String> failureRateRow(LoginStore.HourStats hour) {
+        return List.of(String.format("%02d:00", hour.getHour()), String.valueOf(hour.getAttempts()),
+                String.valueOf(hour.getFailures()), String.format("%.1f%%", hour.getFailureRate() * 100));
+    }
+
+    private static void add(Report report) {
+        reports.put(report.getName(), report);
+    }
+
+    /**
+     * Creates the schedule report of a kind of account. Its parameter is the id of the account, or "all" for an
+     * output per account.
+     * @param name the name of the report
+     * @param idParameter the name of the parameter holding the id
+     * @param title the title of the report, followed by the id and name of the account, since names may be shared
+     * @param allAccounts gets every account
+     * @param account gets an account by id
+     * @param stored gets the stored appointments of an account
+     * @param ofAccount the condition selecting the appointments of an account
+     * @return the report
+     * */
+    private static Report scheduleReport(String name, String idParameter, String title,
+                                         Supplier<List<? extends Account>> allAccounts,
+                                         IntFunction<? extends Account> account,
+                                         StoredAppointments stored,
+                                         Function<Account, Predicate<Appointment>> ofAccount) {
+        Map<String, String> columns = appointmentColumns();
+
+        return new Report(name, idParameter + "=<id>|" + ReportCatalog.allAccounts, new ArrayList<>(columns.keySet()),
+                new ArrayList<>(columns.values()), p -> {
+            List<? extends Account> accounts;
+
+            if (ReportCatalog.allAccounts.equalsIgnoreCase(p.require(idParameter))) {
+                accounts = allAccounts.get();
+            } else {
+                Account found = null;
+
+                try {
+                    found = account.apply(p.requireInt(idParameter));
+                } catch (Exceptions.CustomerException | Exceptions.ContactException | Exceptions.UserException e) {
+                    // reported below
+                }
+
+                if (found == null)
+                    throw new IllegalArgumentException("No account with " + idParameter + " " + p.get(idParameter) + ".");
+
+                accounts = List.of(found);
+            }
+
+            return accounts.stream()
+                    .map(a -> new Report.Output(title + " " + a.getId() + ", " + a.getName(), action ->
+                            schedule(stored.of(DAOs.appointments(), a), ofAccount.apply(a)).forEach(action)))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    /**
+     * Gets the stored appointments of an account.
+     * */
+    @FunctionalInterface
+    private interface StoredAppointments {
+        List<Appointment> of(AppointmentDAO dbAppt, Account account);
+    }
+
+    private static LoginStore logins() {
+        LoginStore store = LoginStore.logins();
+
+        if (store == null)
+            throw new IllegalStateException("The login attempts could not be read.");
+
+        return store;
+    }
+
+    /**
+     * Gets the start of the range of a login report, by default 30 days ago.
+     * @param p the parameters
+     * @return the start of the from date
+     * */
+    private static Instant loginFrom(ReportParameters p) {
+        return p.getDate("from", LocalDate.now().minusDays(defaultLoginReportDays))
+                .atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Gets the end of the range of a login report, by default the end of today.
+     * @param p the parameters
+     * @return the start of the day after the to date
+     * */
+    private static Instant loginTo(ReportParameters p) {
+        return p.getDate("to", LocalDate.now()).plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+}
@@ -0,0 +1,101 @@
+package scheduler.report;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The named parameters of a report, such as the id of the account whose schedule is reported. Values are kept as
+ * text and parsed when they are read, so a bad value is reported with the name of its parameter.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class ReportParameters {
+    private final Map<String, String> values;
+
+    /**
+     * Creates the parameters.
+     * @param values the values by name
+     * */
+    public ReportParameters(Map<String, String> values) {
+        this.values = Collections.unmodifiableMap(new LinkedHashMap<>(values));
+    }
+
+    /**
+     * Creates a copy of the parameters with one value replaced.
+     * @param name the name of the value
+     * @param value the value
+     * @return the new parameters
+     * */
+    public ReportParameters with(String name, String value) {
+        Map<String, String> copy = new LinkedHashMap<>(values);
+        copy.put(name, value);
+        return new ReportParameters(copy);
+    }
+
+    /**
+     * Gets a value.
+     * @param name the name of the value
+     * @return the value, or null if it is not given
+     * */
+    public String get(String name) {
+        String value = values.get(name);
+        return value == null || value.isBlank() ? null : value.strip();
+    }
+
+    /**
+     * Gets a required value.
+     * @param name the name of the value
+     * @return the value
+     * @throws IllegalArgumentException if the value is not given
+     * */
+    public String require(String name) {
+        String value = get(name);
+
+        if (value == null)
+            throw new IllegalArgumentException(name + " must be given.");
+
+        return value;
+    }
+
+    /**
+     * Gets a required value as an integer.
+     * @param name the name of the value
+     * @return the integer
+     * @throws IllegalArgumentException if the value is not given or is not an integer
+     * */
+    public int requireInt(String name) {
+        try {
+            return Integer.parseInt(require(name));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer.");
+        }
+    }
+
+    /**
+     * Gets a value as an ISO date.
+     * @param name the name of the value
+     * @param defaultValue the date if the value is not given
+     * @return the date
+     * @throws IllegalArgumentException if the value is not an ISO date
+     * */
+    public LocalDate getDate(String name, LocalDate defaultValue) {
+        String value = get(name);
+
+        try {
+            return value == null ? defaultValue : LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be an ISO date.");
+        }
+    }
+
+    /**
+     * Converts the parameters to a string.
+     * @return the values by name
+     * */
+    @Override
+    public String toString() {
+        return values.toString();
+    }
+}
@@ -4,6 +4,8 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonType;
 import javafx.scene.image.ImageView;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -57,6 +59,28 @@ public class Alerts {
         return buttonType.isPresent() && buttonType.get() == ButtonType.OK;
     }
 
+    /**
+     * Displays an Alert with an AlertType of CONFIRMATION, with a button for each choice and a Cancel button.
+     * @param title the title of the Alert
+     * @param header the header of the Alert
+     * @param message the message of the Alert
+     * @param choices the text of the buttons
+     * @return the index of the choice clicked, or -1 if the Alert was cancelled
+     * */
+    public static int choose(String title, String header, String message, String... choices) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        List<ButtonType> buttons = new ArrayList<>();
+
+        for (String choice : choices)
+            buttons.add(new ButtonType(choice));
+
+        alert.getButtonTypes().setAll(buttons);
+        alert.getButtonTypes().add(ButtonType.CANCEL);
+        Optional<ButtonType> buttonType = alert(alert, title, header, message);
+
+        return buttonType.map(buttons::indexOf).orElse(-1);
+    }
+
     /**
      * Displays an Alert with an AlertType of INFORMATION.
      * @param title the title of the Alert
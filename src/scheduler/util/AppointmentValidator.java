@@ -0,0 +1,228 @@
+package scheduler.util;
+
+import scheduler.dao.AppointmentDAO;
+import scheduler.dao.AppointmentSeriesDAO;
+import scheduler.model.*;
+import scheduler.util.time.TimeUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Validates the values of an appointment before it is saved: every value is required, the start must be before the
+ * end, the times of every occurrence must be within open business hours, and the customer must not already have an appointment or an
+ * occurrence of a series at the time. A series is checked across all of its occurrences. It does not depend on the
+ * screens, so the appointment form and the HTTP API apply the same rules. The overlap check here reports a conflict
+ * along with the other errors; the write checks again in the transaction that saves the appointment, which is what
+ * stops two clients from booking the same time.
+ * @author Steven Kazmierkiewicz
+ * */
+public class AppointmentValidator {
+    private final AppointmentDAO dbAppt;
+    private final AppointmentSeriesDAO dbSeries;
+
+    /**
+     * Creates a validator.
+     * @param dbAppt the DAO the stored appointments are checked against
+     * @param dbSeries the DAO the series are checked against
+     * */
+    public AppointmentValidator(AppointmentDAO dbAppt, AppointmentSeriesDAO dbSeries) {
+        this.dbAppt = dbAppt;
+        this.dbSeries = dbSeries;
+    }
+
+    /**
+     * Validates the values of an appointment or a series.
+     * @param title the title
+     * @param description the description
+     * @param location the location
+     * @param type the type
+     * @param customer the customer
+     * @param contact the contact
+     * @param user the user
+     * @param start the start of the appointment, or of the first occurrence of a series
+     * @param end the end of the appointment, or of the first occurrence of a series
+     * @param ignoreId the id of the appointment being changed, or -1 for a new one
+     * @param recurrence the rule of a new series, or null for a single appointment
+     * @param zone the timezone of the start and end
+     * @return the result of the validation
+     * */
+    public Result validate(String title, String description, String location, Appointment.Type type,
+                           Customer customer, Contact contact, User user, LocalDateTime start, LocalDateTime end,
+                           int ignoreId, Recurrence recurrence, ZoneId zone) {
+        Result result = new Result();
+
+        // **************** Checking for empty or null fields
+        result.require(Validators.notEmpty(title), Field.TITLE, "Title must have a value.");
+        result.require(Validators.notEmpty(description), Field.DESCRIPTION, "Description must have a value.");
+        result.require(Validators.notEmpty(location), Field.LOCATION, "Location must have a value.");
+        result.require(Validators.notNull(type), Field.TYPE, "Type must have a value.");
+        result.require(Validators.notNull(customer), Field.CUSTOMER, "Customer must have a value.");
+        result.require(Validators.notNull(contact), Field.CONTACT, "Contact must have a value.");
+        result.require(Validators.notNull(user), Field.USER, "User must have a value.");
+
+        if (start == null || end == null) {
+            result.add(Field.TIMES, "Start and end date and time must have a value.");
+            return result;
+        }
+
+        if (recurrence != null && recurrence.getUntil() != null)
+            result.require(!recurrence.getUntil().isBefore(start.toLocalDate()), Field.UNTIL,
+                    "Repeat until date must not be before the start date.");
+
+        // ****************** Checking for valid start and end
+        LocalDate outside = null;
+
+        if (!start.isBefore(end)) {
+            result.add(Field.TIMES, "Start date and time must be before end date and time.");
+        } else if (!TimeUtils.isInOpenHours(start, end, zone)) {
+            result.add(Field.TIMES, "Appointment timeframe must be within open office hours.");
+        } else if (recurrence != null && (outside = outsideOpenHours(start, end, recurrence, zone)) != null) {
+            result.add(Field.TIMES, "Every occurrence must be within open office hours, but the one on " +
+                    outside.format(DateTimeFormatter.ofLocalizedDate(FormatStyle.SHORT)) + " is not.");
+        } else if (customer != null) {
+            // ******************* Checking if customer already has appointment, either stored or in a series
+            Appointment a = dbAppt.findOverlap(customer, start, end, ignoreId);
+
+            if (a == null)
+                a = dbSeries.findOverlap(customer, start, end);
+
+            // every occurrence of a new series is checked, which needs the rest of the values to be valid
+            if (a == null && recurrence != null && result.isValid())
+                a = dbSeries.findOverlap(new AppointmentSeries(0, title, description, location, type, start, end,
+                        customer, user, contact, recurrence));
+
+            if (a != null)
+                result.add(Field.TIMES, overlapError(a));
+        }
+
+        return result;
+    }
+
+    /**
+     * Finds an occurrence of a series outside open business hours. The offset between the timezone and the business
+     * hours changes with daylight saving time, so a series whose first occurrence is within them can leave them later.
+     * A series that does not end is checked up to the same horizon as its overlaps.
+     * @param start the start of the first occurrence
+     * @param end the end of the first occurrence
+     * @param recurrence the rule of the series
+     * @param zone the timezone of the start and end
+     * @return the date of the first occurrence outside open hours, or null if there is none
+     * */
+    private static LocalDate outsideOpenHours(LocalDateTime start, LocalDateTime end, Recurrence recurrence,
+                                              ZoneId zone) {
+        LocalDate first = start.toLocalDate();
+        LocalDate last = recurrence.getUntil() == null ? first.plus(AppointmentSeries.openEndedHorizon)
+                : recurrence.getUntil().plusDays(1);
+        Duration length = Duration.between(start, end);
+
+        for (LocalDate date : recurrence.datesBetween(first, first, last)) {
+            LocalDateTime occurrenceStart = LocalDateTime.of(date, start.toLocalTime());
+
+            if (!TimeUtils.isInOpenHours(occurrenceStart, occurrenceStart.plus(length), zone))
+                return date;
+        }
+
+        return null;
+    }
+
+    /**
+     * Builds the result of a write that was refused because the customer already has an appointment at the time.
+     * @param overlap the overlapping appointment
+     * @return the result, with the overlap as its only error
+     * */
+    public static Result overlapping(Appointment overlap) {
+        Result result = new Result();
+        result.add(Field.TIMES, overlapError(overlap));
+        return result;
+    }
+
+    /**
+     * Describes an overlapping appointment.
+     * @param overlap the overlapping appointment
+     * @return the error
+     * */
+    private static String overlapError(Appointment overlap) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT);
+
+        return "Customer has overlapping appointment from " + overlap.getStart().format(formatter) + " - " +
+                overlap.getEnd().format(formatter) + ".";
+    }
+
+    /**
+     * The values of an appointment that can be invalid.
+     * */
+    public enum Field {
+        TITLE, DESCRIPTION, LOCATION, TYPE, CUSTOMER, CONTACT, USER, TIMES, UNTIL
+    }
+
+    /**
+     * The errors found by a validation and the values they were found in.
+     * */
+    public static class Result {
+        private final List<String> errors = new ArrayList<>();
+        private final Set<Field> fields = EnumSet.noneOf(Field.class);
+
+        /**
+         * Adds an error if a condition does not hold.
+         * @param condition the condition
+         * @param field the value checked
+         * @param error the error
+         * */
+        private void require(boolean condition, Field field, String error) {
+            if (!condition)
+                add(field, error);
+        }
+
+        /**
+         * Adds an error.
+         * @param field the invalid value
+         * @param error the error
+         * */
+        private void add(Field field, String error) {
+            fields.add(field);
+            errors.add(error);
+        }
+
+        /**
+         * Getter for valid.
+         * @return true if no errors were found
+         * */
+        public boolean isValid() {
+            return errors.isEmpty();
+        }
+
+        /**
+         * Getter for the errors.
+         * @return the errors, in the order they were found
+         * */
+        public List<String> getErrors() {
+            return Collections.unmodifiableList(errors);
+        }
+
+        /**
+         * Getter for the invalid values.
+         * @return the values with errors
+         * */
+        public Set<Field> getFields() {
+            return Collections.unmodifiableSet(fields);
+        }
+
+        /**
+         * Gets the errors as a single string, one per line.
+         * @return the errors
+         * */
+        public String getError() {
+            return String.join("\n", errors);
+        }
+    }
+}
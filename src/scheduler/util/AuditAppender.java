@@ -0,0 +1,282 @@
+package scheduler.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Appends lines to an audit file from a single background thread. Lines are queued by the caller and the writer
+ * thread writes every line waiting in the queue with a single write and a single flush to disk, so a burst of lines
+ * costs one disk flush instead of one per line. The file is kept open between writes. When the file reaches its
+ * maximum size or the date changes, it is renamed with its date and a sequence number, optionally compressed, and a
+ * new file is started. Queued lines are written before the application exits.
+ * @author Steven Kazmierkiewicz
+ * */
+public class AuditAppender implements AutoCloseable {
+    private static final int maxLinesPerWrite = 1024;
+    private static final long enqueueTimeoutMillis = 100;
+    private static final long closeTimeoutMillis = 5_000;
+    private static final String stop = new String("stop");
+
+    private final Path file;
+    private final long maxBytes;
+    private final boolean rotateDaily;
+    private final boolean compress;
+    private final BlockingQueue<String> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread writer;
+    private final ExecutorService compressor;
+
+    private FileChannel channel;
+    private long size;
+    private LocalDate fileDate;
+    private volatile boolean closed = false;
+    // set while writes are failing, so a failure is reported once rather than for every batch
+    private boolean failing = false;
+
+    /**
+     * Creates an appender and starts its writer thread.
+     * @param file the file the lines are appended to
+     * @param maxBytes the size at which the file is rotated, or 0 to not rotate by size
+     * @param rotateDaily true to rotate the file when the date changes
+     * @param compress true to compress rotated files with gzip
+     * @param capacity the number of lines that can wait to be written
+     * */
+    public AuditAppender(Path file, long maxBytes, boolean rotateDaily, boolean compress, int capacity) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+        this.rotateDaily = rotateDaily;
+        this.compress = compress;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+
+        compressor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "audit-compress");
+            t.setDaemon(true);
+            return t;
+        });
+
+        writer = new Thread(this::run, "audit-writer " + file.getFileName());
+        writer.setDaemon(true);
+        writer.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "audit-close " + file.getFileName()));
+    }
+
+    /**
+     * Queues a line to be appended. If the queue stays full for longer than a short wait, the line is dropped, and
+     * the number of dropped lines is written to the file once there is room again.
+     * @param line the line, without a line separator
+     * @return true if the line was queued
+     * */
+    public boolean append(String line) {
+        if (closed)
+            return false;
+
+        try {
+            if (queue.offer(line, enqueueTimeoutMillis, TimeUnit.MILLISECONDS))
+                return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Stops accepting lines, waits for the queued lines to be written, and closes the file.
+     * */
+    @Override
+    public synchronized void close() {
+        if (closed)
+            return;
+        closed = true;
+
+        try {
+            // the writer may have died with the queue full, so the wait for room is bounded
+            if (!queue.offer(stop, closeTimeoutMillis, TimeUnit.MILLISECONDS))
+                System.err.println("AUDIT: " + queue.size() + " lines could not be written to " + file);
+            writer.join(closeTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        compressor.shutdown();
+        try {
+            compressor.awaitTermination(closeTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The loop of the writer thread. Waits for a line, then writes it together with every other line waiting.
+     * */
+    private void run() {
+        List<String> batch = new ArrayList<>();
+        boolean stopping = false;
+
+        try {
+            while (!stopping) {
+                batch.add(queue.take());
+                queue.drainTo(batch, maxLinesPerWrite - 1);
+
+                stopping = batch.removeIf(line -> line == stop);
+                if (stopping)
+                    queue.drainTo(batch);
+
+                try {
+                    write(batch);
+                    failing = false;
+                } catch (IOException e) {
+                    // the lines are counted as dropped, so the loss is written to the file once it can be written
+                    dropped.addAndGet(batch.size());
+
+                    if (!failing) {
+                        failing = true;
+                        System.err.println("AUDIT: lines could not be written to " + file);
+                        e.printStackTrace();
+                    }
+
+                    closeChannel();
+                }
+
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Do Nothing
+        } finally {
+            closeChannel();
+        }
+    }
+
+    /**
+     * Writes a batch of lines to the file and flushes them to disk, rotating the file first if needed.
+     * @param lines the lines
+     * @throws IOException if the file cannot be written
+     * */
+    private void write(List<String> lines) throws IOException {
+        // the dropped lines are only cleared once the write succeeds
+        long lost = dropped.get();
+
+        if (lines.isEmpty() && lost == 0)
+            return;
+
+        StringBuilder sb = new StringBuilder();
+        if (lost > 0)
+            sb.append("AUDIT: ").append(lost).append(" lines dropped because the audit queue was full or the file ")
+                    .append("could not be written").append(System.lineSeparator());
+
+        for (var line : lines)
+            sb.append(line).append(System.lineSeparator());
+
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(sb.toString());
+
+        if (channel == null)
+            open();
+
+        if ((maxBytes > 0 && size > 0 && size + bytes.remaining() > maxBytes) ||
+                (rotateDaily && !LocalDate.now().equals(fileDate))) {
+            rotate();
+            open();
+        }
+
+        while (bytes.hasRemaining())
+            size += channel.write(bytes);
+
+        channel.force(false);
+        dropped.addAndGet(-lost);
+    }
+
+    /**
+     * Opens the file for appending, creating it if needed. An existing file keeps the date it was last written on.
+     * @throws IOException if the file cannot be opened
+     * */
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        size = channel.size();
+        fileDate = size == 0 ? LocalDate.now() : LocalDate.ofInstant(Files.getLastModifiedTime(file).toInstant(),
+                ZoneId.systemDefault());
+    }
+
+    /**
+     * Closes the file, ignoring any errors.
+     * */
+    private void closeChannel() {
+        try {
+            if (channel != null)
+                channel.close();
+        } catch (IOException e) {
+            // Do Nothing
+        }
+
+        channel = null;
+    }
+
+    /**
+     * Renames the current file with its date and the next free sequence number, and compresses it in the background
+     * if compression is on.
+     * @throws IOException if the file cannot be renamed
+     * */
+    private void rotate() throws IOException {
+        closeChannel();
+
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+
+        Path rotated;
+        int sequence = 1;
+        do {
+            rotated = file.resolveSibling(base + "-" + fileDate + "-" + sequence++ + extension);
+        } while (Files.exists(rotated) || Files.exists(Path.of(rotated + ".gz")));
+
+        Files.move(file, rotated, StandardCopyOption.ATOMIC_MOVE);
+
+        if (compress) {
+            Path toCompress = rotated;
+            compressor.execute(() -> gzip(toCompress));
+        }
+    }
+
+    /**
+     * Compresses a rotated file beside itself and deletes the original once the compressed file is complete.
+     * @param source the rotated file
+     * */
+    private static void gzip(Path source) {
+        Path target = Path.of(source + ".gz");
+        Path temp = Path.of(source + ".gz.tmp");
+
+        try {
+            try (InputStream in = Files.newInputStream(source);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(temp))) {
+                in.transferTo(out);
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(source);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package scheduler.util;
+
+import javafx.application.Platform;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableView;
+import scheduler.dao.cache.ChangeFeed;
+import scheduler.util.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Runs data loading off the JavaFX Application Thread. Each load runs on a background thread, and its result is
+ * published back on the JavaFX Application Thread. Loads that are still running when the user navigates to another
+ * screen are cancelled, and their results are discarded. A load that fails is shown in an error alert, and the
+ * placeholders of the loaders below say the data could not be loaded instead of loading forever.
+ * @author Steven Kazmierkiewicz
+ * */
+public class BackgroundLoader {
+    private static final int threadCount = 4;
+    private static final String loadingText = "Loading...";
+    private static final String failedText = "The data could not be loaded.";
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(threadCount, r -> {
+        Thread t = new Thread(r, "background-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final Set<Load> pending = ConcurrentHashMap.newKeySet();
+
+    // only used on the JavaFX Application Thread, so failing loads show one alert at a time
+    private static boolean showingFailure = false;
+
+    /**
+     * Runs the work on a background thread, then passes its result to the callback on the JavaFX Application Thread.
+     * If the work fails, the failure is shown in an error alert.
+     * @param work the work that loads the data
+     * @param onLoaded the callback that receives the data
+     * @param <T> the type of data loaded
+     * @return the load, which can be cancelled
+     * */
+    public static <T> Load load(Supplier<T> work, Consumer<T> onLoaded) {
+        return load(work, onLoaded, e -> {});
+    }
+
+    /**
+     * Runs the work on a background thread, then passes its result to the callback on the JavaFX Application Thread.
+     * The lambda expression runs the work and publishes the result unless the load was cancelled in the meantime. If
+     * the work fails, the failure is passed to onFailed and shown in an error alert, also on the JavaFX Application
+     * Thread, so the screen can stop showing that it is loading.
+     * @param work the work that loads the data
+     * @param onLoaded the callback that receives the data
+     * @param onFailed the callback that receives the failure
+     * @param <T> the type of data loaded
+     * @return the load, which can be cancelled
+     * */
+    public static <T> Load load(Supplier<T> work, Consumer<T> onLoaded, Consumer<RuntimeException> onFailed) {
+        Load load = new Load();
+        pending.add(load);
+
+        // the queries of the load count toward the UI action that started it
+        Metrics.Action action = Metrics.currentAction();
+
+        load.future = executor.submit(() -> Metrics.runAs(action, () -> {
+            try {
+                T result = work.get();
+
+                Platform.runLater(() -> {
+                    pending.remove(load);
+                    if (!load.isCancelled())
+                        onLoaded.accept(result);
+                });
+            } catch (RuntimeException e) {
+                if (!load.isCancelled())
+                    e.printStackTrace();
+
+                Platform.runLater(() -> {
+                    pending.remove(load);
+                    if (!load.isCancelled()) {
+                        onFailed.accept(e);
+                        showFailure(e);
+                    }
+                });
+            }
+        }));
+
+        return load;
+    }
+
+    /**
+     * Creates the placeholder shown in place of data that could not be loaded.
+     * @return the placeholder
+     * */
+    public static Label failedPlaceholder() {
+        return new Label(failedText);
+    }
+
+    /**
+     * Shows a failed load in an error alert, unless the alert of another failure is still open.
+     * @param e the failure
+     * */
+    private static void showFailure(RuntimeException e) {
+        if (showingFailure)
+            return;
+
+        showingFailure = true;
+
+        try {
+            Alerts.error("Loading Error", failedText, e.getMessage() != null ? e.getMessage() : e.toString());
+        } finally {
+            showingFailure = false;
+        }
+    }
+
+    /**
+     * Loads the items of a table view in the background, showing a loading placeholder until they arrive.
+     * @param table the table view
+     * @param work the work that loads the items
+     * @param <T> the type of item in the table
+     * @return the load, which can be cancelled
+     * */
+    public static <T> Load loadItems(TableView<T> table, Supplier<? extends List<T>> work) {
+        table.setPlaceholder(new Label(loadingText));
+        table.setItems(FXCollections.observableArrayList());
+
+        return load(work, items -> {
+            table.setPlaceholder(null);
+            table.setItems(toObservable(items));
+        }, e -> table.setPlaceholder(failedPlaceholder()));
+    }
+
+    /**
+     * Loads the items of a table view in the background, then keeps them up to date with the changes passed on by a
+     * feed until the load is cancelled. The feed is followed from before the items are loaded, and the changes that
+     * arrive in the meantime are applied once the items are shown, so none are missed. A paged list applies the
+     * changes to its pages, and any other list applies those within its window. The items are loaded again if the
+     * feed lost its place.
+     * @param table the table view
+     * @param work the work that loads the items
+     * @param feed the feed of the changes to the table the items are read from
+     * @param window the condition of the items the work loads, or null if a change cannot add an item
+     * @param order the order of the items the work loads, or null if added items go at the end
+     * @param <T> the type of item in the table
+     * @return the load, which can be cancelled
+     * */
+    public static <T> Load loadItems(TableView<T> table, Supplier<? extends List<T>> work, ChangeFeed<T> feed,
+                                     Predicate<? super T> window, Comparator<? super T> order) {
+        Follow<T> follow = new Follow<>(table, work, window, order);
+        pending.add(follow);
+
+        follow.subscription = feed.subscribe(changes -> Platform.runLater(() -> follow.receive(changes)));
+        follow.reload();
+
+        return follow;
+    }
+
+    /**
+     * Passes the changes of a feed to a callback on the JavaFX Application Thread until the returned load is
+     * cancelled, which happens when the user navigates to another screen.
+     * @param feed the feed
+     * @param onChanges the callback that receives the changes
+     * @param <T> the type of record in the feed
+     * @return the load, which is cancelled to stop following the feed
+     * */
+    public static <T> Load follow(ChangeFeed<T> feed, Consumer<ChangeFeed.Changes<T>> onChanges) {
+        Subscribed load = new Subscribed();
+        pending.add(load);
+
+        load.subscription = feed.subscribe(changes -> Platform.runLater(() -> {
+            if (!load.isCancelled())
+                onChanges.accept(changes);
+        }));
+
+        return load;
+    }
+
+    /**
+     * Loads the items of a combo box in the background, showing a loading placeholder until they arrive. The value of
+     * the combo box is kept.
+     * @param comboBox the combo box
+     * @param work the work that loads the items
+     * @param <T> the type of item in the combo box
+     * @return the load, which can be cancelled
+     * */
+    public static <T> Load loadItems(ComboBox<T> comboBox, Supplier<? extends List<T>> work) {
+        comboBox.setPlaceholder(new Label(loadingText));
+
+        return load(work, items -> {
+            comboBox.setPlaceholder(null);
+            comboBox.setItems(toObservable(items));
+        }, e -> comboBox.setPlaceholder(failedPlaceholder()));
+    }
+
+    /**
+     * Wraps a list in an observable list, unless it already is one.
+     * @param items the list
+     * @param <T> the type of item in the list
+     * @return the observable list
+     * */
+    private static <T> ObservableList<T> toObservable(List<T> items) {
+        return items instanceof ObservableList ? (ObservableList<T>) items : FXCollections.observableList(items);
+    }
+
+    /**
+     * Cancels every load that has not yet been published. Called when the user navigates to another screen.
+     * */
+    public static void cancelAll() {
+        for (var load : pending)
+            load.cancel();
+
+        pending.clear();
+    }
+
+    /**
+     * A load of the items of a table view that follows a feed once they are shown. It stays pending until cancelled.
+     * Its state is only used on the JavaFX Application Thread.
+     * @param <T> the type of item in the table
+     * */
+    private static final class Follow<T> extends Subscribed {
+        private final TableView<T> table;
+        private final Supplier<? extends List<T>> work;
+        private final Predicate<? super T> window;
+        private final Comparator<? super T> order;
+        private final List<ChangeFeed.Changes<T>> buffered = new ArrayList<>();
+        private volatile Load current;
+        private boolean shown = false;
+
+        private Follow(TableView<T> table, Supplier<? extends List<T>> work, Predicate<? super T> window,
+                       Comparator<? super T> order) {
+            this.table = table;
+            this.work = work;
+            this.window = window;
+            this.order = order;
+        }
+
+        /**
+         * Loads the items, applying the changes buffered while they load once they are shown.
+         * */
+        private void reload() {
+            shown = false;
+            buffered.clear();
+            table.setPlaceholder(new Label(loadingText));
+            table.setItems(FXCollections.observableArrayList());
+
+            current = load(work, items -> {
+                if (isCancelled())
+                    return;
+
+                table.setPlaceholder(null);
+                table.setItems(toObservable(items));
+                shown = true;
+
+                for (var changes : buffered)
+                    apply(changes);
+
+                buffered.clear();
+            }, e -> {
+                if (!isCancelled())
+                    table.setPlaceholder(failedPlaceholder());
+            });
+        }
+
+        /**
+         * Receives the changes of a sync of the feed.
+         * @param changes the changes
+         * */
+        private void receive(ChangeFeed.Changes<T> changes) {
+            if (isCancelled())
+                return;
+
+            if (changes.isReset())
+                reload();
+            else if (shown)
+                apply(changes);
+            else
+                buffered.add(changes);
+        }
+
+        /**
+         * Applies changes to the items shown.
+         * @param changes the changes
+         * */
+        private void apply(ChangeFeed.Changes<T> changes) {
+            List<T> items = table.getItems();
+
+            if (items instanceof PagedList)
+                ((PagedList<T>) items).applyChanges(changes.getChanged(), changes.getDeleted());
+            else
+                changes.applyTo(items, window, order);
+        }
+
+        /**
+         * Cancels the load of the items and stops following the feed.
+         * */
+        @Override
+        public void cancel() {
+            super.cancel();
+
+            if (current != null)
+                current.cancel();
+        }
+    }
+
+    /**
+     * A load that follows a feed until it is cancelled.
+     * */
+    private static class Subscribed extends Load {
+        protected volatile ChangeFeed.Subscription subscription;
+
+        /**
+         * Cancels the load and stops following the feed.
+         * */
+        @Override
+        public void cancel() {
+            super.cancel();
+
+            if (subscription != null)
+                subscription.cancel();
+        }
+    }
+
+    /**
+     * A load running in the background.
+     * */
+    public static class Load {
+        private volatile boolean cancelled = false;
+        private volatile Future<?> future;
+
+        /**
+         * Cancels the load. Its result will not be published. Work that has already started is left to finish rather
+         * than interrupted, so shared caches it is filling are not left with a partial result.
+         * */
+        public void cancel() {
+            cancelled = true;
+            pending.remove(this);
+
+            if (future != null)
+                future.cancel(false);
+        }
+
+        /**
+         * Checks if the load was cancelled.
+         * @return true if the load was cancelled
+         * */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
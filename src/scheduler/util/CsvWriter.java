@@ -0,0 +1,112 @@
+package scheduler.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes rows to a CSV file one at a time through a buffered writer, so a file of any size can be written without
+ * holding its rows in memory. Values containing a comma, quote, or line break are quoted, with quotes doubled.
+ * @author Steven Kazmierkiewicz
+ * */
+public class CsvWriter implements Closeable {
+    private static final int bufferSize = 64 * 1024;
+
+    private final Writer writer;
+
+    /**
+     * Opens a CSV writer on a file. If the file exists, its contents are replaced.
+     * @param file the file
+     * @throws IOException if the file cannot be opened
+     * */
+    public CsvWriter(File file) throws IOException {
+        this(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates a CSV writer that writes to another writer.
+     * @param writer the writer
+     * */
+    public CsvWriter(Writer writer) {
+        this.writer = new BufferedWriter(writer, bufferSize);
+    }
+
+    /**
+     * Writes a row.
+     * @param values the values of each cell in the row
+     * @throws IOException if the row cannot be written
+     * */
+    public void writeRow(List<String> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0)
+                writer.write(',');
+
+            writeValue(values.get(i));
+        }
+
+        writer.write(System.lineSeparator());
+    }
+
+    /**
+     * Writes a row.
+     * @param values the values of each cell in the row
+     * @throws IOException if the row cannot be written
+     * */
+    public void writeRow(String... values) throws IOException {
+        writeRow(List.of(values));
+    }
+
+    /**
+     * Writes a single value, quoting it if needed.
+     * @param value the value, or null for an empty cell
+     * @throws IOException if the value cannot be written
+     * */
+    private void writeValue(String value) throws IOException {
+        if (value == null)
+            return;
+
+        if (!needsQuotes(value)) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"')
+                writer.write('"');
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Checks if a value must be quoted.
+     * @param value the value
+     * @return true if the value contains a comma, quote, or line break
+     * */
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r')
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Flushes the remaining rows and closes the file.
+     * @throws IOException if the rows cannot be written
+     * */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
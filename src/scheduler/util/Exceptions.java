@@ -1,5 +1,7 @@
 package scheduler.util;
 
+import scheduler.model.Appointment;
+
 /**
  * Contains custom exceptions.
  * @author Steven Kazmierkiewicz*/
@@ -12,6 +14,13 @@ public class Exceptions {
         public CustomerException(String m) { super(m); }
     }
 
+    /**
+     * An exception thrown when a customer is not deleted because they still have appointments or series.
+     * */
+    public static class HasAppointmentsException extends CustomerException {
+        public HasAppointmentsException(String m) { super(m); }
+    }
+
     /**
      * An exception associated with a user.
      * */
@@ -43,4 +52,25 @@ public class Exceptions {
         public DivisionException() { super(); }
         public DivisionException(String m) { super(m); }
     }
+
+    /**
+     * An exception thrown when an appointment or series is not written because its customer already has an
+     * appointment at the time.
+     * */
+    public static class OverlapException extends RuntimeException {
+        private final Appointment overlap;
+
+        public OverlapException(Appointment overlap) {
+            super("Customer has overlapping appointment " + overlap.getId());
+            this.overlap = overlap;
+        }
+
+        /**
+         * Getter for the overlapping appointment.
+         * @return the appointment, or the occurrence of a series, the customer already has at the time
+         * */
+        public Appointment getOverlap() {
+            return overlap;
+        }
+    }
 }
@@ -1,10 +1,6 @@
 package scheduler.util;
 
-import javafx.stage.DirectoryChooser;
-import javafx.stage.Window;
-
 import java.io.*;
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -70,30 +66,41 @@ public class FileUtils {
     }
 
     /**
-     * Opens the system specific file picker for choosing directories.
-     * @param window the current window, which may be a stage
-     * @return the chosen directory
+     * Creates a CSV file in the file system. If the file already exists, its contents are replaced.
+     * @param file the file
+     * @param headers the headers
+     * @param rows the values for each cell in each row
+     * @return true if the operation was successful
      * */
-    public static File chooseDir(Window window) {
-        DirectoryChooser dc = new DirectoryChooser();
-        dc.setTitle("Choose the directory to save the file");
-        return dc.showDialog(window);
+    public static boolean createCSV(File file, List<String> headers, List<List<String>> rows) {
+        return createCSV(file, headers, rows::forEach);
     }
 
     /**
-     * Creates a CSV file in the file system. if the file already exists, the lines are appended to the end of the file.
+     * Creates a CSV file in the file system, writing each row as it is read from the source so the rows are never all
+     * held in memory. If the file already exists, its contents are replaced. The lambda expression writes each row,
+     * wrapping any error so it can leave the source.
      * @param file the file
      * @param headers the headers
-     * @param rows the values for each cell in each row
+     * @param rows the source of the values for each cell in each row
      * @return true if the operation was successful
      * */
-    public static boolean createCSV(File file, List<String> headers, List<List<String>> rows) {
-        List<String> newRows = new ArrayList<>();
-        newRows.add(String.join(",", headers));
+    public static boolean createCSV(File file, List<String> headers, RowSource<? extends List<String>> rows) {
+        try (var csv = new CsvWriter(file)) {
+            csv.writeRow(headers);
 
-        for(var row : rows)
-            newRows.add(String.join(",", row));
+            rows.forEach(row -> {
+                try {
+                    csv.writeRow(row);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
 
-        return write(file, newRows);
+            return true;
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+            return false;
+        }
     }
 }
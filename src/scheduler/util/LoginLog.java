@@ -0,0 +1,40 @@
+package scheduler.util;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Logs the login attempts of the login screen and of the HTTP API alike, to login_activity.txt and to the login store
+ * that the login reports read.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class LoginLog {
+    private static final String LOG_FILENAME = "login_activity.txt";
+    // rotated at 10 MB or when the date changes, and the rotated files compressed
+    private static final AuditAppender loginLog = new AuditAppender(Path.of(LOG_FILENAME), 10L << 20, true, true,
+            4096);
+
+    private LoginLog() {}
+
+    /**
+     * Adds a login attempt to the log file, and to the login store. Both are written by background threads, so the
+     * caller does not wait on the disk.
+     * @param user the attempted username
+     * @param success the result of the login attempt
+     * */
+    public static void record(String user, boolean success) {
+        var now = LocalDateTime.now();
+        String successStr = success ? "SUCCESS" : "FAILURE";
+
+        StringBuilder line = new StringBuilder();
+        line.append(now).append(" ").append(successStr);
+        line.append(" | USER: ").append(user);
+
+        loginLog.append(line.toString());
+
+        LoginStore store = LoginStore.logins();
+        if (store != null)
+            store.record(user, success, now.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
@@ -0,0 +1,814 @@
+package scheduler.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A binary, indexed store of login attempts that can be queried without reading every attempt.
+ * <p>
+ * Attempts are appended in time order to a segment file of fixed size records, so the attempts in a time range are
+ * found with a binary search. Each record also holds the number of the previous record of the same username, and a
+ * separate index file holds the last record and the attempt count of every username, so the attempts of one user are
+ * read by following that chain back from the last record. Queries read the segment through a memory mapping.
+ * <p>
+ * Writes are made by a single background thread. A record is forced to disk before the index entry that points to
+ * it is written, and the entry is forced before the next record, so after a crash only the last record can be missing
+ * from the index, and it is added back when the store is opened. An entry that still points past the records, or to a
+ * record of another user, is walked back to the user's last record.
+ * <p>
+ * The screens, the API and the report batch can have the same store open in separate processes. An append, and the
+ * repair made when the store is opened, hold an exclusive lock on the segment, and a query holds a shared lock while it
+ * reads the index. Whoever takes the lock first reads the index again if another process changed the files since.
+ * Records are never changed once written, so the records themselves are read without the lock.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class LoginStore implements AutoCloseable {
+    // segment record: time in epoch milliseconds, user slot, previous record of the user, flags
+    private static final int recordBytes = 20;
+    private static final int successFlag = 1;
+
+    // index entry: last record of the user, attempt count, name length, name in UTF-8
+    private static final int entryBytes = 64;
+    private static final int maxNameBytes = entryBytes - 10;
+
+    private static final long millisPerHour = 3_600_000;
+    private static final long closeTimeoutMillis = 5_000;
+
+    // a line of login_activity.txt: 2021-05-21T08:20:33.510271 FAILURE | USER: fake
+    private static final String historyUser = " | USER: ";
+
+    private static LoginStore logins = null;
+    private static boolean readOnlyLogins = false;
+
+    private final FileChannel segment;
+    private final FileChannel index;
+    private final boolean readOnly;
+    private final ExecutorService writer;
+
+    // the index, kept in memory and written through to the index file
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> slots = new HashMap<>();
+    private int[] lastRecord = new int[16];
+    private int[] attemptCount = new int[16];
+
+    private volatile int records;
+    private long lastMillis = Long.MIN_VALUE;
+    private MappedByteBuffer mapped;
+    private int mappedRecords = 0;
+
+    // the sizes of the files when the index was last read or written, to tell when another process changed them
+    private long seenSegmentBytes = -1;
+    private long seenIndexBytes = -1;
+
+    /**
+     * Opens a store for writing, creating its files if needed.
+     * @param segmentFile the file of attempts
+     * @param indexFile the file of usernames
+     * @throws IOException if the files cannot be opened
+     * */
+    public LoginStore(Path segmentFile, Path indexFile) throws IOException {
+        this(segmentFile, indexFile, List.of(), false);
+    }
+
+    /**
+     * Opens a store. A store opened for writing is created if needed, and while it holds no attempts the attempts of
+     * the history files are imported into it. A store opened read-only must exist, and never writes to its files.
+     * @param segmentFile the file of attempts
+     * @param indexFile the file of usernames
+     * @param history text logs of the attempts made before the store existed, in the format of login_activity.txt
+     * @param readOnly true to only read the store
+     * @throws IOException if the files cannot be opened
+     * */
+    public LoginStore(Path segmentFile, Path indexFile, List<Path> history, boolean readOnly) throws IOException {
+        this.readOnly = readOnly;
+
+        if (readOnly) {
+            segment = FileChannel.open(segmentFile, StandardOpenOption.READ);
+            index = FileChannel.open(indexFile, StandardOpenOption.READ);
+        } else {
+            segment = FileChannel.open(segmentFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            index = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        }
+
+        synchronized (this) {
+            try (FileLock lock = segment.lock(0, Long.MAX_VALUE, readOnly)) {
+                load(!readOnly);
+
+                if (!readOnly && names.isEmpty())
+                    importHistory(history);
+            }
+        }
+
+        writer = readOnly ? null : Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "login-store-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Gets the store of the login attempts of the application, opening it on first use. The files are kept in the
+     * root directory of the project, beside login_activity.txt. When the store is first created, the attempts of
+     * login_activity.txt and its rotated files are imported into it.
+     * @return the store, or null if it cannot be opened
+     * */
+    public static synchronized LoginStore logins() {
+        if (logins == null) {
+            Path segmentFile = Path.of("login_activity.dat");
+            Path indexFile = Path.of("login_activity.idx");
+
+            try {
+                // a store that does not exist yet is created, since there is nothing to read until it is
+                boolean readOnly = readOnlyLogins && Files.exists(segmentFile) && Files.exists(indexFile);
+                logins = new LoginStore(segmentFile, indexFile, readOnly ? List.of() : historyFiles(), readOnly);
+                Runtime.getRuntime().addShutdownHook(new Thread(logins::close, "login-store-close"));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        return logins;
+    }
+
+    /**
+     * Makes logins() open the store read-only. Called by the report batch, which only reads the attempts, before it
+     * runs any report.
+     * */
+    public static synchronized void useReadOnly() {
+        readOnlyLogins = true;
+    }
+
+    /**
+     * Records a login attempt on the background writer thread.
+     * @param user the attempted username
+     * @param success the result of the attempt
+     * @param time the time of the attempt
+     * @throws IllegalStateException if the store is read-only
+     * */
+    public void record(String user, boolean success, Instant time) {
+        if (readOnly)
+            throw new IllegalStateException("The login store is read-only.");
+
+        writer.execute(() -> {
+            try {
+                append(user, success, time.toEpochMilli());
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Gets the attempts of a user in a time range, following the chain of the user's records back from the last one,
+     * so only the user's records after the start of the range are read.
+     * @param user the username
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @return the attempts, oldest first
+     * */
+    public List<Attempt> attempts(String user, Instant from, Instant to) {
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        List<Attempt> attempts = new ArrayList<>();
+        int slot;
+        int record;
+
+        synchronized (this) {
+            try {
+                catchUp();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+
+            Integer found = slots.get(user);
+            if (found == null)
+                return attempts;
+
+            slot = found;
+            record = lastRecord[slot];
+        }
+
+        try {
+            ByteBuffer buffer = map();
+
+            while (record >= 0) {
+                int offset = record * recordBytes;
+                long millis = buffer.getLong(offset);
+
+                if (millis < fromMillis)
+                    break;
+
+                if (millis < toMillis)
+                    attempts.add(new Attempt(user, Instant.ofEpochMilli(millis),
+                            (buffer.getInt(offset + 16) & successFlag) != 0));
+
+                record = buffer.getInt(offset + 12);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        Collections.reverse(attempts);
+        return attempts;
+    }
+
+    /**
+     * Counts the attempts and failures in a time range by hour of the day in a time zone. Only the records in the range
+     * are read, found with a binary search.
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, exclusive
+     * @param zone the time zone of the hours
+     * @return the counts for each hour of the day, from 0 to 23
+     * */
+    public List<HourStats> failureRateByHour(Instant from, Instant to, ZoneId zone) {
+        long[] attempts = new long[24];
+        long[] failures = new long[24];
+
+        try {
+            catchUp();
+            ByteBuffer buffer = map();
+            int count = buffer.limit() / recordBytes;
+            int end = firstAtOrAfter(buffer, count, to.toEpochMilli());
+
+            ZoneRules rules = zone.getRules();
+            long offsetMillis = 0;
+            long nextTransition = Long.MIN_VALUE;
+
+            for (int record = firstAtOrAfter(buffer, count, from.toEpochMilli()); record < end; record++) {
+                int offset = record * recordBytes;
+                long millis = buffer.getLong(offset);
+
+                // the offset of the zone only changes at its transitions, so it is looked up once per transition
+                if (millis >= nextTransition) {
+                    Instant instant = Instant.ofEpochMilli(millis);
+                    offsetMillis = rules.getOffset(instant).getTotalSeconds() * 1000L;
+                    ZoneOffsetTransition next = rules.nextTransition(instant);
+                    nextTransition = next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000;
+                }
+
+                int hour = (int) Math.floorMod(Math.floorDiv(millis + offsetMillis, millisPerHour), 24L);
+                attempts[hour]++;
+
+                if ((buffer.getInt(offset + 16) & successFlag) == 0)
+                    failures[hour]++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        List<HourStats> hours = new ArrayList<>(24);
+        for (int hour = 0; hour < 24; hour++)
+            hours.add(new HourStats(hour, attempts[hour], failures[hour]));
+
+        return hours;
+    }
+
+    /**
+     * Waits for the queued attempts to be written, then closes the files.
+     * */
+    @Override
+    public void close() {
+        if (writer != null) {
+            writer.shutdown();
+
+            try {
+                writer.awaitTermination(closeTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (this) {
+            try {
+                if (!readOnly && segment.isOpen())
+                    segment.force(false);
+                if (!readOnly && index.isOpen())
+                    index.force(false);
+                segment.close();
+                index.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Appends an attempt. Called only by the writer thread. Attempts are kept in time order, so an attempt made while
+     * the clock is behind the last attempt is stored with the time of the last attempt.
+     * @param user the attempted username
+     * @param success the result of the attempt
+     * @param millis the time of the attempt
+     * @throws IOException if the attempt cannot be written
+     * */
+    private synchronized void append(String user, boolean success, long millis) throws IOException {
+        try (FileLock lock = segment.lock()) {
+            refresh(true);
+            appendLocked(user, success, millis);
+        }
+    }
+
+    /**
+     * Appends an attempt while holding the exclusive lock.
+     * @param user the attempted username
+     * @param success the result of the attempt
+     * @param millis the time of the attempt
+     * @throws IOException if the attempt cannot be written
+     * */
+    private void appendLocked(String user, boolean success, long millis) throws IOException {
+        Integer slot = slots.get(user);
+
+        if (slot == null) {
+            slot = names.size();
+            names.add(user);
+            slots.put(user, slot);
+            ensureCapacity(slot + 1);
+            lastRecord[slot] = -1;
+            attemptCount[slot] = 0;
+            writeEntry(slot);
+        }
+
+        lastMillis = Math.max(lastMillis, millis);
+
+        ByteBuffer record = ByteBuffer.allocate(recordBytes);
+        record.putLong(lastMillis).putInt(slot).putInt(lastRecord[slot]).putInt(success ? successFlag : 0).flip();
+        writeFully(segment, record, (long) records * recordBytes);
+        segment.force(false);
+
+        lastRecord[slot] = records;
+        attemptCount[slot]++;
+        writeEntry(slot);
+        index.force(false);
+
+        records++;
+        seenSegmentBytes = segment.size();
+        seenIndexBytes = index.size();
+    }
+
+    /**
+     * Reads the index again under a shared lock if another process changed the files, so a query sees its attempts.
+     * @throws IOException if the files cannot be read
+     * */
+    private synchronized void catchUp() throws IOException {
+        try (FileLock lock = segment.lock(0, Long.MAX_VALUE, true)) {
+            refresh(false);
+        }
+    }
+
+    /**
+     * Reads the index again if the files changed since it was last read or written. Called holding a lock.
+     * @param repair true if the exclusive lock is held, so damage left by a crash may be repaired in the files
+     * @throws IOException if the files cannot be read
+     * */
+    private void refresh(boolean repair) throws IOException {
+        if (segment.size() != seenSegmentBytes || index.size() != seenIndexBytes)
+            load(repair);
+    }
+
+    /**
+     * Reads the index into memory, and rebuilds the entries of any records written after the index was last updated.
+     * Called holding a lock. Without the exclusive lock the rebuilt entries are only kept in memory.
+     * @param repair true if the exclusive lock is held, so damage left by a crash may be repaired in the files
+     * @throws IOException if the files cannot be read
+     * */
+    private synchronized void load(boolean repair) throws IOException {
+        names.clear();
+        slots.clear();
+        mapped = null;
+        mappedRecords = 0;
+        lastMillis = Long.MIN_VALUE;
+        records = (int) (segment.size() / recordBytes);
+
+        // a record cut short by a crash is dropped
+        if (repair && segment.size() != (long) records * recordBytes)
+            segment.truncate((long) records * recordBytes);
+
+        ByteBuffer entries = ByteBuffer.allocate((int) (index.size() / entryBytes * entryBytes));
+        readFully(index, entries, 0);
+
+        int users = entries.limit() / entryBytes;
+        ensureCapacity(users);
+        int indexed = -1;
+
+        for (int slot = 0; slot < users; slot++) {
+            int offset = slot * entryBytes;
+            byte[] name = new byte[entries.getShort(offset + 8)];
+            entries.position(offset + 10);
+            entries.get(name);
+
+            names.add(new String(name, StandardCharsets.UTF_8));
+            slots.put(names.get(slot), slot);
+            lastRecord[slot] = entries.getInt(offset);
+            attemptCount[slot] = entries.getInt(offset + 4);
+        }
+
+        ByteBuffer record = ByteBuffer.allocate(recordBytes);
+
+        for (int slot = 0; slot < users; slot++) {
+            int last = lastRecord[slot];
+
+            if (last >= records || (last >= 0 && slotOf(record, last) != slot)) {
+                recover(record, slot, Math.min(last, records - 1));
+                if (repair)
+                    writeEntry(slot);
+            }
+
+            indexed = Math.max(indexed, lastRecord[slot]);
+        }
+
+        if (records > 0) {
+            readFully(segment, record, (long) (records - 1) * recordBytes);
+            lastMillis = record.getLong(0);
+        }
+
+        // only the last record can be missing from the index, as the writer updates it after every record
+        for (int r = indexed + 1; r < records; r++) {
+            readFully(segment, record.clear(), (long) r * recordBytes);
+
+            int slot = record.getInt(8);
+            if (slot < users) {
+                lastRecord[slot] = r;
+                attemptCount[slot]++;
+                if (repair)
+                    writeEntry(slot);
+            }
+        }
+
+        seenSegmentBytes = segment.size();
+        seenIndexBytes = index.size();
+    }
+
+    /**
+     * Imports the attempts of the text logs kept before the store existed, so the reports cover them. Called while the
+     * store holds no users, under the exclusive lock. Every record is forced before the first index entry is written,
+     * so an import cut short leaves a store with no users, and it starts over when the store is opened again.
+     * @param history the text logs
+     * @throws IOException if the store cannot be written
+     * */
+    private void importHistory(List<Path> history) throws IOException {
+        // records without a user are left by an import cut short
+        segment.truncate(0);
+        index.truncate(0);
+        records = 0;
+        lastMillis = Long.MIN_VALUE;
+
+        List<Attempt> attempts = new ArrayList<>();
+        for (Path file : history)
+            readHistory(file, attempts);
+
+        attempts.sort(Comparator.comparing(Attempt::getTime));
+        ByteBuffer batch = ByteBuffer.allocate(recordBytes * 1024);
+
+        for (Attempt attempt : attempts) {
+            Integer slot = slots.get(attempt.user);
+
+            if (slot == null) {
+                slot = names.size();
+                names.add(attempt.user);
+                slots.put(attempt.user, slot);
+                ensureCapacity(slot + 1);
+                lastRecord[slot] = -1;
+                attemptCount[slot] = 0;
+            }
+
+            lastMillis = Math.max(lastMillis, attempt.time.toEpochMilli());
+            batch.putLong(lastMillis).putInt(slot).putInt(lastRecord[slot]).putInt(attempt.success ? successFlag : 0);
+            lastRecord[slot] = records++;
+            attemptCount[slot]++;
+
+            if (!batch.hasRemaining()) {
+                writeFully(segment, batch.flip(), segment.size());
+                batch.clear();
+            }
+        }
+
+        writeFully(segment, batch.flip(), segment.size());
+        segment.force(false);
+
+        for (int slot = 0; slot < names.size(); slot++)
+            writeEntry(slot);
+        index.force(false);
+
+        seenSegmentBytes = segment.size();
+        seenIndexBytes = index.size();
+    }
+
+    /**
+     * Reads the attempts of a text log, compressed with gzip if its name ends in .gz. Lines that are not attempts are
+     * skipped, and a log that cannot be read is left out of the import.
+     * @param file the text log
+     * @param attempts the list to add the attempts to
+     * */
+    private static void readHistory(Path file, List<Attempt> attempts) {
+        try (InputStream in = Files.newInputStream(file);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                     file.toString().endsWith(".gz") ? new GZIPInputStream(in) : in, StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                int user = line.indexOf(historyUser);
+
+                if (space < 0 || user < space)
+                    continue;
+
+                String result = line.substring(space + 1, user);
+                if (!result.equals("SUCCESS") && !result.equals("FAILURE"))
+                    continue;
+
+                try {
+                    Instant time = LocalDateTime.parse(line.substring(0, space)).atZone(ZoneId.systemDefault())
+                            .toInstant();
+                    attempts.add(new Attempt(line.substring(user + historyUser.length()), time,
+                            result.equals("SUCCESS")));
+                } catch (DateTimeParseException e) {
+                    // not an attempt
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Finds login_activity.txt and the files it was rotated to, compressed or not yet compressed.
+     * @return the files that exist
+     * @throws IOException if the directory cannot be listed
+     * */
+    private static List<Path> historyFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+
+        try (DirectoryStream<Path> rotated = Files.newDirectoryStream(Path.of("."),
+                "login_activity-*.{txt,txt.gz}")) {
+            rotated.forEach(files::add);
+        }
+
+        Path current = Path.of("login_activity.txt");
+        if (Files.exists(current))
+            files.add(current);
+
+        return files;
+    }
+
+    /**
+     * Reads the user slot of a record.
+     * @param record a buffer to read the record into
+     * @param r the number of the record
+     * @return the slot
+     * @throws IOException if the record cannot be read
+     * */
+    private int slotOf(ByteBuffer record, int r) throws IOException {
+        readFully(segment, record.clear(), (long) r * recordBytes);
+        return record.getInt(8);
+    }
+
+    /**
+     * Points the index entry of a user at its last record at or before a record, walking back through the segment,
+     * and counts its attempts again by following the chain of its records.
+     * @param record a buffer to read the records into
+     * @param slot the slot of the user
+     * @param from the number of the record to start from
+     * @throws IOException if the records cannot be read
+     * */
+    private void recover(ByteBuffer record, int slot, int from) throws IOException {
+        int last = from;
+        while (last >= 0 && slotOf(record, last) != slot)
+            last--;
+
+        int count = 0;
+        for (int r = last; r >= 0; r = record.getInt(12)) {
+            readFully(segment, record.clear(), (long) r * recordBytes);
+            count++;
+        }
+
+        lastRecord[slot] = last;
+        attemptCount[slot] = count;
+    }
+
+    /**
+     * Writes the index entry of a user.
+     * @param slot the slot of the user
+     * @throws IOException if the entry cannot be written
+     * */
+    private void writeEntry(int slot) throws IOException {
+        byte[] name = truncate(names.get(slot));
+        ByteBuffer entry = ByteBuffer.allocate(entryBytes);
+        entry.putInt(lastRecord[slot]).putInt(attemptCount[slot]).putShort((short) name.length).put(name);
+        entry.clear();
+
+        writeFully(index, entry, (long) slot * entryBytes);
+    }
+
+    /**
+     * Maps the segment for reading, mapping it again if records were appended since it was last mapped.
+     * @return a view of the mapped records
+     * @throws IOException if the segment cannot be mapped
+     * */
+    private synchronized ByteBuffer map() throws IOException {
+        int count = records;
+
+        if (mapped == null || count > mappedRecords) {
+            mapped = segment.map(FileChannel.MapMode.READ_ONLY, 0, (long) count * recordBytes);
+            mappedRecords = count;
+        }
+
+        return mapped.duplicate();
+    }
+
+    /**
+     * Finds the first record at or after a time.
+     * @param buffer the mapped records
+     * @param count the number of records
+     * @param millis the time
+     * @return the number of the record, or count if every record is before the time
+     * */
+    private static int firstAtOrAfter(ByteBuffer buffer, int count, long millis) {
+        int low = 0;
+        int high = count;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (buffer.getLong(mid * recordBytes) < millis)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+
+        return low;
+    }
+
+    /**
+     * Grows the arrays of the index to hold a number of users.
+     * @param users the number of users
+     * */
+    private void ensureCapacity(int users) {
+        if (users > lastRecord.length) {
+            int size = Math.max(users, lastRecord.length * 2);
+            lastRecord = Arrays.copyOf(lastRecord, size);
+            attemptCount = Arrays.copyOf(attemptCount, size);
+        }
+    }
+
+    /**
+     * Encodes a username, cutting it to the space of an index entry without splitting a character.
+     * @param name the username
+     * @return the UTF-8 bytes
+     * */
+    private static byte[] truncate(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= maxNameBytes)
+            return bytes;
+
+        int length = maxNameBytes;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80)
+            length--;
+
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Writes a whole buffer to a position in a file.
+     * @param channel the file
+     * @param buffer the buffer
+     * @param position the position
+     * @throws IOException if the buffer cannot be written
+     * */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /**
+     * Reads a whole buffer from a position in a file.
+     * @param channel the file
+     * @param buffer the buffer
+     * @param position the position
+     * @throws IOException if the file ends before the buffer is full
+     * */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0)
+                throw new IOException("Unexpected end of file.");
+            position += read;
+        }
+
+        buffer.flip();
+    }
+
+    /**
+     * A login attempt.
+     * */
+    public static class Attempt {
+        private final String user;
+        private final Instant time;
+        private final boolean success;
+
+        private Attempt(String user, Instant time, boolean success) {
+            this.user = user;
+            this.time = time;
+            this.success = success;
+        }
+
+        /**
+         * Getter for the user.
+         * @return the attempted username
+         * */
+        public String getUser() {
+            return user;
+        }
+
+        /**
+         * Getter for the time.
+         * @return the time of the attempt
+         * */
+        public Instant getTime() {
+            return time;
+        }
+
+        /**
+         * Getter for the success.
+         * @return true if the attempt succeeded
+         * */
+        public boolean isSuccess() {
+            return success;
+        }
+    }
+
+    /**
+     * The attempts and failures in one hour of the day.
+     * */
+    public static class HourStats {
+        private final int hour;
+        private final long attempts;
+        private final long failures;
+
+        private HourStats(int hour, long attempts, long failures) {
+            this.hour = hour;
+            this.attempts = attempts;
+            this.failures = failures;
+        }
+
+        /**
+         * Getter for the hour.
+         * @return the hour of the day, from 0 to 23
+         * */
+        public int getHour() {
+            return hour;
+        }
+
+        /**
+         * Getter for the attempts.
+         * @return the number of attempts
+         * */
+        public long getAttempts() {
+            return attempts;
+        }
+
+        /**
+         * Getter for the failures.
+         * @return the number of failed attempts
+         * */
+        public long getFailures() {
+            return failures;
+        }
+
+        /**
+         * Gets the share of the attempts that failed.
+         * @return the failure rate, from 0 to 1
+         * */
+        public double getFailureRate() {
+            return attempts == 0 ? 0 : (double) failures / attempts;
+        }
+    }
+}
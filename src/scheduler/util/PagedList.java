@@ -0,0 +1,259 @@
+package scheduler.util;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+import java.util.function.ToIntFunction;
+
+/**
+ * A read-only observable list that loads its items from the database a page at a time as they are requested, so it
+ * can back a TableView of any size while only a few pages are held in memory. Pages are loaded with keyset
+ * pagination: each page starts after the key of the last item on the previous page. Keys are assigned in increasing
+ * order, so new items are added at the end of the list.
+ * <p>
+ * Changes made to the data after the list was created are applied with applyChanges. Changed items on the pages in
+ * memory are replaced in place. When an item is added or removed, the size is read again and the pages from that item
+ * on are dropped, since their items have moved, to be loaded again when they are shown.
+ * @param <T> the type of item in the list
+ * @author Steven Kazmierkiewicz
+ * */
+public class PagedList<T> extends ObservableListBase<T> {
+    private static final int defaultPageSize = 100;
+    private static final int defaultMaxPages = 10;
+
+    private final IntSupplier counter;
+    private final PageLoader<T> loader;
+    private final IntUnaryOperator keyAt;
+    private final ToIntFunction<T> keyOf;
+    private final int pageSize;
+    private int size;
+
+    // the key each page starts after, for the pages whose start has been found
+    private final Map<Integer, Integer> pageStarts = new HashMap<>();
+    private final Map<Integer, List<T>> pages;
+
+    /**
+     * Creates a paged list with the default page size and number of pages kept in memory.
+     * @param counter provides the total number of items
+     * @param keyAt provides the key of the item at a position, or -1 if there is none
+     * @param loader loads a page of items after a key
+     * @param keyOf provides the key of an item
+     * */
+    public PagedList(IntSupplier counter, IntUnaryOperator keyAt, PageLoader<T> loader, ToIntFunction<T> keyOf) {
+        this(counter, keyAt, loader, keyOf, defaultPageSize, defaultMaxPages);
+    }
+
+    /**
+     * Creates a paged list.
+     * @param counter provides the total number of items
+     * @param keyAt provides the key of the item at a position, or -1 if there is none
+     * @param loader loads a page of items after a key
+     * @param keyOf provides the key of an item
+     * @param pageSize the number of items on each page
+     * @param maxPages the number of pages kept in memory
+     * */
+    public PagedList(IntSupplier counter, IntUnaryOperator keyAt, PageLoader<T> loader, ToIntFunction<T> keyOf,
+                     int pageSize, int maxPages) {
+        this.counter = counter;
+        this.loader = loader;
+        this.keyAt = keyAt;
+        this.keyOf = keyOf;
+        this.pageSize = pageSize;
+        this.size = counter.getAsInt();
+
+        pageStarts.put(0, Integer.MIN_VALUE);
+        pages = new LinkedHashMap<>(maxPages + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<T>> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    /**
+     * Gets the item at a position, loading its page if it is not in memory.
+     * @param index the position
+     * @return the item, or null if the item was removed since the size was read
+     * */
+    @Override
+    public T get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+
+        List<T> page = getPage(index / pageSize);
+        int offset = index % pageSize;
+
+        return offset < page.size() ? page.get(offset) : null;
+    }
+
+    /**
+     * Gets the number of items in the list.
+     * @return the size
+     * */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Applies the changes made to the data since the items in memory were loaded. An item that is on a page in memory
+     * is replaced. An item that is not, but falls between the keys of a page in memory or after the last item, was
+     * added. Changes to items on pages that are not in memory need nothing, since they are read when the page is
+     * loaded.
+     * @param changed the items added or updated
+     * @param removedKeys the keys of the items removed
+     * */
+    public void applyChanges(Collection<? extends T> changed, Collection<Integer> removedKeys) {
+        // the lowest key of an item added or removed, since every item after it has moved
+        long firstMoved = Long.MAX_VALUE;
+
+        for (int key : removedKeys)
+            firstMoved = Math.min(firstMoved, key);
+
+        for (T item : changed) {
+            int key = keyOf.applyAsInt(item);
+
+            if (indexOf(key) < 0 && isWithinLoaded(key))
+                firstMoved = Math.min(firstMoved, key);
+        }
+
+        beginChange();
+
+        int from = firstMoved == Long.MAX_VALUE ? size : dropFrom(firstMoved);
+
+        for (T item : changed) {
+            int index = indexOf(keyOf.applyAsInt(item));
+
+            if (index >= 0 && index < from) {
+                List<T> page = pages.get(index / pageSize);
+                T old = page.set(index % pageSize, item);
+
+                if (!item.equals(old))
+                    nextSet(index, old);
+            }
+        }
+
+        if (firstMoved != Long.MAX_VALUE) {
+            int oldSize = size;
+            size = Math.max(from, counter.getAsInt());
+
+            // the items from the first moved one on are unknown until their pages are loaded again
+            if (oldSize > from || size > from)
+                nextReplace(from, size, Collections.nCopies(oldSize - from, null));
+        }
+
+        endChange();
+    }
+
+    /**
+     * Gets a page of items, loading it if it is not in memory.
+     * @param pageIndex the page number
+     * @return the items on the page
+     * */
+    private List<T> getPage(int pageIndex) {
+        List<T> page = pages.get(pageIndex);
+
+        if (page == null) {
+            Integer after = pageStarts.get(pageIndex);
+
+            // jumped to a page without reading the one before it, so look up where it starts
+            if (after == null)
+                after = keyAt.applyAsInt(pageIndex * pageSize - 1);
+
+            page = after == -1 ? new ArrayList<>() : new ArrayList<>(loader.load(after, pageSize));
+            pages.put(pageIndex, page);
+            pageStarts.put(pageIndex, after);
+
+            if (page.size() == pageSize)
+                pageStarts.put(pageIndex + 1, keyOf.applyAsInt(page.get(page.size() - 1)));
+        }
+
+        return page;
+    }
+
+    /**
+     * Finds the position of an item on the pages in memory.
+     * @param key the key of the item
+     * @return the position, or -1 if it is not on a page in memory
+     * */
+    private int indexOf(int key) {
+        for (var entry : pages.entrySet()) {
+            List<T> page = entry.getValue();
+
+            for (int i = 0; i < page.size(); i++) {
+                if (keyOf.applyAsInt(page.get(i)) == key)
+                    return entry.getKey() * pageSize + i;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Checks if an item that is not in memory would be on a page in memory, or after the last item of the list.
+     * Either way it was added after the page was loaded.
+     * @param key the key of the item
+     * @return true if the item was added
+     * */
+    private boolean isWithinLoaded(int key) {
+        int lastPage = (size - 1) / pageSize;
+
+        for (var entry : pages.entrySet()) {
+            List<T> page = entry.getValue();
+            int after = pageStarts.getOrDefault(entry.getKey(), Integer.MAX_VALUE);
+
+            if (key <= after)
+                continue;
+            if (entry.getKey() >= lastPage || (!page.isEmpty() && key < keyOf.applyAsInt(page.get(page.size() - 1))))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Drops the pages holding items from a key on, along with where the pages after them start, since those items
+     * have moved. A page keeps its start if every item before it is before the key.
+     * @param key the lowest key of an item added or removed
+     * @return the position of the first item that may have moved
+     * */
+    private int dropFrom(long key) {
+        int from = 0;
+
+        for (var it = pages.entrySet().iterator(); it.hasNext(); ) {
+            var entry = it.next();
+            List<T> page = entry.getValue();
+
+            if (page.size() == pageSize && keyOf.applyAsInt(page.get(page.size() - 1)) < key)
+                from = Math.max(from, entry.getKey() * pageSize + pageSize);
+            else
+                it.remove();
+        }
+
+        pageStarts.values().removeIf(after -> after >= key);
+        return Math.min(from, size);
+    }
+
+    /**
+     * Loads a page of items that come after a key.
+     * @param <T> the type of item
+     * */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        /**
+         * Loads a page of items.
+         * @param afterKey the key of the last item on the previous page
+         * @param limit the maximum number of items
+         * @return the items
+         * */
+        List<T> load(int afterKey, int limit);
+    }
+}
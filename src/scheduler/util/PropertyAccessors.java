@@ -0,0 +1,154 @@
+package scheduler.util;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A registry of the getters of each class, used in place of reflection when reading the same fields from many
+ * objects. Each getter is found once, the first time it is requested, and compiled into a function that calls the
+ * getter directly. Getters are in the form 'getFieldName', like ReflectUtils.getter.
+ * @author Steven Kazmierkiewicz
+ * */
+public class PropertyAccessors {
+    private static final MethodHandles.Lookup lookup = MethodHandles.lookup();
+    private static final Map<Class<?>, Map<String, Optional<Function<Object, Object>>>> byName = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Collection<Function<Object, Object>>> byFields = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the compiled getter for a property of a class. The property does not need to be backed by a field.
+     * @param cls the class
+     * @param fieldName the property to retrieve the getter for
+     * @return the getter, as a function from an object of the class to the value of its property
+     * @throws NoSuchMethodException if the property has no getter
+     * */
+    public static Function<Object, Object> getter(Class<?> cls, String fieldName) throws NoSuchMethodException {
+        var getter = byName.computeIfAbsent(cls, c -> new ConcurrentHashMap<>())
+                .computeIfAbsent(fieldName, name -> find(cls, name).map(PropertyAccessors::compile));
+
+        return getter.orElseThrow(() ->
+                new NoSuchMethodException(cls.getName() + ".get" + WordUtils.capitalize(fieldName) + "()"));
+    }
+
+    /**
+     * Gets the compiled getters for every field of a class that has one, including those from superclasses, in the
+     * order of ReflectUtils.getFields.
+     * @param cls the class
+     * @return the getters
+     * */
+    public static Collection<Function<Object, Object>> getters(Class<?> cls) {
+        return byFields.computeIfAbsent(cls, PropertyAccessors::fieldGetters);
+    }
+
+    /**
+     * Finds the getter of every field of a class.
+     * @param cls the class
+     * @return the getters, in field order
+     * */
+    private static Collection<Function<Object, Object>> fieldGetters(Class<?> cls) {
+        Map<String, Function<Object, Object>> getters = new LinkedHashMap<>();
+
+        for (Field field : ReflectUtils.getFields(new ArrayList<>(), cls)) {
+            if (field.isSynthetic() || Modifier.isStatic(field.getModifiers()) || getters.containsKey(field.getName()))
+                continue;
+
+            try {
+                getters.put(field.getName(), getter(cls, field.getName()));
+            } catch (NoSuchMethodException e) {
+                // Not every field has a getter
+            }
+        }
+
+        return Collections.unmodifiableList(new ArrayList<>(getters.values()));
+    }
+
+    /**
+     * Finds the public getter of a property. A static method, such as User.getCurrentUser, is not a getter of the
+     * objects of the class.
+     * @param cls the class
+     * @param fieldName the property
+     * @return the getter, or empty if there is none
+     * */
+    private static Optional<Method> find(Class<?> cls, String fieldName) {
+        try {
+            return Optional.of(cls.getMethod("get" + WordUtils.capitalize(fieldName)))
+                    .filter(m -> !Modifier.isStatic(m.getModifiers()));
+        } catch (NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Compiles a getter into a function that calls it directly. Falls back to a method handle if a function cannot
+     * be generated for the getter, and to reflection if the handle cannot be adapted either.
+     * @param method the getter
+     * @return the function calling the getter
+     * */
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> compile(Method method) {
+        MethodHandle handle;
+
+        try {
+            handle = lookup.unreflect(method);
+        } catch (IllegalAccessException e) {
+            return reflective(method);
+        }
+
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    handle.type().wrap());
+
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable throwable) {
+            MethodHandle generic;
+
+            try {
+                generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+            } catch (WrongMethodTypeException e) {
+                return reflective(method);
+            }
+
+            return obj -> {
+                try {
+                    return generic.invokeExact(obj);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable t) {
+                    throw new IllegalStateException(t);
+                }
+            };
+        }
+    }
+
+    /**
+     * Wraps a getter that cannot be compiled in a function that calls it with reflection.
+     * @param method the getter
+     * @return the function calling the getter
+     * */
+    private static Function<Object, Object> reflective(Method method) {
+        return obj -> {
+            try {
+                return method.invoke(obj);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+}
@@ -1,23 +1,20 @@
 package scheduler.util;
 
-import javafx.collections.ObservableList;
-import javafx.scene.control.TableColumn;
-import javafx.scene.control.TableView;
-import javafx.stage.Stage;
-import javafx.stage.Window;
-import scheduler.model.Appointment;
-
 import java.io.File;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
- * Provides methods to help in generating reports.
+ * Provides methods to help in generating reports. None of them depend on the screens, so reports can also be written
+ * without the JavaFX toolkit.
  * */
 public class Reports {
     /**
@@ -29,104 +26,143 @@ public class Reports {
     }
 
     /**
-     * Creates the file object of the report. Appends an appropriate number to the file name if the file already exists.
+     * Creates the file of the report. Appends an appropriate number to the file name if the file already exists. The
+     * name is reserved by creating the empty file, so reports written at the same time never share a file.
      * @param dir the directory to save the file
      * @param report the raw filename for the report
      * @param ext the file extension
-     * @return the File object
+     * @return the File object, or null if the file could not be created
      * */
     public static File generateFile(File dir, String report, String ext) {
         String base = getTimeStampString() + "_" + report;
-        File file = dir.toPath().resolve(base + "." + ext).toFile();
+        Path path = dir.toPath().resolve(base + "." + ext);
         int i = 0;
 
-        while (file.exists())
-            file = dir.toPath().resolve(base + ++i + "." + ext).toFile();
-
-        return file;
+        while (true) {
+            try {
+                return Files.createFile(path).toFile();
+            } catch (FileAlreadyExistsException e) {
+                path = dir.toPath().resolve(base + ++i + "." + ext);
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
     }
 
     /**
      * Prepares the data for a file with a table format by converting the list of objects into a list of rows
-     * containing a list of cell values. The first lambda expression maps the helps convert the strings to ints in the list.
-     * The second lambda expression maps each object to a list of string values of its fields.
+     * containing a list of cell values.
      * @param list the list of objects
      * @param fieldNames the field names for each column
      * @param <T> the type of object in the list
      * @return the rows of the report
      * */
     public static <T> List<List<String>> fromObject(List<T> list, List<String> fieldNames) {
+        return list.stream().map(rowMapper(fieldNames)).collect(Collectors.toList());
+    }
+
+    /**
+     * Prepares the data for a file with a table format by converting the list of lists into a list of rows
+     * containing a list of cell values.
+     * @param list the list of objects
+     * @param indexOrder the index of the value for each column
+     * @param <T> the type of object in the list
+     * @return the rows of the report
+     * */
+    public static <T> List<List<String>> fromList(List<List<T>> list, List<Integer> indexOrder) {
+        return list.stream().map(listRowMapper(indexOrder)).collect(Collectors.toList());
+    }
+
+    /**
+     * Provides the function that converts a single object into a row of cell values. The lambda expression maps the
+     * field names to ints when the objects are lists. If they are not, the returned function converts each object to
+     * a list of string values of its fields, using the getters of the object's class that were compiled once by
+     * PropertyAccessors.
+     * @param fieldNames the field names, or list indexes, for each column
+     * @return the function converting an object into a row
+     * */
+    public static Function<Object, List<String>> rowMapper(List<String> fieldNames) {
         if (Validators.isInteger(fieldNames.get(0))) {
-            // first lambda
             List<Integer> indexOrder = fieldNames.stream().map(s -> Integer.parseInt(s)).collect(Collectors.toList());
-            return fromList((List<List<T>>) list, indexOrder);
+            Function<List<?>, List<String>> listMapper = listRowMapper(indexOrder);
+            return a -> listMapper.apply((List<?>) a);
         }
 
-        // second lambda
-        return list.stream().map(a -> {
-            List<String> row = new ArrayList<>();
-            for(var field : fieldNames) {
-                try {
-                    Method method = ReflectUtils.getter(a, field);
-                    row.add(method.invoke(a).toString());
-                } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
-                    e.printStackTrace();
+        return new Function<>() {
+            private Class<?> cls;
+            private final List<Function<Object, Object>> getters = new ArrayList<>();
+
+            @Override
+            public List<String> apply(Object a) {
+                // the getters only need to be looked up again if the class changes between rows
+                if (a.getClass() != cls) {
+                    cls = a.getClass();
+                    getters.clear();
+
+                    for (var field : fieldNames) {
+                        try {
+                            getters.add(PropertyAccessors.getter(cls, field));
+                        } catch (NoSuchMethodException e) {
+                            e.printStackTrace();
+                            getters.add(obj -> "");
+                        }
+                    }
                 }
-            }
 
-            return row;
-        }).collect(Collectors.toList());
+                List<String> row = new ArrayList<>(getters.size());
+                for (var getter : getters)
+                    row.add(String.valueOf(getter.apply(a)));
+
+                return row;
+            }
+        };
     }
 
     /**
-     * Prepares the data for a file with a table format by converting the list of lists into a list of rows
-     * containing a list of cell values. The lambda expression converts each list object into a list of string values of
-     * its elements, in the order specified by indexOrder.
-     * @param list the list of objects
+     * Provides the function that converts a single list into a row of cell values. The lambda expression converts
+     * the list into a list of string values of its elements, in the order specified by indexOrder.
      * @param indexOrder the index of the value for each column
-     * @param <T> the type of object in the list
-     * @return the rows of the report
+     * @return the function converting a list into a row
      * */
-    public static <T> List<List<String>> fromList(List<List<T>> list, List<Integer> indexOrder) {
-        return list.stream().map(a -> {
+    private static Function<List<?>, List<String>> listRowMapper(List<Integer> indexOrder) {
+        return a -> {
             List<String> row = new ArrayList<>();
             for(var index : indexOrder) {
-                row.add(a.get(index).toString());
+                row.add(String.valueOf(a.get(index)));
             }
 
             return row;
-        }).collect(Collectors.toList());
+        };
     }
 
     /**
-     * Exports the contents of a TableView as a report in a csv file. The lambda expression converts the list of table columns
-     * into a list of the text value of all the table columns.
-     * @param reportName the raw filename of the report
-     * @param tv the TableView
-     * @param fields the list of field names
-     * @param stage the current stage
+     * Converts the name of a report to a raw filename, such as customer_schedule_ann for "Customer Schedule, Ann".
+     * @param reportName the name of the report
+     * @return the raw filename
      * */
-    public static void export(String reportName, TableView tv, List<String> fields, Stage stage) {
-        ObservableList<Appointment> showing = tv.getItems();
-
-        if (showing.size() == 0) {
-            Alerts.info("Report Canceled", "No Data to Report",
-                    "There is no data that meets the criteria for the report. The report has been canceled.");
+    public static String toFileName(String reportName) {
+        String value = reportName.replace(", ", " ").toLowerCase();
+        return String.join("_", value.split(" "));
+    }
 
-            return;
-        }
+    /**
+     * Exports a report to a new csv file in a directory, reading the rows from a source such as a database cursor.
+     * Each row is written as it is read, so the report is never held in memory. The lambda expression converts each
+     * object from the source into a row as it is written.
+     * @param dir the directory to save the file
+     * @param reportName the raw filename of the report
+     * @param headers the column headers
+     * @param fields the field names, or list indexes, for each column
+     * @param source the source of the objects to report
+     * @return the file, or null if it could not be written
+     * */
+    public static File export(File dir, String reportName, List<String> headers, List<String> fields,
+                              RowSource<?> source) {
+        Function<Object, List<String>> toRow = rowMapper(fields);
+        RowSource<List<String>> rows = action -> source.forEach(item -> action.accept(toRow.apply(item)));
+        File file = generateFile(dir, reportName, "csv");
 
-        var cols = ((ObservableList<TableColumn>) tv.getColumns());
-        List<String> headers = cols.stream().map(tc -> tc.getText()).collect(Collectors.toList());
-        List<List<String>> rows = Reports.fromObject(showing, fields);
-        Alerts.info("Choose Directory","Choose Directory","Choose the directory to save your report.");
-        File dir = FileUtils.chooseDir(stage);
-        if (dir != null) {
-            File file = Reports.generateFile(dir, reportName, "csv");
-            if (FileUtils.createCSV(file, headers, rows))
-                Alerts.info("Success", "Report Successful", "The report was generated successfully.");
-            else
-                Alerts.error("Error", "Report Error", "There was a problem generating the report.");
-        }
+        return file != null && FileUtils.createCSV(file, headers, rows) ? file : null;
     }
 }
@@ -10,6 +10,7 @@ import javafx.stage.Stage;
 import javafx.util.Callback;
 import scheduler.model.Appointment;
 import scheduler.model.Customer;
+import scheduler.util.metrics.Metrics;
 import scheduler.viewcontroller.appointments.AddAppointmentController;
 import scheduler.viewcontroller.appointments.AppointmentsController;
 import scheduler.viewcontroller.appointments.EditAppointmentController;
@@ -27,7 +28,8 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 
 /**
- * A utility that assists in routing the application to different screens.
+ * A utility that assists in routing the application to different screens. Navigating to a screen cancels any
+ * background loads of the screen being left, and names the screen for the metrics of the actions performed on it.
  * @author Steven Kazmierkiewicz
  * */
 public class Router {
@@ -94,6 +96,9 @@ public class Router {
      * @param stage the stage to display the screen
      * */
     public static void goToLogin(Stage stage) {
+        BackgroundLoader.cancelAll();
+        Metrics.setScreen("login");
+
         Parent root = null;
         try {
             root = FXMLLoader.load(Router.class.getResource("../viewcontroller/login/login.fxml"));
@@ -108,6 +113,9 @@ public class Router {
      * @param stage the stage to display the screen
      * */
     public static void goToMain(Stage stage) {
+        BackgroundLoader.cancelAll();
+        Metrics.setScreen("main");
+
         Parent root = null;
         try {
             root = FXMLLoader.load(Router.class.getResource("../viewcontroller/main/main.fxml"));
@@ -122,6 +130,9 @@ public class Router {
      * @param stage the stage to display the screen
      * */
     public static void goToCustomers(Stage stage) {
+        BackgroundLoader.cancelAll();
+        Metrics.setScreen("customers");
+
         Parent root = null;
 
         try {
@@ -138,6 +149,9 @@ public class Router {
      * @param stage the stage to display the screen
      * */
     public static void goToAddCustomer(Stage stage) {
+        BackgroundLoader.cancelAll();
+        Metrics.setScreen("add customer");
+
         FXMLLoader loader = new FXMLLoader(Router.class.getResource("../viewcontroller/customers/AddEditCustomer.fxml"));
         loader.setController(new AddCustomerController());
         Parent root = null;
@@ -156,6 +170,9 @@ public class Router {
      * @param customer the customer to edit
      * */
     public static void goToEditCustomer(Stage stage, Customer customer) {
+        BackgroundLoader.cancelAll();
+        Metrics.setScreen("edit customer");
+
         FXMLLoader loader = new FXMLLoader(Router.class.getResource("../viewcontroller/customers/AddEditCustomer.fxml"));
         loader.setController(new EditCustomerController(customer));
         try {
@@ -171,6 +188,9 @@ public class Router {
      * @param stage the stage to display the screen
      * */
     public static void goToAppointments(Stage stage) {
+        BackgroundLoader.cancelAll();
+        Metrics.setScreen("appointments");
+
         Parent root = null;
         try {
             root = FXMLLoader.load(Router.class.getResource("../viewcontroller/appointments/appointments.fxml"));
@@ -186,6 +206,9 @@ public class Router {
      * @param customer the customer
      * */
     public static void goToAppointments(Stage stage, Customer customer) {
+        BackgroundLoader.cancelAll();
+        Metrics.setScreen("appointments");
+
         Parent root = null;
         try {
             FXMLLoader loader = new FXMLLoader(Router.class.getResource("../viewcontroller/appointments/appointments.fxml"));
@@ -203,6 +226,9 @@ public class Router {
      * @param stage the stage to display the screen
      * */
     public static void goToAddAppointment(Stage stage) {
+        BackgroundLoader.cancelAll();
+        Metrics.setScreen("add appointment");
+
         FXMLLoader loader = new FXMLLoader(Router.class.getResource("../viewcontroller/appointments/addEditAppointment.fxml"));
         loader.setController(new AddAppointmentController());
         try {
@@ -219,6 +245,9 @@ public class Router {
      * @param appointment the appointment to edit
      * */
     public static void goToEditAppointment(Stage stage, Appointment appointment) {
+        BackgroundLoader.cancelAll();
+        Metrics.setScreen("edit appointment");
+
         FXMLLoader loader = new FXMLLoader(Router.class.getResource("../viewcontroller/appointments/addEditAppointment.fxml"));
         loader.setController(new EditAppointmentController(appointment));
         Parent root = null;
@@ -235,6 +264,9 @@ public class Router {
      * @param stage the stage to display the screen
      * */
     public static void goToReportMenu(Stage stage) {
+        BackgroundLoader.cancelAll();
+        Metrics.setScreen("report menu");
+
         try {
             Parent root = FXMLLoader.load(Router.class.getResource("../viewcontroller/reports/reportMenu.fxml"));
             stage.setScene(new Scene(root));
@@ -252,6 +284,9 @@ public class Router {
      * @param factoryFunction the lambda expression to generate the factory for the reports columns
      * */
     public static void goToReportView(Stage stage, List data, Map<String, String> colFieldMap, String reportName, Function<String, Callback> factoryFunction) {
+        BackgroundLoader.cancelAll();
+        Metrics.setScreen("report view");
+
         try {
             FXMLLoader loader = new FXMLLoader(Router.class.getResource("../viewcontroller/reports/reportView.fxml"));
             Parent root = loader.load();
@@ -0,0 +1,18 @@
+package scheduler.util;
+
+import java.util.function.Consumer;
+
+/**
+ * A source of rows that pushes each row to an action as it is read, such as a list or a database cursor. Rows are
+ * read one at a time, so the source never has to hold all of its rows in memory.
+ * @param <T> the type of row
+ * @author Steven Kazmierkiewicz
+ * */
+@FunctionalInterface
+public interface RowSource<T> {
+    /**
+     * Passes every row to the action, in order.
+     * @param action the action to perform on each row
+     * */
+    void forEach(Consumer<? super T> action);
+}
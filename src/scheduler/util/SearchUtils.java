@@ -2,49 +2,41 @@ package scheduler.util;
 
 import javafx.collections.ObservableList;
 
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.function.Function;
 
 /**
  * Provides methods for searching observable lists.
  * @author Steven Kazmierkiewicz*/
 public class SearchUtils {
     /**
-     * Using reflection, searches all fields of the objects in an observable list for the specified search string.
-     * The objects must have getter methods in the form 'getFieldName' where 'FieldName' is the name of the fields to
-     * search. The string value of the result of the getter method is what the method uses to search. The lambda expression
-     * provides the criteria for filtering each object in the list.
+     * Searches all fields of the objects in an observable list for the specified search string. The objects must have
+     * getter methods in the form 'getFieldName' where 'FieldName' is the name of the fields to search, and fields
+     * without one are skipped. The getters are compiled once per class by PropertyAccessors. The string value of the
+     * result of the getter method is what the method uses to search. The lambda expression provides the criteria for
+     * filtering each object in the list.
      * @param list the list to search
      * @param searchStr the string to search for
      * @param <T> the type of object in the list
      * @return the filtered list
      * */
     public static <T> ObservableList<T> search(ObservableList<T> list, String searchStr) {
-        return list.filtered((T obj) -> {
-            List<Field> fields = ReflectUtils.getFields(new ArrayList<>(), obj.getClass());
+        String upperSearchStr = searchStr.toUpperCase();
 
-            for (var field: fields)  {
-                String fieldName = field.getName();
-                try {
-                    String test = ReflectUtils.getter(obj, fieldName).invoke(obj).toString();
-                    if (test.toUpperCase().contains(searchStr.toUpperCase()))
-                        return true;
-                } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
-                    e.printStackTrace();
-                }
+        return list.filtered((T obj) -> {
+            for (var getter : PropertyAccessors.getters(obj.getClass()))  {
+                if (String.valueOf(getter.apply(obj)).toUpperCase().contains(upperSearchStr))
+                    return true;
             }
             return false;
         });
     }
 
     /**
-     * Using reflection, searches a specific field of the objects in an observable list for the specified search string.
-     * The objects must have a getter method in the form 'getFieldName' where 'FieldName' is the name of the field to
-     * search. The string value of the result of the getter method is what the method uses to search. The lambda expression
-     * provides the criteria for filtering each object in the list.
+     * Searches a specific field of the objects in an observable list for the specified search string. The objects
+     * must have a getter method in the form 'getFieldName' where 'FieldName' is the name of the field to search. The
+     * getter is compiled once per class by PropertyAccessors. The string value of the result of the getter method is
+     * what the method uses to search. The lambda expression provides the criteria for filtering each object in the
+     * list.
      * @param list the list to search
      * @param searchStr the string to search for
      * @param fieldName the field to search through
@@ -52,11 +44,13 @@ public class SearchUtils {
      * @return the filtered list
      * */
     public static <T> ObservableList<T> search(ObservableList<T> list, String searchStr, String fieldName) {
+        String upperSearchStr = searchStr.toUpperCase();
+
         return list.filtered((T obj) -> {
             try {
-                String val = ReflectUtils.getter(obj, fieldName).invoke(obj).toString().toUpperCase();
-                return val.contains(searchStr.toUpperCase());
-            } catch (NoSuchMethodException | InvocationTargetException | IllegalAccessException e) {
+                Function<Object, Object> getter = PropertyAccessors.getter(obj.getClass(), fieldName);
+                return String.valueOf(getter.apply(obj)).toUpperCase().contains(upperSearchStr);
+            } catch (NoSuchMethodException e) {
                 e.printStackTrace();
             }
             return false;
@@ -0,0 +1,71 @@
+package scheduler.util;
+
+import javafx.collections.ObservableList;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.stage.DirectoryChooser;
+import javafx.stage.Stage;
+import javafx.stage.Window;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Exports the reports shown in table views, asking the user where to save them. The files are written by Reports.
+ * @author Steven Kazmierkiewicz
+ * */
+public class TableReports {
+    /**
+     * Exports the contents of a TableView as a report in a csv file.
+     * @param reportName the raw filename of the report
+     * @param tv the TableView
+     * @param fields the list of field names
+     * @param stage the current stage
+     * */
+    public static void export(String reportName, TableView tv, List<String> fields, Stage stage) {
+        ObservableList<?> showing = tv.getItems();
+        export(reportName, tv, fields, stage, showing::forEach);
+    }
+
+    /**
+     * Exports the data shown in a TableView as a report in a csv file, reading the rows from a source such as a
+     * database cursor instead of the table. The lambda expression converts the list of table columns into a list of
+     * the text value of all the table columns.
+     * @param reportName the raw filename of the report
+     * @param tv the TableView
+     * @param fields the list of field names
+     * @param stage the current stage
+     * @param source the source of the objects to report
+     * */
+    public static void export(String reportName, TableView tv, List<String> fields, Stage stage, RowSource<?> source) {
+        if (tv.getItems().size() == 0) {
+            Alerts.info("Report Canceled", "No Data to Report",
+                    "There is no data that meets the criteria for the report. The report has been canceled.");
+
+            return;
+        }
+
+        var cols = ((ObservableList<TableColumn>) tv.getColumns());
+        List<String> headers = cols.stream().map(tc -> tc.getText()).collect(Collectors.toList());
+        Alerts.info("Choose Directory","Choose Directory","Choose the directory to save your report.");
+        File dir = chooseDir(stage);
+        if (dir != null) {
+            if (Reports.export(dir, reportName, headers, fields, source) != null)
+                Alerts.info("Success", "Report Successful", "The report was generated successfully.");
+            else
+                Alerts.error("Error", "Report Error", "There was a problem generating the report.");
+        }
+    }
+
+    /**
+     * Opens the system specific file picker for choosing directories.
+     * @param window the current window, which may be a stage
+     * @return the chosen directory
+     * */
+    public static File chooseDir(Window window) {
+        DirectoryChooser dc = new DirectoryChooser();
+        dc.setTitle("Choose the directory to save the file");
+        return dc.showDialog(window);
+    }
+}
@@ -0,0 +1,69 @@
+package scheduler.util.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The queries issued by a UI action at a point in time, counting the queries of the background loads it started.
+ * @author Steven Kazmierkiewicz
+ * */
+public class ActionStats {
+    private final String name;
+    private final long invocations;
+    private final long queries;
+    private final long maxQueries;
+
+    /**
+     * Creates the values of a UI action.
+     * @param name the name of the action, made of the screen and the control
+     * @param invocations the number of times the action was performed
+     * @param queries the number of queries issued by every invocation
+     * @param maxQueries the highest number of queries issued by a single invocation
+     * */
+    @ConstructorProperties({"name", "invocations", "queries", "maxQueries"})
+    public ActionStats(String name, long invocations, long queries, long maxQueries) {
+        this.name = name;
+        this.invocations = invocations;
+        this.queries = queries;
+        this.maxQueries = maxQueries;
+    }
+
+    /**
+     * Getter for the name.
+     * @return the name of the action
+     * */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter for the invocations.
+     * @return the number of times the action was performed
+     * */
+    public long getInvocations() {
+        return invocations;
+    }
+
+    /**
+     * Getter for the queries.
+     * @return the number of queries issued by every invocation
+     * */
+    public long getQueries() {
+        return queries;
+    }
+
+    /**
+     * Getter for the highest number of queries.
+     * @return the highest number of queries issued by a single invocation
+     * */
+    public long getMaxQueries() {
+        return maxQueries;
+    }
+
+    /**
+     * Gets the mean number of queries per invocation.
+     * @return the mean number of queries
+     * */
+    public double getMeanQueries() {
+        return invocations == 0 ? 0 : (double) queries / invocations;
+    }
+}
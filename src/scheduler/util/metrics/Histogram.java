@@ -0,0 +1,91 @@
+package scheduler.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A latency histogram with buckets that grow with the value, so every bucket is within 12.5% of the values it counts.
+ * Values below 16 microseconds each have their own bucket, and above that each power of two is split into eight
+ * buckets. Recording is lock free, so it can be called from any thread.
+ * @author Steven Kazmierkiewicz
+ * */
+public class Histogram {
+    private static final int linearBuckets = 16;
+    private static final int subBucketBits = 3;
+    private static final int subBuckets = 1 << subBucketBits;
+    // enough buckets for values up to 2^40 microseconds, or about 12 days
+    private static final int maxExponent = 40;
+
+    private final AtomicLongArray counts = new AtomicLongArray(linearBuckets + (maxExponent - 3) * subBuckets);
+
+    /**
+     * Records a value.
+     * @param micros the value in microseconds
+     * */
+    public void record(long micros) {
+        counts.incrementAndGet(bucketOf(Math.max(0, micros)));
+    }
+
+    /**
+     * Estimates the value at a percentile of the recorded values.
+     * @param percentile the percentile, from 0 to 100
+     * @return the value in microseconds, or 0 if nothing was recorded
+     * */
+    public long percentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++)
+            total += counts.get(i);
+
+        if (total == 0)
+            return 0;
+
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= Math.max(1, rank))
+                return middleOf(i);
+        }
+
+        return middleOf(counts.length() - 1);
+    }
+
+    /**
+     * Clears every recorded value.
+     * */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++)
+            counts.set(i, 0);
+    }
+
+    /**
+     * Gets the bucket of a value.
+     * @param micros the value
+     * @return the index of the bucket
+     * */
+    private static int bucketOf(long micros) {
+        if (micros < linearBuckets)
+            return (int) micros;
+
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(micros), maxExponent - 1);
+        int sub = (int) (micros >>> (exponent - subBucketBits)) & (subBuckets - 1);
+
+        return linearBuckets + (exponent - 4) * subBuckets + sub;
+    }
+
+    /**
+     * Gets the value in the middle of a bucket.
+     * @param bucket the index of the bucket
+     * @return the value
+     * */
+    private static long middleOf(int bucket) {
+        if (bucket < linearBuckets)
+            return bucket;
+
+        int exponent = (bucket - linearBuckets) / subBuckets + 4;
+        int sub = (bucket - linearBuckets) % subBuckets;
+        long width = 1L << (exponent - subBucketBits);
+
+        return (1L << exponent) + sub * width + width / 2;
+    }
+}
@@ -0,0 +1,257 @@
+package scheduler.util.metrics;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Wraps DAOs and JDBC statements so that every call is timed. A DAO method is recorded under the name of its
+ * interface and method, with the size of the collection or map it returns as its row count. A statement is recorded
+ * under its SQL, with the rows it read or changed as its row count, and each execution is counted as a query of the
+ * current UI action.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class Instrumented {
+    private static final int maxSqlLength = 120;
+    private static final Pattern whitespace = Pattern.compile("\\s+");
+
+    private Instrumented() {}
+
+    /**
+     * Wraps a DAO so the calls of each of its interface methods are timed.
+     * @param iface the DAO interface
+     * @param target the DAO
+     * @param <T> the type of DAO
+     * @return the wrapped DAO
+     * */
+    public static <T> T dao(Class<T> iface, T target) {
+        // the timer of each method is looked up once, rather than naming it on every call
+        Map<Method, Timer> methodTimers = new ConcurrentHashMap<>();
+
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class)
+                return invoke(target, method, args);
+
+            Timer timer = methodTimers.computeIfAbsent(method, m ->
+                    Metrics.timer(iface.getSimpleName() + "." + m.getName() + signatureOf(m)));
+            long start = System.nanoTime();
+            boolean failed = true;
+            long rows = 0;
+
+            try {
+                Object result = invoke(target, method, args);
+                rows = rowsOf(result);
+                failed = false;
+                return result;
+            } finally {
+                timer.record(System.nanoTime() - start, rows, failed);
+            }
+        };
+
+        return iface.cast(Proxy.newProxyInstance(iface.getClassLoader(), new Class<?>[]{iface}, handler));
+    }
+
+    /**
+     * Wraps a prepared statement so each execution is timed and counted as a query.
+     * @param statement the statement
+     * @param sql the SQL it was prepared with
+     * @return the wrapped statement
+     * */
+    public static PreparedStatement statement(PreparedStatement statement, String sql) {
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new StatementHandler(statement, sql));
+    }
+
+    /**
+     * Wraps a statement so each execution is timed and counted as a query. The SQL passed to each execution names it.
+     * @param statement the statement
+     * @return the wrapped statement
+     * */
+    public static Statement statement(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(),
+                new Class<?>[]{Statement.class}, new StatementHandler(statement, null));
+    }
+
+    /**
+     * Calls a method on the wrapped object, unwrapping any exception it throws.
+     * @param target the wrapped object
+     * @param method the method
+     * @param args the arguments
+     * @return the result of the method
+     * @throws Throwable the exception thrown by the method
+     * */
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Gets the number of rows in the result of a DAO method.
+     * @param result the result
+     * @return the size of a collection or map, 1 for any other object, or 0 for null
+     * */
+    private static long rowsOf(Object result) {
+        if (result instanceof Collection)
+            return ((Collection<?>) result).size();
+        if (result instanceof Map)
+            return ((Map<?, ?>) result).size();
+
+        return result == null ? 0 : 1;
+    }
+
+    /**
+     * Gets the parameter types of a method, so overloads are recorded separately.
+     * @param method the method
+     * @return the simple names of the parameter types, in parentheses
+     * */
+    private static String signatureOf(Method method) {
+        StringBuilder sb = new StringBuilder("(");
+
+        for (var type : method.getParameterTypes()) {
+            if (sb.length() > 1)
+                sb.append(", ");
+            sb.append(type.getSimpleName());
+        }
+
+        return sb.append(")").toString();
+    }
+
+    /**
+     * Gets the name a statement is recorded under.
+     * @param sql the SQL of the statement
+     * @return the SQL on a single line, shortened if it is long
+     * */
+    private static String nameOf(String sql) {
+        String name = "SQL " + whitespace.matcher(sql.strip()).replaceAll(" ");
+        return name.length() <= maxSqlLength ? name : name.substring(0, maxSqlLength - 3) + "...";
+    }
+
+    /**
+     * Times the executions of a statement. The timer of a prepared statement is looked up once, when it is prepared.
+     * */
+    private static final class StatementHandler implements InvocationHandler {
+        private final Statement statement;
+        private final Timer preparedTimer;
+
+        private StatementHandler(Statement statement, String sql) {
+            this.statement = statement;
+            this.preparedTimer = sql == null ? null : Metrics.timer(nameOf(sql));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "execute":
+                case "executeQuery":
+                case "executeUpdate":
+                case "executeLargeUpdate":
+                case "executeBatch":
+                case "executeLargeBatch":
+                    break;
+                default:
+                    return Instrumented.invoke(statement, method, args);
+            }
+
+            Timer timer;
+
+            if (args != null && args.length > 0 && args[0] instanceof String)
+                timer = Metrics.timer(nameOf((String) args[0]));
+            else
+                timer = preparedTimer != null ? preparedTimer : Metrics.timer(nameOf("(batch)"));
+            Metrics.countQuery();
+
+            long start = System.nanoTime();
+            boolean failed = true;
+            long rows = 0;
+
+            try {
+                Object result = Instrumented.invoke(statement, method, args);
+
+                if (result instanceof ResultSet)
+                    result = countRows((ResultSet) result, timer);
+                else
+                    rows = rowsChanged(result);
+
+                failed = false;
+                return result;
+            } finally {
+                timer.record(System.nanoTime() - start, rows, failed);
+            }
+        }
+
+        /**
+         * Gets the number of rows changed by an update or batch.
+         * @param result the result of the execution
+         * @return the number of rows changed
+         * */
+        private static long rowsChanged(Object result) {
+            long rows = 0;
+
+            if (result instanceof Integer || result instanceof Long) {
+                rows = ((Number) result).longValue();
+            } else if (result instanceof int[]) {
+                for (int count : (int[]) result)
+                    rows += Math.max(0, count);
+            } else if (result instanceof long[]) {
+                for (long count : (long[]) result)
+                    rows += Math.max(0, count);
+            }
+
+            return rows;
+        }
+
+        /**
+         * Wraps a result set so the rows read from it are added to the timer when it is closed.
+         * @param rs the result set
+         * @param timer the timer of the statement
+         * @return the wrapped result set
+         * */
+        private static ResultSet countRows(ResultSet rs, Timer timer) {
+            InvocationHandler handler = new InvocationHandler() {
+                private long rows = 0;
+                private boolean counted = false;
+
+                @Override
+                public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "next":
+                            Object hasNext = Instrumented.invoke(rs, method, args);
+                            if ((Boolean) hasNext)
+                                rows++;
+                            return hasNext;
+                        case "close":
+                            if (!counted) {
+                                counted = true;
+                                timer.addRows(rows);
+                            }
+                            return Instrumented.invoke(rs, method, args);
+                        default:
+                            return Instrumented.invoke(rs, method, args);
+                    }
+                }
+            };
+
+            return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, handler);
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package scheduler.util.metrics;
+
+import javafx.event.ActionEvent;
+import javafx.event.EventDispatcher;
+import javafx.scene.Node;
+import javafx.scene.control.Labeled;
+import javafx.scene.control.MenuItem;
+import javafx.stage.Stage;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The registry of the DAO and SQL statement timers, and of the queries issued by each UI action. Every button or menu
+ * item that fires an action starts a new action on the JavaFX Application Thread, and the background loads it starts
+ * carry it with them, so a screen that issues a query per row shows up as an action with a high query count. The
+ * values are exposed through JMX and written to a local file on a schedule.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class Metrics {
+    private static final String objectName = "scheduler:type=Metrics";
+    private static final String dumpFile = "metrics.txt";
+    private static final String noAction = "(none)";
+    private static final DateTimeFormatter dumpTimeFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private static final Map<String, ActionCounter> actions = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Action> currentAction = new ThreadLocal<>();
+
+    private static volatile String screen = "login";
+    private static ScheduledExecutorService dumper = null;
+    private static ScheduledFuture<?> dumpTask = null;
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(objectName));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private Metrics() {}
+
+    /**
+     * Gets the timer with a name, creating it on first use.
+     * @param name the name of the DAO method or SQL statement
+     * @return the timer
+     * */
+    public static Timer timer(String name) {
+        return timers.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * Counts a query issued by the current thread toward its UI action.
+     * */
+    public static void countQuery() {
+        Action action = currentAction.get();
+
+        if (action != null)
+            action.countQuery();
+        else
+            actions.computeIfAbsent(screen + " > " + noAction, ActionCounter::new).countUnattributed();
+    }
+
+    /**
+     * Sets the name of the screen being shown, which prefixes the names of the actions performed on it. Called by the
+     * router when it navigates.
+     * @param name the screen name
+     * */
+    public static void setScreen(String name) {
+        screen = name;
+    }
+
+    /**
+     * Starts an action for every button press or menu choice on a stage. The action stays current on the JavaFX
+     * Application Thread until the event has been dispatched, including any dialog the handler waits on, since the
+     * stage's dispatcher is the outermost of the chain.
+     * @param stage the stage
+     * */
+    public static void trackActions(Stage stage) {
+        EventDispatcher dispatcher = stage.getEventDispatcher();
+
+        stage.setEventDispatcher((event, tail) -> {
+            if (event.getEventType() != ActionEvent.ACTION)
+                return dispatcher.dispatchEvent(event, tail);
+
+            Action previous = currentAction.get();
+            currentAction.set(new Action(actions.computeIfAbsent(screen + " > " + nameOf(event.getTarget()),
+                    ActionCounter::new)));
+
+            try {
+                return dispatcher.dispatchEvent(event, tail);
+            } finally {
+                if (previous == null)
+                    currentAction.remove();
+                else
+                    currentAction.set(previous);
+            }
+        });
+    }
+
+    /**
+     * Starts an invocation of an action that does not come from the UI, such as a request to the HTTP API.
+     * @param name the name of the action
+     * @return the action, to be made current with runAs
+     * */
+    public static Action startAction(String name) {
+        return new Action(actions.computeIfAbsent(name, ActionCounter::new));
+    }
+
+    /**
+     * Gets the action of the current thread, so it can be carried to a background thread.
+     * @return the action, or null if there is none
+     * */
+    public static Action currentAction() {
+        return currentAction.get();
+    }
+
+    /**
+     * Runs work with an action as the current action of the thread.
+     * @param action the action, or null for none
+     * @param work the work
+     * */
+    public static void runAs(Action action, Runnable work) {
+        Action previous = currentAction.get();
+        currentAction.set(action);
+
+        try {
+            work.run();
+        } finally {
+            if (previous == null)
+                currentAction.remove();
+            else
+                currentAction.set(previous);
+        }
+    }
+
+    /**
+     * Gets the values of every timer, the slowest first.
+     * @return the timer values
+     * */
+    public static List<TimerStats> timerStats() {
+        List<TimerStats> stats = new ArrayList<>();
+        for (var timer : timers.values())
+            stats.add(timer.stats());
+
+        stats.sort(Comparator.comparingLong(TimerStats::getP95Micros).reversed());
+        return stats;
+    }
+
+    /**
+     * Gets the queries issued by every action, the highest mean first.
+     * @return the action values
+     * */
+    public static List<ActionStats> actionStats() {
+        List<ActionStats> stats = new ArrayList<>();
+        for (var action : actions.values())
+            stats.add(action.stats());
+
+        stats.sort(Comparator.comparingDouble(ActionStats::getMeanQueries).reversed());
+        return stats;
+    }
+
+    /**
+     * Clears every recorded value.
+     * */
+    public static void reset() {
+        for (var timer : timers.values())
+            timer.reset();
+
+        actions.clear();
+    }
+
+    /**
+     * Writes the values to the metrics file on a schedule, replacing its contents each time, and once more when the
+     * application exits.
+     * @param interval the time between writes
+     * */
+    public static synchronized void startDump(Duration interval) {
+        if (dumper == null) {
+            dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "metrics-dump");
+                t.setDaemon(true);
+                return t;
+            });
+
+            Runtime.getRuntime().addShutdownHook(new Thread(Metrics::dump, "metrics-dump-on-exit"));
+        }
+
+        if (dumpTask != null)
+            dumpTask.cancel(false);
+
+        long period = interval.toMillis();
+        dumpTask = dumper.scheduleAtFixedRate(Metrics::dump, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the values to the metrics file. The file is written beside it first and then moved into place, so it is
+     * never read half written.
+     * */
+    public static void dump() {
+        Path target = Path.of(dumpFile);
+        Path temp = Path.of(dumpFile + ".tmp");
+
+        try (var pw = new PrintWriter(Files.newBufferedWriter(temp))) {
+            pw.println("Metrics at " + LocalDateTime.now().format(dumpTimeFormat) + ", latencies in microseconds");
+            pw.println();
+            pw.printf("%-70s %8s %9s %6s %8s %8s %8s %8s %9s%n", "Timer", "Calls", "Rows", "Errors", "Mean", "p50",
+                    "p95", "p99", "Max");
+
+            for (var t : timerStats())
+                pw.printf("%-70s %8d %9d %6d %8d %8d %8d %8d %9d%n", abbreviate(t.getName(), 70), t.getCalls(),
+                        t.getRows(), t.getErrors(), t.getMeanMicros(), t.getP50Micros(), t.getP95Micros(),
+                        t.getP99Micros(), t.getMaxMicros());
+
+            pw.println();
+            pw.printf("%-70s %8s %9s %8s %8s%n", "Action", "Times", "Queries", "Mean", "Max");
+
+            for (var a : actionStats())
+                pw.printf("%-70s %8d %9d %8.1f %8d%n", abbreviate(a.getName(), 70), a.getInvocations(),
+                        a.getQueries(), a.getMeanQueries(), a.getMaxQueries());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Gets the name of the control that fired an action.
+     * @param target the target of the action event
+     * @return the id of the control, or its text if it has no id
+     * */
+    private static String nameOf(Object target) {
+        if (target instanceof Node && ((Node) target).getId() != null)
+            return ((Node) target).getId();
+        if (target instanceof Labeled)
+            return ((Labeled) target).getText();
+        if (target instanceof MenuItem)
+            return ((MenuItem) target).getId() != null ? ((MenuItem) target).getId() : ((MenuItem) target).getText();
+
+        return target == null ? noAction : target.getClass().getSimpleName();
+    }
+
+    /**
+     * Shortens a name to fit a column, keeping its start.
+     * @param name the name
+     * @param width the width of the column
+     * @return the shortened name
+     * */
+    private static String abbreviate(String name, int width) {
+        return name.length() <= width ? name : name.substring(0, width - 3) + "...";
+    }
+
+    /**
+     * A single invocation of a UI action.
+     * */
+    public static final class Action {
+        private final ActionCounter counter;
+        private final AtomicLong queries = new AtomicLong();
+
+        private Action(ActionCounter counter) {
+            this.counter = counter;
+            counter.invocations.increment();
+        }
+
+        /**
+         * Counts a query issued by the invocation.
+         * */
+        private void countQuery() {
+            counter.queries.increment();
+            counter.maxQueries.accumulate(queries.incrementAndGet());
+        }
+    }
+
+    /**
+     * The running totals of a UI action.
+     * */
+    private static final class ActionCounter {
+        private final String name;
+        private final LongAdder invocations = new LongAdder();
+        private final LongAdder queries = new LongAdder();
+        private final LongAccumulator maxQueries = new LongAccumulator(Math::max, 0);
+
+        private ActionCounter(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Counts a query issued outside of any action. Each such query counts as its own invocation.
+         * */
+        private void countUnattributed() {
+            invocations.increment();
+            queries.increment();
+            maxQueries.accumulate(1);
+        }
+
+        private ActionStats stats() {
+            return new ActionStats(name, invocations.sum(), queries.sum(), maxQueries.get());
+        }
+    }
+
+    /**
+     * The JMX view of the metrics.
+     * */
+    private static final class Bean implements MetricsMXBean {
+        @Override
+        public List<TimerStats> getTimers() {
+            return timerStats();
+        }
+
+        @Override
+        public List<ActionStats> getActions() {
+            return actionStats();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
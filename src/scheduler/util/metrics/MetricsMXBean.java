@@ -0,0 +1,28 @@
+package scheduler.util.metrics;
+
+import java.util.List;
+
+/**
+ * The management interface of the metrics, registered with the platform MBean server as scheduler:type=Metrics so it
+ * can be read with JConsole or VisualVM.
+ * @author Steven Kazmierkiewicz
+ * */
+public interface MetricsMXBean {
+
+    /**
+     * Gets the values of every DAO method and SQL statement timer.
+     * @return the timer values
+     * */
+    List<TimerStats> getTimers();
+
+    /**
+     * Gets the queries issued by every UI action.
+     * @return the action values
+     * */
+    List<ActionStats> getActions();
+
+    /**
+     * Clears every recorded value.
+     * */
+    void reset();
+}
@@ -0,0 +1,80 @@
+package scheduler.util.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the calls of a single DAO method or SQL statement: how many times it was called, how many rows it returned
+ * or changed, how many calls failed, and how long the calls took.
+ * @author Steven Kazmierkiewicz
+ * */
+public class Timer {
+    private final String name;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+    private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+    private final Histogram latency = new Histogram();
+
+    /**
+     * Creates a timer.
+     * @param name the name of the method or statement
+     * */
+    Timer(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records a call.
+     * @param nanos how long the call took
+     * @param rowCount the number of rows returned or changed, or 0 if unknown
+     * @param failed true if the call threw an exception
+     * */
+    public void record(long nanos, long rowCount, boolean failed) {
+        long micros = nanos / 1000;
+
+        calls.increment();
+        rows.add(rowCount);
+        totalMicros.add(micros);
+        maxMicros.accumulate(micros);
+        latency.record(micros);
+
+        if (failed)
+            errors.increment();
+    }
+
+    /**
+     * Adds rows to a call that was already recorded, for results that are read after the call returns.
+     * @param rowCount the number of rows
+     * */
+    public void addRows(long rowCount) {
+        rows.add(rowCount);
+    }
+
+    /**
+     * Clears every recorded call.
+     * */
+    void reset() {
+        calls.reset();
+        rows.reset();
+        errors.reset();
+        totalMicros.reset();
+        maxMicros.reset();
+        latency.reset();
+    }
+
+    /**
+     * Gets the current values of the timer.
+     * @return the values
+     * */
+    public TimerStats stats() {
+        long count = calls.sum();
+        long max = maxMicros.get();
+
+        // a percentile is the middle of its bucket, which can be above the highest value recorded
+        return new TimerStats(name, count, rows.sum(), errors.sum(), count == 0 ? 0 : totalMicros.sum() / count,
+                Math.min(latency.percentile(50), max), Math.min(latency.percentile(95), max),
+                Math.min(latency.percentile(99), max), max);
+    }
+}
@@ -0,0 +1,118 @@
+package scheduler.util.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * The values of a timer at a point in time. Latencies are in microseconds.
+ * @author Steven Kazmierkiewicz
+ * */
+public class TimerStats {
+    private final String name;
+    private final long calls;
+    private final long rows;
+    private final long errors;
+    private final long meanMicros;
+    private final long p50Micros;
+    private final long p95Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    /**
+     * Creates the values of a timer.
+     * @param name the name of the method or statement
+     * @param calls the number of calls
+     * @param rows the number of rows returned or changed
+     * @param errors the number of failed calls
+     * @param meanMicros the mean latency
+     * @param p50Micros the median latency
+     * @param p95Micros the 95th percentile latency
+     * @param p99Micros the 99th percentile latency
+     * @param maxMicros the highest latency
+     * */
+    @ConstructorProperties({"name", "calls", "rows", "errors", "meanMicros", "p50Micros", "p95Micros", "p99Micros",
+            "maxMicros"})
+    public TimerStats(String name, long calls, long rows, long errors, long meanMicros, long p50Micros, long p95Micros,
+                      long p99Micros, long maxMicros) {
+        this.name = name;
+        this.calls = calls;
+        this.rows = rows;
+        this.errors = errors;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p95Micros = p95Micros;
+        this.p99Micros = p99Micros;
+        this.maxMicros = maxMicros;
+    }
+
+    /**
+     * Getter for the name.
+     * @return the name of the method or statement
+     * */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Getter for the calls.
+     * @return the number of calls
+     * */
+    public long getCalls() {
+        return calls;
+    }
+
+    /**
+     * Getter for the rows.
+     * @return the number of rows returned or changed
+     * */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Getter for the errors.
+     * @return the number of failed calls
+     * */
+    public long getErrors() {
+        return errors;
+    }
+
+    /**
+     * Getter for the mean latency.
+     * @return the mean latency in microseconds
+     * */
+    public long getMeanMicros() {
+        return meanMicros;
+    }
+
+    /**
+     * Getter for the median latency.
+     * @return the median latency in microseconds
+     * */
+    public long getP50Micros() {
+        return p50Micros;
+    }
+
+    /**
+     * Getter for the 95th percentile latency.
+     * @return the 95th percentile latency in microseconds
+     * */
+    public long getP95Micros() {
+        return p95Micros;
+    }
+
+    /**
+     * Getter for the 99th percentile latency.
+     * @return the 99th percentile latency in microseconds
+     * */
+    public long getP99Micros() {
+        return p99Micros;
+    }
+
+    /**
+     * Getter for the highest latency.
+     * @return the highest latency in microseconds
+     * */
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+}
@@ -0,0 +1,138 @@
+package scheduler.util.time;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * An index of time intervals that finds the intervals overlapping a time range without scanning every interval.
+ * Intervals are sorted by start and the longest interval is tracked, so only intervals starting less than that
+ * duration before the range can overlap it. A lookup takes O(log n + k) time, where k is the number of intervals
+ * starting in that window. Intervals are half-open, [start, end). The index is not thread safe.
+ * @param <T> the type of value stored with each interval
+ * @author Steven Kazmierkiewicz
+ * */
+public class IntervalIndex<T> {
+    private final NavigableMap<LocalDateTime, Map<Integer, Entry<T>>> byStart = new TreeMap<>();
+    private final Map<Integer, Entry<T>> byId = new HashMap<>();
+
+    // never shrinks on removal, which only widens the window that is searched
+    private Duration maxDuration = Duration.ZERO;
+
+    /**
+     * Adds an interval to the index, replacing any interval with the same id.
+     * @param id the id of the interval
+     * @param start the start of the interval, inclusive
+     * @param end the end of the interval, exclusive
+     * @param value the value stored with the interval
+     * */
+    public void put(int id, LocalDateTime start, LocalDateTime end, T value) {
+        remove(id);
+
+        Entry<T> entry = new Entry<>(id, start, end, value);
+        byId.put(id, entry);
+        byStart.computeIfAbsent(start, s -> new LinkedHashMap<>()).put(id, entry);
+
+        Duration duration = Duration.between(start, end);
+        if (duration.compareTo(maxDuration) > 0)
+            maxDuration = duration;
+    }
+
+    /**
+     * Removes an interval from the index.
+     * @param id the id of the interval
+     * @return the value stored with the interval, or null if there was no interval with the id
+     * */
+    public T remove(int id) {
+        Entry<T> entry = byId.remove(id);
+
+        if (entry == null)
+            return null;
+
+        Map<Integer, Entry<T>> sameStart = byStart.get(entry.start);
+        sameStart.remove(id);
+        if (sameStart.isEmpty())
+            byStart.remove(entry.start);
+
+        return entry.value;
+    }
+
+    /**
+     * Finds the earliest interval that overlaps a time range.
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @param ignoreId the id of an interval to ignore, such as the one being changed
+     * @return the value stored with the overlapping interval, or null if there is none
+     * */
+    public T findOverlap(LocalDateTime start, LocalDateTime end, int ignoreId) {
+        for (var sameStart : candidates(start, end).values()) {
+            for (var entry : sameStart.values()) {
+                if (entry.id != ignoreId && entry.end.isAfter(start))
+                    return entry.value;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Finds every interval that overlaps a time range, ordered by start.
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the values stored with the overlapping intervals
+     * */
+    public List<T> findOverlaps(LocalDateTime start, LocalDateTime end) {
+        List<T> overlaps = new ArrayList<>();
+
+        for (var sameStart : candidates(start, end).values()) {
+            for (var entry : sameStart.values()) {
+                if (entry.end.isAfter(start))
+                    overlaps.add(entry.value);
+            }
+        }
+
+        return overlaps;
+    }
+
+    /**
+     * Gets the number of intervals in the index.
+     * @return the number of intervals
+     * */
+    public int size() {
+        return byId.size();
+    }
+
+    /**
+     * Gets the intervals that start late enough to reach the range and before the range ends.
+     * @param start the start of the range
+     * @param end the end of the range
+     * @return the candidate intervals, grouped by start
+     * */
+    private NavigableMap<LocalDateTime, Map<Integer, Entry<T>>> candidates(LocalDateTime start, LocalDateTime end) {
+        return byStart.subMap(start.minus(maxDuration), false, end, false);
+    }
+
+    /**
+     * An interval in the index.
+     * @param <T> the type of value stored with the interval
+     * */
+    private static final class Entry<T> {
+        private final int id;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final T value;
+
+        private Entry(int id, LocalDateTime start, LocalDateTime end, T value) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package scheduler.util.time;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A table of the business hours of each day over a range of days, for one local timezone. Each day's open and close
+ * are kept as epoch seconds, so the daylight saving changes of the headquarters are already applied, and the local
+ * timezone's changes over the range are kept as a short list, so a local date and time is turned into an epoch second
+ * without building any objects. A check is then a few integer comparisons.
+ * @author Steven Kazmierkiewicz
+ * */
+final class OpenHours {
+    private static final int secondsPerDay = 24 * 60 * 60;
+
+    private final ZoneId zone;
+    private final long firstDay;
+    private final long[] opens;
+    private final long[] closes;
+    private final long firstWall;
+    private final long endWall;
+    private final int firstOffset;
+    private final long[] switchWalls;
+    private final int[] switchOffsets;
+
+    /**
+     * Builds the table.
+     * @param hqZone the timezone of the business hours
+     * @param open the opening time at headquarters
+     * @param close the closing time at headquarters
+     * @param localZone the timezone checked times are given in
+     * @param firstDay the first day of the table
+     * @param days the number of days in the table
+     * */
+    OpenHours(ZoneId hqZone, LocalTime open, LocalTime close, ZoneId localZone, LocalDate firstDay, int days) {
+        this.zone = localZone;
+        this.firstDay = firstDay.toEpochDay();
+        this.opens = new long[days];
+        this.closes = new long[days];
+
+        for (int i = 0; i < days; i++) {
+            LocalDate day = firstDay.plusDays(i);
+            opens[i] = LocalDateTime.of(day, open).atZone(hqZone).toEpochSecond();
+            closes[i] = LocalDateTime.of(day, close).atZone(hqZone).toEpochSecond();
+        }
+
+        // the local times covered are those of the days of the table, which is enough for any time in its range
+        this.firstWall = this.firstDay * secondsPerDay;
+        this.endWall = (this.firstDay + days) * secondsPerDay;
+
+        ZoneRules rules = localZone.getRules();
+        long from = firstWall - 2 * secondsPerDay;
+        this.firstOffset = rules.getOffset(Instant.ofEpochSecond(from)).getTotalSeconds();
+
+        List<ZoneOffsetTransition> transitions = new ArrayList<>();
+        for (var t = rules.nextTransition(Instant.ofEpochSecond(from));
+             t != null && t.toEpochSecond() < endWall + 2 * secondsPerDay;
+             t = rules.nextTransition(t.getInstant())) {
+            transitions.add(t);
+        }
+
+        this.switchWalls = new long[transitions.size()];
+        this.switchOffsets = new int[transitions.size()];
+
+        for (int i = 0; i < transitions.size(); i++) {
+            ZoneOffsetTransition t = transitions.get(i);
+            int before = t.getOffsetBefore().getTotalSeconds();
+            int after = t.getOffsetAfter().getTotalSeconds();
+
+            // local times in a gap move forward and those in an overlap keep the earlier offset, as atZone does,
+            // which both come down to keeping the old offset until the later of the two local times of the change
+            switchWalls[i] = t.toEpochSecond() + Math.max(before, after);
+            switchOffsets[i] = after;
+        }
+    }
+
+    // results of checking a range of local times
+    static final int CLOSED = 0;
+    static final int OPEN = 1;
+    static final int NOT_COVERED = -1;
+
+    /**
+     * Getter for the local timezone.
+     * @return the timezone checked times are given in
+     * */
+    ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * Gets the first day of the table.
+     * @return the epoch day
+     * */
+    long getFirstDay() {
+        return firstDay;
+    }
+
+    /**
+     * Checks if a range of local dates and times is within the business hours of a single day. The first and last days
+     * of the table are not covered, since their local times may fall on a day at headquarters outside the table.
+     * @param start the start of the range
+     * @param end the end of the range
+     * @return OPEN or CLOSED, or NOT_COVERED if the range is not within the table
+     * */
+    int check(LocalDateTime start, LocalDateTime end) {
+        long startWall = wallSecond(start);
+        long endWall = wallSecond(end);
+
+        if (startWall < firstWall + secondsPerDay || endWall >= this.endWall - secondsPerDay)
+            return NOT_COVERED;
+
+        // a fraction of a second past the close is past it
+        long endSecond = toEpochSecond(endWall) + (end.getNano() > 0 ? 1 : 0);
+
+        return isOpen(toEpochSecond(startWall), endSecond) ? OPEN : CLOSED;
+    }
+
+    /**
+     * Checks if a range of instants is within the business hours of a single day.
+     * @param start the start of the range, in epoch seconds
+     * @param end the end of the range, in epoch seconds
+     * @return true if the range is within business hours, false if not or if the table does not cover it
+     * */
+    boolean isOpen(long start, long end) {
+        // the day of the start at headquarters is within a day of its UTC day, and the days do not overlap
+        long day = Math.floorDiv(start, secondsPerDay) - firstDay;
+
+        for (long i = Math.max(0, day - 1); i <= day + 1 && i < opens.length; i++) {
+            if (start >= opens[(int) i] && start <= closes[(int) i])
+                return end <= closes[(int) i];
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the local date and time as a count of seconds, as if the local timezone were UTC.
+     * @param dateTime the local date and time
+     * @return the seconds
+     * */
+    private static long wallSecond(LocalDateTime dateTime) {
+        return dateTime.toLocalDate().toEpochDay() * secondsPerDay + dateTime.toLocalTime().toSecondOfDay();
+    }
+
+    /**
+     * Converts a local time to an instant with the offset in effect at it.
+     * @param wall the local date and time in seconds
+     * @return the epoch second
+     * */
+    private long toEpochSecond(long wall) {
+        int offset = firstOffset;
+
+        for (int i = 0; i < switchWalls.length && wall >= switchWalls[i]; i++)
+            offset = switchOffsets[i];
+
+        return wall - offset;
+    }
+}
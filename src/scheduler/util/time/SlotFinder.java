@@ -0,0 +1,174 @@
+package scheduler.util.time;
+
+import scheduler.dao.AppointmentDAO;
+import scheduler.dao.AppointmentSeriesDAO;
+import scheduler.model.Appointment;
+import scheduler.model.Contact;
+import scheduler.model.Customer;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Finds the earliest free times for a new appointment between a customer and a contact. Each day of the search is a
+ * run of bits, one per slot of the grid, laid end to end in a single bit set so an appointment may run past midnight.
+ * A bit is set when the slot is within open business hours and neither the customer nor the contact has an
+ * appointment in it, so a free time is a run of set bits at least as long as the appointment. Series are expanded only
+ * for the days searched.
+ * @author Steven Kazmierkiewicz
+ * */
+public class SlotFinder {
+    private final AppointmentDAO dbAppt;
+    private final AppointmentSeriesDAO dbSeries;
+    private final SlotGrid grid;
+
+    /**
+     * Creates a finder on the grid of the appointment editor that ignores series.
+     * @param dbAppt the DAO the existing appointments are read from
+     * */
+    public SlotFinder(AppointmentDAO dbAppt) {
+        this(dbAppt, null, SlotGrid.quarterHours());
+    }
+
+    /**
+     * Creates a finder on the grid of the appointment editor.
+     * @param dbAppt the DAO the existing appointments are read from
+     * @param dbSeries the DAO the existing series are read from
+     * */
+    public SlotFinder(AppointmentDAO dbAppt, AppointmentSeriesDAO dbSeries) {
+        this(dbAppt, dbSeries, SlotGrid.quarterHours());
+    }
+
+    /**
+     * Creates a finder.
+     * @param dbAppt the DAO the existing appointments are read from
+     * @param dbSeries the DAO the existing series are read from, or null to ignore series
+     * @param grid the grid the appointments start on
+     * */
+    public SlotFinder(AppointmentDAO dbAppt, AppointmentSeriesDAO dbSeries, SlotGrid grid) {
+        this.dbAppt = dbAppt;
+        this.dbSeries = dbSeries;
+        this.grid = grid;
+    }
+
+    /**
+     * Finds the earliest free start times for an appointment, in the system default timezone. Start times in the past
+     * are skipped.
+     * @param customer the customer
+     * @param contact the contact
+     * @param duration the length of the appointment
+     * @param from the first day of the search
+     * @param days the number of days searched
+     * @param count the maximum number of start times found
+     * @param ignoreId the id of an appointment to treat as free, such as the one being changed, or -1 for none
+     * @return the start times, earliest first
+     * */
+    public List<LocalDateTime> findFree(Customer customer, Contact contact, Duration duration, LocalDate from, int days,
+                                        int count, int ignoreId) {
+        LocalDateTime base = from.atStartOfDay();
+        LocalDateTime end = base.plusDays(days);
+        int slotsPerDay = grid.size();
+        int length = (int) Math.max(1, (duration.toMinutes() + grid.getMinutes() - 1) / grid.getMinutes());
+
+        BitSet free = openSlots(from, days, ZoneId.systemDefault());
+
+        // appointments are found by start and last less than a day, so one starting the day before may reach the search
+        LocalDateTime lookBack = base.minusDays(1);
+
+        for (var appointment : dbAppt.getAppointmentsBetween(customer, lookBack, end))
+            markBusy(free, base, appointment, ignoreId);
+
+        for (var appointment : dbAppt.getAppointmentsBetween(contact, lookBack, end))
+            markBusy(free, base, appointment, ignoreId);
+
+        if (dbSeries != null) {
+            for (var series : dbSeries.getSeriesBetween(lookBack, end)) {
+                if (series.getCustomerId() != customer.getId() && series.getContact().getId() != contact.getId())
+                    continue;
+
+                // an occurrence is never the appointment being changed, and 0 is never an appointment id
+                for (var occurrence : series.occurrencesBetween(lookBack, end))
+                    markBusy(free, base, occurrence, 0);
+            }
+        }
+
+        List<LocalDateTime> starts = new ArrayList<>();
+        int first = Math.max(0, slotOf(base, LocalDateTime.now(), true));
+        int last = days * slotsPerDay - length;
+
+        for (int run = free.nextSetBit(first); run >= 0 && run <= last && starts.size() < count;) {
+            int runEnd = free.nextClearBit(run);
+
+            for (int slot = run; slot <= runEnd - length && slot <= last && starts.size() < count; slot++)
+                starts.add(base.plusMinutes((long) slot * grid.getMinutes()));
+
+            run = free.nextSetBit(runEnd);
+        }
+
+        return starts;
+    }
+
+    /**
+     * Sets the bit of every slot of the search that is within open business hours.
+     * @param from the first day
+     * @param days the number of days
+     * @param zone the timezone of the slots
+     * @return the open slots
+     * */
+    private BitSet openSlots(LocalDate from, int days, ZoneId zone) {
+        int slotsPerDay = grid.size();
+        BitSet open = new BitSet(days * slotsPerDay);
+
+        for (int day = 0; day < days; day++) {
+            LocalDate date = from.plusDays(day);
+
+            for (int slot = 0; slot < slotsPerDay; slot++) {
+                LocalDateTime start = grid.startOf(date, slot);
+
+                if (TimeUtils.isInOpenHours(start, start.plusMinutes(grid.getMinutes()), zone))
+                    open.set(day * slotsPerDay + slot);
+            }
+        }
+
+        return open;
+    }
+
+    /**
+     * Clears the bits of the slots an appointment takes up, including any slot it only partly covers.
+     * @param free the free slots
+     * @param base the start of the first day
+     * @param appointment the appointment
+     * @param ignoreId the id of an appointment to leave free
+     * */
+    private void markBusy(BitSet free, LocalDateTime base, Appointment appointment, int ignoreId) {
+        if (appointment.getId() == ignoreId)
+            return;
+
+        int start = Math.max(0, slotOf(base, appointment.getStart(), false));
+        int end = slotOf(base, appointment.getEnd(), true);
+
+        if (end > start)
+            free.clear(start, end);
+    }
+
+    /**
+     * Gets the slot of a time, counted from the start of the first day.
+     * @param base the start of the first day
+     * @param time the time
+     * @param ceiling true to round a time inside a slot up to the next slot, false to round it down
+     * @return the slot
+     * */
+    private int slotOf(LocalDateTime base, LocalDateTime time, boolean ceiling) {
+        long seconds = ChronoUnit.SECONDS.between(base, time);
+        long slotSeconds = grid.getMinutes() * 60L;
+
+        return (int) (ceiling ? Math.floorDiv(seconds + slotSeconds - 1, slotSeconds)
+                : Math.floorDiv(seconds, slotSeconds));
+    }
+}
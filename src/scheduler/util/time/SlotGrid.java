@@ -0,0 +1,173 @@
+package scheduler.util.time;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The time slots of a day at a fixed granularity. Every slot is the shared Time instance for its minute of the day,
+ * with its label already rendered, and converting between times and slot indexes is plain arithmetic. Grids are
+ * created once per granularity and shared, so the appointment editor and any calendar view reuse the same slots.
+ * @author Steven Kazmierkiewicz
+ * */
+public final class SlotGrid {
+    private static final int minutesPerDay = 24 * 60;
+    private static final int[] granularities = {5, 10, 15, 30};
+    private static final SlotGrid[] grids = new SlotGrid[granularities.length];
+
+    static {
+        for (int i = 0; i < granularities.length; i++)
+            grids[i] = new SlotGrid(granularities[i]);
+    }
+
+    private final int minutes;
+    private final List<Time> slots;
+
+    /**
+     * Creates a grid.
+     * @param minutes the length of each slot
+     * */
+    private SlotGrid(int minutes) {
+        this.minutes = minutes;
+
+        Time[] times = new Time[minutesPerDay / minutes];
+        for (int i = 0; i < times.length; i++)
+            times[i] = Time.ofMinuteOfDay(i * minutes);
+
+        this.slots = List.of(times);
+    }
+
+    /**
+     * Gets the grid with a granularity.
+     * @param minutes the length of each slot, one of 5, 10, 15, or 30
+     * @return the grid
+     * @throws IllegalArgumentException if the granularity is not supported
+     * */
+    public static SlotGrid of(int minutes) {
+        int i = Arrays.binarySearch(granularities, minutes);
+
+        if (i < 0)
+            throw new IllegalArgumentException("Unsupported slot length: " + minutes + " minutes.");
+
+        return grids[i];
+    }
+
+    /**
+     * Gets the grid of 15 minute slots used by the appointment editor.
+     * @return the grid
+     * */
+    public static SlotGrid quarterHours() {
+        return of(15);
+    }
+
+    /**
+     * Getter for the granularity.
+     * @return the length of each slot in minutes
+     * */
+    public int getMinutes() {
+        return minutes;
+    }
+
+    /**
+     * Gets the number of slots in a day.
+     * @return the number of slots
+     * */
+    public int size() {
+        return slots.size();
+    }
+
+    /**
+     * Gets every slot of the day, starting at midnight. The list cannot be modified.
+     * @return the slots
+     * */
+    public List<Time> slots() {
+        return slots;
+    }
+
+    /**
+     * Gets a slot by index. The index wraps around the day, so -1 is the last slot.
+     * @param index the index
+     * @return the slot
+     * */
+    public Time get(int index) {
+        return slots.get(Math.floorMod(index, slots.size()));
+    }
+
+    /**
+     * Gets the index of the slot containing a time.
+     * @param time the time
+     * @return the index of the slot
+     * */
+    public int floorIndex(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute()) / minutes;
+    }
+
+    /**
+     * Gets the index of the first slot starting at or after a time. Seconds are ignored.
+     * @param time the time
+     * @return the index of the slot, which is the size of the grid if the time is after the last slot starts
+     * */
+    public int ceilingIndex(LocalTime time) {
+        return (time.getHour() * 60 + time.getMinute() + minutes - 1) / minutes;
+    }
+
+    /**
+     * Gets the index of a time in the grid.
+     * @param time the time
+     * @return the index of the slot starting at the time, or -1 if no slot starts at it
+     * */
+    public int indexOf(Time time) {
+        int minute = time.getMinuteOfDay();
+        return minute % minutes == 0 ? minute / minutes : -1;
+    }
+
+    /**
+     * Gets the slot containing a time.
+     * @param time the time
+     * @return the slot
+     * */
+    public Time floor(LocalTime time) {
+        return slots.get(floorIndex(time));
+    }
+
+    /**
+     * Gets the first slot starting at or after a time, wrapping to midnight after the last slot.
+     * @param time the time
+     * @return the slot
+     * */
+    public Time ceiling(LocalTime time) {
+        return get(ceilingIndex(time));
+    }
+
+    /**
+     * Gets the slot a number of slots after a time, wrapping around the day. The time is first moved to its slot.
+     * @param time the time
+     * @param count the number of slots, which may be negative
+     * @return the slot
+     * */
+    public Time plus(Time time, int count) {
+        return get(time.getMinuteOfDay() / minutes + count);
+    }
+
+    /**
+     * Gets the number of slots from one time to another on the same day.
+     * @param from the first time
+     * @param to the second time
+     * @return the number of slots, negative if the second time is earlier
+     * */
+    public int slotsBetween(Time from, Time to) {
+        return to.getMinuteOfDay() / minutes - from.getMinuteOfDay() / minutes;
+    }
+
+    /**
+     * Gets the start of a slot on a date.
+     * @param date the date
+     * @param index the index of the slot, which may run past the end of the day
+     * @return the date and time the slot starts
+     * */
+    public LocalDateTime startOf(LocalDate date, int index) {
+        return date.atStartOfDay().plusMinutes((long) index * minutes);
+    }
+}
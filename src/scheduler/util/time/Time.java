@@ -4,22 +4,58 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 /**
- * Represents the Hour and Minute of a time in 15 minute increments. It is the object used in the time spinners.
+ * Represents the Hour and Minute of a time. It is the object used in the time spinners. There is a single shared
+ * instance for each minute of the day, created with its label already formatted, so times are never built or
+ * formatted while the user works. The label uses the default locale when the class is first used.
  * */
 public class Time {
+    private static final int minutesPerDay = 24 * 60;
+    private static final Time[] all = new Time[minutesPerDay];
+
+    static {
+        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofLocalizedTime(FormatStyle.SHORT);
+
+        for (int minute = 0; minute < minutesPerDay; minute++) {
+            LocalTime time = LocalTime.of(minute / 60, minute % 60);
+            all[minute] = new Time(time, minute, time.format(dateTimeFormatter));
+        }
+    }
+
     private final LocalTime time;
+    private final int minuteOfDay;
+    private final String label;
 
+    /**
+     * Creates a time at midnight. Prefer the shared instances from the static methods.
+     * */
     public Time() {
-        time = LocalTime.of(0,0);
+        this(all[0].time, 0, all[0].label);
     }
 
-    private Time(LocalTime time) {
+    private Time(LocalTime time, int minuteOfDay, String label) {
         this.time = time;
+        this.minuteOfDay = minuteOfDay;
+        this.label = label;
+    }
+
+    /**
+     * Gets the shared Time object for a minute of the day.
+     * @param minuteOfDay the minute of the day, which wraps around the day
+     * @return the time
+     * */
+    static Time ofMinuteOfDay(int minuteOfDay) {
+        return all[Math.floorMod(minuteOfDay, minutesPerDay)];
+    }
+
+    /**
+     * Getter for the minute of the day.
+     * @return the number of minutes after midnight
+     * */
+    public int getMinuteOfDay() {
+        return minuteOfDay;
     }
 
     /**
@@ -27,7 +63,7 @@ public class Time {
      * @return the new time
      * */
     public Time next15() {
-        return new Time(time.plusMinutes(15));
+        return ofMinuteOfDay(minuteOfDay + 15);
     }
 
     /**
@@ -35,7 +71,7 @@ public class Time {
      * @return the new time
      * */
     public Time prev15() {
-        return new Time(time.minusMinutes(15));
+        return ofMinuteOfDay(minuteOfDay - 15);
     }
 
     /**
@@ -44,9 +80,7 @@ public class Time {
      * */
     @Override
     public String toString() {
-        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofLocalizedTime(FormatStyle.SHORT);
-
-        return time.format(dateTimeFormatter);
+        return label;
     }
 
     /**
@@ -58,8 +92,7 @@ public class Time {
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
-        Time time1 = (Time) o;
-        return time.getHour() == time1.time.getHour() && time.getMinute() == time1.time.getMinute();
+        return minuteOfDay == ((Time) o).minuteOfDay;
     }
 
     /**
@@ -68,39 +101,15 @@ public class Time {
      * */
     @Override
     public int hashCode() {
-        return Objects.hash(time.getHour(), time.getMinute());
+        return minuteOfDay;
     }
 
     /**
-     * Gets all Time objects for an entire day in 15 minute intervals.
+     * Gets all Time objects for an entire day in 15 minute intervals. The list is shared and cannot be modified.
      * @return the list of times
      * */
     public static List<Time> allDayIntervals() {
-        return allDayIntervals(new ArrayList<>());
-    }
-
-    /**
-     * Recursive helper function to get all Time objects for an entire day in 15 minute intervals.
-     * @param list the current list of times
-     * @return the list of times
-     * */
-    private static List<Time> allDayIntervals(List<Time> list) {
-        Time next;
-
-        if (list.size() > 0) {
-            Time last = list.get(list.size() - 1);
-            next = last.next15();
-        } else {
-            next = new Time();
-        }
-
-        if (!list.contains(next)) {
-            list.add(next);
-            return allDayIntervals(list);
-        }
-        else {
-            return list;
-        }
+        return SlotGrid.quarterHours().slots();
     }
 
     /**
@@ -126,13 +135,7 @@ public class Time {
      * @return the next closest Time object
      * */
     public static Time closestTime(LocalTime time) {
-        int min = time.getMinute();
-        int diff = min % 15;
-
-        if (diff == 0)
-            return new Time(time);
-        else
-            return new Time(time.plusMinutes(15 - diff));
+        return SlotGrid.quarterHours().ceiling(time);
     }
 
     /**
@@ -141,7 +144,7 @@ public class Time {
      * @return the future time
      * */
     public Time plusHours(int hours) {
-        return new Time(time.plusHours(hours));
+        return ofMinuteOfDay(minuteOfDay + hours * 60);
     }
 
     /**
@@ -150,7 +153,7 @@ public class Time {
      * @return true if before the other time
      * */
     public boolean isBefore(Time t) {
-        return time.isBefore(t.time);
+        return minuteOfDay < t.minuteOfDay;
     }
 
     /**
@@ -159,7 +162,7 @@ public class Time {
      * @return true if after the other time
      * */
     public boolean isAfter(Time t) {
-        return time.isAfter(t.time);
+        return minuteOfDay > t.minuteOfDay;
     }
 
     /**
@@ -167,7 +170,7 @@ public class Time {
      * @return the LocalTime
      * */
     public LocalTime toLocalTime() {
-        return LocalTime.of(time.getHour(), time.getMinute());
+        return time;
     }
 
     /**
@@ -176,7 +179,7 @@ public class Time {
      * @return the Time object
      * */
     public static Time from(LocalDateTime dateTime) {
-        return new Time(dateTime.toLocalTime());
+        return from(dateTime.toLocalTime());
     }
 
     /**
@@ -185,6 +188,6 @@ public class Time {
      * @return the Time object
      * */
     public static Time from(LocalTime time) {
-        return new Time(time);
+        return ofMinuteOfDay(time.getHour() * 60 + time.getMinute());
     }
 }
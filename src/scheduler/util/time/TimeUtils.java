@@ -1,15 +1,31 @@
 package scheduler.util.time;
 
 import java.time.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Provides methods for working with dates, times, timezones, and business hours.
+ * Provides methods for working with dates, times, timezones, and business hours. The business hours of each day, from
+ * a year before today to two years after, are kept in a table per local timezone, so checking a time against them does
+ * not convert between timezones. The open and close times shown to the user are worked out once a day.
  * */
 public class TimeUtils {
     private static final ZoneId hqZone = ZoneId.of("America/New_York");
     private static LocalTime open = LocalTime.of(8,0); // 8 AM
     private static LocalTime close = LocalTime.of(22, 0); // 10 PM
 
+    // the days before and after today in each business hours table
+    private static final int horizonPastDays = 366;
+    private static final int horizonFutureDays = 731;
+
+    private static final Map<ZoneId, OpenHours> openHours = new ConcurrentHashMap<>();
+    // the table used last, which saves the map lookup when the same timezone is checked repeatedly
+    private static volatile OpenHours lastOpenHours;
+    private static volatile LocalHours localHours;
+    // today's epoch day and the time it ends, so the date is only looked up again once the day has passed
+    private static volatile long today;
+    private static volatile long todayEndsAtMillis = Long.MIN_VALUE;
+
     /**
      * Convert a LocalDateTime from one Timezone to another Timezone.
      * @param dateTime the datetime
@@ -45,6 +61,63 @@ public class TimeUtils {
      * @return true if the time interval falls within open business hours
      * */
     public static boolean isInOpenHours(LocalDateTime start, LocalDateTime end, ZoneId localZone) {
+        OpenHours table = lastOpenHours;
+
+        if (table == null || table.getZone() != localZone)
+            lastOpenHours = table = openHours.computeIfAbsent(localZone, TimeUtils::buildOpenHours);
+
+        int result = table.check(start, end);
+
+        // the table is rebuilt around today if it was built on an earlier day, so its range moves forward with the date
+        if (result == OpenHours.NOT_COVERED && table.getFirstDay() != today() - horizonPastDays) {
+            lastOpenHours = table = buildOpenHours(localZone);
+            openHours.put(localZone, table);
+            result = table.check(start, end);
+        }
+
+        if (result == OpenHours.NOT_COVERED)
+            return isInOpenHoursConverted(start, end, localZone);
+
+        return result == OpenHours.OPEN;
+    }
+
+    /**
+     * Builds the business hours table of a timezone, from a year before today to two years after.
+     * @param zone the timezone
+     * @return the table
+     * */
+    private static OpenHours buildOpenHours(ZoneId zone) {
+        return new OpenHours(hqZone, open, close, zone, LocalDate.ofEpochDay(today() - horizonPastDays),
+                horizonPastDays + horizonFutureDays);
+    }
+
+    /**
+     * Gets today's date. The date is looked up once a day, as a time outside the tables is checked on every call for
+     * whether the tables should move forward.
+     * @return the epoch day
+     * */
+    private static long today() {
+        long now = System.currentTimeMillis();
+
+        if (now >= todayEndsAtMillis) {
+            ZoneId zone = ZoneId.systemDefault();
+            LocalDate date = LocalDate.now(zone);
+            today = date.toEpochDay();
+            todayEndsAtMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+
+        return today;
+    }
+
+    /**
+     * Checks if the specified start and end date times are within open business hours by converting them to the
+     * timezone of the business hours. Used for times outside the business hours tables.
+     * @param start the start datetime
+     * @param end the end datetime
+     * @param localZone the timezone of the start and end params
+     * @return true if the time interval falls within open business hours
+     * */
+    private static boolean isInOpenHoursConverted(LocalDateTime start, LocalDateTime end, ZoneId localZone) {
         ZonedDateTime zonedStart = start.atZone(localZone);
         ZonedDateTime zonedEnd = end.atZone(localZone);
 
@@ -65,14 +138,53 @@ public class TimeUtils {
      * @return the open time in user's default timezone
      * */
     public static LocalTime getLocalOpen() {
-        return convert(open, hqZone, ZoneId.systemDefault());
+        return localHours().open;
     }
 
     /**
-     * Get the open time in the system default timezone.
-     * @return the open time in user's default timezone
+     * Get the close time in the system default timezone.
+     * @return the close time in user's default timezone
      * */
     public static LocalTime getLocalClose() {
-        return convert(close, hqZone, ZoneId.systemDefault());
+        return localHours().close;
+    }
+
+    /**
+     * Gets today's open and close times in the system default timezone, converting them again only when the day or
+     * the timezone has changed.
+     * @return the open and close times
+     * */
+    private static LocalHours localHours() {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalHours hours = localHours;
+
+        if (hours == null || !hours.zone.equals(zone) || System.currentTimeMillis() >= hours.expires) {
+            LocalDate today = LocalDate.now(zone);
+            LocalDateTime localOpen = convert(LocalDateTime.of(today, open), hqZone, zone);
+            LocalDateTime localClose = convert(LocalDateTime.of(today, close), hqZone, zone);
+            long expires = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+
+            hours = new LocalHours(zone, expires, localOpen.toLocalTime(), localClose.toLocalTime());
+            localHours = hours;
+        }
+
+        return hours;
+    }
+
+    /**
+     * The open and close times in a timezone on one day.
+     * */
+    private static final class LocalHours {
+        private final ZoneId zone;
+        private final long expires;
+        private final LocalTime open;
+        private final LocalTime close;
+
+        private LocalHours(ZoneId zone, long expires, LocalTime open, LocalTime close) {
+            this.zone = zone;
+            this.expires = expires;
+            this.open = open;
+            this.close = close;
+        }
     }
 }
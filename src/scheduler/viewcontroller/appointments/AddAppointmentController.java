@@ -2,9 +2,10 @@ package scheduler.viewcontroller.appointments;
 
 import javafx.event.ActionEvent;
 import scheduler.dao.AppointmentDAO;
+import scheduler.dao.DAOs;
 import scheduler.model.User;
-import scheduler.mysql.DBAppointment;
 import scheduler.util.Alerts;
+import scheduler.util.Exceptions;
 import scheduler.util.Router;
 import scheduler.util.Validators;
 
@@ -16,32 +17,46 @@ import java.time.LocalDateTime;
 public class AddAppointmentController extends AppointmentChange {
     @Override
     public void onSave(ActionEvent actionEvent) {
-        AppointmentDAO dbAppt = new DBAppointment();
+        AppointmentDAO dbAppt = DAOs.appointments();
 
         errorLabel.setText("");
 
         Validators.ValidationResult result = validate();
 
-        if (result.isValid()) {
-            LocalDateTime start = LocalDateTime.of(startDatePicker.getValue(), startTimeSpinner.getValue().toLocalTime());
-            LocalDateTime end = LocalDateTime.of(endDatePicker.getValue(), endTimeSpinner.getValue().toLocalTime());
-
-            if (dbAppt.createAppointment(
-                    titleField.getText(),
-                    descriptionField.getText(),
-                    locationField.getText(),
-                    typeComboBox.getValue(),
-                    customerComboBox.getValue(),
-                    contactComboBox.getValue(),
-                    userComboBox.getValue(),
-                    start,
-                    end)) {
-                Router.prevRoute(Router.getStage(actionEvent));
+        if (!result.isValid()) {
+            errorLabel.setText(result.getError());
+            return;
+        }
+
+        try {
+            if (getRecurrence() != null) {
+                if (DAOs.series().createSeries(getSeries(getRecurrence())) > 0) {
+                    Router.prevRoute(Router.getStage(actionEvent));
+                } else {
+                    Alerts.error("Database Error", "Database Error", "There was a problem creating the series in the database.");
+                }
             } else {
-                Alerts.error("Database Error", "Database Error", "There was a problem creating the customer in the database.");
+                LocalDateTime start = LocalDateTime.of(startDatePicker.getValue(), startTimeSpinner.getValue().toLocalTime());
+                LocalDateTime end = LocalDateTime.of(endDatePicker.getValue(), endTimeSpinner.getValue().toLocalTime());
+
+                if (dbAppt.createAppointment(
+                        titleField.getText(),
+                        descriptionField.getText(),
+                        locationField.getText(),
+                        typeComboBox.getValue(),
+                        customerComboBox.getValue(),
+                        contactComboBox.getValue(),
+                        userComboBox.getValue(),
+                        start,
+                        end)) {
+                    Router.prevRoute(Router.getStage(actionEvent));
+                } else {
+                    Alerts.error("Database Error", "Database Error", "There was a problem creating the customer in the database.");
+                }
             }
+        } catch (Exceptions.OverlapException e) {
+            // booked by another client since the validation
+            showOverlap(e);
         }
-        else
-            errorLabel.setText(result.getError());
     }
 }
@@ -6,26 +6,29 @@ import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
-import scheduler.dao.AppointmentDAO;
 import scheduler.dao.ContactDAO;
-import scheduler.dao.CustomerDAO;
+import scheduler.dao.DAOs;
 import scheduler.dao.UserDAO;
+import scheduler.dao.cache.ReferenceData;
 import scheduler.model.Appointment;
+import scheduler.model.AppointmentSeries;
 import scheduler.model.Contact;
 import scheduler.model.Customer;
+import scheduler.model.Recurrence;
 import scheduler.model.User;
-import scheduler.mysql.DBAppointment;
-import scheduler.mysql.DBContact;
-import scheduler.mysql.DBCustomer;
-import scheduler.mysql.DBUser;
+import scheduler.util.AppointmentValidator;
+import scheduler.util.BackgroundLoader;
+import scheduler.util.Exceptions;
 import scheduler.util.NodeUtils;
 import scheduler.util.Router;
+import scheduler.util.time.SlotFinder;
+import scheduler.util.time.SlotGrid;
 import scheduler.util.time.Time;
 import scheduler.util.time.TimeUtils;
 import scheduler.util.Validators;
-import scheduler.util.WordUtils;
 
 import java.net.URL;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -50,35 +53,45 @@ public abstract class AppointmentChange implements Initializable {
     public Spinner<Time> startTimeSpinner;
     public DatePicker endDatePicker;
     public Spinner<Time> endTimeSpinner;
+    public ComboBox<Recurrence.Frequency> repeatComboBox;
+    public DatePicker untilDatePicker;
     public Label errorLabel;
     public Label hoursLabel;
 
+    // how far ahead the next free button searches
+    private static final int nextFreeSearchDays = 60;
+
     /**
-     * Called when the controller is loaded, it initializes values for the controller.
+     * Called when the controller is loaded, it initializes values for the controller. The contacts, customers and
+     * users are loaded in the background.
      * @param url not used
      * @param resourceBundle not used
      * */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        ContactDAO dbContact = new DBContact();
-        UserDAO dbUser = new DBUser();
-        CustomerDAO dbCust = new DBCustomer();
+        ContactDAO dbContact = ReferenceData.contacts();
+        UserDAO dbUser = ReferenceData.users();
 
         typeComboBox.setItems(FXCollections.observableList(Arrays.asList(Appointment.Type.values())));
-        contactComboBox.setItems(FXCollections.observableList(dbContact.getAllContacts()));
-        customerComboBox.setItems(FXCollections.observableList(dbCust.getAllCustomers()));
-        userComboBox.setItems(FXCollections.observableList(dbUser.getAllUsers()));
+
+        // the empty choice is for an appointment that does not repeat
+        ObservableList<Recurrence.Frequency> frequencies = FXCollections.observableArrayList((Recurrence.Frequency) null);
+        frequencies.addAll(Recurrence.Frequency.values());
+        repeatComboBox.setItems(frequencies);
+        BackgroundLoader.loadItems(contactComboBox, dbContact::getAllContacts);
+        BackgroundLoader.loadItems(customerComboBox, DAOs.customers()::getAllCustomers);
+        BackgroundLoader.loadItems(userComboBox, dbUser::getAllUsers);
         userComboBox.setValue(User.getCurrentUser());
 
         LocalDate today = LocalDate.from(LocalDateTime.now());
         startDatePicker.setValue(today);
         endDatePicker.setValue(today);
 
-        ObservableList<Time> startTimes = FXCollections.observableList(Time.allDayIntervals());
-        ObservableList<Time> endTimes = FXCollections.observableArrayList(startTimes);
+        // the slots are shared and never change, so both spinners can show the same list
+        ObservableList<Time> times = FXCollections.observableList(SlotGrid.quarterHours().slots());
 
-        startTimeSpinner.setValueFactory(new SpinnerValueFactory.ListSpinnerValueFactory<Time>(startTimes));
-        endTimeSpinner.setValueFactory(new SpinnerValueFactory.ListSpinnerValueFactory<Time>(endTimes));
+        startTimeSpinner.setValueFactory(new SpinnerValueFactory.ListSpinnerValueFactory<Time>(times));
+        endTimeSpinner.setValueFactory(new SpinnerValueFactory.ListSpinnerValueFactory<Time>(times));
 
         Time closestTime = Time.closestTime();
         startTimeSpinner.getValueFactory().setValue(closestTime);
@@ -101,6 +114,55 @@ public abstract class AppointmentChange implements Initializable {
      * */
     public abstract void onSave(ActionEvent actionEvent);
 
+    /**
+     * Event handler for the next free button. Finds the earliest time, from the chosen start date or today, when the
+     * customer and contact are both free during open hours, keeping the current length of the appointment. The search
+     * runs in the background, and the lambda expression moves the start and end to the time found.
+     * @param actionEvent the event that triggered the method
+     * */
+    public void onNextFree(ActionEvent actionEvent) {
+        Customer customer = customerComboBox.getValue();
+        Contact contact = contactComboBox.getValue();
+
+        if (customer == null || contact == null) {
+            errorLabel.setText("Customer and contact must have a value to find the next free time.");
+            return;
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate from = startDatePicker.getValue() != null && startDatePicker.getValue().isAfter(today) ?
+                startDatePicker.getValue() : today;
+
+        Duration duration = Duration.ofHours(1);
+        if (startDatePicker.getValue() != null && endDatePicker.getValue() != null) {
+            LocalDateTime start = LocalDateTime.of(startDatePicker.getValue(), startTimeSpinner.getValue().toLocalTime());
+            LocalDateTime end = LocalDateTime.of(endDatePicker.getValue(), endTimeSpinner.getValue().toLocalTime());
+
+            if (start.isBefore(end))
+                duration = Duration.between(start, end);
+        }
+
+        Duration length = duration;
+        int ignoreId = getAppointmentId();
+        errorLabel.setText("");
+
+        BackgroundLoader.load(() -> new SlotFinder(DAOs.appointments(), DAOs.series())
+                .findFree(customer, contact, length, from, nextFreeSearchDays, 1, ignoreId), starts -> {
+            if (starts.isEmpty()) {
+                errorLabel.setText("No free time found in the " + nextFreeSearchDays + " days from " + from + ".");
+                return;
+            }
+
+            LocalDateTime start = starts.get(0);
+            LocalDateTime end = start.plus(length);
+
+            startDatePicker.setValue(start.toLocalDate());
+            startTimeSpinner.getValueFactory().setValue(Time.from(start));
+            endDatePicker.setValue(end.toLocalDate());
+            endTimeSpinner.getValueFactory().setValue(Time.from(end));
+        });
+    }
+
     /**
      * Event handler for the clear button.
      * @param actionEvent the event that triggered the method
@@ -132,6 +194,9 @@ public abstract class AppointmentChange implements Initializable {
         NodeUtils.clear(startTimeSpinner, Time.closestTime());
         NodeUtils.clear(endDatePicker);
         NodeUtils.clear(endTimeSpinner, Time.closestTime().plusHours(1));
+        NodeUtils.clear(repeatComboBox);
+        NodeUtils.clearBorder(untilDatePicker);
+        untilDatePicker.setValue(null);
         errorLabel.setText("");
         userComboBox.setValue(User.getCurrentUser());
     }
@@ -154,92 +219,82 @@ public abstract class AppointmentChange implements Initializable {
     }
 
     /**
-     * Validates all the fields on the form. The lambda expression is a shortcut for setting the border of all the start
-     * and end date time fields to red.
-     * @return the result of the validation
+     * Gets the id of the appointment being changed.
+     * @return the id, or -1 if the appointment has not been created yet
      * */
-    protected Validators.ValidationResult validate() {
-        StringBuilder error = new StringBuilder();
-        Map<TextField, String> textFieldStringMap = new LinkedHashMap<>();
-        textFieldStringMap.put(titleField, "title");
-        textFieldStringMap.put(descriptionField, "description");
-        textFieldStringMap.put(locationField, "location");
-
-        Map<ComboBox, String> comboBoxStringMap = new LinkedHashMap<>();
-        comboBoxStringMap.put(typeComboBox, "type");
-        comboBoxStringMap.put(customerComboBox, "customer");
-        comboBoxStringMap.put(contactComboBox, "contact");
-        comboBoxStringMap.put(userComboBox, "user");
-
-        boolean valid = true;
-
-        NodeUtils.clearBorder(textFieldStringMap.keySet().toArray(new TextField[0]));
-        NodeUtils.clearBorder(comboBoxStringMap.keySet().toArray(new ComboBox[0]));
-        NodeUtils.clearBorder(startDatePicker);
-        NodeUtils.clearBorder(startTimeSpinner);
-        NodeUtils.clearBorder(endDatePicker);
-        NodeUtils.clearBorder(endTimeSpinner);
-
-        // **************** Checking for empty or null fields
-        for (Map.Entry<TextField, String> entry : textFieldStringMap.entrySet()) {
-            if (!Validators.notEmpty(entry.getKey().getText())) {
-                valid = false;
-                NodeUtils.setBorder(entry.getKey(), "red");
-                error.append(WordUtils.capitalize(entry.getValue())).append(" must have a value.\n");
-            }
+    private int getAppointmentId() {
+        try {
+            return Integer.parseInt(idField.getText());
+        } catch (NumberFormatException e) {
+            return -1;
         }
+    }
 
-        for (Map.Entry<ComboBox, String> entry : comboBoxStringMap.entrySet()) {
-            if (!Validators.notNull(entry.getKey().getValue())) {
-                valid = false;
-                NodeUtils.setBorder(entry.getKey(), "red");
-                error.append(WordUtils.capitalize(entry.getValue())).append(" must have a value.\n");
-            }
-        }
+    /**
+     * Gets the rule chosen for the appointment to repeat by.
+     * @return the rule, or null if the appointment does not repeat
+     * */
+    protected Recurrence getRecurrence() {
+        Recurrence.Frequency frequency = repeatComboBox.getValue();
+        return frequency == null ? null : new Recurrence(frequency, 1, untilDatePicker.getValue());
+    }
 
-        // ****************** Checking for valid start and end
+    /**
+     * Builds a series from the fields on the form, with the appointment on the form as its first occurrence.
+     * @param recurrence the rule the series repeats by
+     * @return the series
+     * */
+    protected AppointmentSeries getSeries(Recurrence recurrence) {
         LocalDateTime start = LocalDateTime.of(startDatePicker.getValue(), startTimeSpinner.getValue().toLocalTime());
         LocalDateTime end = LocalDateTime.of(endDatePicker.getValue(), endTimeSpinner.getValue().toLocalTime());
 
-        Runnable setTimeBordersRed = () -> {
-            NodeUtils.setBorder(startDatePicker, "red");
-            NodeUtils.setBorder(startTimeSpinner, "red");
-            NodeUtils.setBorder(endDatePicker, "red");
-            NodeUtils.setBorder(endTimeSpinner, "red");
-        };
-
-
-        if ( !start.isBefore(end)) {
-            valid = false;
-            setTimeBordersRed.run();
-
-            error.append("Start date and time must be before end date and time.\n");
-        } else if (!TimeUtils.isInOpenHours(start, end, ZoneId.systemDefault())) {
-            valid = false;
-
-            error.append("Appointment timeframe must be within open office hours.\n");
-            setTimeBordersRed.run();
-        } else if(Validators.notNull(customerComboBox.getValue())) {
-            // ******************* Checking if customer already has appointment
-            AppointmentDAO dbAppt = new DBAppointment();
-            List<Appointment> custAppointments = dbAppt.getAppointmentsFor(customerComboBox.getValue());
-            for (Appointment a : custAppointments) {
-                if (!String.valueOf(a.getId()).equals(idField.getText()) && a.overlaps(start, end)) {
-                    DateTimeFormatter formatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT);
-
-                    valid = false;
-                    error.append("Customer has overlapping appointment from ");
-                    error.append(a.getStart().format(formatter));
-                    error.append(" - ");
-                    error.append(a.getEnd().format(formatter));
-                    error.append(".\n");
-                    setTimeBordersRed.run();
-
-                    break;
-                }
-            }
-        }
+        return new AppointmentSeries(0, titleField.getText(), descriptionField.getText(), locationField.getText(),
+                typeComboBox.getValue(), start, end, customerComboBox.getValue(), userComboBox.getValue(),
+                contactComboBox.getValue(), recurrence);
+    }
 
-        return new Validators.ValidationResult(valid, error.toString().strip());
+    /**
+     * Validates all the fields on the form with the AppointmentValidator, and sets the border of each invalid field to
+     * red.
+     * @return the result of the validation
+     * */
+    protected Validators.ValidationResult validate() {
+        Map<AppointmentValidator.Field, Control[]> fieldControls = new EnumMap<>(AppointmentValidator.Field.class);
+        fieldControls.put(AppointmentValidator.Field.TITLE, new Control[] {titleField});
+        fieldControls.put(AppointmentValidator.Field.DESCRIPTION, new Control[] {descriptionField});
+        fieldControls.put(AppointmentValidator.Field.LOCATION, new Control[] {locationField});
+        fieldControls.put(AppointmentValidator.Field.TYPE, new Control[] {typeComboBox});
+        fieldControls.put(AppointmentValidator.Field.CUSTOMER, new Control[] {customerComboBox});
+        fieldControls.put(AppointmentValidator.Field.CONTACT, new Control[] {contactComboBox});
+        fieldControls.put(AppointmentValidator.Field.USER, new Control[] {userComboBox});
+        fieldControls.put(AppointmentValidator.Field.TIMES,
+                new Control[] {startDatePicker, startTimeSpinner, endDatePicker, endTimeSpinner});
+        fieldControls.put(AppointmentValidator.Field.UNTIL, new Control[] {untilDatePicker});
+
+        for (Control[] controls : fieldControls.values())
+            NodeUtils.clearBorder(controls);
+
+        LocalDateTime start = LocalDateTime.of(startDatePicker.getValue(), startTimeSpinner.getValue().toLocalTime());
+        LocalDateTime end = LocalDateTime.of(endDatePicker.getValue(), endTimeSpinner.getValue().toLocalTime());
+
+        AppointmentValidator.Result result = new AppointmentValidator(DAOs.appointments(), DAOs.series()).validate(
+                titleField.getText(), descriptionField.getText(), locationField.getText(), typeComboBox.getValue(),
+                customerComboBox.getValue(), contactComboBox.getValue(), userComboBox.getValue(), start, end,
+                getAppointmentId(), getRecurrence(), ZoneId.systemDefault());
+
+        for (AppointmentValidator.Field field : result.getFields())
+            NodeUtils.setBorder(fieldControls.get(field), "red");
+
+        return new Validators.ValidationResult(result.isValid(), result.getError());
+    }
+
+    /**
+     * Shows that the appointment was not saved because another client booked the customer at the time since it was
+     * validated.
+     * @param e the exception thrown by the write
+     * */
+    protected void showOverlap(Exceptions.OverlapException e) {
+        NodeUtils.setBorder(new Control[] {startDatePicker, startTimeSpinner, endDatePicker, endTimeSpinner}, "red");
+        errorLabel.setText(AppointmentValidator.overlapping(e.getOverlap()).getError());
     }
 }
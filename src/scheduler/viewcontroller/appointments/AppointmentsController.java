@@ -10,14 +10,15 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.input.KeyEvent;
 import scheduler.dao.AppointmentDAO;
+import scheduler.dao.AppointmentSeriesDAO;
 import scheduler.dao.ContactDAO;
-import scheduler.dao.CustomerDAO;
+import scheduler.dao.DAOs;
+import scheduler.dao.cache.ReferenceData;
+import scheduler.dao.cache.ChangeFeeds;
 import scheduler.model.Appointment;
+import scheduler.model.AppointmentSeries;
 import scheduler.model.Contact;
 import scheduler.model.Customer;
-import scheduler.mysql.DBAppointment;
-import scheduler.mysql.DBContact;
-import scheduler.mysql.DBCustomer;
 import scheduler.util.*;
 import scheduler.util.time.Week;
 
@@ -25,7 +26,10 @@ import java.net.URL;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.time.YearMonth;
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * Controller for the Appointments screen.
@@ -50,13 +54,15 @@ public class AppointmentsController implements Initializable {
 
     private final List<String> fieldNames = new ArrayList<>();
     public TabPane appointmentsTabPane;
-    private ObservableList<Appointment> allAppointments = FXCollections.observableArrayList();
-    private List<Customer> allCustomers;
-    private List<Contact> allContacts;
+    private List<Customer> allCustomers = new ArrayList<>();
+    private List<Contact> allContacts = new ArrayList<>();
+    private BackgroundLoader.Load allDatesLoad;
+    private BackgroundLoader.Load monthlyLoad;
+    private BackgroundLoader.Load weeklyLoad;
     private ViewOption viewOption = ViewOption.ALL;
-    private final AppointmentDAO dbAppt = new DBAppointment();
-    private final CustomerDAO dbCust = new DBCustomer();
-    private final ContactDAO dbContact = new DBContact();
+    private final AppointmentDAO dbAppt = DAOs.appointments();
+    private final AppointmentSeriesDAO dbSeries = DAOs.series();
+    private final ContactDAO dbContact = ReferenceData.contacts();
     private final List<Month> monthList = Arrays.asList(Month.values());
     private int currMonthIndex = 0;
     private int currYear;
@@ -85,10 +91,18 @@ public class AppointmentsController implements Initializable {
         setToggleGroup();
         allRadio.setSelected(true);
 
-        // retrieve data from db
-        allAppointments = FXCollections.observableList(dbAppt.getAllAppointments());
-        allCustomers = dbCust.getAllCustomers();
-        allContacts = dbContact.getAllContacts();
+        // sorting would load every page, so the paged list of all appointments cannot be sorted
+        allDatesTable.setSortPolicy(tv -> !(tv.getItems() instanceof PagedList));
+
+        // retrieve the accounts from db in the background
+        BackgroundLoader.load(DAOs.customers()::getAllCustomers, customers -> {
+            allCustomers = customers;
+            setAccountItems();
+        });
+        BackgroundLoader.load(dbContact::getAllContacts, contacts -> {
+            allContacts = contacts;
+            setAccountItems();
+        });
 
         // get current month, week, and year
         currMonthIndex = monthList.indexOf(LocalDateTime.now().getMonth());
@@ -117,21 +131,62 @@ public class AppointmentsController implements Initializable {
     }
 
     /**
-     * Gets all appointments filtered based on current options chosen in the UI. The lambda expressions are used to filter
-     * the appointments by either the customer or the contact.
-     * @return the filtered list of Appointments
+     * Retrieves all appointments from the database. The appointments are loaded a page at a time as the table is
+     * scrolled.
+     * @return the list of all appointments
+     * */
+    private ObservableList<Appointment> getAllAppointments() {
+        return new PagedList<>(dbAppt::numOfAppointments, dbAppt::getAppointmentIdAt, dbAppt::getAppointmentsAfter,
+                Appointment::getId);
+    }
+
+    /**
+     * Gets the query for all appointments based on current options chosen in the UI, either all appointments or those
+     * for the selected customer or contact. The options are read when this is called, so the query can run in the
+     * background.
+     * @return the query for the list of Appointments
      * */
-    private ObservableList<Appointment> getAppointments() {
+    private Supplier<List<Appointment>> getAppointments() {
+        Object account = accountComboBox.getSelectionModel().getSelectedItem();
+
         switch (viewOption) {
             case ALL:
-                return allAppointments;
+                return this::getAllAppointments;
             case CONTACT:
-                return allAppointments.filtered(a -> a.getContact().equals(accountComboBox.getSelectionModel().getSelectedItem()));
+                if (account instanceof Contact)
+                    return () -> dbAppt.getAppointmentsFor((Contact) account);
+                break;
             case CUSTOMER:
-                return allAppointments.filtered(a -> a.getCustomer().equals(accountComboBox.getSelectionModel().getSelectedItem()));
-            default:
-                return FXCollections.observableArrayList();
+                if (account instanceof Customer)
+                    return () -> dbAppt.getAppointmentsFor((Customer) account);
+                break;
         }
+
+        return List::of;
+    }
+
+    /**
+     * Gets the condition selecting the appointments of the current account view option, used to apply the changes to
+     * the appointments to the tables. The options are read when this is called.
+     * @return the condition
+     * */
+    private Predicate<Appointment> ofAccount() {
+        Object account = accountComboBox.getSelectionModel().getSelectedItem();
+
+        switch (viewOption) {
+            case ALL:
+                return a -> true;
+            case CONTACT:
+                if (account instanceof Contact)
+                    return a -> a.getContact().getId() == ((Contact) account).getId();
+                break;
+            case CUSTOMER:
+                if (account instanceof Customer)
+                    return a -> a.getCustomerId() == ((Customer) account).getId();
+                break;
+        }
+
+        return a -> false;
     }
 
     /**
@@ -142,7 +197,7 @@ public class AppointmentsController implements Initializable {
         currMonthIndex--;
         monthCheck();
         setMonthLabel();
-        setMonthlyTable(getAppointments());
+        setMonthlyTable();
     }
 
     /**
@@ -153,7 +208,7 @@ public class AppointmentsController implements Initializable {
         currMonthIndex++;
         monthCheck();
         setMonthLabel();
-        setMonthlyTable(getAppointments());
+        setMonthlyTable();
     }
 
     /**
@@ -163,7 +218,7 @@ public class AppointmentsController implements Initializable {
     public void prevWeek(ActionEvent actionEvent) {
         currWeek = currWeek.prevWeek();
         setWeekLabel();
-        setWeeklyTable(getAppointments());
+        setWeeklyTable();
     }
 
     /**
@@ -173,7 +228,7 @@ public class AppointmentsController implements Initializable {
     public void nextWeek(ActionEvent actionEvent) {
         currWeek = currWeek.nextWeek();
         setWeekLabel();
-        setWeeklyTable(getAppointments());
+        setWeeklyTable();
     }
 
     /**
@@ -213,7 +268,7 @@ public class AppointmentsController implements Initializable {
         accountLabel.setDisable(false);
         accountLabel.setText("Contact");
         accountComboBox.setDisable(false);
-        accountComboBox.setItems(FXCollections.observableList(allContacts));
+        setAccountItems();
     }
 
     /**
@@ -234,7 +289,7 @@ public class AppointmentsController implements Initializable {
         accountLabel.setDisable(false);
         accountLabel.setText("Customer");
         accountComboBox.setDisable(false);
-        accountComboBox.setItems(FXCollections.observableList(allCustomers));
+        setAccountItems();
     }
 
     /**
@@ -245,37 +300,134 @@ public class AppointmentsController implements Initializable {
         byCustomer();
     }
 
+    /**
+     * Sets the items of the account combo box to the accounts for the current view option.
+     * */
+    private void setAccountItems() {
+        switch (viewOption) {
+            case CONTACT:
+                accountComboBox.setItems(FXCollections.observableList(allContacts));
+                break;
+            case CUSTOMER:
+                accountComboBox.setItems(FXCollections.observableList(allCustomers));
+                break;
+            default:
+                break;
+        }
+    }
+
     /**
      * Resets the values of all table views with the appropriate list of appointments filtered by account.
      * */
     private void resetTables() {
-        var appts = getAppointments();
+        allDatesLoad = loadTable(allDatesTable, allDatesLoad, getAppointments(), ofAccount(), null);
+        setMonthlyTable();
+        setWeeklyTable();
+    }
 
-        allDatesTable.setItems(appts);
-        setMonthlyTable(appts);
-        setWeeklyTable(appts);
+    /**
+     * Loads a table view in the background, cancelling the previous load of the table if it has not finished so an
+     * older result cannot replace a newer one. The table then follows the changes made to the appointments, so it
+     * does not have to be loaded again to show them.
+     * @param table the table view
+     * @param previous the previous load of the table, or null
+     * @param query the query for the appointments
+     * @param window the condition of the appointments the query selects
+     * @param order the order of the appointments the query selects, or null if added appointments go at the end
+     * @return the load
+     * */
+    private BackgroundLoader.Load loadTable(TableView<Appointment> table, BackgroundLoader.Load previous,
+                                            Supplier<List<Appointment>> query, Predicate<Appointment> window,
+                                            Comparator<Appointment> order) {
+        if (previous != null)
+            previous.cancel();
+
+        return BackgroundLoader.loadItems(table, query, ChangeFeeds.appointments(), window, order);
     }
 
     /**
-     * Resets the monthly table with appointments filtered by month. The lambda expression is used to filter the
-     * appointments by month and year.
-     * @param list the appointments
+     * Gets the query for the appointments starting within a date range for the current account view option. The
+     * options are read when this is called, so the query can run in the background.
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the query for the appointments in the range
      * */
-    private void setMonthlyTable(ObservableList<Appointment> list) {
-        monthlyTable.setItems(list.filtered(a -> {
-            var start = a.getStart();
-            var month = monthList.get(currMonthIndex);
-            return start.getMonth().equals(month) && start.getYear() == currYear;
-        }));
+    private Supplier<List<Appointment>> getAppointmentsBetween(LocalDateTime start, LocalDateTime end) {
+        Object account = accountComboBox.getSelectionModel().getSelectedItem();
+
+        switch (viewOption) {
+            case ALL:
+                return () -> withOccurrences(dbAppt.getAppointmentsBetween(start, end), a -> true, start, end);
+            case CONTACT:
+                if (account instanceof Contact)
+                    return () -> withOccurrences(dbAppt.getAppointmentsBetween((Contact) account, start, end),
+                            a -> a.getContact().getId() == ((Contact) account).getId(), start, end);
+                break;
+            case CUSTOMER:
+                if (account instanceof Customer)
+                    return () -> withOccurrences(dbAppt.getAppointmentsBetween((Customer) account, start, end),
+                            a -> a.getCustomerId() == ((Customer) account).getId(), start, end);
+                break;
+        }
+
+        return List::of;
+    }
+
+    /**
+     * Adds the occurrences of the series running in a date range for an account to the appointments in the range,
+     * ordered by start. Only the occurrences within the range are built.
+     * @param inRange the appointments in the range
+     * @param ofAccount the condition selecting the occurrences of the account
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the appointments in the range
+     * */
+    private List<Appointment> withOccurrences(List<Appointment> inRange, Predicate<Appointment> ofAccount,
+                                              LocalDateTime start, LocalDateTime end) {
+        for (var series : dbSeries.getSeriesBetween(start, end)) {
+            for (var occurrence : series.occurrencesBetween(start, end)) {
+                if (ofAccount.test(occurrence))
+                    inRange.add(occurrence);
+            }
+        }
+
+        inRange.sort(Comparator.comparing(Appointment::getStart));
+
+        return inRange;
+    }
+
+    /**
+     * Gets the condition selecting the appointments of the current account view option that start within a date
+     * range.
+     * @param start the start of the range, inclusive
+     * @param end the end of the range, exclusive
+     * @return the condition
+     * */
+    private Predicate<Appointment> startingBetween(LocalDateTime start, LocalDateTime end) {
+        return ofAccount().and(a -> !a.getStart().isBefore(start) && a.getStart().isBefore(end));
+    }
+
+    /**
+     * Resets the monthly table with the appointments starting in the current month.
+     * */
+    private void setMonthlyTable() {
+        LocalDate firstDay = YearMonth.of(currYear, monthList.get(currMonthIndex)).atDay(1);
+        LocalDateTime start = firstDay.atStartOfDay();
+        LocalDateTime end = firstDay.plusMonths(1).atStartOfDay();
+
+        monthlyLoad = loadTable(monthlyTable, monthlyLoad, getAppointmentsBetween(start, end),
+                startingBetween(start, end), Comparator.comparing(Appointment::getStart));
     }
 
     /**
-     * Resets the weekly table with appointments filtered by week. The lambda expression is used to filter the
-     * appointments by week.
-     * @param list the appointments
+     * Resets the weekly table with the appointments starting in the current week.
      * */
-    private void setWeeklyTable(ObservableList<Appointment> list) {
-        weeklyTable.setItems(list.filtered(a -> currWeek.contains(a.getStart())));
+    private void setWeeklyTable() {
+        LocalDateTime start = currWeek.getFirstDay().atStartOfDay();
+        LocalDateTime end = currWeek.getLastDay().plusDays(1).atStartOfDay();
+
+        weeklyLoad = loadTable(weeklyTable, weeklyLoad, getAppointmentsBetween(start, end),
+                startingBetween(start, end), Comparator.comparing(Appointment::getStart));
     }
 
     /**
@@ -348,7 +500,7 @@ public class AppointmentsController implements Initializable {
     private void goToWeekOf(LocalDate date) {
         currWeek = Week.of(date);
         setWeekLabel();
-        setWeeklyTable(getAppointments());
+        setWeeklyTable();
     }
 
     /**
@@ -360,7 +512,7 @@ public class AppointmentsController implements Initializable {
         currYear = (Integer) yearChoice.getValue();
 
         setMonthLabel();
-        setMonthlyTable(getAppointments());
+        setMonthlyTable();
     }
 
     /**
@@ -387,7 +539,7 @@ public class AppointmentsController implements Initializable {
         currMonthIndex = monthList.indexOf(date.getMonth());
         currYear = date.getYear();
         setMonthLabel();
-        setMonthlyTable(getAppointments());
+        setMonthlyTable();
     }
 
     /**
@@ -435,6 +587,11 @@ public class AppointmentsController implements Initializable {
         if (appointment == null) {
             Alerts.error("Appointment Error", "Appointment Error",
                     "You must select an appointment to edit.");
+        } else if (appointment instanceof AppointmentSeries.Occurrence) {
+            Alerts.error("Appointment Error", "Appointment Error",
+                    "This appointment is an occurrence of series " +
+                            ((AppointmentSeries.Occurrence) appointment).getSeries().getId() +
+                            " and cannot be edited on its own. Delete it to skip this date.");
         }
         else {
             Router.addRoute(getClass());
@@ -451,12 +608,13 @@ public class AppointmentsController implements Initializable {
 
         if (appointment == null) {
             Alerts.error("Appointment Error", "Appointment Error", "You must select an appointment to delete.");
+        } else if (appointment instanceof AppointmentSeries.Occurrence) {
+            deleteOccurrence((AppointmentSeries.Occurrence) appointment);
         } else {
             boolean result = Alerts.confirm("Confirm Delete", "Are you sure?",
                     "Are you sure you want to delete Appointment " + appointment.getId() + "?");
             if (result) {
                 if (dbAppt.deleteAppointment(appointment)) {
-                    allAppointments.remove(appointment);
                     resetTables();
 
                     Alerts.info("Success", "Successfully Deleted",
@@ -468,6 +626,40 @@ public class AppointmentsController implements Initializable {
         }
     }
 
+    /**
+     * Deletes an occurrence of a series, either by skipping its date or by deleting the whole series.
+     * @param occurrence the occurrence
+     * */
+    private void deleteOccurrence(AppointmentSeries.Occurrence occurrence) {
+        AppointmentSeries series = occurrence.getSeries();
+        int choice = Alerts.choose("Confirm Delete", "Are you sure?",
+                "This appointment is an occurrence of series " + series.getId() + ", repeating " +
+                        series.getRecurrence() + ". Skip this date or delete the whole series?",
+                "Skip " + occurrence.getDate(), "Delete Series");
+
+        boolean deleted;
+        switch (choice) {
+            case 0:
+                deleted = dbSeries.skipOccurrence(series, occurrence.getDate());
+                break;
+            case 1:
+                deleted = dbSeries.deleteSeries(series.getId());
+                break;
+            default:
+                return;
+        }
+
+        if (deleted) {
+            resetTables();
+
+            Alerts.info("Success", "Successfully Deleted", choice == 0 ?
+                    "The occurrence on " + occurrence.getDate() + " was skipped." :
+                    "Series " + series.getId() + " was successfully deleted from the database.");
+        } else {
+            Alerts.error("Database Error", "Database Error", "There was an error deleting the series from the database.");
+        }
+    }
+
     /**
      * Gets the table view object of the current tab.
      * @return the table view
@@ -523,7 +715,13 @@ public class AppointmentsController implements Initializable {
      * @param actionEvent the event that triggered the method
      * */
     public void onGenReport(ActionEvent actionEvent) {
-        Reports.export(getReportName(), getActiveTableView(), fieldNames, Router.getStage(actionEvent));
+        TableView tv = getActiveTableView();
+
+        // the paged list only holds a few pages, so all appointments are streamed from the database instead
+        if (tv.getItems() instanceof PagedList)
+            TableReports.export(getReportName(), tv, fieldNames, Router.getStage(actionEvent), dbAppt::forEachAppointment);
+        else
+            TableReports.export(getReportName(), tv, fieldNames, Router.getStage(actionEvent));
     }
 
     /**
@@ -2,9 +2,10 @@ package scheduler.viewcontroller.appointments;
 
 import javafx.event.ActionEvent;
 import scheduler.dao.AppointmentDAO;
+import scheduler.dao.DAOs;
 import scheduler.model.Appointment;
-import scheduler.mysql.DBAppointment;
 import scheduler.util.Alerts;
+import scheduler.util.Exceptions;
 import scheduler.util.Router;
 import scheduler.util.time.Time;
 import scheduler.util.Validators;
@@ -40,11 +41,15 @@ public class EditAppointmentController extends AppointmentChange {
         startTimeSpinner.getValueFactory().setValue(Time.from(loadAppt.getStart()));
         endDatePicker.setValue(loadAppt.getEnd().toLocalDate());
         endTimeSpinner.getValueFactory().setValue(Time.from(loadAppt.getEnd()));
+
+        // a stored appointment stays a single appointment
+        repeatComboBox.setDisable(true);
+        untilDatePicker.setDisable(true);
     }
 
     @Override
     public void onSave(ActionEvent actionEvent) {
-        AppointmentDAO dbAppt = new DBAppointment();
+        AppointmentDAO dbAppt = DAOs.appointments();
 
         errorLabel.setText("");
 
@@ -66,10 +71,14 @@ public class EditAppointmentController extends AppointmentChange {
                     userComboBox.getValue(),
                     contactComboBox.getValue());
 
-            if (dbAppt.updateAppointment(newAppt)) {
-                Router.prevRoute(Router.getStage(actionEvent));
-            } else {
-                Alerts.error("Database Error", "Database Error", "There was a problem creating the customer in the database.");
+            try {
+                if (dbAppt.updateAppointment(newAppt)) {
+                    Router.prevRoute(Router.getStage(actionEvent));
+                } else {
+                    Alerts.error("Database Error", "Database Error", "There was a problem creating the customer in the database.");
+                }
+            } catch (Exceptions.OverlapException e) {
+                showOverlap(e);
             }
         }
         else
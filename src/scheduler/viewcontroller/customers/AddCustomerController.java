@@ -2,7 +2,7 @@ package scheduler.viewcontroller.customers;
 
 import javafx.event.ActionEvent;
 import scheduler.dao.CustomerDAO;
-import scheduler.mysql.DBCustomer;
+import scheduler.dao.DAOs;
 import scheduler.util.Alerts;
 import scheduler.util.Router;
 import scheduler.util.Validators;
@@ -11,7 +11,7 @@ import scheduler.util.Validators;
  * Controller for the Add Customer screen.
  * */
 public class AddCustomerController extends CustomerChange {
-    CustomerDAO dbCust = new DBCustomer();
+    CustomerDAO dbCust = DAOs.customers();
 
     @Override
     public void onSave(ActionEvent actionEvent) {
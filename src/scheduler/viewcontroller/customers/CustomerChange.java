@@ -9,12 +9,12 @@ import javafx.scene.control.Label;
 import javafx.scene.control.TextField;
 import scheduler.dao.CountryDAO;
 import scheduler.dao.CustomerDAO;
+import scheduler.dao.DAOs;
 import scheduler.dao.DivisionDAO;
+import scheduler.dao.cache.ReferenceData;
 import scheduler.model.Country;
 import scheduler.model.Division;
-import scheduler.mysql.DBCountry;
-import scheduler.mysql.DBCustomer;
-import scheduler.mysql.DBDivision;
+import scheduler.util.BackgroundLoader;
 import scheduler.util.Router;
 import scheduler.util.NodeUtils;
 import scheduler.util.Validators;
@@ -40,22 +40,32 @@ public abstract class CustomerChange implements Initializable {
     public Label errorLabel;
 
     private ObservableList<Division> allDivisions = FXCollections.observableArrayList();
-    private final DivisionDAO dbDivision = new DBDivision();
-    private final CountryDAO dbCountry = new DBCountry();
-    private final CustomerDAO dbCustomer = new DBCustomer();
+    private final DivisionDAO dbDivision = ReferenceData.divisions();
+    private final CountryDAO dbCountry = ReferenceData.countries();
+    private final CustomerDAO dbCustomer = DAOs.customers();
 
     /**
-     * Called when the controller is loaded, it initializes values for the controller.
+     * Called when the controller is loaded, it initializes values for the controller. The divisions and countries are
+     * loaded in the background. The lambda expression keeps the divisions filtered by the country if one was selected
+     * before they arrived.
      * @param url not used
      * @param resourceBundle not used
      * */
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        allDivisions = FXCollections.observableList(dbDivision.getAllDivisions());
-        ObservableList<Country> allCountries = FXCollections.observableList(dbCountry.getAllCountries());
+        divisionBox.setPlaceholder(new Label("Loading..."));
 
-        divisionBox.setItems(allDivisions);
-        countryBox.setItems(allCountries);
+        BackgroundLoader.load(dbDivision::getAllDivisions, divisions -> {
+            allDivisions = FXCollections.observableList(divisions);
+            divisionBox.setPlaceholder(null);
+
+            Country country = countryBox.getValue();
+            if (country == null)
+                divisionBox.setItems(allDivisions);
+            else
+                divisionBox.setItems(allDivisions.filtered(d -> d.getCountry().equals(country)));
+        }, e -> divisionBox.setPlaceholder(BackgroundLoader.failedPlaceholder()));
 
+        BackgroundLoader.loadItems(countryBox, dbCountry::getAllCountries);
     }
 
     /**
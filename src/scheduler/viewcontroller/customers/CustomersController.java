@@ -6,24 +6,29 @@ import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.fxml.Initializable;
 import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
 import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
 import scheduler.dao.AppointmentDAO;
 import scheduler.dao.CustomerDAO;
+import scheduler.dao.DAOs;
+import scheduler.dao.cache.ChangeFeed;
+import scheduler.dao.cache.ChangeFeeds;
 import scheduler.model.Customer;
-import scheduler.mysql.DBAppointment;
-import scheduler.mysql.DBCustomer;
 import scheduler.util.Alerts;
+import scheduler.util.BackgroundLoader;
+import scheduler.util.Exceptions;
+import scheduler.util.PagedList;
 import scheduler.util.Router;
-import scheduler.util.SearchUtils;
 import scheduler.util.WordUtils;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.net.URL;
 import java.util.*;
+import java.util.function.Supplier;
 
 /**
  * Controller for the customers screen.
@@ -40,10 +45,12 @@ public class CustomersController implements Initializable {
     public TextField searchField;
     public ChoiceBox searchTypeChoice;
 
-    private ObservableList<Customer> allCustomers;
+    private ObservableList<Customer> allCustomers = FXCollections.observableArrayList();
+    private BackgroundLoader.Load customersLoad;
+    private BackgroundLoader.Load searchLoad;
     private Map<String, String> searchTypeMap = new LinkedHashMap<>();
     private final String searchAllStr = "Search all fields";
-    private final CustomerDAO dbCustomer = new DBCustomer();
+    private final CustomerDAO dbCustomer = DAOs.customers();
 
     /**
      * Called when the controller is loaded, it initializes values for the controller.
@@ -61,9 +68,12 @@ public class CustomersController implements Initializable {
         countryCol.setCellValueFactory(new PropertyValueFactory<Customer, String>("countryName"));
         phoneCol.setCellValueFactory(new PropertyValueFactory<Customer, String>("phone"));
 
-        allCustomers = getCustomers();
+        // follow the changes before loading, so none made while the customers load are missed
+        BackgroundLoader.follow(ChangeFeeds.customers(), this::applyChanges);
+        loadCustomers();
 
-        customersTable.setItems(allCustomers);
+        // sorting would load every page, so only search results can be sorted
+        customersTable.setSortPolicy(tv -> !(tv.getItems() instanceof PagedList));
 
         searchTypeMap.put(searchAllStr, "all");
         searchTypeMap.put("ID", "id");
@@ -87,28 +97,76 @@ public class CustomersController implements Initializable {
     }
 
     /**
-     * Retrieve customer list from the database.
+     * Retrieve customer list from the database. The customers are loaded a page at a time as the table is scrolled.
      * @return the list of customers
      * */
     private ObservableList<Customer> getCustomers() {
-        return FXCollections.observableList(dbCustomer.getAllCustomers());
+        return new PagedList<>(dbCustomer::numOfCustomers, dbCustomer::getCustomerIdAt, dbCustomer::getCustomersAfter,
+                Customer::getId);
     }
 
     /**
-     * Event handler for searching the table view.
+     * Loads the customer list in the background and shows it in the table unless the user is searching.
+     * */
+    private void loadCustomers() {
+        if (customersLoad != null)
+            customersLoad.cancel();
+
+        if (allCustomers.isEmpty())
+            customersTable.setPlaceholder(new Label("Loading..."));
+
+        customersLoad = BackgroundLoader.load(this::getCustomers, customers -> {
+            allCustomers = customers;
+            customersTable.setPlaceholder(null);
+
+            if (searchField.getText().equals(""))
+                customersTable.setItems(allCustomers);
+        }, e -> customersTable.setPlaceholder(BackgroundLoader.failedPlaceholder()));
+    }
+
+    /**
+     * Applies the changes made to the customers to the customer list and to the search results shown, so they do not
+     * have to be loaded again. Search results are only updated, since a new customer may not match the search.
+     * @param changes the changes
+     * */
+    private void applyChanges(ChangeFeed.Changes<Customer> changes) {
+        if (changes.isReset()) {
+            loadCustomers();
+            return;
+        }
+
+        if (allCustomers instanceof PagedList)
+            ((PagedList<Customer>) allCustomers).applyChanges(changes.getChanged(), changes.getDeleted());
+
+        if (customersTable.getItems() != allCustomers)
+            changes.applyTo(customersTable.getItems(), null, null);
+    }
+
+    /**
+     * Event handler for searching the table view. The search runs in the background against the customer search
+     * index, which is built the first time the user searches. A newer search cancels the one before it.
      * @param event the event that triggered the method
      * */
     public void search(Event event) {
         String text = searchField.getText();
+
+        if (searchLoad != null)
+            searchLoad.cancel();
+
         if(text.equals("")) {
             customersTable.setItems(allCustomers);
         } else {
+            Supplier<List<Customer>> query;
+
             if (searchTypeChoice.getSelectionModel().getSelectedItem().equals(searchAllStr)) {
-                customersTable.setItems(SearchUtils.search(allCustomers, text));
+                query = () -> dbCustomer.searchCustomers(text);
             } else {
                 String param = searchTypeMap.get(searchTypeChoice.getSelectionModel().getSelectedItem());
-                customersTable.setItems(SearchUtils.search(allCustomers, text, param));
+                query = () -> dbCustomer.searchCustomers(text, param);
             }
+
+            searchLoad = BackgroundLoader.load(query,
+                    results -> customersTable.setItems(FXCollections.observableList(results)));
         }
     }
 
@@ -159,7 +217,7 @@ public class CustomersController implements Initializable {
      * @param actionEvent the event that triggered the method
      * */
     public void onDelete(ActionEvent actionEvent) {
-        AppointmentDAO dbAppt = new DBAppointment();
+        AppointmentDAO dbAppt = DAOs.appointments();
         Customer customer = customersTable.getSelectionModel().getSelectedItem();
 
         // Check if customer is selected *******************************
@@ -171,8 +229,9 @@ public class CustomersController implements Initializable {
             boolean result = Alerts.confirm("Confirm Delete", "Are you sure?",
                     "Are you sure you want to delete Customer " + customer.getName() + "?");
             if (result) {
-                var appointments = dbAppt.getAppointmentsFor(customer);
-                if(appointments.size() > 0) {
+                boolean hasAppointments = dbAppt.numOfAppointments(customer) > 0;
+
+                if (hasAppointments) {
 
                     // Confirm deletion of appointments ***************************
                     result = Alerts.warn("Warning", "Continue?",
@@ -181,25 +240,26 @@ public class CustomersController implements Initializable {
                 }
 
                 if (result) {
+                    boolean deleted;
+
+                    // Delete the customer, along with all their appointments only if the user agreed to it *******
+                    try {
+                        deleted = hasAppointments ? dbCustomer.deleteCustomerCascade(customer)
+                                : dbCustomer.deleteCustomer(customer);
+                    } catch (Exceptions.HasAppointmentsException e) {
+                        Alerts.error("Customer Error", "Appointments Scheduled", customer.getName() +
+                                " was booked an appointment in the meantime. Delete again to also delete it.");
+                        return;
+                    }
+
+                    if (deleted) {
+                        loadCustomers();
+                        search(actionEvent);
 
-                    // Delete all customer appointments ***************************
-                    for(var a : appointments)
-                        if (!dbAppt.deleteAppointment(a))
-                            Alerts.error("Database Error", "Database Error",
-                                    "There was a problem deleting Appointment " + a.getId() + " from the" +
-                                            "database.");
-
-                    // If there are no appointments for the customer, delete the customer **************
-                    if (dbAppt.getAppointmentsFor(customer).size() == 0) {
-                        if (dbCustomer.deleteCustomer(customer)) {
-                            allCustomers.remove(customer);
-                            customersTable.getItems().remove(customer);
-
-                            Alerts.info("Success", "Successfully Deleted",
-                                    customer.getName() + " was successfully deleted from the database.");
-                        } else {
-                            Alerts.error("Database Error", "Database Error", "There was an error deleting appointment from the database.");
-                        }
+                        Alerts.info("Success", "Successfully Deleted",
+                                customer.getName() + " was successfully deleted from the database.");
+                    } else {
+                        Alerts.error("Database Error", "Database Error", "There was an error deleting the customer from the database.");
                     }
                 }
             }
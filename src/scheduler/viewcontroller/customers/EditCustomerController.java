@@ -2,8 +2,8 @@ package scheduler.viewcontroller.customers;
 
 import javafx.event.ActionEvent;
 import scheduler.dao.CustomerDAO;
+import scheduler.dao.DAOs;
 import scheduler.model.Customer;
-import scheduler.mysql.DBCustomer;
 import scheduler.util.Alerts;
 import scheduler.util.Router;
 import scheduler.util.Validators;
@@ -16,7 +16,7 @@ import java.util.ResourceBundle;
  * */
 public class EditCustomerController extends CustomerChange {
     private Customer origCustomer;
-    private final CustomerDAO dbCust = new DBCustomer();
+    private final CustomerDAO dbCust = DAOs.customers();
 
     public EditCustomerController(Customer customer){
         this.origCustomer = customer;
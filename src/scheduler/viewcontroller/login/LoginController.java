@@ -5,10 +5,11 @@ import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 import scheduler.dao.AppointmentDAO;
+import scheduler.dao.DAOs;
 import scheduler.dao.UserDAO;
+import scheduler.dao.cache.ReferenceData;
+import scheduler.model.Appointment;
 import scheduler.model.User;
-import scheduler.mysql.DBAppointment;
-import scheduler.mysql.DBUser;
 import scheduler.util.*;
 
 import java.net.URL;
@@ -16,6 +17,8 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
 import java.util.stream.Collectors;
@@ -24,8 +27,6 @@ import java.util.stream.Collectors;
  * Controller for the Login Screen.
  * */
 public class LoginController implements Initializable {
-    private static final String LOG_FILENAME = "login_activity.txt";
-
     public TextField usernameField;
     public PasswordField passwordField;
     public Label zoneLabel;
@@ -36,7 +37,7 @@ public class LoginController implements Initializable {
     public Button clearButton;
     public Button loginButton;
     public Label zoneIdLabel;
-    private UserDAO dbUser = new DBUser();
+    private UserDAO dbUser = ReferenceData.users();
     private final ResourceBundle rb = ResourceBundle.getBundle("scheduler/viewcontroller/login/login", Locale.getDefault());
 
 
@@ -90,13 +91,17 @@ public class LoginController implements Initializable {
     }
 
     /**
-     * Checks if there are any appointments starting within 15 minutes and displays message to user. Lambda expression
-     * is used here to filter the appointments and get only those in the desired timeframe.
+     * Checks if there are any appointments starting within 15 minutes and displays message to user. Only the next
+     * 16 minutes of appointments and occurrences of series are retrieved, and the lambda expression is used here to
+     * filter the appointments and get only those in the desired timeframe.
      * */
     private void checkForAppointments() {
-        AppointmentDAO dbAppt = new DBAppointment();
-        var appts = dbAppt.getAllAppointments();
+        AppointmentDAO dbAppt = DAOs.appointments();
         LocalDateTime now = LocalDateTime.now();
+        List<Appointment> appts = new ArrayList<>(dbAppt.getAppointmentsBetween(now, now.plusMinutes(16)));
+
+        for (var series : DAOs.series().getSeriesBetween(now, now.plusMinutes(16)))
+            appts.addAll(series.occurrencesBetween(now, now.plusMinutes(16)));
 
         appts = appts.stream().filter(a -> {
             boolean inFuture = a.getStart().isAfter(now) || a.getStart().equals(now);
@@ -130,18 +135,12 @@ public class LoginController implements Initializable {
     }
 
     /**
-     * Adds the login attempt to the log file.
+     * Adds the login attempt to the log file, and to the login store that the login reports read, the same way the
+     * HTTP API does.
      * @param user the attempted username
      * @param success the result of the login attempt
      * */
     public void logAttempt(String user, boolean success) {
-        var now = LocalDateTime.now();
-        String successStr = success ? "SUCCESS" : "FAILURE";
-
-        StringBuilder line = new StringBuilder();
-        line.append(now).append(" ").append(successStr);
-        line.append(" | USER: ").append(user);
-
-        FileUtils.write(LOG_FILENAME, line.toString());
+        LoginLog.record(user, success);
     }
 }
@@ -1,45 +1,56 @@
 package scheduler.viewcontroller.reports;
 
-import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.fxml.Initializable;
 import javafx.scene.control.ComboBox;
+import javafx.scene.control.DatePicker;
 import javafx.scene.control.Label;
+import javafx.scene.control.TextField;
 import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.stage.Stage;
+import javafx.util.Callback;
 import scheduler.dao.AppointmentDAO;
 import scheduler.dao.ContactDAO;
 import scheduler.dao.CustomerDAO;
+import scheduler.dao.DAOs;
 import scheduler.dao.UserDAO;
-import scheduler.model.Appointment;
+import scheduler.dao.cache.ReferenceData;
 import scheduler.model.Contact;
 import scheduler.model.Customer;
 import scheduler.model.User;
-import scheduler.mysql.DBAppointment;
-import scheduler.mysql.DBContact;
-import scheduler.mysql.DBCustomer;
-import scheduler.mysql.DBUser;
+import scheduler.report.ReportCatalog;
 import scheduler.util.Alerts;
+import scheduler.util.BackgroundLoader;
+import scheduler.util.LoginStore;
 import scheduler.util.NodeUtils;
 import scheduler.util.Router;
 
 import java.net.URL;
-import java.time.Month;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
- * Controller for the report menu screen.
+ * Controller for the report menu screen. Each report is built in the background, and shown once it is built.
  * */
 public class ReportMenuController implements Initializable {
     public ComboBox<Customer> customerComboBox;
     public ComboBox<Contact> contactComboBox;
     public ComboBox<User> userComboBox;
+    public TextField loginUserField;
+    public DatePicker loginFromPicker;
+    public DatePicker loginToPicker;
     public Label errorLabel;
 
-    private final CustomerDAO dbCust = new DBCustomer();
-    private final ContactDAO dbCon = new DBContact();
-    private final UserDAO dbUser = new DBUser();
-    private final AppointmentDAO dbAppt = new DBAppointment();
+    private final CustomerDAO dbCust = DAOs.customers();
+    private final ContactDAO dbCon = ReferenceData.contacts();
+    private final UserDAO dbUser = ReferenceData.users();
+    private final AppointmentDAO dbAppt = DAOs.appointments();
 
     /**
      * Called when the controller is loaded, it initializes values for the controller.
@@ -48,9 +59,12 @@ public class ReportMenuController implements Initializable {
      * */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        customerComboBox.setItems(FXCollections.observableList(dbCust.getAllCustomers()));
-        contactComboBox.setItems(FXCollections.observableList(dbCon.getAllContacts()));
-        userComboBox.setItems(FXCollections.observableList(dbUser.getAllUsers()));
+        BackgroundLoader.loadItems(customerComboBox, dbCust::getAllCustomers);
+        BackgroundLoader.loadItems(contactComboBox, dbCon::getAllContacts);
+        BackgroundLoader.loadItems(userComboBox, dbUser::getAllUsers);
+
+        loginFromPicker.setValue(LocalDate.now().minusDays(ReportCatalog.defaultLoginReportDays));
+        loginToPicker.setValue(LocalDate.now());
     }
 
     /**
@@ -68,12 +82,11 @@ public class ReportMenuController implements Initializable {
     public void onCustomerSchedule(ActionEvent actionEvent) {
         if (validate(customerComboBox)) {
             Customer customer = customerComboBox.getValue();
-            List<Appointment> appts = dbAppt.getAppointmentsFor(customer);
-            appts.sort(ReportMenuController::sortAppt);
             var map = getApptColumnFieldMap();
             String reportName = "Customer Schedule, " + customer.getName();
-            Router.addRoute(getClass());
-            Router.goToReportView(Router.getStage(actionEvent), appts, map, reportName, PropertyValueFactory::new);
+
+            showReport(actionEvent, () -> ReportCatalog.schedule(dbAppt.getAppointmentsFor(customer),
+                    a -> a.getCustomerId() == customer.getId()), map, reportName, PropertyValueFactory::new);
         } else {
             Alerts.error("Customer Error", "Nothing Selected", "You must choose a customer to run this report.");
         }
@@ -86,75 +99,52 @@ public class ReportMenuController implements Initializable {
     public void onContactSchedule(ActionEvent actionEvent) {
         if (validate(contactComboBox)) {
             Contact contact = contactComboBox.getValue();
-            List<Appointment> appts = dbAppt.getAppointmentsFor(contact);
-            appts.sort(ReportMenuController::sortAppt);
             var map = getApptColumnFieldMap();
             String reportName = "Contact Schedule, " + contact.getName();
 
-            Router.addRoute(getClass());
-            Router.goToReportView(Router.getStage(actionEvent), appts, map, reportName, PropertyValueFactory::new);
+            showReport(actionEvent, () -> ReportCatalog.schedule(dbAppt.getAppointmentsFor(contact),
+                    a -> a.getContact().getId() == contact.getId()), map, reportName, PropertyValueFactory::new);
         } else {
             Alerts.error("Contact Error", "Nothing Selected", "You must choose a contact to run this report.");
         }
     }
 
     /**
-     * Event handler for the user schedule button. The lambda expression filters the appointments by user.
+     * Event handler for the user schedule button.
      * @param actionEvent the event that triggered the method
      * */
     public void onUserSchedule(ActionEvent actionEvent) {
         if (validate(userComboBox)) {
             User user = userComboBox.getValue();
-            List<Appointment> appts = dbAppt.getAllAppointments()
-                    .stream()
-                    .filter(a -> a.getUser().equals(user))
-                    .sorted(ReportMenuController::sortAppt)
-                    .collect(Collectors.toList());
             var map = getApptColumnFieldMap();
             String reportName = "User Schedule, " + user.getName();
 
-            Router.addRoute(getClass());
-            Router.goToReportView(Router.getStage(actionEvent), appts, map, reportName, PropertyValueFactory::new);
+            showReport(actionEvent, () -> ReportCatalog.schedule(dbAppt.getAppointmentsFor(user),
+                    a -> a.getUser().getId() == user.getId()), map, reportName, PropertyValueFactory::new);
         } else {
             Alerts.error("User Error", "Nothing Selected", "You must choose a user to run this report.");
         }
     }
 
     /**
-     * Event handler for the month analysis button. The first lambda expression maps the appointments to their month value, which is then
-     * grouped and counted with the stream. The second lambda expression maps each month/count entry to a list where the
-     * first element is the month string and the second element is the count string.
+     * Event handler for the month analysis button. The months are counted by the database. The lambda expression maps
+     * each month/count entry to a list where the first element is the month string and the second element is the
+     * count string.
      * @param actionEvent the event that triggered the method
      * */
     public void onMonthAnalysis(ActionEvent actionEvent) {
-        Map<Month, Long> data = dbAppt.getAllAppointments()
-                .stream()
-                .map(a -> a.getStart().getMonth()).sorted(Comparator.naturalOrder())
-                .collect(Collectors.groupingBy(a -> a,Collectors.counting()));
-
-        Map<Month, Long> dataAllMonths = new LinkedHashMap<>();
-
-        for(Month month: Month.values()) {
-            dataAllMonths.put(month, data.getOrDefault(month, 0L));
-        }
-
         Map<String, String> map = new LinkedHashMap<>();
         map.put("Month", "0");
         map.put("Count", "1");
 
-        var dataEntryList = new ArrayList<>(dataAllMonths.entrySet());
-
-        List<List<String>> list = dataEntryList.stream()
+        String reportName = "Month Analysis";
+        showReport(actionEvent, () -> ReportCatalog.appointmentsByMonth().entrySet().stream()
                 .map(e -> {
                     List<String> l = new ArrayList<>();
                     l.add(e.getKey().toString());
                     l.add(e.getValue().toString());
                     return l;
-                }).collect(Collectors.toList());
-
-        String reportName = "Month Analysis";
-        Router.addRoute(getClass());
-        Router.goToReportView(Router.getStage(actionEvent), list, map, reportName, NodeUtils.ListValueFactory);
+                }).collect(Collectors.toList()), map, reportName, NodeUtils.ListValueFactory);
     }
 
     /**
@@ -163,30 +153,141 @@ public class ReportMenuController implements Initializable {
      * @param actionEvent the event that triggered the method
      * */
     public void onTypeAnalysis(ActionEvent actionEvent) {
-        var data = dbAppt.appointmentsByType();
-        Map<Appointment.Type, Long> dataAllTypes = new LinkedHashMap<>();
-
-        for(var type: Appointment.Type.values()) {
-            dataAllTypes.put(type, data.getOrDefault(type, 0L));
-        }
-
-        var dataEntryList = new ArrayList<>(dataAllTypes.entrySet());
+        Map<String,String> map = new LinkedHashMap<>();
+        map.put("Type", "0");
+        map.put("Count", "1");
 
-        List<List<String>> list = dataEntryList.stream()
+        String reportName = "Type Analysis";
+        showReport(actionEvent, () -> ReportCatalog.appointmentsByType().entrySet().stream()
                 .map(e -> {
                     List<String> l = new ArrayList<>();
                     l.add(e.getKey().toString());
                     l.add(e.getValue().toString());
                     return l;
-                }).collect(Collectors.toList());
+                }).collect(Collectors.toList()), map, reportName, NodeUtils.ListValueFactory);
+    }
 
-        Map<String,String> map = new LinkedHashMap<>();
-        map.put("Type", "0");
-        map.put("Count", "1");
+    /**
+     * Event handler for the login attempts button. Reports every login attempt of a username between the chosen
+     * dates, read from the login store by following the username's index. The lambda expression maps each attempt to
+     * a list of its time, username, and result.
+     * @param actionEvent the event that triggered the method
+     * */
+    public void onLoginAttempts(ActionEvent actionEvent) {
+        String user = loginUserField.getText() == null ? "" : loginUserField.getText().strip();
 
-        String reportName = "Type Analysis";
-        Router.addRoute(getClass());
-        Router.goToReportView(Router.getStage(actionEvent), list, map, reportName, NodeUtils.ListValueFactory);
+        if (user.isEmpty()) {
+            Alerts.error("Login Error", "No Username", "You must enter a username to run this report.");
+            return;
+        }
+
+        if (!validateLoginDates()) {
+            return;
+        }
+
+        Instant from = loginFrom();
+        Instant to = loginTo();
+        Map<String, String> map = new LinkedHashMap<>();
+        map.put("Time", "0");
+        map.put("Username", "1");
+        map.put("Result", "2");
+
+        String reportName = "Login Attempts, " + user;
+        showReport(actionEvent, () -> logins().attempts(user, from, to).stream()
+                .map(ReportCatalog::loginAttemptRow)
+                .collect(Collectors.toList()), map, reportName, NodeUtils.ListValueFactory);
+    }
+
+    /**
+     * Event handler for the login failure rate button. Reports the login attempts and failures for each hour of the
+     * day between the chosen dates, reading only the attempts in that range from the login store. The lambda
+     * expression maps each hour to a list of the hour, attempts, failures, and failure rate.
+     * @param actionEvent the event that triggered the method
+     * */
+    public void onLoginFailureRate(ActionEvent actionEvent) {
+        if (!validateLoginDates()) {
+            return;
+        }
+
+        Instant from = loginFrom();
+        Instant to = loginTo();
+        Map<String, String> map = new LinkedHashMap<>();
+        map.put("Hour", "0");
+        map.put("Attempts", "1");
+        map.put("Failures", "2");
+        map.put("Failure Rate", "3");
+
+        String reportName = "Login Failure Rate";
+        showReport(actionEvent, () -> logins().failureRateByHour(from, to, ZoneId.systemDefault()).stream()
+                .map(ReportCatalog::failureRateRow)
+                .collect(Collectors.toList()), map, reportName, NodeUtils.ListValueFactory);
+    }
+
+    /**
+     * Builds the rows of a report in the background, then goes to the report view to show them. If they cannot be
+     * built, the error is shown and the user stays on the report menu.
+     * @param actionEvent the event that triggered the report
+     * @param rows the work that builds the rows
+     * @param map the map of column title to field name
+     * @param reportName the report name
+     * @param factoryFunction the lambda expression to generate the factory for the report's columns
+     * */
+    private void showReport(ActionEvent actionEvent, Supplier<? extends List<?>> rows, Map<String, String> map,
+                            String reportName, Function<String, Callback> factoryFunction) {
+        Stage stage = Router.getStage(actionEvent);
+
+        BackgroundLoader.load(rows, list -> {
+            Router.addRoute(getClass());
+            Router.goToReportView(stage, list, map, reportName, factoryFunction);
+        });
+    }
+
+    /**
+     * Gets the login store, opening it on first use, which is why it is only called in the background.
+     * @return the store
+     * @throws IllegalStateException if the store cannot be opened
+     * */
+    private static LoginStore logins() {
+        LoginStore store = LoginStore.logins();
+
+        if (store == null)
+            throw new IllegalStateException("The login attempts could not be read.");
+
+        return store;
+    }
+
+    /**
+     * Checks that both login report dates are chosen and in order, showing an error if they are not.
+     * @return true if the dates are valid
+     * */
+    private boolean validateLoginDates() {
+        if (loginFromPicker.getValue() == null || loginToPicker.getValue() == null) {
+            Alerts.error("Login Error", "No Dates", "You must choose a start and end date to run this report.");
+            return false;
+        }
+
+        if (loginFromPicker.getValue().isAfter(loginToPicker.getValue())) {
+            Alerts.error("Login Error", "Invalid Dates", "The start date must not be after the end date.");
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets the start of the login report range.
+     * @return the start of the from date
+     * */
+    private Instant loginFrom() {
+        return loginFromPicker.getValue().atStartOfDay(ZoneId.systemDefault()).toInstant();
+    }
+
+    /**
+     * Gets the end of the login report range.
+     * @return the start of the day after the to date
+     * */
+    private Instant loginTo() {
+        return loginToPicker.getValue().plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant();
     }
 
     /**
@@ -203,30 +304,6 @@ public class ReportMenuController implements Initializable {
      * @return the column-field map
      * */
     private Map<String, String> getApptColumnFieldMap() {
-        List<String> fieldNames = new ArrayList<>();
-        List<String> columnNames = new ArrayList<>();
-        Map<String, String> columnFieldMap = new LinkedHashMap<>();
-        fieldNames.addAll(List.of("id", "title", "description", "location", "contact", "type", "startFormatted", "endFormatted", "customerId", "customerName"));
-        columnNames.addAll(List.of("Appt ID", "Title", "Description", "Location", "Contact", "Type", "Start", "End", "Cust ID", "Customer Name"));
-
-        for(int i = 0; i < fieldNames.size(); i++)
-            columnFieldMap.put(columnNames.get(i), fieldNames.get(i));
-
-        return columnFieldMap;
-    }
-
-    /**
-     * Comparator function for sorting appointments.
-     * @param a first appointment
-     * @param b second appointment
-     * @return -1 for less than, 0 for equal, and 1 for greater than
-     * */
-    private static int sortAppt(Appointment a, Appointment b) {
-        if (a.getStart().equals(b.getStart()))
-            return 0;
-        else if (a.getStart().isBefore(b.getStart()))
-            return -1;
-        else
-            return 1;
+        return ReportCatalog.appointmentColumns();
     }
 }
@@ -8,6 +8,7 @@ import javafx.scene.control.TableView;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.util.Callback;
 import scheduler.util.Reports;
+import scheduler.util.TableReports;
 import scheduler.util.Router;
 
 import java.util.ArrayList;
@@ -28,7 +29,7 @@ public class ReportViewController {
      * @param actionEvent the event that triggered the method
      * */
     public void onExport(ActionEvent actionEvent) {
-        Reports.export(getReportName(), table, fieldNames, Router.getStage(actionEvent));
+        TableReports.export(getReportName(), table, fieldNames, Router.getStage(actionEvent));
     }
 
     /**
@@ -36,8 +37,7 @@ public class ReportViewController {
      * @return the raw filename
      * */
     private String getReportName() {
-        String value = reportNameLabel.getText().replace(", ", " ").toLowerCase();
-        return String.join("_", value.split(" "));
+        return Reports.toFileName(reportNameLabel.getText());
     }
 
     /**